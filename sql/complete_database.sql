@@ -89,6 +89,8 @@ CREATE TABLE bills (
                        FOREIGN KEY (user_id_ref) REFERENCES users(id) ON DELETE SET NULL,
                        INDEX idx_bill_number (bill_number),
                        INDEX idx_bill_date (bill_date),
+                       INDEX idx_bill_date_number (bill_date, bill_number),
+                       INDEX idx_created_at_id (created_at, id),
                        INDEX idx_transaction_type (transaction_type),
                        INDEX idx_status (status),
                        INDEX idx_user_id (user_id),
@@ -222,6 +224,8 @@ CREATE TABLE sales (
                        INDEX idx_sale_number (sale_number),
                        INDEX idx_cashier_id (cashier_id),
                        INDEX idx_created_at (created_at),
+                       INDEX idx_created_at_id (created_at, id),
+                       INDEX idx_cashier_created_at_id (cashier_id, created_at, id),
                        INDEX idx_status (status)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -0,0 +1,13 @@
+-- ============================================
+-- SYOS POS SYSTEM - KEYSET PAGINATION INDEXES
+-- Supports (created_at, id) / (bill_date, bill_number) seek pagination
+-- used by the bill and sale listings
+-- ============================================
+
+USE syos_db;
+
+CREATE INDEX idx_bill_date_number ON bills(bill_date, bill_number);
+CREATE INDEX idx_created_at_id ON bills(created_at, id);
+
+CREATE INDEX idx_created_at_id ON sales(created_at, id);
+CREATE INDEX idx_cashier_created_at_id ON sales(cashier_id, created_at, id);
@@ -30,8 +30,8 @@ public class MoveToShelfCommand implements Command {
         presenter.showHeader("Move Items to Shelf");
 
         try {
-            // Show available items in store
-            List<Item> storeItems = inventoryService.getItemsInStore();
+            // Show items in store with stock left to move
+            List<Item> storeItems = inventoryService.getMovableStoreItems();
 
             if (storeItems.isEmpty()) {
                 presenter.showInfo("No items available in store to move to shelf.");
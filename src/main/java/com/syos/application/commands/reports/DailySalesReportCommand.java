@@ -1,6 +1,7 @@
 package com.syos.application.commands.reports;
 
 import com.syos.application.interfaces.Command;
+import com.syos.application.reports.DailySalesReport;
 import com.syos.application.services.ReportService;
 import com.syos.infrastructure.ui.presenters.ReportPresenter;
 import com.syos.infrastructure.ui.cli.InputReader;
@@ -10,6 +11,7 @@ public class DailySalesReportCommand implements Command {
     private final ReportService reportService;
     private final ReportPresenter presenter;
     private final InputReader inputReader;
+    private final ReportExportDialog exportDialog;
 
     public DailySalesReportCommand(ReportService reportService,
                                    ReportPresenter presenter,
@@ -17,6 +19,7 @@ public class DailySalesReportCommand implements Command {
         this.reportService = reportService;
         this.presenter = presenter;
         this.inputReader = inputReader;
+        this.exportDialog = new ReportExportDialog(presenter, inputReader);
     }
 
 /* <<<<<<<<<<<<<<  ✨ Windsurf Command ⭐ >>>>>>>>>>>>>>>> */
@@ -34,8 +37,12 @@ public class DailySalesReportCommand implements Command {
                 date = LocalDate.now();
             }
 
-            var report = reportService.generateDailySalesReport(date);
-            presenter.showReport(report);
+            DailySalesReport report = reportService.createDailySalesReport(date);
+            presenter.showReport(report.generateReport());
+
+            if (inputReader.readBoolean("Export this report?")) {
+                exportDialog.export(report.toTable(), "daily_sales_" + date);
+            }
         } catch (Exception e) {
             presenter.showError("Failed to generate report: " + e.getMessage());
         }
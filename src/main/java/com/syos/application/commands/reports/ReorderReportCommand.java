@@ -1,7 +1,9 @@
 package com.syos.application.commands.reports;
 
 import com.syos.application.interfaces.Command;
+import com.syos.application.reports.ReorderReport;
 import com.syos.application.services.ReportService;
+import com.syos.infrastructure.ui.cli.InputReader;
 import com.syos.infrastructure.ui.presenters.ReportPresenter;
 
 /**
@@ -11,10 +13,14 @@ import com.syos.infrastructure.ui.presenters.ReportPresenter;
 public class ReorderReportCommand implements Command {
     private final ReportService reportService;
     private final ReportPresenter presenter;
+    private final InputReader inputReader;
+    private final ReportExportDialog exportDialog;
 
     public ReorderReportCommand(ReportService reportService, ReportPresenter presenter) {
         this.reportService = reportService;
         this.presenter = presenter;
+        this.inputReader = InputReader.getInstance();
+        this.exportDialog = new ReportExportDialog(presenter, inputReader);
     }
 
     @Override
@@ -23,30 +29,28 @@ public class ReorderReportCommand implements Command {
             presenter.showInfo("Generating Reorder Level Report...");
 
             // Generate the report
-            String report = reportService.generateReorderReport();
+            ReorderReport report = reportService.createReorderReport();
 
             // Display the report
-            presenter.showReport(report);
+            presenter.showReport(report.generateReport());
 
             // Show additional options
-            showReorderOptions();
+            showReorderOptions(report);
 
         } catch (Exception e) {
             presenter.showError("Failed to generate reorder report: " + e.getMessage());
         }
     }
 
-    private void showReorderOptions() {
+    private void showReorderOptions(ReorderReport report) {
         System.out.println("\nReorder Actions:");
         System.out.println("1. Generate purchase orders (future feature)");
         System.out.println("2. Email suppliers (future feature)");
-        System.out.println("3. Export to CSV (future feature)");
-        System.out.println("\nPress Enter to continue...");
+        System.out.println("3. Export report (text, CSV or JSON Lines)");
 
-        try {
-            System.in.read();
-        } catch (Exception e) {
-            // Ignore
+        String choice = inputReader.readString("\nSelect an option or press Enter to continue: ");
+        if (choice.equals("3")) {
+            exportDialog.export(report.toTable(), "reorder_report");
         }
     }
 
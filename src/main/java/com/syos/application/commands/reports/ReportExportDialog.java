@@ -0,0 +1,80 @@
+package com.syos.application.commands.reports;
+
+import com.syos.infrastructure.ui.cli.InputReader;
+import com.syos.infrastructure.ui.presenters.ReportPresenter;
+import com.syos.shared.export.ExportFormat;
+import com.syos.shared.export.ReportExporter;
+import com.syos.shared.export.ReportTable;
+import java.awt.Desktop;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Shared console prompts for exporting a generated report to the reports/ folder
+ * Asks for format, compression and file name, then streams the report table to disk
+ */
+class ReportExportDialog {
+    private static final Path REPORTS_DIR = Paths.get("reports");
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final ReportPresenter presenter;
+    private final InputReader inputReader;
+
+    ReportExportDialog(ReportPresenter presenter, InputReader inputReader) {
+        this.presenter = presenter;
+        this.inputReader = inputReader;
+    }
+
+    /**
+     * @param table The already aggregated report
+     * @param filePrefix Default file name prefix, e.g. "stock_report"
+     */
+    void export(ReportTable table, String filePrefix) {
+        try {
+            ExportFormat format = readFormat();
+            boolean gzip = inputReader.readBoolean("Compress with gzip?");
+
+            String filename = inputReader.readString("Enter filename (without extension): ");
+            if (filename.isEmpty()) {
+                filename = filePrefix + "_" + LocalDateTime.now().format(FILE_STAMP);
+            }
+
+            presenter.showInfo("Exporting to " + REPORTS_DIR.resolve(
+                    ReportExporter.fileName(filename, format, gzip)).toAbsolutePath() + "...");
+
+            Path file = ReportExporter.exportToFile(table, format, gzip, REPORTS_DIR, filename);
+
+            presenter.showSuccess("Report exported successfully!");
+            presenter.showInfo("File saved to: " + file.toAbsolutePath());
+
+            // Offer to open the file location
+            if (Desktop.isDesktopSupported()) {
+                if (inputReader.readBoolean("Open file location?")) {
+                    Desktop.getDesktop().open(REPORTS_DIR.toFile());
+                }
+            }
+        } catch (IOException e) {
+            presenter.showError("Failed to export report: " + e.getMessage());
+        }
+    }
+
+    private ExportFormat readFormat() {
+        System.out.println("\nExport format:");
+        System.out.println("1. Text (.txt)");
+        System.out.println("2. CSV (.csv)");
+        System.out.println("3. JSON Lines (.jsonl)");
+
+        String choice = inputReader.readString("Select format (default 1): ");
+        switch (choice) {
+            case "2":
+                return ExportFormat.CSV;
+            case "3":
+                return ExportFormat.JSONL;
+            default:
+                return ExportFormat.TEXT;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.syos.application.commands.reports;
 import com.syos.application.interfaces.Command;
 import com.syos.application.services.ReportService;
 import com.syos.application.services.InventoryService;
+import com.syos.application.reports.StockReport;
 import com.syos.infrastructure.ui.presenters.ReportPresenter;
 import com.syos.infrastructure.ui.presenters.InventoryPresenter;
 import com.syos.infrastructure.ui.cli.InputReader;
@@ -10,12 +11,6 @@ import com.syos.domain.entities.Item;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.io.File;
-import java.awt.Desktop;
 
 /**
  * Command to generate and display stock report with additional options
@@ -27,7 +22,8 @@ public class StockReportCommand implements Command {
     private final ReportPresenter presenter;
     private final InventoryPresenter inventoryPresenter;
     private final InputReader inputReader;
-    private String lastGeneratedReport;
+    private final ReportExportDialog exportDialog;
+    private StockReport lastGeneratedReport;
 
     public StockReportCommand(ReportService reportService,
                               InventoryService inventoryService,
@@ -39,6 +35,7 @@ public class StockReportCommand implements Command {
         this.presenter = presenter;
         this.inventoryPresenter = inventoryPresenter;
         this.inputReader = InputReader.getInstance();
+        this.exportDialog = new ReportExportDialog(presenter, this.inputReader);
     }
 
     @Override
@@ -47,8 +44,8 @@ public class StockReportCommand implements Command {
             presenter.showInfo("Generating Stock Report...");
 
             // Generate the main report
-            lastGeneratedReport = reportService.generateStockReport();
-            presenter.showReport(lastGeneratedReport);
+            lastGeneratedReport = reportService.createStockReport();
+            presenter.showReport(lastGeneratedReport.generateReport());
 
             // Offer additional options
             handleReportOptions();
@@ -270,65 +267,14 @@ public class StockReportCommand implements Command {
         }
     }
 
-///  Method to export the report to a file (this will place the report in a folder called reports/ inside the main src directory, and it would open up the folder after generating the report)
+    /**
+     * Export the report shown above to the reports/ folder.
+     * The statistics come from the same loaded items, so the inventory is not queried again.
+     */
     private void exportToFile() {
-        try {
-            // Create reports directory if it doesn't exist
-            File reportsDir = new File("reports");
-            if (!reportsDir.exists()) {
-                reportsDir.mkdir();
-            }
-
-            String filename = inputReader.readString("Enter filename (without extension): ");
-            if (filename.trim().isEmpty()) {
-                filename = "stock_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            }
-
-            // Save to reports directory
-            File file = new File(reportsDir, filename + ".txt");
-            String fullPath = file.getAbsolutePath();
-
-            presenter.showInfo("Exporting to " + fullPath + "...");
-
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write("SYOS STOCK REPORT\n");
-                writer.write("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
-                writer.write("=".repeat(80) + "\n\n");
-
-                // Write the main report
-                if (lastGeneratedReport != null) {
-                    writer.write(lastGeneratedReport);
-                    writer.write("\n\n");
-                }
-
-                // Add inventory statistics
-                var stats = inventoryService.getInventoryStatistics();
-                writer.write("INVENTORY STATISTICS\n");
-                writer.write("-".repeat(40) + "\n");
-                writer.write("Total Item Types: " + stats.totalItems + "\n");
-                writer.write("Total Quantity: " + stats.totalQuantity + "\n");
-                writer.write("Total Value: $" + stats.totalValue + "\n");
-                writer.write("Expired Items: " + stats.expiredCount + "\n");
-                writer.write("Low Stock Items: " + stats.lowStockCount + "\n");
-                writer.write("Expiring Soon: " + stats.expiringCount + "\n");
-
-                presenter.showSuccess("Report exported successfully!");
-                presenter.showInfo("File saved to: " + fullPath);
-
-                // Offer to open the file location
-                if (Desktop.isDesktopSupported()) {
-                    if (inputReader.readBoolean("Open file location?")) {
-                        Desktop.getDesktop().open(reportsDir);
-                    }
-                }
-            }
-
-        } catch (IOException e) {
-            presenter.showError("Failed to export report: " + e.getMessage());
-        }
+        exportDialog.export(lastGeneratedReport.toTable(), "stock_report");
     }
 
-
     private String truncate(String text, int maxLength) {
         if (text.length() <= maxLength) {
             return text;
@@ -7,9 +7,17 @@ import com.syos.infrastructure.ui.cli.InputReader;
 import com.syos.domain.entities.Bill;
 import com.syos.application.visitors.BillPrinter;
 import com.syos.application.visitors.BillStatisticsVisitor;
+import com.syos.application.visitors.BillVisitors;
+import com.syos.application.visitors.DailySalesSummaryVisitor;
+import com.syos.application.visitors.DailySalesSummaryVisitor.DailyTotal;
+import com.syos.shared.pagination.KeysetCursor;
+import com.syos.shared.pagination.Page;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Command to view bills/transactions
@@ -20,6 +28,7 @@ public class ViewBillsCommand implements Command {
     private final SalesPresenter presenter;
     private final InputReader inputReader;
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int PAGE_SIZE = 20;
 
     public ViewBillsCommand(SalesService salesService, SalesPresenter salesPresenter) {
         this.salesService = salesService;
@@ -71,22 +80,43 @@ public class ViewBillsCommand implements Command {
     }
 
     private void viewAllBills() {
-        presenter.showInfo("Retrieving all bills from the system...");
+        presenter.showInfo("Retrieving bills from the system, " + PAGE_SIZE + " per page...");
 
-        List<Bill> bills = salesService.getAllBills();
+        // Statistics and daily totals are accumulated page by page, so only one page is held at a time
+        BillStatisticsVisitor statsVisitor = new BillStatisticsVisitor();
+        DailySalesSummaryVisitor dailyVisitor = new DailySalesSummaryVisitor();
+        KeysetCursor cursor = null;
+        int pageNumber = 1;
 
-        if (bills.isEmpty()) {
-            presenter.showInfo("No bills found in the system.");
-            return;
-        }
+        while (true) {
+            Page<Bill> page = salesService.getBillsPage(cursor, PAGE_SIZE);
+
+            if (page.isEmpty()) {
+                if (pageNumber == 1) {
+                    presenter.showInfo("No bills found in the system.");
+                    return;
+                }
+                break;
+            }
 
-        // Sort bills by date (most recent first) if needed
-        bills.sort((b1, b2) -> b2.getBillDate().compareTo(b1.getBillDate()));
+            displayBillTable(page.getItems(), "All Bills - Page " + pageNumber);
 
-        displayBills(bills, "All Bills");
+            for (Bill bill : page.getItems()) {
+                bill.accept(statsVisitor);
+                bill.accept(dailyVisitor);
+            }
+
+            if (!page.hasNext() || !inputReader.readBoolean("Show next page?")) {
+                break;
+            }
+            cursor = page.getNextCursor();
+            pageNumber++;
+        }
+
+        printStatistics(statsVisitor);
 
         // Show additional summary
-        showBillsSummaryByDate(bills);
+        showBillsSummaryByDate(dailyVisitor.getDailyTotals());
     }
 
     private void viewTodaysBills() {
@@ -116,6 +146,13 @@ public class ViewBillsCommand implements Command {
             return;
         }
 
+        displayBillTable(bills, title);
+
+        // Show statistics
+        showBillStatistics(bills);
+    }
+
+    private void displayBillTable(List<Bill> bills, String title) {
         System.out.println("\n" + "=".repeat(100));
         System.out.println(title);
         System.out.println("=".repeat(100));
@@ -136,19 +173,16 @@ public class ViewBillsCommand implements Command {
             ));
         }
         System.out.println("-".repeat(100));
-
-        // Show statistics
-        showBillStatistics(bills);
     }
 
     private void showBillStatistics(List<Bill> bills) {
-        BillStatisticsVisitor statsVisitor = new BillStatisticsVisitor();
+        // Large result sets are split and visited in parallel
+        BillStatisticsVisitor statsVisitor = BillVisitors.visitInParallel(bills, BillStatisticsVisitor::new);
 
-        // Visit all bills to gather statistics
-        for (Bill bill : bills) {
-            bill.accept(statsVisitor);
-        }
+        printStatistics(statsVisitor);
+    }
 
+    private void printStatistics(BillStatisticsVisitor statsVisitor) {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("Sales Statistics");
         System.out.println("=".repeat(50));
@@ -160,32 +194,17 @@ public class ViewBillsCommand implements Command {
         System.out.println("=".repeat(50));
     }
 
-    private void showBillsSummaryByDate(List<Bill> bills) {
+    private void showBillsSummaryByDate(Map<LocalDate, DailyTotal> dailyTotals) {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("Daily Summary");
         System.out.println("=".repeat(50));
 
-        // Group bills by date
-        java.util.Map<LocalDate, List<Bill>> billsByDate = new java.util.HashMap<>();
-        for (Bill bill : bills) {
-            LocalDate date = bill.getBillDate().toLocalDate();
-            billsByDate.computeIfAbsent(date, k -> new java.util.ArrayList<>()).add(bill);
-        }
-
-        // Sort dates and display summary
-        billsByDate.keySet().stream()
-                .sorted(java.util.Comparator.reverseOrder())
-                .forEach(date -> {
-                    List<Bill> dailyBills = billsByDate.get(date);
-                    double dailyTotal = dailyBills.stream()
-                            .mapToDouble(b -> b.getFinalAmount().getValue().doubleValue())
-                            .sum();
-
-                    System.out.printf("%s: %d bills, Total: $%.2f%n",
-                            date.format(DATE_FORMAT),
-                            dailyBills.size(),
-                            dailyTotal);
-                });
+        // Dates are already sorted most recent first
+        dailyTotals.forEach((date, daily) ->
+                System.out.printf("%s: %d bills, Total: $%.2f%n",
+                        date.format(DATE_FORMAT),
+                        daily.getBillCount(),
+                        daily.getTotal().getValue()));
 
         System.out.println("=".repeat(50));
     }
@@ -242,10 +261,7 @@ public class ViewBillsCommand implements Command {
 
         presenter.showInfo("Searching for bills containing: " + searchTerm);
 
-        List<Bill> allBills = salesService.getAllBills();
-        List<Bill> matchingBills = allBills.stream()
-                .filter(bill -> bill.getBillNumber().toString().contains(searchTerm))
-                .collect(java.util.stream.Collectors.toList());
+        List<Bill> matchingBills = findBills(bill -> bill.getBillNumber().toString().contains(searchTerm));
 
         if (matchingBills.isEmpty()) {
             presenter.showInfo("No bills found matching: " + searchTerm);
@@ -263,16 +279,34 @@ public class ViewBillsCommand implements Command {
 
         String type = choice == 1 ? "IN_STORE" : "ONLINE";
 
-        List<Bill> allBills = salesService.getAllBills();
-        List<Bill> filteredBills = allBills.stream()
-                .filter(bill -> bill.getTransactionType().name().equals(type))
-                .collect(java.util.stream.Collectors.toList());
+        List<Bill> filteredBills = findBills(bill -> bill.getTransactionType().name().equals(type));
 
         displayBills(filteredBills, type + " Transactions");
     }
 
+    /**
+     * Scan the bill history page by page, keeping only the bills that match
+     */
+    private List<Bill> findBills(Predicate<Bill> filter) {
+        List<Bill> matches = new ArrayList<>();
+        KeysetCursor cursor = null;
+        Page<Bill> page;
+
+        do {
+            page = salesService.getBillsPage(cursor, Page.MAX_PAGE_SIZE);
+            for (Bill bill : page.getItems()) {
+                if (filter.test(bill)) {
+                    matches.add(bill);
+                }
+            }
+            cursor = page.getNextCursor();
+        } while (page.hasNext());
+
+        return matches;
+    }
+
     @Override
     public String getDescription() {
         return "View Bills and Transactions";
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
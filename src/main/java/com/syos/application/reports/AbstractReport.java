@@ -1,5 +1,6 @@
 package com.syos.application.reports;
 
+import com.syos.shared.export.ReportTable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -32,6 +33,16 @@ public abstract class AbstractReport {
         return report.toString();
     }
 
+    /**
+     * Format-independent model of the same report, for ReportExporter.
+     * Aggregation runs once; the table can then be written as text, CSV or JSON Lines.
+     */
+    public final ReportTable toTable() {
+        ReportTable.Builder table = new ReportTable.Builder(getReportTitle(), getReportType());
+        describeTable(table);
+        return table.build();
+    }
+
     // Common implementation
     protected String generateHeader() {
         return "=".repeat(80) + "\n" +
@@ -54,6 +65,7 @@ public abstract class AbstractReport {
     protected abstract String getReportType();
     protected abstract String generateBody();
     protected abstract String generateSummary();
+    protected abstract void describeTable(ReportTable.Builder table);
 
     // Utility method
     private String centerText(String text, int width) {
@@ -3,6 +3,9 @@ package com.syos.application.reports;
 import com.syos.domain.entities.Bill;
 import com.syos.domain.entities.BillItem;
 import com.syos.domain.valueobjects.Money;
+import com.syos.domain.valueobjects.MoneyAccumulator;
+import com.syos.shared.export.ReportColumn;
+import com.syos.shared.export.ReportTable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
@@ -43,7 +46,7 @@ public class DailySalesReport extends AbstractReport {
                     data.itemCode,
                     data.itemName,
                     data.totalQuantity,
-                    data.totalRevenue));
+                    data.totalRevenue.toMoney()));
         }
 
         return body.toString();
@@ -55,14 +58,36 @@ public class DailySalesReport extends AbstractReport {
         int totalItemsSold = salesByItem.values().stream()
                 .mapToInt(data -> data.totalQuantity)
                 .sum();
-        Money totalRevenue = salesByItem.values().stream()
-                .map(data -> data.totalRevenue)
-                .reduce(new Money(BigDecimal.ZERO), Money::add);
+        MoneyAccumulator totalRevenue = new MoneyAccumulator();
+        for (SalesData data : salesByItem.values()) {
+            totalRevenue.merge(data.totalRevenue);
+        }
 
         return "\nSummary:\n" +
                 "Total Transactions: " + totalTransactions + "\n" +
                 "Total Items Sold: " + totalItemsSold + "\n" +
-                "Total Revenue: " + totalRevenue + "\n";
+                "Total Revenue: " + totalRevenue.toMoney() + "\n";
+    }
+
+    @Override
+    protected void describeTable(ReportTable.Builder table) {
+        table.column(ReportColumn.text("itemCode", "Item Code", 15))
+                .column(ReportColumn.text("itemName", "Item Name", 30))
+                .column(ReportColumn.number("quantity", "Quantity", 10))
+                .column(ReportColumn.number("revenue", "Total Revenue", 15));
+
+        int totalItemsSold = 0;
+        MoneyAccumulator totalRevenue = new MoneyAccumulator();
+        for (SalesData data : salesByItem.values()) {
+            table.row(data.itemCode, data.itemName, data.totalQuantity, data.totalRevenue.toMoney().getValue());
+            totalItemsSold += data.totalQuantity;
+            totalRevenue.merge(data.totalRevenue);
+        }
+
+        table.summary("Date", date)
+                .summary("Total Transactions", bills.size())
+                .summary("Total Items Sold", totalItemsSold)
+                .summary("Total Revenue", totalRevenue.toMoney().getValue());
     }
 
     private Map<String, SalesData> aggregateSales() {
@@ -85,18 +110,18 @@ public class DailySalesReport extends AbstractReport {
         final String itemCode;
         final String itemName;
         int totalQuantity;
-        Money totalRevenue;
+        final MoneyAccumulator totalRevenue;
 
         SalesData(String itemCode, String itemName) {
             this.itemCode = itemCode;
             this.itemName = itemName;
             this.totalQuantity = 0;
-            this.totalRevenue = new Money(BigDecimal.ZERO);
+            this.totalRevenue = new MoneyAccumulator();
         }
 
         void addSale(int quantity, Money revenue) {
             this.totalQuantity += quantity;
-            this.totalRevenue = this.totalRevenue.add(revenue);
+            this.totalRevenue.add(revenue);
         }
     }
 }
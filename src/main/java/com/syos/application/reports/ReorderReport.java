@@ -1,6 +1,8 @@
 package com.syos.application.reports;
 
 import com.syos.domain.entities.Item;
+import com.syos.shared.export.ReportColumn;
+import com.syos.shared.export.ReportTable;
 import java.util.List;
 
 public class ReorderReport extends AbstractReport {
@@ -56,4 +58,20 @@ public class ReorderReport extends AbstractReport {
                 "Items requiring reorder: " + lowStockItems.size() + "\n" +
                 "Reorder threshold: " + reorderThreshold + " units\n";
     }
+
+    @Override
+    protected void describeTable(ReportTable.Builder table) {
+        table.column(ReportColumn.text("code", "Code", 15))
+                .column(ReportColumn.text("name", "Name", 30))
+                .column(ReportColumn.number("currentStock", "Current Stock", 15))
+                .column(ReportColumn.number("suggestedOrder", "Suggested Order", 15));
+
+        for (Item item : lowStockItems) {
+            int currentStock = item.getQuantity().getValue();
+            table.row(item.getCode().getValue(), item.getName(), currentStock, reorderThreshold * 2 - currentStock);
+        }
+
+        table.summary("Items requiring reorder", lowStockItems.size())
+                .summary("Reorder threshold", reorderThreshold);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.syos.application.reports;
 
 import com.syos.domain.entities.Item;
+import com.syos.shared.export.ReportColumn;
+import com.syos.shared.export.ReportTable;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -16,6 +18,7 @@ public class ReshelveReport extends AbstractReport {
     private final List<Item> expiringItems;
     private final LocalDate currentDate;
     private final int daysThreshold;
+    private final Map<ReshelveUrgency, List<Item>> itemsByUrgency;
 
     public ReshelveReport(List<Item> expiringItems) {
         this(expiringItems, 7); // Default to 7 days threshold
@@ -25,6 +28,20 @@ public class ReshelveReport extends AbstractReport {
         this.expiringItems = expiringItems;
         this.currentDate = LocalDate.now();
         this.daysThreshold = daysThreshold;
+        this.itemsByUrgency = expiringItems.stream()
+                .collect(Collectors.groupingBy(this::categorizeUrgency));
+    }
+
+    /**
+     * Report from items already grouped by urgency, e.g. by the expiry index
+     */
+    public ReshelveReport(Map<ReshelveUrgency, List<Item>> itemsByUrgency, int daysThreshold) {
+        this.expiringItems = itemsByUrgency.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        this.currentDate = LocalDate.now();
+        this.daysThreshold = daysThreshold;
+        this.itemsByUrgency = itemsByUrgency;
     }
 
     @Override
@@ -41,9 +58,6 @@ public class ReshelveReport extends AbstractReport {
     protected String generateBody() {
         StringBuilder body = new StringBuilder();
 
-        // Group items by urgency
-        Map<ReshelveUrgency, List<Item>> itemsByUrgency = groupItemsByUrgency();
-
         // Critical items (expiring today or tomorrow)
         if (itemsByUrgency.containsKey(ReshelveUrgency.CRITICAL)) {
             body.append("\n🚨 CRITICAL - Remove from shelf immediately:\n");
@@ -74,8 +88,6 @@ public class ReshelveReport extends AbstractReport {
 
     @Override
     protected String generateSummary() {
-        Map<ReshelveUrgency, List<Item>> itemsByUrgency = groupItemsByUrgency();
-
         int criticalCount = itemsByUrgency.getOrDefault(ReshelveUrgency.CRITICAL, List.of()).size();
         int highCount = itemsByUrgency.getOrDefault(ReshelveUrgency.HIGH, List.of()).size();
         int mediumCount = itemsByUrgency.getOrDefault(ReshelveUrgency.MEDIUM, List.of()).size();
@@ -107,6 +119,36 @@ public class ReshelveReport extends AbstractReport {
         return summary.toString();
     }
 
+    @Override
+    protected void describeTable(ReportTable.Builder table) {
+        table.column(ReportColumn.text("code", "Code", 15))
+                .column(ReportColumn.text("name", "Name", 30))
+                .column(ReportColumn.number("quantity", "Quantity", 10))
+                .column(ReportColumn.text("expiryDate", "Expiry Date", 12))
+                .column(ReportColumn.number("daysLeft", "Days Left", 10))
+                .column(ReportColumn.text("urgency", "Urgency", 9))
+                .column(ReportColumn.text("action", "Action", 12));
+
+        for (ReshelveUrgency urgency : ReshelveUrgency.values()) {
+            for (Item item : itemsByUrgency.getOrDefault(urgency, List.of())) {
+                long daysUntilExpiry = ChronoUnit.DAYS.between(currentDate, item.getExpiryDate());
+                table.row(item.getCode().getValue(),
+                        item.getName(),
+                        item.getQuantity().getValue(),
+                        item.getExpiryDate(),
+                        daysUntilExpiry,
+                        urgency.name(),
+                        determineAction(daysUntilExpiry));
+            }
+        }
+
+        table.summary("Total items requiring attention", expiringItems.size())
+                .summary("Critical (Remove)", itemsByUrgency.getOrDefault(ReshelveUrgency.CRITICAL, List.of()).size())
+                .summary("High Priority (Front)", itemsByUrgency.getOrDefault(ReshelveUrgency.HIGH, List.of()).size())
+                .summary("Medium Priority (Rotate)", itemsByUrgency.getOrDefault(ReshelveUrgency.MEDIUM, List.of()).size())
+                .summary("Days threshold", daysThreshold);
+    }
+
     private void appendItemsTable(StringBuilder body, List<Item> items) {
         body.append(String.format("%-15s %-30s %10s %15s %10s %12s%n",
                 "Code", "Name", "Quantity", "Expiry Date", "Days Left", "Action"));
@@ -127,21 +169,15 @@ public class ReshelveReport extends AbstractReport {
         body.append("\n");
     }
 
-    private Map<ReshelveUrgency, List<Item>> groupItemsByUrgency() {
-        return expiringItems.stream()
-                .collect(Collectors.groupingBy(this::categorizeUrgency));
-    }
-
     private ReshelveUrgency categorizeUrgency(Item item) {
         long daysUntilExpiry = ChronoUnit.DAYS.between(currentDate, item.getExpiryDate());
 
-        if (daysUntilExpiry <= 1) {
-            return ReshelveUrgency.CRITICAL;
-        } else if (daysUntilExpiry <= 3) {
-            return ReshelveUrgency.HIGH;
-        } else {
-            return ReshelveUrgency.MEDIUM;
+        for (ReshelveUrgency urgency : ReshelveUrgency.values()) {
+            if (daysUntilExpiry <= urgency.getMaxDays()) {
+                return urgency;
+            }
         }
+        return ReshelveUrgency.MEDIUM;
     }
 
     private String determineAction(long daysUntilExpiry) {
@@ -161,9 +197,22 @@ public class ReshelveReport extends AbstractReport {
         return text.substring(0, maxLength - 3) + "...";
     }
 
-    private enum ReshelveUrgency {
-        CRITICAL,  // Expiring today or tomorrow
-        HIGH,      // Expiring in 2-3 days
-        MEDIUM     // Expiring in 4-7 days
+    public enum ReshelveUrgency {
+        CRITICAL(1),                 // Expiring today or tomorrow
+        HIGH(3),                     // Expiring in 2-3 days
+        MEDIUM(Integer.MAX_VALUE);   // Expiring in 4-7 days
+
+        private final int maxDays;
+
+        ReshelveUrgency(int maxDays) {
+            this.maxDays = maxDays;
+        }
+
+        /**
+         * @return Last day, counted from today, that falls in this urgency
+         */
+        public int getMaxDays() {
+            return maxDays;
+        }
     }
 }
\ No newline at end of file
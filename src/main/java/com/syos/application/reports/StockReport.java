@@ -1,11 +1,18 @@
 package com.syos.application.reports;
 
 import com.syos.domain.entities.Item;
+import com.syos.domain.valueobjects.MoneyAccumulator;
+import com.syos.shared.export.ReportColumn;
+import com.syos.shared.export.ReportTable;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 public class StockReport extends AbstractReport {
+    // Same rules as InventoryService low stock and expiry warnings
+    private static final int REORDER_THRESHOLD = 50;
+    private static final int EXPIRY_WARNING_DAYS = 7;
+
     private final List<Item> items;
 
     public StockReport(List<Item> items) {
@@ -75,4 +82,56 @@ public class StockReport extends AbstractReport {
 
         return summary.toString();
     }
+
+    @Override
+    protected void describeTable(ReportTable.Builder table) {
+        table.column(ReportColumn.text("code", "Code", 15))
+                .column(ReportColumn.text("name", "Name", 30))
+                .column(ReportColumn.text("state", "State", 10))
+                .column(ReportColumn.number("quantity", "Quantity", 10))
+                .column(ReportColumn.number("price", "Price", 10))
+                .column(ReportColumn.text("purchaseDate", "Purchase Date", 13))
+                .column(ReportColumn.text("expiryDate", "Expiry Date", 12));
+
+        // Statistics are taken from the same item list in one pass
+        int totalQuantity = 0;
+        int expiredCount = 0;
+        int lowStockCount = 0;
+        int expiringCount = 0;
+        MoneyAccumulator totalValue = new MoneyAccumulator();
+
+        for (Item item : items) {
+            int quantity = item.getQuantity().getValue();
+            boolean expired = item.getState().getStateName().equals("EXPIRED");
+            long daysLeft = item.daysUntilExpiry();
+
+            totalQuantity += quantity;
+            if (expired) {
+                expiredCount++;
+            } else {
+                totalValue.addProduct(item.getPrice(), quantity);
+                if (quantity < REORDER_THRESHOLD) {
+                    lowStockCount++;
+                }
+            }
+            if (daysLeft >= 0 && daysLeft <= EXPIRY_WARNING_DAYS) {
+                expiringCount++;
+            }
+
+            table.row(item.getCode().getValue(),
+                    item.getName(),
+                    item.getState().getStateName(),
+                    quantity,
+                    item.getPrice().getValue(),
+                    item.getPurchaseDate(),
+                    item.getExpiryDate());
+        }
+
+        table.summary("Total Item Types", items.size())
+                .summary("Total Quantity", totalQuantity)
+                .summary("Total Value", totalValue.toMoney().getValue())
+                .summary("Expired Items", expiredCount)
+                .summary("Low Stock Items", lowStockCount)
+                .summary("Expiring Soon", expiringCount);
+    }
 }
@@ -0,0 +1,287 @@
+package com.syos.application.services;
+
+import com.syos.application.reports.ReshelveReport.ReshelveUrgency;
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.persistence.gateways.ItemGateway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Expiry index and scheduler for stocked items
+ *
+ * Items in store or on shelf are indexed by expiry date in a sorted map. An item
+ * expires on the day after its expiry date, so a single timer is armed for the
+ * midnight after the earliest indexed date. When it fires, every due item is moved
+ * to ExpiredState and persisted with one set-based UPDATE, and the timer is re-armed
+ * for the next earliest date.
+ *
+ * The same index answers reshelve queries: items expiring in the next N days are a
+ * range of the sorted map, already split into urgency buckets by date.
+ *
+ * The index is loaded on the scheduler thread, so start() never touches the database.
+ * A failed load or UPDATE is retried with exponential backoff; until the first load
+ * succeeds isLoaded() is false and callers query the database instead.
+ */
+public class ExpiryScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryScheduler.class);
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 5_000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 15 * 60_000;
+
+    private final ItemGateway itemGateway;
+
+    // Expiry date -> items expiring that day, by code
+    private final NavigableMap<LocalDate, Map<String, Item>> byExpiry = new TreeMap<>();
+    private final Map<String, LocalDate> expiryByCode = new HashMap<>();
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> nextTick;
+    private LocalDateTime nextTickAt;
+    private Consumer<Item> expiredItemListener;
+    private boolean loaded;
+    private boolean retrying;
+    private long retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+
+    public ExpiryScheduler(ItemGateway itemGateway) {
+        this.itemGateway = itemGateway;
+    }
+
+    /**
+     * Start the scheduler thread; it loads the index, expires anything already overdue
+     * and arms the timer
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        nextTick = executor.schedule(this::tick, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called with each item after the scheduler moved it to EXPIRED
+     */
+    public synchronized void setExpiredItemListener(Consumer<Item> listener) {
+        this.expiredItemListener = listener;
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            nextTick = null;
+            nextTickAt = null;
+            retrying = false;
+            retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+        }
+    }
+
+    /**
+     * Rebuild the index from all items
+     */
+    public synchronized void reload() {
+        List<Item> items = itemGateway.findAll();
+        byExpiry.clear();
+        expiryByCode.clear();
+        for (Item item : items) {
+            track(item);
+        }
+        loaded = true;
+    }
+
+    /**
+     * @return true once the index has been loaded from the database
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Add, refresh or remove an item after it was inserted or updated
+     * Only items in store or on shelf with an expiry date are indexed
+     */
+    public synchronized void track(Item item) {
+        String code = item.getCode().getValue();
+        untrack(code);
+
+        String state = item.getState().getStateName();
+        if (item.getExpiryDate() == null || !(state.equals("IN_STORE") || state.equals("ON_SHELF"))) {
+            return;
+        }
+        byExpiry.computeIfAbsent(item.getExpiryDate(), date -> new LinkedHashMap<>()).put(code, item);
+        expiryByCode.put(code, item.getExpiryDate());
+
+        // An earlier expiry date than the armed one moves the timer forward
+        if (executor != null && (nextTickAt == null || dueAt(item.getExpiryDate()).isBefore(nextTickAt))) {
+            arm();
+        }
+    }
+
+    /**
+     * Expire every item whose expiry date has passed
+     * @return Number of rows moved to EXPIRED
+     */
+    public synchronized int expireDueItems() {
+        LocalDate today = LocalDate.now();
+        NavigableMap<LocalDate, Map<String, Item>> due = byExpiry.headMap(today, false);
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        List<String> codes = new ArrayList<>();
+        for (Map<String, Item> items : due.values()) {
+            codes.addAll(items.keySet());
+        }
+        // Indexed items change state only once the UPDATE succeeded
+        int updated = itemGateway.markExpired(codes);
+
+        for (Map<String, Item> items : due.values()) {
+            for (Item item : items.values()) {
+                item.expire();
+                expiryByCode.remove(item.getCode().getValue());
+                if (expiredItemListener != null) {
+                    expiredItemListener.accept(item);
+                }
+            }
+        }
+        due.clear();
+        logger.info("Expired {} items ({} rows updated)", codes.size(), updated);
+        return updated;
+    }
+
+    /**
+     * Indexed items expiring between today and {@code days} days from now, soonest first
+     */
+    public synchronized List<Item> getExpiringItems(int days) {
+        LocalDate today = LocalDate.now();
+        return flatten(byExpiry.subMap(today, true, today.plusDays(days), true).values());
+    }
+
+    /**
+     * Items expiring within {@code days} days, grouped by reshelve urgency
+     * Each bucket is a contiguous date range of the index
+     */
+    public synchronized Map<ReshelveUrgency, List<Item>> getReshelveBuckets(int days) {
+        LocalDate today = LocalDate.now();
+        LocalDate last = today.plusDays(days);
+
+        Map<ReshelveUrgency, List<Item>> buckets = new EnumMap<>(ReshelveUrgency.class);
+        LocalDate from = today;
+        for (ReshelveUrgency urgency : ReshelveUrgency.values()) {
+            if (from.isAfter(last)) {
+                break;
+            }
+            LocalDate to = urgency.getMaxDays() >= days ? last : today.plusDays(urgency.getMaxDays());
+            List<Item> items = flatten(byExpiry.subMap(from, true, to, true).values());
+            if (!items.isEmpty()) {
+                buckets.put(urgency, items);
+            }
+            from = to.plusDays(1);
+        }
+        return buckets;
+    }
+
+    /**
+     * @return When the timer fires next, or null if nothing is indexed or the scheduler is stopped
+     */
+    public synchronized LocalDateTime getNextTickAt() {
+        return nextTickAt;
+    }
+
+    private void untrack(String code) {
+        LocalDate previous = expiryByCode.remove(code);
+        if (previous != null) {
+            Map<String, Item> items = byExpiry.get(previous);
+            items.remove(code);
+            if (items.isEmpty()) {
+                byExpiry.remove(previous);
+            }
+        }
+    }
+
+    private synchronized void tick() {
+        if (executor == null) {
+            return;
+        }
+        try {
+            if (!loaded) {
+                reload();
+            }
+            expireDueItems();
+        } catch (RuntimeException e) {
+            logger.error("Expiry tick failed, retrying in {} ms", retryDelayMillis, e);
+            retrying = true;
+            schedule(LocalDateTime.now().plus(Duration.ofMillis(retryDelayMillis)));
+            retryDelayMillis = Math.min(retryDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+            return;
+        }
+        retrying = false;
+        retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+        arm();
+    }
+
+    /**
+     * Arm the timer for the earliest indexed expiry date, replacing any armed timer
+     * A pending retry is left alone; it re-arms the timer once it succeeds
+     */
+    private void arm() {
+        if (executor == null || !loaded || retrying) {
+            return;
+        }
+        if (byExpiry.isEmpty()) {
+            if (nextTick != null) {
+                nextTick.cancel(false);
+            }
+            nextTick = null;
+            nextTickAt = null;
+            return;
+        }
+        schedule(dueAt(byExpiry.firstKey()));
+    }
+
+    private void schedule(LocalDateTime at) {
+        if (nextTick != null) {
+            nextTick.cancel(false);
+        }
+        nextTickAt = at;
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), at).toMillis());
+        nextTick = executor.schedule(this::tick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Item.isExpired() is true from the day after the expiry date
+     */
+    private static LocalDateTime dueAt(LocalDate expiryDate) {
+        return expiryDate.plusDays(1).atStartOfDay();
+    }
+
+    private static List<Item> flatten(Collection<Map<String, Item>> days) {
+        List<Item> items = new ArrayList<>();
+        for (Map<String, Item> day : days) {
+            items.addAll(day.values());
+        }
+        return items;
+    }
+}
@@ -4,23 +4,51 @@ import com.syos.domain.entities.*;
 import com.syos.domain.valueobjects.*;
 import com.syos.domain.exceptions.*;
 import com.syos.infrastructure.persistence.gateways.ItemGateway;
+import com.syos.infrastructure.persistence.gateways.ItemQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Application Service for Inventory Management
  * Orchestrates inventory-related use cases
  */
 public class InventoryService {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
+
+    // Running statistics older than this are checked against the database
+    private static final long STATISTICS_MAX_AGE_MILLIS = 60_000;
+
     private final ItemGateway itemGateway;
-    private static final int REORDER_THRESHOLD = 50;
-    private static final int EXPIRY_WARNING_DAYS = 7;
+    private final ExpiryScheduler expiryScheduler;
+    private final InventoryStatisticsTracker statisticsTracker;
+    public static final int REORDER_THRESHOLD = 50;
+    public static final int EXPIRY_WARNING_DAYS = 7;
 
     public InventoryService(ItemGateway itemGateway) {
+        this(itemGateway, null, null);
+    }
+
+    /**
+     * @param expiryScheduler Expiry index kept in step with inventory writes, or null
+     */
+    public InventoryService(ItemGateway itemGateway, ExpiryScheduler expiryScheduler) {
+        this(itemGateway, expiryScheduler, null);
+    }
+
+    /**
+     * @param expiryScheduler Expiry index kept in step with inventory writes, or null
+     * @param statisticsTracker Running statistics kept in step with inventory writes, or null
+     */
+    public InventoryService(ItemGateway itemGateway, ExpiryScheduler expiryScheduler,
+                            InventoryStatisticsTracker statisticsTracker) {
         this.itemGateway = itemGateway;
+        this.expiryScheduler = expiryScheduler;
+        this.statisticsTracker = statisticsTracker;
     }
 
     /**
@@ -28,8 +56,8 @@ public class InventoryService {
      */
     public void addStock(String code, String name, BigDecimal price,
                          int quantity, LocalDate expiryDate) {
-        // Check if item already exists
-        Item existingItem = itemGateway.findByCode(code);
+        // Check if item already exists; straight from the table, since this picks INSERT or UPDATE
+        Item existingItem = itemGateway.findByCodeUncached(code);
 
         if (existingItem != null) {
             // Update existing item quantity
@@ -45,6 +73,7 @@ public class InventoryService {
                     .build();
 
             itemGateway.update(updatedItem);
+            trackExpiry(updatedItem);
         } else {
             // Create new item
             Item newItem = new Item.Builder()
@@ -58,6 +87,7 @@ public class InventoryService {
                     .build();
 
             itemGateway.insert(newItem);
+            trackExpiry(newItem);
         }
     }
 
@@ -65,7 +95,7 @@ public class InventoryService {
      * Move items from store to shelf
      */
     public void moveToShelf(String itemCode, int quantity) {
-        Item item = itemGateway.findByCode(itemCode);
+        Item item = itemGateway.findByCodeUncached(itemCode);
         if (item == null) {
             throw new ItemNotFoundException("Item not found: " + itemCode);
         }
@@ -74,7 +104,7 @@ public class InventoryService {
         item.moveToShelf(quantity);
 
         // Create shelf item (in real implementation, might be separate entity)
-        Item shelfItem = itemGateway.findByCode(itemCode + "_SHELF");
+        Item shelfItem = itemGateway.findByCodeUncached(itemCode + "_SHELF");
         if (shelfItem != null) {
             // Update existing shelf item
             int newQuantity = shelfItem.getQuantity().getValue() + quantity;
@@ -88,6 +118,7 @@ public class InventoryService {
                     .withPurchaseDate(shelfItem.getPurchaseDate())
                     .build();
             itemGateway.update(updatedShelfItem);
+            trackExpiry(updatedShelfItem);
         } else {
             // Create new shelf item
             Item newShelfItem = new Item.Builder()
@@ -100,10 +131,12 @@ public class InventoryService {
                     .withPurchaseDate(LocalDate.now())
                     .build();
             itemGateway.insert(newShelfItem);
+            trackExpiry(newShelfItem);
         }
 
         // Update store item
         itemGateway.update(item);
+        trackExpiry(item);
     }
 
     /**
@@ -117,18 +150,36 @@ public class InventoryService {
      * Get items currently in store (not on shelf)
      */
     public List<Item> getItemsInStore() {
-        return itemGateway.findAll().stream()
-                .filter(item -> "IN_STORE".equals(item.getState().getStateName()))
-                .collect(Collectors.toList());
+        return itemGateway.find(new ItemQuery.Builder()
+                .withStates("IN_STORE")
+                .build());
+    }
+
+    /**
+     * Get items in store that still have stock to move, soonest expiry first
+     */
+    public List<Item> getMovableStoreItems() {
+        return itemGateway.find(new ItemQuery.Builder()
+                .withStates("IN_STORE")
+                .withMinQuantity(1)
+                .orderBy(ItemQuery.Order.EXPIRY_DATE)
+                .build());
     }
 
     /**
      * Get items currently on shelf
      */
     public List<Item> getItemsOnShelf() {
-        return itemGateway.findAll().stream()
-                .filter(item -> "ON_SHELF".equals(item.getState().getStateName()))
-                .collect(Collectors.toList());
+        return itemGateway.find(new ItemQuery.Builder()
+                .withStates("ON_SHELF")
+                .build());
+    }
+
+    /**
+     * Find items matching a query
+     */
+    public List<Item> findItems(ItemQuery query) {
+        return itemGateway.find(query);
     }
 
     /**
@@ -161,22 +212,21 @@ public class InventoryService {
 
     /**
      * Check and update expired items
+     * Expires everything past its expiry date with one UPDATE instead of one per item
+     * @return Number of items moved to EXPIRED
      */
-    public void checkAndUpdateExpiredItems() {
-        List<Item> items = itemGateway.findAll();
-        for (Item item : items) {
-            if (item.isExpired() && !item.getState().getStateName().equals("EXPIRED")) {
-                item.expire();
-                itemGateway.update(item);
-            }
+    public int checkAndUpdateExpiredItems() {
+        if (expiryScheduler != null && expiryScheduler.isLoaded()) {
+            return expiryScheduler.expireDueItems();
         }
+        return itemGateway.markExpiredBefore(LocalDate.now());
     }
 
     /**
      * Update item price
      */
     public void updateItemPrice(String itemCode, BigDecimal newPrice) {
-        Item item = itemGateway.findByCode(itemCode);
+        Item item = itemGateway.findByCodeUncached(itemCode);
         if (item == null) {
             throw new ItemNotFoundException("Item not found: " + itemCode);
         }
@@ -192,39 +242,46 @@ public class InventoryService {
                 .build();
 
         itemGateway.update(updatedItem);
+        trackExpiry(updatedItem);
+    }
+
+    private void trackExpiry(Item item) {
+        if (expiryScheduler != null) {
+            expiryScheduler.track(item);
+        }
+        if (statisticsTracker != null) {
+            statisticsTracker.track(item);
+        }
     }
 
     /**
      * Get total inventory value
      */
     public BigDecimal getTotalInventoryValue() {
-        return itemGateway.findAll().stream()
-                .filter(item -> !item.getState().getStateName().equals("EXPIRED"))
-                .map(item -> item.getPrice().getValue()
-                        .multiply(BigDecimal.valueOf(item.getQuantity().getValue())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return getInventoryStatistics().totalValue;
     }
 
     /**
      * Get inventory statistics
+     * Served from the running totals while they are recent, otherwise from one aggregate
+     * query that also verifies the running totals; totals that drifted are reloaded
      */
     public InventoryStatistics getInventoryStatistics() {
-        List<Item> allItems = itemGateway.findAll();
-
-        int totalItems = allItems.size();
-        int totalQuantity = allItems.stream()
-                .mapToInt(item -> item.getQuantity().getValue())
-                .sum();
-        int expiredCount = (int) allItems.stream()
-                .filter(item -> item.getState().getStateName().equals("EXPIRED"))
-                .count();
-        int lowStockCount = getLowStockItems().size();
-        int expiringCount = getExpiringItems().size();
-        BigDecimal totalValue = getTotalInventoryValue();
+        if (statisticsTracker != null && statisticsTracker.isCurrent(STATISTICS_MAX_AGE_MILLIS)) {
+            return statisticsTracker.snapshot();
+        }
 
+        ItemGateway.StockTotals totals = itemGateway.getStockTotals(REORDER_THRESHOLD, EXPIRY_WARNING_DAYS);
+        if (statisticsTracker != null && !statisticsTracker.verify(totals)) {
+            try {
+                statisticsTracker.reload(itemGateway);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to reload inventory statistics, using database totals", e);
+            }
+        }
         return new InventoryStatistics(
-                totalItems, totalQuantity, expiredCount,
-                lowStockCount, expiringCount, totalValue
+                totals.totalItems, totals.totalQuantity, totals.expiredCount,
+                totals.lowStockCount, totals.expiringCount, totals.totalValue
         );
     }
 
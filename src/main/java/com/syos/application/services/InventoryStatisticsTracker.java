@@ -0,0 +1,165 @@
+package com.syos.application.services;
+
+import com.syos.application.services.InventoryService.InventoryStatistics;
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.persistence.gateways.ItemGateway;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Running inventory statistics kept current by item writes
+ *
+ * Each item's contribution (quantity, expired, low stock, value in cents, expiry date)
+ * is remembered by code. When an item is written again its old contribution is
+ * subtracted and the new one added, so a snapshot costs no database access. The
+ * expiring count depends on today's date, so it is taken at snapshot time from a
+ * per-date count of expiry dates.
+ *
+ * Counts follow the same rules as ItemGateway.getStockTotals.
+ *
+ * Other processes write the items table too, so the totals are only trusted for a
+ * bounded time after a reload. After that they are checked against getStockTotals:
+ * a match extends the trust, a mismatch means another writer changed the table.
+ */
+public class InventoryStatisticsTracker {
+    private final int lowStockThreshold;
+    private final int expiringDays;
+
+    private final Map<String, Contribution> byCode = new HashMap<>();
+    private final NavigableMap<LocalDate, Integer> expiryDates = new TreeMap<>();
+    private long totalQuantity;
+    private int expiredCount;
+    private int lowStockCount;
+    private long totalValueCents;
+    private boolean loaded;
+    private long verifiedAtMillis;
+
+    /**
+     * @param lowStockThreshold Items with less than this quantity are low on stock
+     * @param expiringDays Items expiring between today and this many days ahead are expiring
+     */
+    public InventoryStatisticsTracker(int lowStockThreshold, int expiringDays) {
+        this.lowStockThreshold = lowStockThreshold;
+        this.expiringDays = expiringDays;
+    }
+
+    /**
+     * Recompute all contributions from the items table
+     */
+    public synchronized void reload(ItemGateway itemGateway) {
+        byCode.clear();
+        expiryDates.clear();
+        totalQuantity = 0;
+        expiredCount = 0;
+        lowStockCount = 0;
+        totalValueCents = 0;
+        for (Item item : itemGateway.findAll()) {
+            add(item.getCode().getValue(), new Contribution(item, lowStockThreshold));
+        }
+        loaded = true;
+        verifiedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Replace the contribution of an item after it was inserted or updated
+     */
+    public synchronized void track(Item item) {
+        String code = item.getCode().getValue();
+        Contribution previous = byCode.remove(code);
+        if (previous != null) {
+            remove(previous);
+        }
+        add(code, new Contribution(item, lowStockThreshold));
+    }
+
+    /**
+     * @return true once reload has run
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return true when loaded and reloaded or verified within the last {@code maxAgeMillis}
+     */
+    public synchronized boolean isCurrent(long maxAgeMillis) {
+        return loaded && System.currentTimeMillis() - verifiedAtMillis <= maxAgeMillis;
+    }
+
+    /**
+     * Compare the running totals with an aggregate just read from the database
+     * A match counts as verified; a mismatch leaves the tracker unloaded until the next reload
+     * @return true when the totals match
+     */
+    public synchronized boolean verify(ItemGateway.StockTotals totals) {
+        InventoryStatistics current = snapshot();
+        boolean matches = loaded
+                && current.totalItems == totals.totalItems
+                && current.totalQuantity == totals.totalQuantity
+                && current.expiredCount == totals.expiredCount
+                && current.lowStockCount == totals.lowStockCount
+                && current.expiringCount == totals.expiringCount
+                && current.totalValue.compareTo(totals.totalValue) == 0;
+        if (matches) {
+            verifiedAtMillis = System.currentTimeMillis();
+        } else {
+            loaded = false;
+        }
+        return matches;
+    }
+
+    public synchronized InventoryStatistics snapshot() {
+        LocalDate today = LocalDate.now();
+        int expiringCount = 0;
+        for (int count : expiryDates.subMap(today, true, today.plusDays(expiringDays), true).values()) {
+            expiringCount += count;
+        }
+        return new InventoryStatistics(byCode.size(), (int) totalQuantity, expiredCount,
+                lowStockCount, expiringCount, BigDecimal.valueOf(totalValueCents, 2));
+    }
+
+    private void add(String code, Contribution contribution) {
+        byCode.put(code, contribution);
+        totalQuantity += contribution.quantity;
+        expiredCount += contribution.expired ? 1 : 0;
+        lowStockCount += contribution.lowStock ? 1 : 0;
+        totalValueCents += contribution.valueCents;
+        if (contribution.expiryDate != null) {
+            expiryDates.merge(contribution.expiryDate, 1, Integer::sum);
+        }
+    }
+
+    private void remove(Contribution contribution) {
+        totalQuantity -= contribution.quantity;
+        expiredCount -= contribution.expired ? 1 : 0;
+        lowStockCount -= contribution.lowStock ? 1 : 0;
+        totalValueCents -= contribution.valueCents;
+        if (contribution.expiryDate != null) {
+            expiryDates.computeIfPresent(contribution.expiryDate, (date, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * What one item adds to the totals
+     */
+    private static final class Contribution {
+        private final int quantity;
+        private final boolean expired;
+        private final boolean lowStock;
+        private final long valueCents;
+        private final LocalDate expiryDate;
+
+        private Contribution(Item item, int lowStockThreshold) {
+            this.quantity = item.getQuantity().getValue();
+            this.expired = "EXPIRED".equals(item.getState().getStateName());
+            this.lowStock = !expired && quantity < lowStockThreshold;
+            this.valueCents = expired ? 0 : item.getPrice().toCents() * quantity;
+            this.expiryDate = item.getExpiryDate();
+        }
+    }
+}
@@ -9,34 +9,64 @@ import java.util.List;
 public class ReportService {
     private final BillGateway billGateway;
     private final ItemGateway itemGateway;
+    private final ExpiryScheduler expiryScheduler;
     private static final int REORDER_THRESHOLD = 50;
+    private static final int RESHELVE_DAYS = 7;
 
     public ReportService(BillGateway billGateway, ItemGateway itemGateway) {
+        this(billGateway, itemGateway, null);
+    }
+
+    /**
+     * @param expiryScheduler Expiry index serving the reshelve report, or null to query the database
+     */
+    public ReportService(BillGateway billGateway, ItemGateway itemGateway, ExpiryScheduler expiryScheduler) {
         this.billGateway = billGateway;
         this.itemGateway = itemGateway;
+        this.expiryScheduler = expiryScheduler;
     }
 
     public String generateDailySalesReport(LocalDate date) {
-        List<Bill> bills = billGateway.findByDate(date);
-        DailySalesReport report = new DailySalesReport(date, bills);
-        return report.generateReport();
+        return createDailySalesReport(date).generateReport();
     }
 
     public String generateStockReport() {
-        List<Item> items = itemGateway.findAll();
-        StockReport report = new StockReport(items);
-        return report.generateReport();
+        return createStockReport().generateReport();
     }
 
     public String generateReorderReport() {
-        List<Item> lowStockItems = itemGateway.findLowStock(REORDER_THRESHOLD);
-        ReorderReport report = new ReorderReport(lowStockItems, REORDER_THRESHOLD);
-        return report.generateReport();
+        return createReorderReport().generateReport();
     }
 
     public String generateReshelveReport() {
-        List<Item> expiringItems = itemGateway.findExpiringSoon(7);
-        ReshelveReport report = new ReshelveReport(expiringItems);
-        return report.generateReport();
+        return createReshelveReport().generateReport();
+    }
+
+    /*
+     * The create methods load and aggregate once; callers can then render the
+     * report as text and export it via toTable() without querying again.
+     */
+
+    public DailySalesReport createDailySalesReport(LocalDate date) {
+        List<Bill> bills = billGateway.findByDate(date);
+        return new DailySalesReport(date, bills);
+    }
+
+    public StockReport createStockReport() {
+        List<Item> items = itemGateway.findAll();
+        return new StockReport(items);
+    }
+
+    public ReorderReport createReorderReport() {
+        List<Item> lowStockItems = itemGateway.findLowStock(REORDER_THRESHOLD);
+        return new ReorderReport(lowStockItems, REORDER_THRESHOLD);
+    }
+
+    public ReshelveReport createReshelveReport() {
+        if (expiryScheduler != null && expiryScheduler.isLoaded()) {
+            return new ReshelveReport(expiryScheduler.getReshelveBuckets(RESHELVE_DAYS), RESHELVE_DAYS);
+        }
+        List<Item> expiringItems = itemGateway.findExpiringSoon(RESHELVE_DAYS);
+        return new ReshelveReport(expiringItems, RESHELVE_DAYS);
     }
 }
@@ -7,12 +7,13 @@ import com.syos.domain.exceptions.InsufficientStockException;
 import com.syos.domain.exceptions.ItemNotFoundException;
 import com.syos.domain.valueobjects.*;
 import com.syos.infrastructure.persistence.gateways.*;
+import com.syos.shared.pagination.KeysetCursor;
+import com.syos.shared.pagination.Page;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Service class for handling sales operations
@@ -21,10 +22,30 @@ import java.util.stream.Collectors;
 public class SalesService {
     private final BillGateway billGateway;
     private final ItemGateway itemGateway;
+    private final ExpiryScheduler expiryScheduler;
+    private final InventoryStatisticsTracker statisticsTracker;
 
     public SalesService(BillGateway billGateway, ItemGateway itemGateway) {
+        this(billGateway, itemGateway, null, null);
+    }
+
+    /**
+     * @param expiryScheduler Expiry index kept in step with sold quantities, or null
+     */
+    public SalesService(BillGateway billGateway, ItemGateway itemGateway, ExpiryScheduler expiryScheduler) {
+        this(billGateway, itemGateway, expiryScheduler, null);
+    }
+
+    /**
+     * @param expiryScheduler Expiry index kept in step with sold quantities, or null
+     * @param statisticsTracker Running inventory statistics kept in step with sold quantities, or null
+     */
+    public SalesService(BillGateway billGateway, ItemGateway itemGateway, ExpiryScheduler expiryScheduler,
+                        InventoryStatisticsTracker statisticsTracker) {
         this.billGateway = billGateway;
         this.itemGateway = itemGateway;
+        this.expiryScheduler = expiryScheduler;
+        this.statisticsTracker = statisticsTracker;
     }
 
     /**
@@ -47,6 +68,12 @@ public class SalesService {
             Item item = billItem.getItem();
             item.sell(billItem.getQuantity().getValue());
             itemGateway.update(item);
+            if (expiryScheduler != null) {
+                expiryScheduler.track(item);
+            }
+            if (statisticsTracker != null) {
+                statisticsTracker.track(item);
+            }
         }
     }
 
@@ -61,11 +88,23 @@ public class SalesService {
     /**
      * Get all bills from the database
      * @return List of all bills
+     * @deprecated Loads the entire bill history into memory, use {@link #getBillsPage(KeysetCursor, int)}
      */
+    @Deprecated
     public List<Bill> getAllBills() {
         return billGateway.findAll();
     }
 
+    /**
+     * Get one page of bills, most recent first
+     * @param after Cursor returned with the previous page, null for the first page
+     * @param pageSize Number of bills per page
+     * @return The page of bills
+     */
+    public Page<Bill> getBillsPage(KeysetCursor after, int pageSize) {
+        return billGateway.findPage(after, pageSize);
+    }
+
     /**
      * Get bills for a specific date
      * @param date The date to search for
@@ -101,10 +140,10 @@ public class SalesService {
      * @return List of available items
      */
     public List<Item> getAvailableItems() {
-        return itemGateway.findAll().stream()
-                .filter(item -> "ON_SHELF".equals(item.getState().getStateName()))
-                .filter(item -> item.getQuantity().getValue() > 0)
-                .collect(Collectors.toList());
+        return itemGateway.find(new ItemQuery.Builder()
+                .withStates("ON_SHELF")
+                .withMinQuantity(1)
+                .build());
     }
 
     /**
@@ -228,9 +267,11 @@ public class SalesService {
          * Recalculate the subtotal after modifications
          */
         private void recalculateSubtotal() {
-            subtotal = items.stream()
-                    .map(BillItem::getTotalPrice)
-                    .reduce(new Money(BigDecimal.ZERO), Money::add);
+            MoneyAccumulator total = new MoneyAccumulator();
+            for (BillItem item : items) {
+                total.add(item.getTotalPrice());
+            }
+            subtotal = total.toMoney();
         }
 
         /**
@@ -247,4 +288,4 @@ public class SalesService {
             return (int) (System.currentTimeMillis() % 1000000);
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,12 +1,16 @@
 package com.syos.application.visitors;
 
 import com.syos.domain.entities.*;
-import com.syos.domain.interfaces.BillVisitor;
+import com.syos.domain.interfaces.CombinableBillVisitor;
 
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 
-public class BillPrinter implements BillVisitor {
+/**
+ * Renders bills as receipts
+ * Receipts of several visited bills are appended in visit order
+ */
+public class BillPrinter implements CombinableBillVisitor<BillPrinter> {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private final StringBuilder output;
 
@@ -16,8 +20,6 @@ public class BillPrinter implements BillVisitor {
 
     @Override
     public void visit(Bill bill) {
-        output.setLength(0); // Clear previous output
-
         // Header
         output.append("\n").append("=".repeat(60)).append("\n");
         output.append(centerText("SYOS OUTLET STORE", 60)).append("\n");
@@ -57,6 +59,12 @@ public class BillPrinter implements BillVisitor {
         output.append("=".repeat(60)).append("\n");
     }
 
+    @Override
+    public BillPrinter combine(BillPrinter other) {
+        output.append(other.output);
+        return this;
+    }
+
     public String getOutput() {
         return output.toString();
     }
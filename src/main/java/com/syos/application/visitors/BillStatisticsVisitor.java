@@ -1,23 +1,24 @@
 package com.syos.application.visitors;
 
 import com.syos.domain.entities.*;
-import com.syos.domain.interfaces.BillVisitor;
+import com.syos.domain.interfaces.CombinableBillVisitor;
 import com.syos.domain.valueobjects.Money;
+import com.syos.domain.valueobjects.MoneyAccumulator;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
 
-public class BillStatisticsVisitor implements BillVisitor {
+public class BillStatisticsVisitor implements CombinableBillVisitor<BillStatisticsVisitor> {
     private int billCount = 0;
-    private Money totalRevenue = new Money(BigDecimal.ZERO);
-    private Money totalDiscount = new Money(BigDecimal.ZERO);
-    private Map<String, Integer> itemFrequency = new HashMap<>();
+    private final MoneyAccumulator totalRevenue = new MoneyAccumulator();
+    private final MoneyAccumulator totalDiscount = new MoneyAccumulator();
+    private final Map<String, Integer> itemFrequency = new HashMap<>();
 
     @Override
     public void visit(Bill bill) {
         billCount++;
-        totalRevenue = totalRevenue.add(bill.getFinalAmount());
-        totalDiscount = totalDiscount.add(bill.getDiscount());
+        totalRevenue.add(bill.getFinalAmount());
+        totalDiscount.add(bill.getDiscount());
 
         for (BillItem item : bill.getItems()) {
             String itemName = item.getItem().getName();
@@ -25,12 +26,22 @@ public class BillStatisticsVisitor implements BillVisitor {
         }
     }
 
+    @Override
+    public BillStatisticsVisitor combine(BillStatisticsVisitor other) {
+        billCount += other.billCount;
+        totalRevenue.merge(other.totalRevenue);
+        totalDiscount.merge(other.totalDiscount);
+        other.itemFrequency.forEach((itemName, quantity) ->
+                itemFrequency.merge(itemName, quantity, Integer::sum));
+        return this;
+    }
+
     public int getBillCount() {
         return billCount;
     }
 
     public Money getTotalRevenue() {
-        return totalRevenue;
+        return totalRevenue.toMoney();
     }
 
     public Money getAverageTransaction() {
@@ -38,12 +49,12 @@ public class BillStatisticsVisitor implements BillVisitor {
             return new Money(BigDecimal.ZERO);
         }
         // FIX: Use RoundingMode.HALF_UP instead of deprecated BigDecimal.ROUND_HALF_UP
-        return new Money(totalRevenue.getValue().divide(
+        return new Money(totalRevenue.toMoney().getValue().divide(
                 BigDecimal.valueOf(billCount), 2, RoundingMode.HALF_UP));
     }
 
     public Money getTotalDiscount() {
-        return totalDiscount;
+        return totalDiscount.toMoney();
     }
 
     public Map<String, Integer> getItemFrequency() {
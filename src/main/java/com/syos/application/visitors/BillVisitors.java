@@ -0,0 +1,88 @@
+package com.syos.application.visitors;
+
+import com.syos.domain.interfaces.BillInterface;
+import com.syos.domain.interfaces.CombinableBillVisitor;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Runs combinable visitors over lists of bills, sequentially or in parallel
+ */
+public final class BillVisitors {
+    // Below this many bills a partition is visited by a single thread
+    static final int DEFAULT_THRESHOLD = 512;
+
+    private BillVisitors() {
+    }
+
+    /**
+     * Visit all bills with one visitor on the calling thread
+     */
+    public static <V extends CombinableBillVisitor<V>> V visitAll(List<? extends BillInterface> bills,
+                                                                  Supplier<V> supplier) {
+        V visitor = supplier.get();
+        for (BillInterface bill : bills) {
+            bill.accept(visitor);
+        }
+        return visitor;
+    }
+
+    /**
+     * Visit all bills on the common fork-join pool
+     */
+    public static <V extends CombinableBillVisitor<V>> V visitInParallel(List<? extends BillInterface> bills,
+                                                                         Supplier<V> supplier) {
+        return visitInParallel(bills, supplier, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Visit all bills on the given pool
+     * The list is split in halves down to the threshold, each partition is visited
+     * by a fresh visitor, and partial results are combined in list order.
+     * @param bills The bills, must not be modified while visiting
+     * @param supplier Creates empty visitors
+     * @param pool The pool running the partitions
+     * @param threshold Maximum number of bills visited by one task
+     */
+    public static <V extends CombinableBillVisitor<V>> V visitInParallel(List<? extends BillInterface> bills,
+                                                                         Supplier<V> supplier,
+                                                                         ForkJoinPool pool,
+                                                                         int threshold) {
+        if (bills.size() <= threshold) {
+            return visitAll(bills, supplier);
+        }
+        return pool.invoke(new VisitTask<>(bills, supplier, Math.max(1, threshold), 0, bills.size()));
+    }
+
+    private static final class VisitTask<V extends CombinableBillVisitor<V>> extends RecursiveTask<V> {
+        private final List<? extends BillInterface> bills;
+        private final Supplier<V> supplier;
+        private final int threshold;
+        private final int start;
+        private final int end;
+
+        private VisitTask(List<? extends BillInterface> bills, Supplier<V> supplier, int threshold,
+                          int start, int end) {
+            this.bills = bills;
+            this.supplier = supplier;
+            this.threshold = threshold;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected V compute() {
+            if (end - start <= threshold) {
+                return visitAll(bills.subList(start, end), supplier);
+            }
+
+            int mid = (start + end) >>> 1;
+            VisitTask<V> left = new VisitTask<>(bills, supplier, threshold, start, mid);
+            left.fork();
+            V right = new VisitTask<>(bills, supplier, threshold, mid, end).compute();
+            return left.join().combine(right);
+        }
+    }
+}
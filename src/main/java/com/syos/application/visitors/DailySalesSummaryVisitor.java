@@ -0,0 +1,66 @@
+package com.syos.application.visitors;
+
+import com.syos.domain.entities.Bill;
+import com.syos.domain.interfaces.CombinableBillVisitor;
+import com.syos.domain.valueobjects.Money;
+import com.syos.domain.valueobjects.MoneyAccumulator;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts bills and sums final amounts per calendar day, most recent day first
+ */
+public class DailySalesSummaryVisitor implements CombinableBillVisitor<DailySalesSummaryVisitor> {
+    private final Map<LocalDate, DailyTotal> dailyTotals = new TreeMap<>(Comparator.reverseOrder());
+
+    @Override
+    public void visit(Bill bill) {
+        dailyTotals.computeIfAbsent(bill.getBillDate().toLocalDate(), date -> new DailyTotal())
+                .add(bill);
+    }
+
+    @Override
+    public DailySalesSummaryVisitor combine(DailySalesSummaryVisitor other) {
+        other.dailyTotals.forEach((date, total) ->
+                dailyTotals.merge(date, total, DailyTotal::merge));
+        return this;
+    }
+
+    /**
+     * @return Daily totals ordered from the most recent day
+     */
+    public Map<LocalDate, DailyTotal> getDailyTotals() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(dailyTotals));
+    }
+
+    /**
+     * Bill count and total of one day
+     */
+    public static final class DailyTotal {
+        private int billCount;
+        private final MoneyAccumulator total = new MoneyAccumulator();
+
+        private void add(Bill bill) {
+            billCount++;
+            total.add(bill.getFinalAmount());
+        }
+
+        private DailyTotal merge(DailyTotal other) {
+            billCount += other.billCount;
+            total.merge(other.total);
+            return this;
+        }
+
+        public int getBillCount() {
+            return billCount;
+        }
+
+        public Money getTotal() {
+            return total.toMoney();
+        }
+    }
+}
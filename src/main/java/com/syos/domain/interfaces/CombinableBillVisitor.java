@@ -0,0 +1,22 @@
+package com.syos.domain.interfaces;
+
+/**
+ * Visitor whose state can be split and merged, so that a large list of bills
+ * can be visited in parallel partitions
+ * Follows the supplier / accumulator / combiner contract of Stream.collect:
+ * - a fresh visitor from a supplier is the empty result
+ * - visit accumulates one bill into the visitor
+ * - combine merges a visitor that visited the bills following this one's
+ * Visiting a list sequentially and visiting its partitions then combining them
+ * in list order must give the same result.
+ * @param <V> The visitor type itself
+ */
+public interface CombinableBillVisitor<V extends CombinableBillVisitor<V>> extends BillVisitor {
+
+    /**
+     * Merge the state of another visitor into this one
+     * @param other A visitor that visited the bills following those of this visitor
+     * @return This visitor, holding the combined result
+     */
+    V combine(V other);
+}
@@ -8,6 +8,8 @@ public final class Money {
     private final BigDecimal amount;
     private static final int SCALE = 2;
 
+    public static final Money ZERO = ofCents(0);
+
     public Money(BigDecimal amount) {
         if (amount == null) {
             throw new IllegalArgumentException("Amount cannot be null");
@@ -15,6 +17,13 @@ public final class Money {
         this.amount = amount.setScale(SCALE, RoundingMode.HALF_UP);
     }
 
+    /**
+     * Create Money from an exact number of cents
+     */
+    public static Money ofCents(long cents) {
+        return new Money(BigDecimal.valueOf(cents, SCALE));
+    }
+
     public Money add(Money other) {
         return new Money(this.amount.add(other.amount));
     }
@@ -35,6 +44,15 @@ public final class Money {
         return amount;
     }
 
+    /**
+     * Amounts always have scale 2, so this is exact
+     * @return The amount in cents
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public long toCents() {
+        return amount.unscaledValue().longValueExact();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,112 @@
+package com.syos.domain.valueobjects;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable running total of Money amounts kept as long cents
+ * Money amounts always have scale 2, so sums and integer multiples are exact in cents
+ * and equal to chaining Money.add / Money.multiply with their HALF_UP rounding,
+ * without a Money and a new total per step.
+ * Amounts of up to 18 digits are read as cents through a scale-0 BigDecimal
+ * that the JIT can usually eliminate (0 bytes per line in MoneyAggregationBenchmark).
+ * Switches to BigDecimal if the total ever leaves the long range.
+ * Not thread-safe.
+ */
+public final class MoneyAccumulator {
+    // Marks an amount that does not fit in a long
+    private static final long NO_CENTS = Long.MIN_VALUE;
+
+    private long cents;
+    // Set once the total no longer fits in a long
+    private BigDecimal overflow;
+
+    public MoneyAccumulator add(Money money) {
+        long amount = cents(money);
+        if (amount == NO_CENTS) {
+            addBig(money.getValue());
+        } else {
+            addCents(amount);
+        }
+        return this;
+    }
+
+    public MoneyAccumulator subtract(Money money) {
+        long amount = cents(money);
+        if (amount == NO_CENTS) {
+            addBig(money.getValue().negate());
+        } else {
+            addCents(-amount);
+        }
+        return this;
+    }
+
+    /**
+     * Add unitPrice * quantity, as BillItem computes a line total
+     */
+    public MoneyAccumulator addProduct(Money unitPrice, int quantity) {
+        long price = cents(unitPrice);
+        if (price != NO_CENTS) {
+            long high = Math.multiplyHigh(price, quantity);
+            long product = price * quantity;
+            if (high == (product >> 63)) {
+                return addCents(product);
+            }
+        }
+        addBig(unitPrice.getValue().multiply(BigDecimal.valueOf(quantity)));
+        return this;
+    }
+
+    public MoneyAccumulator addCents(long amount) {
+        if (overflow != null) {
+            overflow = overflow.add(BigDecimal.valueOf(amount, 2));
+            return this;
+        }
+        long sum = cents + amount;
+        if (((cents ^ sum) & (amount ^ sum)) < 0) {
+            overflow = BigDecimal.valueOf(cents, 2).add(BigDecimal.valueOf(amount, 2));
+        } else {
+            cents = sum;
+        }
+        return this;
+    }
+
+    /**
+     * Add another accumulator's total to this one
+     */
+    public MoneyAccumulator merge(MoneyAccumulator other) {
+        if (other.overflow != null) {
+            addBig(other.overflow);
+        } else {
+            addCents(other.cents);
+        }
+        return this;
+    }
+
+    public Money toMoney() {
+        if (overflow != null) {
+            return new Money(overflow);
+        }
+        return Money.ofCents(cents);
+    }
+
+    public void reset() {
+        cents = 0;
+        overflow = null;
+    }
+
+    private static long cents(Money money) {
+        BigDecimal amount = money.getValue();
+        if (amount.scale() != 2 || amount.precision() > 18) {
+            return NO_CENTS;
+        }
+        // At most 18 digits at scale 2, so the amount in cents fits in a long
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private void addBig(BigDecimal amount) {
+        if (overflow == null) {
+            overflow = BigDecimal.valueOf(cents, 2);
+        }
+        overflow = overflow.add(amount);
+    }
+}
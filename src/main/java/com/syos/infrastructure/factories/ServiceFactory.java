@@ -12,6 +12,7 @@ public class ServiceFactory {
     private InventoryService inventoryService;
     private ReportService reportService;
     private UserService userService;
+    private ExpiryScheduler expiryScheduler;
 
     private ServiceFactory() {
         this.connectionPool = DatabaseConnectionPool.getInstance();
@@ -31,15 +32,28 @@ public class ServiceFactory {
         var billGateway = new BillGateway(connectionPool);
         var userGateway = new UserGateway(connectionPool);
 
+        // Expiry index shared by the services that write items
+        this.expiryScheduler = new ExpiryScheduler(itemGateway);
+
+        // Running inventory statistics, fed by the same writes and by scheduled expiry
+        // Loaded on first use, so startup does not depend on the database
+        var statisticsTracker = new InventoryStatisticsTracker(
+                InventoryService.REORDER_THRESHOLD, InventoryService.EXPIRY_WARNING_DAYS);
+        expiryScheduler.setExpiredItemListener(statisticsTracker::track);
+
         // Initialize services with gateways
-        this.inventoryService = new InventoryService(itemGateway);
-        this.salesService = new SalesService(billGateway, itemGateway);
-        this.reportService = new ReportService(billGateway, itemGateway);
+        this.inventoryService = new InventoryService(itemGateway, expiryScheduler, statisticsTracker);
+        this.salesService = new SalesService(billGateway, itemGateway, expiryScheduler, statisticsTracker);
+        this.reportService = new ReportService(billGateway, itemGateway, expiryScheduler);
         this.userService = new UserService(userGateway);
+
+        // Loads the index on its own thread; a database error is retried there
+        expiryScheduler.start();
     }
 
     public SalesService getSalesService() { return salesService; }
     public InventoryService getInventoryService() { return inventoryService; }
     public ReportService getReportService() { return reportService; }
     public UserService getUserService() { return userService; }
+    public ExpiryScheduler getExpiryScheduler() { return expiryScheduler; }
 }
@@ -3,11 +3,16 @@ package com.syos.infrastructure.persistence.gateways;
 import com.syos.domain.entities.*;
 import com.syos.domain.valueobjects.*;
 import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.loading.BillLoadingStrategy;
+import com.syos.infrastructure.persistence.loading.BillQuery;
+import com.syos.infrastructure.persistence.loading.TwoPhaseBillLoadingStrategy;
 import com.syos.infrastructure.persistence.mappers.BillMapper;
+import com.syos.infrastructure.persistence.mappers.ItemMapper;
+import com.syos.shared.pagination.KeysetCursor;
+import com.syos.shared.pagination.Page;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,10 +21,20 @@ import java.util.List;
  */
 public class BillGateway extends OracleDatabaseGateway<Bill> {
     private final BillMapper mapper;
+    private BillLoadingStrategy loadingStrategy;
 
     public BillGateway(DatabaseConnectionPool pool) {
         super();
         this.mapper = new BillMapper();
+        this.loadingStrategy = new TwoPhaseBillLoadingStrategy(mapper, new ItemMapper());
+    }
+
+    /**
+     * Replace the strategy used to load bills with their items
+     * @param loadingStrategy The loading strategy
+     */
+    public void setLoadingStrategy(BillLoadingStrategy loadingStrategy) {
+        this.loadingStrategy = loadingStrategy;
     }
 
     @Override
@@ -129,80 +144,46 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
      * @return List of bills from that date
      */
     public List<Bill> findByDate(LocalDate date) {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT b.*, bi.*, i.* FROM bills b " +
-                    "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
-                    "LEFT JOIN items i ON bi.item_code = i.code " +
-                    "WHERE DATE(b.bill_date) = ? " +
-                    "ORDER BY b.bill_number, bi.id";
-
-            List<Bill> bills = new ArrayList<>();
-            Bill currentBill = null;
-            int lastBillNumber = -1;
-
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setDate(1, Date.valueOf(date));
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        int billNumber = rs.getInt("bill_number");
-
-                        // If new bill, create it
-                        if (billNumber != lastBillNumber) {
-                            currentBill = mapper.mapRow(rs);
-                            bills.add(currentBill);
-                            lastBillNumber = billNumber;
-                        }
-
-                        // Add bill item if exists
-                        if (rs.getString("item_code") != null) {
-                            BillItem billItem = mapper.mapBillItem(rs);
-                            currentBill.getItems().add(billItem);
-                        }
-                    }
-                }
-            }
-            return bills;
-        });
+        // Half-open range instead of DATE(bill_date) so the bill_date index can be used
+        return load(BillQuery.where("bill_date >= ? AND bill_date < ?", (stmt, index) -> {
+            stmt.setTimestamp(index++, Timestamp.valueOf(date.atStartOfDay()));
+            stmt.setTimestamp(index++, Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+            return index;
+        }));
     }
 
     /**
      * Find all bills
      * @return List of all bills
+     * @deprecated Loads the entire bill history into memory, use {@link #findPage(KeysetCursor, int)}
      */
+    @Deprecated
     public List<Bill> findAll() {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT b.*, bi.*, i.* FROM bills b " +
-                    "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
-                    "LEFT JOIN items i ON bi.item_code = i.code " +
-                    "ORDER BY b.bill_date DESC, b.bill_number, bi.id";
-
-            List<Bill> bills = new ArrayList<>();
-            Bill currentBill = null;
-            int lastBillNumber = -1;
-
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-
-                while (rs.next()) {
-                    int billNumber = rs.getInt("bill_number");
-
-                    // If new bill, create it
-                    if (billNumber != lastBillNumber) {
-                        currentBill = mapper.mapRow(rs);
-                        bills.add(currentBill);
-                        lastBillNumber = billNumber;
-                    }
+        return load(BillQuery.all().orderedBy(BillQuery.Order.NEWEST_FIRST));
+    }
 
-                    // Add bill item if exists
-                    if (rs.getString("item_code") != null) {
-                        BillItem billItem = mapper.mapBillItem(rs);
-                        currentBill.getItems().add(billItem);
-                    }
-                }
-            }
-            return bills;
-        });
+    /**
+     * Find one page of bills, most recent first, using keyset pagination on (bill_date, bill_number)
+     * @param after Cursor of the last bill of the previous page, null for the first page
+     * @param pageSize Number of bills per page, clamped to Page.MAX_PAGE_SIZE
+     * @return The page of bills with their items
+     */
+    public Page<Bill> findPage(KeysetCursor after, int pageSize) {
+        int limit = Page.clampPageSize(pageSize);
+
+        BillQuery query = after == null
+                ? BillQuery.all()
+                : BillQuery.where("bill_date < ? OR (bill_date = ? AND bill_number < ?)", (stmt, index) -> {
+                    stmt.setTimestamp(index++, after.getSqlTimestamp());
+                    stmt.setTimestamp(index++, after.getSqlTimestamp());
+                    stmt.setLong(index++, after.getId());
+                    return index;
+                });
+
+        // Fetch one extra bill to know whether another page exists
+        List<Bill> bills = load(query.orderedBy(BillQuery.Order.NEWEST_FIRST).limitedTo(limit + 1));
+        return Page.fromOverfetch(bills, limit,
+                bill -> KeysetCursor.of(bill.getBillDate(), bill.getBillNumber().getValue()));
     }
 
     /**
@@ -211,33 +192,11 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
      * @return The bill if found, null otherwise
      */
     public Bill findByBillNumber(int billNumber) {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT b.*, bi.*, i.* FROM bills b " +
-                    "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
-                    "LEFT JOIN items i ON bi.item_code = i.code " +
-                    "WHERE b.bill_number = ?";
-
-            Bill bill = null;
-
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setInt(1, billNumber);
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        if (bill == null) {
-                            bill = mapper.mapRow(rs);
-                        }
-
-                        // Add bill item if exists
-                        if (rs.getString("item_code") != null) {
-                            BillItem billItem = mapper.mapBillItem(rs);
-                            bill.getItems().add(billItem);
-                        }
-                    }
-                }
-            }
-            return bill;
-        });
+        List<Bill> bills = load(BillQuery.where("bill_number = ?", (stmt, index) -> {
+            stmt.setInt(index++, billNumber);
+            return index;
+        }));
+        return bills.isEmpty() ? null : bills.get(0);
     }
 
     /**
@@ -292,41 +251,14 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
      * @return List of bills in the date range
      */
     public List<Bill> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT b.*, bi.*, i.* FROM bills b " +
-                    "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
-                    "LEFT JOIN items i ON bi.item_code = i.code " +
-                    "WHERE DATE(b.bill_date) BETWEEN ? AND ? " +
-                    "ORDER BY b.bill_date DESC, b.bill_number, bi.id";
-
-            List<Bill> bills = new ArrayList<>();
-            Bill currentBill = null;
-            int lastBillNumber = -1;
-
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setDate(1, Date.valueOf(startDate));
-                stmt.setDate(2, Date.valueOf(endDate));
+        return load(BillQuery.where("bill_date >= ? AND bill_date < ?", (stmt, index) -> {
+            stmt.setTimestamp(index++, Timestamp.valueOf(startDate.atStartOfDay()));
+            stmt.setTimestamp(index++, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            return index;
+        }).orderedBy(BillQuery.Order.NEWEST_FIRST));
+    }
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        int billNumber = rs.getInt("bill_number");
-
-                        // If new bill, create it
-                        if (billNumber != lastBillNumber) {
-                            currentBill = mapper.mapRow(rs);
-                            bills.add(currentBill);
-                            lastBillNumber = billNumber;
-                        }
-
-                        // Add bill item if exists
-                        if (rs.getString("item_code") != null) {
-                            BillItem billItem = mapper.mapBillItem(rs);
-                            currentBill.getItems().add(billItem);
-                        }
-                    }
-                }
-            }
-            return bills;
-        });
+    private List<Bill> load(BillQuery query) {
+        return connectionManager.executeWithConnection(connection -> loadingStrategy.load(connection, query));
     }
-}
\ No newline at end of file
+}
@@ -4,15 +4,37 @@ import com.syos.domain.entities.*;
 import com.syos.domain.valueobjects.*;
 import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
 import com.syos.infrastructure.persistence.mappers.ItemMapper;
+import com.syos.shared.lookup.UnknownCodeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.math.BigDecimal;
 
 public class ItemGateway extends OracleDatabaseGateway<Item> {
+    private static final Logger logger = LoggerFactory.getLogger(ItemGateway.class);
+
+    private static final long NEGATIVE_TTL_MILLIS = 30_000;
+    private static final long CODE_FILTER_MAX_AGE_MILLIS = 60_000;
+    private static final int MAX_NEGATIVE_ENTRIES = 10_000;
+
     private final ItemMapper mapper;
 
+    // Rejects mis-scanned and unknown codes in findByCode without a query
+    private final UnknownCodeFilter unknownCodes =
+            new UnknownCodeFilter(NEGATIVE_TTL_MILLIS, CODE_FILTER_MAX_AGE_MILLIS, MAX_NEGATIVE_ENTRIES);
+    private final ExecutorService codeFilterRebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "item-code-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     public ItemGateway(DatabaseConnectionPool pool) {
         super();
         this.mapper = new ItemMapper();
@@ -70,8 +92,67 @@ public class ItemGateway extends OracleDatabaseGateway<Item> {
         return entity;
     }
 
+    @Override
+    protected void afterInsert(Item entity) {
+        unknownCodes.recordAdded(entity.getCode().getValue());
+    }
+
     // Additional methods specific to ItemGateway
+
+    /**
+     * Find an item by code. Codes the unknown-code filter knows to be missing
+     * return null without a query; its Bloom filter is loaded in the background
+     * on first use and refreshed there before it is a minute old, since the web
+     * application adds items too.
+     * Use only for reads; write paths must use findByCodeUncached.
+     */
     public Item findByCode(String code) {
+        unknownCodes.refreshAsync(codeFilterRebuilder, this::loadAllCodes);
+        if (unknownCodes.isKnownMissing(code)) {
+            return null;
+        }
+        Item item = findByCodeUncached(code);
+        if (item == null) {
+            unknownCodes.recordMissing(code);
+        } else {
+            unknownCodes.recordAdded(code);
+        }
+        return item;
+    }
+
+    /**
+     * @return Unknown-code filter outcomes, including its observed and expected false positive rates
+     */
+    public Map<String, Object> getCodeFilterStatistics() {
+        return unknownCodes.getStatistics();
+    }
+
+    /**
+     * @return Every item code, or null if they could not be read
+     */
+    private List<String> loadAllCodes() {
+        try {
+            return connectionManager.executeWithConnection(connection -> {
+                List<String> all = new ArrayList<>();
+                try (Statement stmt = connection.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT code FROM items")) {
+                    while (rs.next()) {
+                        all.add(rs.getString(1));
+                    }
+                }
+                return all;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to rebuild item code filter", e);
+            return null;
+        }
+    }
+
+    /**
+     * Find an item by code straight from the database, bypassing the unknown-code filter
+     * Write paths decide between INSERT and UPDATE on this, so it must never guess
+     */
+    public Item findByCodeUncached(String code) {
         return connectionManager.executeWithConnection(connection -> {
             String sql = "SELECT * FROM items WHERE code = ?";
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -100,6 +181,27 @@ public class ItemGateway extends OracleDatabaseGateway<Item> {
         });
     }
 
+    /**
+     * Find the items matching a query, filtered, ordered and limited by the database
+     */
+    public List<Item> find(ItemQuery query) {
+        return connectionManager.executeWithConnection(connection -> {
+            List<Object> parameters = query.getParameters();
+            List<Item> items = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement(query.toSql())) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    stmt.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        items.add(mapper.mapRow(rs));
+                    }
+                }
+            }
+            return items;
+        });
+    }
+
     public List<Item> findLowStock(int threshold) {
         return connectionManager.executeWithConnection(connection -> {
             String sql = "SELECT * FROM items WHERE quantity < ? AND state != 'EXPIRED'";
@@ -131,4 +233,95 @@ public class ItemGateway extends OracleDatabaseGateway<Item> {
             return items;
         });
     }
+
+    /**
+     * Inventory totals in one aggregate query instead of loading every item
+     * @param lowStockThreshold Items not expired with less than this quantity count as low stock
+     * @param expiringDays Items expiring between today and this many days ahead count as expiring
+     */
+    public StockTotals getStockTotals(int lowStockThreshold, int expiringDays) {
+        return connectionManager.executeWithConnection(connection -> {
+            String sql = "SELECT COUNT(*) AS total_items, " +
+                    "COALESCE(SUM(quantity), 0) AS total_quantity, " +
+                    "COALESCE(SUM(CASE WHEN state = 'EXPIRED' THEN 1 ELSE 0 END), 0) AS expired_count, " +
+                    "COALESCE(SUM(CASE WHEN quantity < ? AND state != 'EXPIRED' THEN 1 ELSE 0 END), 0) AS low_stock_count, " +
+                    "COALESCE(SUM(CASE WHEN expiry_date BETWEEN CURDATE() AND DATE_ADD(CURDATE(), INTERVAL ? DAY) " +
+                    "THEN 1 ELSE 0 END), 0) AS expiring_count, " +
+                    "COALESCE(SUM(CASE WHEN state != 'EXPIRED' THEN price * quantity ELSE 0 END), 0) AS total_value " +
+                    "FROM items";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, lowStockThreshold);
+                stmt.setInt(2, expiringDays);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    return new StockTotals(
+                            rs.getInt("total_items"),
+                            rs.getInt("total_quantity"),
+                            rs.getInt("expired_count"),
+                            rs.getInt("low_stock_count"),
+                            rs.getInt("expiring_count"),
+                            rs.getBigDecimal("total_value"));
+                }
+            }
+        });
+    }
+
+    /**
+     * Move the given items to EXPIRED with one UPDATE
+     * Items already expired or sold out are left unchanged
+     * @return Number of rows updated
+     */
+    public int markExpired(List<String> codes) {
+        if (codes.isEmpty()) {
+            return 0;
+        }
+        return connectionManager.executeWithConnection(connection -> {
+            String placeholders = String.join(", ", Collections.nCopies(codes.size(), "?"));
+            String sql = "UPDATE items SET state = 'EXPIRED' " +
+                    "WHERE code IN (" + placeholders + ") AND state IN ('IN_STORE', 'ON_SHELF')";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < codes.size(); i++) {
+                    stmt.setString(i + 1, codes.get(i));
+                }
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Move every item whose expiry date is before the given day to EXPIRED with one UPDATE
+     * @return Number of rows updated
+     */
+    public int markExpiredBefore(LocalDate day) {
+        return connectionManager.executeWithConnection(connection -> {
+            String sql = "UPDATE items SET state = 'EXPIRED' " +
+                    "WHERE expiry_date < ? AND state IN ('IN_STORE', 'ON_SHELF')";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setDate(1, Date.valueOf(day));
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Result row of getStockTotals
+     */
+    public static class StockTotals {
+        public final int totalItems;
+        public final int totalQuantity;
+        public final int expiredCount;
+        public final int lowStockCount;
+        public final int expiringCount;
+        public final BigDecimal totalValue;
+
+        public StockTotals(int totalItems, int totalQuantity, int expiredCount,
+                           int lowStockCount, int expiringCount, BigDecimal totalValue) {
+            this.totalItems = totalItems;
+            this.totalQuantity = totalQuantity;
+            this.expiredCount = expiredCount;
+            this.lowStockCount = lowStockCount;
+            this.expiringCount = expiringCount;
+            this.totalValue = totalValue;
+        }
+    }
 }
@@ -0,0 +1,168 @@
+package com.syos.infrastructure.persistence.gateways;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Criteria for ItemGateway.find, translated into one SELECT
+ *
+ * Every criterion maps onto an indexed column of the items table
+ * (idx_state, idx_quantity, idx_expiry), so the database filters and
+ * only matching rows are turned into Item objects.
+ */
+public class ItemQuery {
+
+    /**
+     * Sort orders, each a fixed SQL fragment
+     */
+    public enum Order {
+        NAME("name"),
+        CODE("code"),
+        EXPIRY_DATE("expiry_date IS NULL, expiry_date, name"),
+        QUANTITY("quantity, name");
+
+        private final String sql;
+
+        Order(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private final List<String> states;
+    private final Integer minQuantity;
+    private final Integer maxQuantity;
+    private final LocalDate expiresFrom;
+    private final LocalDate expiresTo;
+    private final Order order;
+    private final int limit;
+
+    private ItemQuery(Builder builder) {
+        this.states = Collections.unmodifiableList(new ArrayList<>(builder.states));
+        this.minQuantity = builder.minQuantity;
+        this.maxQuantity = builder.maxQuantity;
+        this.expiresFrom = builder.expiresFrom;
+        this.expiresTo = builder.expiresTo;
+        this.order = builder.order;
+        this.limit = builder.limit;
+    }
+
+    /**
+     * @return SELECT statement with one placeholder per value of getParameters
+     */
+    String toSql() {
+        StringBuilder sql = new StringBuilder("SELECT * FROM items");
+        List<String> conditions = new ArrayList<>();
+        if (!states.isEmpty()) {
+            conditions.add("state IN (" + String.join(", ", Collections.nCopies(states.size(), "?")) + ")");
+        }
+        if (minQuantity != null) {
+            conditions.add("quantity >= ?");
+        }
+        if (maxQuantity != null) {
+            conditions.add("quantity <= ?");
+        }
+        if (expiresFrom != null) {
+            conditions.add("expiry_date >= ?");
+        }
+        if (expiresTo != null) {
+            conditions.add("expiry_date <= ?");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(order.sql);
+        if (limit > 0) {
+            sql.append(" LIMIT ").append(limit);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * @return Placeholder values in the order they appear in toSql
+     */
+    List<Object> getParameters() {
+        List<Object> parameters = new ArrayList<>(states);
+        if (minQuantity != null) {
+            parameters.add(minQuantity);
+        }
+        if (maxQuantity != null) {
+            parameters.add(maxQuantity);
+        }
+        if (expiresFrom != null) {
+            parameters.add(java.sql.Date.valueOf(expiresFrom));
+        }
+        if (expiresTo != null) {
+            parameters.add(java.sql.Date.valueOf(expiresTo));
+        }
+        return parameters;
+    }
+
+    public static class Builder {
+        private final List<String> states = new ArrayList<>();
+        private Integer minQuantity;
+        private Integer maxQuantity;
+        private LocalDate expiresFrom;
+        private LocalDate expiresTo;
+        private Order order = Order.NAME;
+        private int limit;
+
+        /**
+         * Only items in one of the given states (IN_STORE, ON_SHELF, EXPIRED, SOLD_OUT)
+         */
+        public Builder withStates(String... states) {
+            this.states.addAll(Arrays.asList(states));
+            return this;
+        }
+
+        /**
+         * Only items with at least this quantity
+         */
+        public Builder withMinQuantity(int minQuantity) {
+            this.minQuantity = minQuantity;
+            return this;
+        }
+
+        /**
+         * Only items with at most this quantity
+         */
+        public Builder withMaxQuantity(int maxQuantity) {
+            this.maxQuantity = maxQuantity;
+            return this;
+        }
+
+        /**
+         * Only items expiring between the two dates, both inclusive
+         * Either bound may be null. With at least one bound set, items without an
+         * expiry date never match; with both null the criterion is dropped and
+         * every item matches
+         */
+        public Builder expiringBetween(LocalDate from, LocalDate to) {
+            this.expiresFrom = from;
+            this.expiresTo = to;
+            return this;
+        }
+
+        public Builder orderBy(Order order) {
+            this.order = order;
+            return this;
+        }
+
+        /**
+         * @param limit Maximum number of rows, or 0 for no limit
+         */
+        public Builder limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public ItemQuery build() {
+            return new ItemQuery(this);
+        }
+    }
+}
@@ -13,7 +13,7 @@ public abstract class OracleDatabaseGateway<T> {
 
     // Template Method Pattern
     public final T insert(T entity) {
-        return connectionManager.executeWithConnection(connection -> {
+        T inserted = connectionManager.executeWithConnection(connection -> {
             String sql = getInsertSQL();
             try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
                 setInsertParameters(stmt, entity);
@@ -27,6 +27,8 @@ public abstract class OracleDatabaseGateway<T> {
                 return entity;
             }
         });
+        afterInsert(inserted);
+        return inserted;
     }
 
     public final void update(T entity) {
@@ -75,4 +77,8 @@ public abstract class OracleDatabaseGateway<T> {
     protected abstract void setUpdateParameters(PreparedStatement stmt, T entity) throws SQLException;
     protected abstract T mapResultSetToEntity(ResultSet rs) throws SQLException;
     protected abstract T mapResultWithId(T entity, Long id);
+
+    // Hook for subclasses keeping derived state in step with inserts
+    protected void afterInsert(T entity) {
+    }
 }
@@ -0,0 +1,24 @@
+package com.syos.infrastructure.persistence.loading;
+
+import com.syos.domain.entities.Bill;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Strategy Pattern - how bills and their lines are read from the database
+ */
+public interface BillLoadingStrategy {
+
+    /**
+     * Load the bills selected by the query together with their items
+     * Bills are returned in the query's order
+     * @param connection The connection to use
+     * @param query The bill selection
+     * @return The loaded bills
+     * @throws SQLException if database access error occurs
+     */
+    List<Bill> load(Connection connection, BillQuery query) throws SQLException;
+
+    String getName();
+}
@@ -0,0 +1,114 @@
+package com.syos.infrastructure.persistence.loading;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Selection of bill headers handed to a BillLoadingStrategy
+ * Describes which bills to load, in which order and how many,
+ * independently of how their lines are fetched
+ */
+public final class BillQuery {
+
+    /**
+     * Supported bill orderings, in plain and table-qualified form
+     */
+    public enum Order {
+        BILL_NUMBER("bill_number", "b.bill_number"),
+        NEWEST_FIRST("bill_date DESC, bill_number DESC", "b.bill_date DESC, b.bill_number DESC");
+
+        private final String columns;
+        private final String qualifiedColumns;
+
+        Order(String columns, String qualifiedColumns) {
+            this.columns = columns;
+            this.qualifiedColumns = qualifiedColumns;
+        }
+
+        public String getColumns() {
+            return columns;
+        }
+
+        public String getQualifiedColumns() {
+            return qualifiedColumns;
+        }
+    }
+
+    /**
+     * Binds the parameters of the WHERE clause
+     */
+    @FunctionalInterface
+    public interface ParameterBinder {
+        /**
+         * @param stmt The statement to bind
+         * @param index The first parameter index to use
+         * @return The next free parameter index
+         */
+        int bind(PreparedStatement stmt, int index) throws SQLException;
+    }
+
+    private static final ParameterBinder NO_PARAMETERS = (stmt, index) -> index;
+
+    private final String whereClause;
+    private final ParameterBinder binder;
+    private final Order order;
+    private final int limit;
+
+    private BillQuery(String whereClause, ParameterBinder binder, Order order, int limit) {
+        this.whereClause = whereClause;
+        this.binder = binder;
+        this.order = order;
+        this.limit = limit;
+    }
+
+    public static BillQuery all() {
+        return new BillQuery(null, NO_PARAMETERS, Order.BILL_NUMBER, 0);
+    }
+
+    /**
+     * @param whereClause Condition on unqualified bills columns, without the WHERE keyword
+     * @param binder Binds the condition's parameters
+     */
+    public static BillQuery where(String whereClause, ParameterBinder binder) {
+        return new BillQuery(whereClause, binder, Order.BILL_NUMBER, 0);
+    }
+
+    public BillQuery orderedBy(Order order) {
+        return new BillQuery(whereClause, binder, order, limit);
+    }
+
+    public BillQuery limitedTo(int limit) {
+        return new BillQuery(whereClause, binder, order, limit);
+    }
+
+    /**
+     * @return SELECT over the bills table only, with ordering and limit applied
+     */
+    public String toHeaderSql() {
+        StringBuilder sql = new StringBuilder("SELECT * FROM bills");
+        if (whereClause != null) {
+            sql.append(" WHERE ").append(whereClause);
+        }
+        sql.append(" ORDER BY ").append(order.getColumns());
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Bind the parameters of {@link #toHeaderSql()}
+     * @return The next free parameter index
+     */
+    public int bind(PreparedStatement stmt, int index) throws SQLException {
+        int next = binder.bind(stmt, index);
+        if (limit > 0) {
+            stmt.setInt(next++, limit);
+        }
+        return next;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+}
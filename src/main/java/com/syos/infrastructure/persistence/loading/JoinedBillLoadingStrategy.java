@@ -0,0 +1,88 @@
+package com.syos.infrastructure.persistence.loading;
+
+import com.syos.domain.entities.Bill;
+import com.syos.domain.entities.BillItem;
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.persistence.mappers.BillMapper;
+import com.syos.infrastructure.persistence.mappers.BillMapper.BillHeader;
+import com.syos.infrastructure.persistence.mappers.ItemMapper;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads bills with a single bills LEFT JOIN bill_items LEFT JOIN items query
+ * One round trip, but the bill header and the full item row are repeated
+ * for every line and an Item is mapped per line
+ */
+public class JoinedBillLoadingStrategy implements BillLoadingStrategy {
+    private final BillMapper billMapper;
+    private final ItemMapper itemMapper;
+
+    public JoinedBillLoadingStrategy(BillMapper billMapper, ItemMapper itemMapper) {
+        this.billMapper = billMapper;
+        this.itemMapper = itemMapper;
+    }
+
+    @Override
+    public List<Bill> load(Connection connection, BillQuery query) throws SQLException {
+        // The header selection is a derived table so that LIMIT counts bills, not lines
+        String sql = "SELECT b.*, bi.item_code, bi.quantity AS line_quantity, i.* FROM (" +
+                query.toHeaderSql() + ") b " +
+                "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
+                "LEFT JOIN items i ON bi.item_code = i.code " +
+                "ORDER BY " + query.getOrder().getQualifiedColumns() + ", bi.id";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            query.bind(stmt, 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return foldRows(rs);
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "JOINED";
+    }
+
+    /**
+     * Fold joined rows into bills, lines of a bill are adjacent
+     */
+    private List<Bill> foldRows(ResultSet rs) throws SQLException {
+        List<Bill> bills = new ArrayList<>();
+        BillHeader header = null;
+        List<BillItem> lines = new ArrayList<>();
+
+        while (rs.next()) {
+            int billNumber = rs.getInt("bill_number");
+
+            // If new bill, complete the previous one
+            if (header == null || billNumber != header.getBillNumber()) {
+                addBill(bills, header, lines);
+                header = billMapper.mapHeader(rs);
+                lines = new ArrayList<>();
+            }
+
+            // Add bill item if exists
+            if (rs.getString("item_code") != null) {
+                Item item = itemMapper.mapRow(rs);
+                lines.add(new BillItem(item, rs.getInt("line_quantity")));
+            }
+        }
+        addBill(bills, header, lines);
+
+        return bills;
+    }
+
+    private void addBill(List<Bill> bills, BillHeader header, List<BillItem> lines) {
+        // A Bill cannot exist without items, so header-only rows are skipped
+        if (header != null && !lines.isEmpty()) {
+            bills.add(billMapper.toBill(header, lines));
+        }
+    }
+}
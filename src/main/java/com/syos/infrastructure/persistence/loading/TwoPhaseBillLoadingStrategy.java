@@ -0,0 +1,159 @@
+package com.syos.infrastructure.persistence.loading;
+
+import com.syos.domain.entities.Bill;
+import com.syos.domain.entities.BillItem;
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.persistence.mappers.BillMapper;
+import com.syos.infrastructure.persistence.mappers.BillMapper.BillHeader;
+import com.syos.infrastructure.persistence.mappers.ItemMapper;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads bills in two phases to avoid join fan-out:
+ * 1. the bill headers of the selection
+ * 2. the lines of that batch of bills with one IN (...) query, as (bill, code, quantity) only
+ * Item rows are then read once per distinct code into a per-query cache,
+ * so lines of the same item share one Item instance.
+ * Items are shared between the loaded bills and must be treated as read-only.
+ */
+public class TwoPhaseBillLoadingStrategy implements BillLoadingStrategy {
+    // Keeps IN (...) lists well below driver and server packet limits
+    private static final int IN_CLAUSE_BATCH_SIZE = 500;
+
+    private final BillMapper billMapper;
+    private final ItemMapper itemMapper;
+
+    public TwoPhaseBillLoadingStrategy(BillMapper billMapper, ItemMapper itemMapper) {
+        this.billMapper = billMapper;
+        this.itemMapper = itemMapper;
+    }
+
+    @Override
+    public List<Bill> load(Connection connection, BillQuery query) throws SQLException {
+        List<BillHeader> headers = loadHeaders(connection, query);
+        if (headers.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, List<Line>> linesByBill = new HashMap<>();
+        Set<String> itemCodes = new LinkedHashSet<>();
+        for (int from = 0; from < headers.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            List<BillHeader> batch = headers.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, headers.size()));
+            loadLines(connection, batch, linesByBill, itemCodes);
+        }
+
+        Map<String, Item> itemCache = loadItems(connection, new ArrayList<>(itemCodes));
+
+        List<Bill> bills = new ArrayList<>(headers.size());
+        for (BillHeader header : headers) {
+            List<Line> lines = linesByBill.get(header.getBillNumber());
+            if (lines == null) {
+                // A Bill cannot exist without items
+                continue;
+            }
+
+            List<BillItem> billItems = new ArrayList<>(lines.size());
+            for (Line line : lines) {
+                Item item = itemCache.get(line.itemCode);
+                if (item != null) {
+                    billItems.add(new BillItem(item, line.quantity));
+                }
+            }
+            if (!billItems.isEmpty()) {
+                bills.add(billMapper.toBill(header, billItems));
+            }
+        }
+        return bills;
+    }
+
+    @Override
+    public String getName() {
+        return "TWO_PHASE";
+    }
+
+    private List<BillHeader> loadHeaders(Connection connection, BillQuery query) throws SQLException {
+        List<BillHeader> headers = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(query.toHeaderSql())) {
+            query.bind(stmt, 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    headers.add(billMapper.mapHeader(rs));
+                }
+            }
+        }
+        return headers;
+    }
+
+    private void loadLines(Connection connection, List<BillHeader> batch,
+                           Map<Integer, List<Line>> linesByBill, Set<String> itemCodes) throws SQLException {
+        String sql = "SELECT bill_number, item_code, quantity FROM bill_items " +
+                "WHERE bill_number IN (" + placeholders(batch.size()) + ") " +
+                "ORDER BY bill_number, id";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < batch.size(); i++) {
+                stmt.setInt(i + 1, batch.get(i).getBillNumber());
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String itemCode = rs.getString("item_code");
+                    linesByBill.computeIfAbsent(rs.getInt("bill_number"), k -> new ArrayList<>())
+                            .add(new Line(itemCode, rs.getInt("quantity")));
+                    itemCodes.add(itemCode);
+                }
+            }
+        }
+    }
+
+    private Map<String, Item> loadItems(Connection connection, List<String> codes) throws SQLException {
+        Map<String, Item> itemCache = new HashMap<>();
+
+        for (int from = 0; from < codes.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            List<String> batch = codes.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, codes.size()));
+            String sql = "SELECT * FROM items WHERE code IN (" + placeholders(batch.size()) + ")";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setString(i + 1, batch.get(i));
+                }
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Item item = itemMapper.mapRow(rs);
+                        itemCache.put(item.getCode().getValue(), item);
+                    }
+                }
+            }
+        }
+        return itemCache;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * A bill line before its item is resolved
+     */
+    private static final class Line {
+        private final String itemCode;
+        private final int quantity;
+
+        private Line(String itemCode, int quantity) {
+            this.itemCode = itemCode;
+            this.quantity = quantity;
+        }
+    }
+}
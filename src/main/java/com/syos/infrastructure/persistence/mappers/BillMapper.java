@@ -8,6 +8,7 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Mapper for converting ResultSet to Bill entities
@@ -33,6 +34,39 @@ public class BillMapper {
         return builder.build();
     }
 
+    /**
+     * Map only the bill header columns of a ResultSet row
+     * Used when the lines of a bill are loaded separately from its header
+     * @param rs The ResultSet positioned at a valid bills row
+     * @return The bill header
+     * @throws SQLException if database access error occurs
+     */
+    public BillHeader mapHeader(ResultSet rs) throws SQLException {
+        return new BillHeader(
+                rs.getInt("bill_number"),
+                rs.getTimestamp("bill_date").toLocalDateTime(),
+                rs.getBigDecimal("discount"),
+                rs.getBigDecimal("cash_tendered"),
+                TransactionType.valueOf(rs.getString("transaction_type")));
+    }
+
+    /**
+     * Build a complete Bill from its header and lines
+     * @param header The bill header
+     * @param items The bill lines, must not be empty
+     * @return A Bill entity with all its items
+     */
+    public Bill toBill(BillHeader header, List<BillItem> items) {
+        return new Bill.Builder()
+                .withBillNumber(header.billNumber)
+                .withDate(header.billDate)
+                .withItems(items)
+                .withDiscount(header.discount)
+                .withCashTendered(header.cashTendered)
+                .withTransactionType(header.transactionType)
+                .build();
+    }
+
     /**
      * Map a ResultSet row to a BillItem entity
      * This assumes the ResultSet contains joined data from bill_items and items tables
@@ -148,4 +182,27 @@ public class BillMapper {
                 .withTransactionType(TransactionType.valueOf(transactionType))
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Bill columns read before the bill lines are known
+     */
+    public static final class BillHeader {
+        private final int billNumber;
+        private final LocalDateTime billDate;
+        private final java.math.BigDecimal discount;
+        private final java.math.BigDecimal cashTendered;
+        private final TransactionType transactionType;
+
+        public BillHeader(int billNumber, LocalDateTime billDate, java.math.BigDecimal discount,
+                          java.math.BigDecimal cashTendered, TransactionType transactionType) {
+            this.billNumber = billNumber;
+            this.billDate = billDate;
+            this.discount = discount;
+            this.cashTendered = cashTendered;
+            this.transactionType = transactionType;
+        }
+
+        public int getBillNumber() { return billNumber; }
+        public LocalDateTime getBillDate() { return billDate; }
+    }
+}
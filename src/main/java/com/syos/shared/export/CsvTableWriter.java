@@ -0,0 +1,48 @@
+package com.syos.shared.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV with a header row
+ * Summary entries are not part of the table and are left out
+ */
+class CsvTableWriter implements TableWriter {
+    private static final String NEWLINE = "\r\n";
+
+    @Override
+    public void write(ReportTable table, Writer out) throws IOException {
+        List<ReportColumn> columns = table.getColumns();
+
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(out, columns.get(i).getHeader());
+        }
+        out.write(NEWLINE);
+
+        for (Object[] row : table.getRows()) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeField(out, ExportValues.toText(row[i]));
+            }
+            out.write(NEWLINE);
+        }
+    }
+
+    private void writeField(Writer out, String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
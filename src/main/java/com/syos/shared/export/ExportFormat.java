@@ -0,0 +1,50 @@
+package com.syos.shared.export;
+
+import java.util.Locale;
+
+/**
+ * Output formats supported by ReportExporter
+ */
+public enum ExportFormat {
+    TEXT("txt", "text/plain", new TextTableWriter()),
+    CSV("csv", "text/csv", new CsvTableWriter()),
+    JSONL("jsonl", "application/x-ndjson", new JsonLinesTableWriter());
+
+    private final String extension;
+    private final String contentType;
+    private final TableWriter writer;
+
+    ExportFormat(String extension, String contentType, TableWriter writer) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.writer = writer;
+    }
+
+    /**
+     * Parse a format name or file extension, case-insensitive
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public static ExportFormat fromName(String name) {
+        if (name != null) {
+            String normalized = name.trim().toUpperCase(Locale.ROOT);
+            for (ExportFormat format : values()) {
+                if (format.name().equals(normalized) || format.extension.equalsIgnoreCase(normalized)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + name);
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    TableWriter getWriter() {
+        return writer;
+    }
+}
@@ -0,0 +1,30 @@
+package com.syos.shared.export;
+
+import com.syos.domain.valueobjects.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * Text rendering of cell values shared by the writers
+ */
+final class ExportValues {
+
+    private ExportValues() {
+    }
+
+    static String toText(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Money) {
+            return ((Money) value).getValue().toPlainString();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue()).toPlainString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.syos.shared.export;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON Lines: a "report" header object, one "row" object per row keyed by column,
+ * and a final "summary" object
+ */
+class JsonLinesTableWriter implements TableWriter {
+
+    @Override
+    public void write(ReportTable table, Writer out) throws IOException {
+        JsonWriter json = newLineWriter(out);
+        json.beginObject();
+        json.name("type").value("report");
+        json.name("title").value(table.getTitle());
+        json.name("reportType").value(table.getType());
+        json.name("generated").value(table.getGeneratedAt().toString());
+        json.endObject();
+        json.flush();
+        out.write('\n');
+
+        List<ReportColumn> columns = table.getColumns();
+        for (Object[] row : table.getRows()) {
+            json = newLineWriter(out);
+            json.beginObject();
+            json.name("type").value("row");
+            for (int i = 0; i < columns.size(); i++) {
+                json.name(columns.get(i).getKey());
+                writeValue(json, row[i]);
+            }
+            json.endObject();
+            json.flush();
+            out.write('\n');
+        }
+
+        json = newLineWriter(out);
+        json.beginObject();
+        json.name("type").value("summary");
+        for (Map.Entry<String, Object> entry : table.getSummary().entrySet()) {
+            json.name(toKey(entry.getKey()));
+            writeValue(json, entry.getValue());
+        }
+        json.endObject();
+        json.flush();
+        out.write('\n');
+    }
+
+    /**
+     * JsonWriter rejects a second top-level value, so each line gets its own
+     * lightweight writer over the shared output
+     */
+    private JsonWriter newLineWriter(Writer out) {
+        JsonWriter json = new JsonWriter(new NonClosingWriter(out));
+        json.setSerializeNulls(true);
+        return json;
+    }
+
+    /**
+     * Summary labels are written for people ("Total Item Types"); JSON gets "totalItemTypes"
+     */
+    static String toKey(String label) {
+        StringBuilder key = new StringBuilder(label.length());
+        boolean upperNext = false;
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                upperNext = key.length() > 0;
+            } else if (key.length() == 0) {
+                key.append(Character.toLowerCase(c));
+            } else {
+                key.append(upperNext ? Character.toUpperCase(c) : Character.toLowerCase(c));
+                upperNext = false;
+            }
+        }
+        return key.toString();
+    }
+
+    private void writeValue(JsonWriter json, Object value) throws IOException {
+        if (value == null) {
+            json.nullValue();
+        } else if (value instanceof Number) {
+            json.value((Number) value);
+        } else if (value instanceof Boolean) {
+            json.value((Boolean) value);
+        } else {
+            json.value(ExportValues.toText(value));
+        }
+    }
+
+    /**
+     * Forwards writes and flushes but leaves the shared output open
+     */
+    private static final class NonClosingWriter extends Writer {
+        private final Writer delegate;
+
+        private NonClosingWriter(Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            delegate.write(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            delegate.write(text, offset, length);
+        }
+
+        @Override
+        public void flush() {
+            // The shared output is flushed once by ReportExporter
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.syos.shared.export;
+
+/**
+ * Column of an exported report table
+ */
+public final class ReportColumn {
+    private final String key;
+    private final String header;
+    private final int width;
+    private final boolean numeric;
+
+    private ReportColumn(String key, String header, int width, boolean numeric) {
+        this.key = key;
+        this.header = header;
+        this.width = width;
+        this.numeric = numeric;
+    }
+
+    /**
+     * Left-aligned text column
+     * @param key Field name used in JSON output
+     * @param header Header used in text and CSV output
+     * @param width Width in fixed-width text output
+     */
+    public static ReportColumn text(String key, String header, int width) {
+        return new ReportColumn(key, header, width, false);
+    }
+
+    /**
+     * Right-aligned numeric column, written as a JSON number
+     */
+    public static ReportColumn number(String key, String header, int width) {
+        return new ReportColumn(key, header, width, true);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public boolean isNumeric() {
+        return numeric;
+    }
+}
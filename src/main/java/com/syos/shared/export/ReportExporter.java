@@ -0,0 +1,101 @@
+package com.syos.shared.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a ReportTable to a channel in any ExportFormat
+ *
+ * Rows are encoded straight into a buffered writer over the channel, so the
+ * full output never exists as one String. The same table can be exported in
+ * several formats without recomputing it.
+ */
+public final class ReportExporter {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private ReportExporter() {
+    }
+
+    /**
+     * Write a table to a channel. The channel is flushed but left open.
+     * @param gzip Wrap the output in gzip compression
+     */
+    public static void export(ReportTable table, ExportFormat format, boolean gzip,
+                              WritableByteChannel channel) throws IOException {
+        OutputStream channelStream = new UnclosedOutputStream(Channels.newOutputStream(channel));
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(channelStream, BUFFER_SIZE) : null;
+        OutputStream target = gzip ? gzipStream : channelStream;
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        format.getWriter().write(table, out);
+        out.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        channelStream.flush();
+    }
+
+    /**
+     * Write a table to {@code directory/baseName.ext[.gz]}, replacing any existing file
+     * @return The written file
+     */
+    public static Path exportToFile(ReportTable table, ExportFormat format, boolean gzip,
+                                    Path directory, String baseName) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(fileName(baseName, format, gzip));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            export(table, format, gzip, channel);
+        }
+        return file;
+    }
+
+    /**
+     * @return baseName with the format extension, plus ".gz" when compressed
+     */
+    public static String fileName(String baseName, ExportFormat format, boolean gzip) {
+        return baseName + "." + format.getExtension() + (gzip ? ".gz" : "");
+    }
+
+    /**
+     * Keeps the caller's channel open when the encoding streams are finished
+     */
+    private static final class UnclosedOutputStream extends OutputStream {
+        private final OutputStream delegate;
+
+        private UnclosedOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            delegate.write(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
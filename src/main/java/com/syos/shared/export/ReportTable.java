@@ -0,0 +1,104 @@
+package com.syos.shared.export;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated model of a report, computed once and written to any ExportFormat
+ * Rows hold one value per column; summary entries are report-level totals.
+ */
+public final class ReportTable {
+    private final String title;
+    private final String type;
+    private final LocalDateTime generatedAt;
+    private final List<ReportColumn> columns;
+    private final List<Object[]> rows;
+    private final Map<String, Object> summary;
+
+    private ReportTable(Builder builder) {
+        this.title = builder.title;
+        this.type = builder.type;
+        this.generatedAt = builder.generatedAt;
+        this.columns = Collections.unmodifiableList(builder.columns);
+        this.rows = Collections.unmodifiableList(builder.rows);
+        this.summary = Collections.unmodifiableMap(builder.summary);
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public List<ReportColumn> getColumns() {
+        return columns;
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    public Map<String, Object> getSummary() {
+        return summary;
+    }
+
+    /**
+     * Builder Pattern for ReportTable
+     */
+    public static class Builder {
+        private final String title;
+        private final String type;
+        private LocalDateTime generatedAt = LocalDateTime.now();
+        private final List<ReportColumn> columns = new ArrayList<>();
+        private final List<Object[]> rows = new ArrayList<>();
+        private final Map<String, Object> summary = new LinkedHashMap<>();
+
+        public Builder(String title, String type) {
+            this.title = title;
+            this.type = type;
+        }
+
+        public Builder generatedAt(LocalDateTime generatedAt) {
+            this.generatedAt = generatedAt;
+            return this;
+        }
+
+        public Builder column(ReportColumn column) {
+            if (!rows.isEmpty()) {
+                throw new IllegalStateException("Columns must be defined before rows");
+            }
+            columns.add(column);
+            return this;
+        }
+
+        public Builder row(Object... values) {
+            if (values.length != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + values.length);
+            }
+            rows.add(values);
+            return this;
+        }
+
+        public Builder summary(String label, Object value) {
+            summary.put(label, value);
+            return this;
+        }
+
+        public ReportTable build() {
+            if (columns.isEmpty()) {
+                throw new IllegalStateException("Report table needs at least one column");
+            }
+            return new ReportTable(this);
+        }
+    }
+}
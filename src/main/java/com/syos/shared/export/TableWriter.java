@@ -0,0 +1,12 @@
+package com.syos.shared.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Strategy Pattern - serializes a ReportTable in one format
+ * Implementations write row by row and never build the whole output in memory
+ */
+interface TableWriter {
+    void write(ReportTable table, Writer out) throws IOException;
+}
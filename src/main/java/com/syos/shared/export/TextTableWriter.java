@@ -0,0 +1,74 @@
+package com.syos.shared.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-width text, laid out like the console reports
+ */
+class TextTableWriter implements TableWriter {
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String NEWLINE = System.lineSeparator();
+
+    @Override
+    public void write(ReportTable table, Writer out) throws IOException {
+        List<ReportColumn> columns = table.getColumns();
+        int lineWidth = Math.max(80, lineWidth(columns));
+
+        out.write("=".repeat(lineWidth) + NEWLINE);
+        out.write(table.getTitle() + NEWLINE);
+        out.write("=".repeat(lineWidth) + NEWLINE);
+        out.write("Generated: " + table.getGeneratedAt().format(formatter) + NEWLINE);
+        out.write("Report Type: " + table.getType() + NEWLINE + NEWLINE);
+
+        StringBuilder line = new StringBuilder(lineWidth);
+        for (ReportColumn column : columns) {
+            appendCell(line, column, column.getHeader());
+        }
+        out.write(line.toString().stripTrailing() + NEWLINE);
+        out.write("-".repeat(lineWidth) + NEWLINE);
+
+        for (Object[] row : table.getRows()) {
+            line.setLength(0);
+            for (int i = 0; i < columns.size(); i++) {
+                appendCell(line, columns.get(i), ExportValues.toText(row[i]));
+            }
+            out.write(line.toString().stripTrailing() + NEWLINE);
+        }
+        out.write("-".repeat(lineWidth) + NEWLINE);
+
+        if (!table.getSummary().isEmpty()) {
+            out.write(NEWLINE + "Summary:" + NEWLINE);
+            for (Map.Entry<String, Object> entry : table.getSummary().entrySet()) {
+                out.write(entry.getKey() + ": " + ExportValues.toText(entry.getValue()) + NEWLINE);
+            }
+        }
+        out.write("-".repeat(lineWidth) + NEWLINE);
+        out.write("End of Report" + NEWLINE);
+    }
+
+    private int lineWidth(List<ReportColumn> columns) {
+        int width = 0;
+        for (ReportColumn column : columns) {
+            width += column.getWidth() + 1;
+        }
+        return width;
+    }
+
+    private void appendCell(StringBuilder line, ReportColumn column, String value) {
+        int width = column.getWidth();
+        if (value.length() > width) {
+            value = width > 3 ? value.substring(0, width - 3) + "..." : value.substring(0, width);
+        }
+        String padding = " ".repeat(width - value.length());
+        if (column.isNumeric()) {
+            line.append(padding).append(value);
+        } else {
+            line.append(value).append(padding);
+        }
+        line.append(' ');
+    }
+}
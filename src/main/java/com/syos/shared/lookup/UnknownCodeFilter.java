@@ -0,0 +1,210 @@
+package com.syos.shared.lookup;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Answers "this item code does not exist" without a database round trip.
+ *
+ * Two layers, checked before the database lookup:
+ * - A Bloom filter of every valid code, rebuilt from the table and updated when
+ *   codes are added. A code it has never seen is rejected outright.
+ * - A negative cache of codes the database recently reported missing, with a
+ *   short TTL, for codes that get past the filter (false positives, or codes
+ *   deleted since the filter was built).
+ *
+ * Other processes write the same table, so the filter is only trusted for
+ * maxFilterAgeMillis after it was built. Halfway through that time the owner
+ * rebuilds it in the background while the current filter keeps answering; if
+ * no new filter is ready once it is too old, every code goes to the database.
+ *
+ * The false positive rate reported is the share of missing codes a trusted
+ * filter let through to the database, against the rate expected from its size.
+ */
+public class UnknownCodeFilter {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final long negativeTtlNanos;
+    private final long maxFilterAgeNanos;
+    private final int maxNegativeEntries;
+
+    private final Map<String, Long> missingUntil = new ConcurrentHashMap<>();
+
+    // Replaced as a whole on rebuild
+    private volatile BloomFilter filter;
+    private volatile long builtAt;
+    private final LongAdder filterEntries = new LongAdder();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder filterRejected = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // Codes added while a background rebuild reads the table; they may be missing from its result
+    private final Set<String> addedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param negativeTtlMillis How long a code reported missing is rejected without asking again
+     * @param maxFilterAgeMillis How long the Bloom filter is trusted after a rebuild
+     * @param maxNegativeEntries Most codes kept in the negative cache
+     */
+    public UnknownCodeFilter(long negativeTtlMillis, long maxFilterAgeMillis, int maxNegativeEntries) {
+        this.negativeTtlNanos = negativeTtlMillis * 1_000_000L;
+        this.maxFilterAgeNanos = maxFilterAgeMillis * 1_000_000L;
+        this.maxNegativeEntries = maxNegativeEntries;
+    }
+
+    /**
+     * @return true if the filter was never built or is older than the maximum age
+     */
+    public boolean needsRebuild() {
+        return filter == null || System.nanoTime() - builtAt > maxFilterAgeNanos;
+    }
+
+    /**
+     * @return true if the filter was never built or is past half its maximum age
+     */
+    public boolean needsRefresh() {
+        return filter == null || System.nanoTime() - builtAt > maxFilterAgeNanos / 2;
+    }
+
+    /**
+     * Rebuild on the executor if a refresh is due and no rebuild is running
+     * Lookups keep using the current filter until the new one is built
+     * @param loadCodes Reads every valid code; returns null if they could not be read
+     */
+    public void refreshAsync(Executor executor, Supplier<Collection<String>> loadCodes) {
+        if (!needsRefresh() || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    Collection<String> codes = loadCodes.get();
+                    if (codes != null) {
+                        rebuild(codes);
+                    }
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Replace the filter with one holding exactly these codes
+     * @param codes Every valid code in the table
+     */
+    public synchronized void rebuild(Collection<String> codes) {
+        // Room to grow until the next rebuild without losing much accuracy
+        BloomFilter rebuilt = new BloomFilter(Math.max(1024, codes.size() * 2), FALSE_POSITIVE_RATE);
+        for (String code : codes) {
+            rebuilt.put(code);
+        }
+        for (String code : addedDuringRebuild) {
+            rebuilt.put(code);
+        }
+        addedDuringRebuild.clear();
+        filterEntries.reset();
+        filterEntries.add(codes.size());
+        missingUntil.clear();
+        filter = rebuilt;
+        builtAt = System.nanoTime();
+        rebuilds.increment();
+    }
+
+    /**
+     * Check a code before looking it up
+     * @return true if the code is known not to exist and the lookup can be skipped
+     */
+    public boolean isKnownMissing(String code) {
+        lookups.increment();
+        BloomFilter current = filter;
+        if (current != null && !needsRebuild(current) && !current.mightContain(code)) {
+            filterRejected.increment();
+            return true;
+        }
+        Long until = missingUntil.get(code);
+        if (until != null) {
+            if (until - System.nanoTime() > 0) {
+                negativeHits.increment();
+                return true;
+            }
+            missingUntil.remove(code, until);
+        }
+        return false;
+    }
+
+    /**
+     * The database reported the code missing after isKnownMissing let it through
+     */
+    public void recordMissing(String code) {
+        // Only a trusted filter answered the lookup; a stale one was never asked
+        BloomFilter current = filter;
+        if (current != null && !needsRebuild(current) && current.mightContain(code)) {
+            falsePositives.increment();
+        }
+        long now = System.nanoTime();
+        if (missingUntil.size() >= maxNegativeEntries) {
+            missingUntil.values().removeIf(until -> until - now <= 0);
+            if (missingUntil.size() >= maxNegativeEntries) {
+                return;
+            }
+        }
+        missingUntil.put(code, now + negativeTtlNanos);
+    }
+
+    /**
+     * A code was inserted or found in the database
+     */
+    public synchronized void recordAdded(String code) {
+        missingUntil.remove(code);
+        if (rebuilding.get()) {
+            addedDuringRebuild.add(code);
+        }
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(code)) {
+            current.put(code);
+            filterEntries.increment();
+        }
+    }
+
+    private boolean needsRebuild(BloomFilter current) {
+        return current != filter || System.nanoTime() - builtAt > maxFilterAgeNanos;
+    }
+
+    /**
+     * @return Lookup outcomes, observed and expected false positive rates, filter and cache sizes
+     */
+    public Map<String, Object> getStatistics() {
+        BloomFilter current = filter;
+        long rejected = filterRejected.sum();
+        long passedMissing = falsePositives.sum();
+        long entries = filterEntries.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lookups", lookups.sum());
+        stats.put("filterRejected", rejected);
+        stats.put("negativeCacheHits", negativeHits.sum());
+        stats.put("falsePositives", passedMissing);
+        stats.put("falsePositiveRate", rejected + passedMissing > 0
+                ? (double) passedMissing / (rejected + passedMissing) : 0.0);
+        stats.put("expectedFalsePositiveRate", current != null ? current.expectedFalsePositiveRate(entries) : 0.0);
+        stats.put("filterEntries", entries);
+        stats.put("filterBits", current != null ? current.getBitCount() : 0L);
+        stats.put("negativeCacheSize", missingUntil.size());
+        stats.put("rebuilds", rebuilds.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,94 @@
+package com.syos.shared.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of the last row of a page in a keyset (seek) pagination.
+ * Rows are ordered by (timestamp DESC, id DESC), so the next page starts
+ * strictly after this position without using OFFSET.
+ */
+public final class KeysetCursor {
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime timestamp;
+    private final long id;
+
+    private KeysetCursor(LocalDateTime timestamp, long id) {
+        this.timestamp = Objects.requireNonNull(timestamp, "Cursor timestamp cannot be null");
+        this.id = id;
+    }
+
+    public static KeysetCursor of(LocalDateTime timestamp, long id) {
+        return new KeysetCursor(timestamp, id);
+    }
+
+    public static KeysetCursor of(Timestamp timestamp, long id) {
+        return new KeysetCursor(timestamp.toLocalDateTime(), id);
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     * @param token The opaque cursor token, may be null or blank for the first page
+     * @return The cursor, or null when no token was given
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid page cursor: " + token);
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+    }
+
+    /**
+     * Encode this cursor as an opaque, URL-safe token
+     */
+    public String encode() {
+        String raw = timestamp.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Timestamp getSqlTimestamp() {
+        return Timestamp.valueOf(timestamp);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeysetCursor that = (KeysetCursor) o;
+        return id == that.id && timestamp.equals(that.timestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor[" + timestamp + ", " + id + "]";
+    }
+}
@@ -0,0 +1,90 @@
+package com.syos.shared.pagination;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing
+ * @param <T> The row type
+ */
+public final class Page<T> {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final List<T> items;
+    private final KeysetCursor nextCursor;
+
+    private Page(List<T> items, KeysetCursor nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> Page<T> empty() {
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    /**
+     * Build a page from a query that fetched pageSize + 1 rows.
+     * The extra row only signals that another page exists and is dropped.
+     * @param rows Rows in keyset order, at most pageSize + 1
+     * @param pageSize The requested page size
+     * @param cursorOf Extracts the keyset position of a row
+     */
+    public static <T> Page<T> fromOverfetch(List<T> rows, int pageSize, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> pageRows = new ArrayList<>(rows.subList(0, pageSize));
+        return new Page<>(pageRows, cursorOf.apply(pageRows.get(pageSize - 1)));
+    }
+
+    /**
+     * Clamp a requested page size into [1, MAX_PAGE_SIZE]
+     * Non-positive values fall back to DEFAULT_PAGE_SIZE
+     */
+    public static int clampPageSize(int requested) {
+        if (requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Parse a page size request parameter, falling back to DEFAULT_PAGE_SIZE
+     */
+    public static int parsePageSize(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        try {
+            return clampPageSize(Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_PAGE_SIZE;
+        }
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The cursor for the next page, or null on the last page
+     */
+    public KeysetCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,50 @@
+package com.syos.web.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of item codes to dense int ids
+ * Ids are assigned in first-seen order and never reused, so they can index
+ * primitive aggregation arrays. Not thread-safe, guarded by the owning store.
+ */
+class CodeDictionary {
+    private final Map<String, Integer> idsByCode = new HashMap<>();
+    private String[] codes = new String[256];
+    private String[] names = new String[256];
+    private int size;
+
+    /**
+     * @return The id of the code, assigning a new one if needed
+     */
+    int encode(String code, String name) {
+        Integer id = idsByCode.get(code);
+        if (id != null) {
+            // Keep the most recent name
+            names[id] = name;
+            return id;
+        }
+
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        codes[size] = code;
+        names[size] = name;
+        idsByCode.put(code, size);
+        return size++;
+    }
+
+    String code(int id) {
+        return codes[id];
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return size;
+    }
+}
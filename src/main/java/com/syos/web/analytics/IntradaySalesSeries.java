@@ -0,0 +1,411 @@
+package com.syos.web.analytics;
+
+import com.syos.web.dao.SaleDAO;
+import com.syos.web.model.SaleItem;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * INTRADAY SALES SERIES
+ * ============================================
+ *
+ * Revenue, transactions and items sold per BUCKET_MINUTES interval, in total
+ * and per cashier, for the last 24 hours.
+ *
+ * STRUCTURE:
+ * - Fixed ring of BUCKETS slots per series, indexed by interval number
+ *   (local epoch minute / BUCKET_MINUTES) modulo BUCKETS
+ * - Each slot remembers which interval it holds; a slot from an older
+ *   interval is cleared when a newer one maps onto it
+ *
+ * UPDATES:
+ * - Committed sales add to the interval they were created in
+ * - Cancelled sales subtract from that interval while it is still in the ring
+ * - Rebuilt from completed sales of the last 24 hours at startup; the scan
+ *   runs without the lock and updates arriving meanwhile are replayed
+ *   afterwards, skipping sales the scan already counted
+ * - At most MAX_CASHIERS cashier series are kept; cashiers without sales in
+ *   the ring make room first, beyond that new cashiers only count in the total
+ *
+ * Queries read at most BUCKETS slots per series, independent of sales volume.
+ * Until the series is ready, queryToday answers from one aggregate query.
+ *
+ * ============================================
+ */
+public class IntradaySalesSeries {
+
+    private static final Logger logger = Logger.getLogger(IntradaySalesSeries.class.getName());
+
+    public static final int BUCKET_MINUTES = 15;
+    public static final int BUCKETS = 24 * 60 / BUCKET_MINUTES;
+    public static final int MAX_CASHIERS = 1000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Series total = new Series();
+    private Map<Long, Series> byCashier = new HashMap<>();
+    private volatile boolean ready;
+
+    // Updates that arrive while a rebuild scans, replayed when it finishes
+    private boolean rebuilding;
+    private final List<SaleEvent> pendingEvents = new ArrayList<>();
+
+    // Singleton instance
+    private static volatile IntradaySalesSeries instance;
+    private static final Object instanceLock = new Object();
+
+    private IntradaySalesSeries() {
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static IntradaySalesSeries getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new IntradaySalesSeries();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Rebuild all series from the completed sales of the last 24 hours
+     * The current series keep answering queries until the new ones are complete
+     */
+    public void rebuild(SaleDAO saleDAO) throws SQLException {
+        long start = System.currentTimeMillis();
+        long firstInterval = currentInterval() - BUCKETS + 1;
+        LocalDateTime since = LocalDateTime.ofEpochSecond(firstInterval * BUCKET_MINUTES * 60, 0, ZoneOffset.UTC);
+
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                logger.info("Intraday sales series rebuild already running");
+                return;
+            }
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Series rebuiltTotal = new Series();
+        Map<Long, Series> rebuiltByCashier = new HashMap<>();
+        Set<Long> scannedSales = new HashSet<>();
+        boolean scanned = false;
+        try {
+            saleDAO.scanCompletedSalesSince(Timestamp.valueOf(since), rs -> {
+                scannedSales.add(rs.getLong("id"));
+                add(rebuiltTotal, rebuiltByCashier, intervalOf(rs.getTimestamp("created_at")),
+                        rs.getLong("cashier_id"), SalesColumnStore.toCents(rs.getBigDecimal("total_amount")),
+                        1, rs.getInt("item_count"));
+            });
+            scanned = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (scanned) {
+                    total = rebuiltTotal;
+                    byCashier = rebuiltByCashier;
+                }
+                replayPendingEvents(scanned ? scannedSales : null);
+                rebuilding = false;
+                if (scanned) {
+                    ready = true;
+                    logger.info(String.format("Intraday sales series rebuilt: %d sales in %d ms",
+                            scannedSales.size(), System.currentTimeMillis() - start));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Today's intervals answered by one aggregate query instead of the in-memory series
+     * Same shape as getToday
+     * @param cashierId Only this cashier, or null for the total plus every cashier
+     */
+    public static Map<String, Object> queryToday(SaleDAO saleDAO, Long cashierId) throws SQLException {
+        IntradaySalesSeries today = new IntradaySalesSeries();
+        long firstInterval = localMinute(LocalDate.now().atStartOfDay()) / BUCKET_MINUTES;
+        saleDAO.scanIntervalTotalsSince(Timestamp.valueOf(LocalDate.now().atStartOfDay()), BUCKET_MINUTES, rs ->
+                add(today.total, today.byCashier, firstInterval + rs.getLong("day_interval"),
+                        rs.getLong("cashier_id"), SalesColumnStore.toCents(rs.getBigDecimal("revenue")),
+                        rs.getInt("transactions"), rs.getInt("items")));
+        return today.getToday(cashierId);
+    }
+
+    /**
+     * Count a committed sale
+     */
+    public void recordSale(long saleId, Date createdAt, long cashierId, double totalAmount, List<SaleItem> items) {
+        apply(new SaleEvent(saleId, createdAt, cashierId, SalesColumnStore.toCents(totalAmount), itemCount(items), 1));
+    }
+
+    /**
+     * Remove a cancelled sale from its interval
+     */
+    public void recordCancellation(long saleId, Date createdAt, long cashierId, double totalAmount,
+                                   List<SaleItem> items) {
+        apply(new SaleEvent(saleId, createdAt, cashierId, SalesColumnStore.toCents(totalAmount), itemCount(items), -1));
+    }
+
+    /**
+     * @return true once the series has been rebuilt and can answer queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Today's intervals from midnight up to the current one, as parallel arrays
+     * @param cashierId Only this cashier, or null for the total plus every cashier
+     */
+    public Map<String, Object> getToday(Long cashierId) {
+        long last = currentInterval();
+        long first = localMinute(LocalDate.now().atStartOfDay()) / BUCKET_MINUTES;
+        int count = (int) (last - first + 1);
+
+        List<String> starts = new ArrayList<>(count);
+        for (long interval = first; interval <= last; interval++) {
+            starts.add(LocalTime.ofSecondOfDay((interval - first) * BUCKET_MINUTES * 60).toString());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("date", LocalDate.now().toString());
+        result.put("bucketMinutes", BUCKET_MINUTES);
+        result.put("start", starts);
+
+        lock.readLock().lock();
+        try {
+            if (cashierId == null) {
+                result.put("total", total.toColumns(first, count));
+                Map<String, Object> cashiers = new TreeMap<>();
+                for (Map.Entry<Long, Series> entry : byCashier.entrySet()) {
+                    if (entry.getValue().hasData(first, count)) {
+                        cashiers.put(String.valueOf(entry.getKey()), entry.getValue().toColumns(first, count));
+                    }
+                }
+                result.put("cashiers", cashiers);
+            } else {
+                Series series = byCashier.get(cashierId);
+                result.put("cashierId", cashierId);
+                result.put("total", (series != null ? series : new Series()).toColumns(first, count));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private void apply(SaleEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                pendingEvents.add(event);
+                return;
+            }
+            applyLocked(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the updates that arrived during a rebuild
+     * A sale the scan counted is not added again, and a cancellation only
+     * subtracts a sale that the scan or a replayed update counted
+     * @param scannedSales Sales counted by the scan, or null if the scan failed
+     *                     and the previous series were kept
+     */
+    private void replayPendingEvents(Set<Long> scannedSales) {
+        Set<Long> replayedSales = new HashSet<>();
+        for (SaleEvent event : pendingEvents) {
+            if (scannedSales != null) {
+                boolean counted = scannedSales.contains(event.saleId) || replayedSales.contains(event.saleId);
+                if (event.sign > 0 ? counted : !counted) {
+                    continue;
+                }
+            }
+            if (event.sign > 0) {
+                replayedSales.add(event.saleId);
+            }
+            applyLocked(event);
+        }
+        pendingEvents.clear();
+    }
+
+    private void applyLocked(SaleEvent event) {
+        long interval = intervalOf(event.createdAt);
+        if (interval <= currentInterval() - BUCKETS) {
+            return;
+        }
+        add(total, byCashier, interval, event.cashierId, event.sign * event.revenueCents,
+                event.sign, event.sign * event.items);
+    }
+
+    private static void add(Series total, Map<Long, Series> byCashier, long interval, long cashierId,
+                            long revenueCents, int transactions, int items) {
+        total.add(interval, revenueCents, transactions, items);
+        Series cashier = cashierSeries(byCashier, cashierId);
+        if (cashier != null) {
+            cashier.add(interval, revenueCents, transactions, items);
+        }
+    }
+
+    /**
+     * @return The series of a cashier, or null if the cap is reached and no idle series can make room
+     */
+    private static Series cashierSeries(Map<Long, Series> byCashier, long cashierId) {
+        Series series = byCashier.get(cashierId);
+        if (series != null) {
+            return series;
+        }
+        if (byCashier.size() >= MAX_CASHIERS) {
+            long oldest = currentInterval() - BUCKETS + 1;
+            for (Iterator<Series> it = byCashier.values().iterator(); it.hasNext(); ) {
+                if (!it.next().hasData(oldest, BUCKETS)) {
+                    it.remove();
+                }
+            }
+            if (byCashier.size() >= MAX_CASHIERS) {
+                logger.fine("Intraday series cashier limit reached, cashier " + cashierId + " counts in the total only");
+                return null;
+            }
+        }
+        series = new Series();
+        byCashier.put(cashierId, series);
+        return series;
+    }
+
+    private static int itemCount(List<SaleItem> items) {
+        int count = 0;
+        for (SaleItem item : items) {
+            count += item.getQuantity();
+        }
+        return count;
+    }
+
+    private static long intervalOf(Date date) {
+        return Math.floorDiv(SalesColumnStore.toMinute(date), BUCKET_MINUTES);
+    }
+
+    private static long currentInterval() {
+        return localMinute(LocalDateTime.now()) / BUCKET_MINUTES;
+    }
+
+    private static long localMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * A committed sale (+1) or cancellation (-1) of one sale
+     */
+    private static final class SaleEvent {
+        private final long saleId;
+        private final Date createdAt;
+        private final long cashierId;
+        private final long revenueCents;
+        private final int items;
+        private final int sign;
+
+        private SaleEvent(long saleId, Date createdAt, long cashierId, long revenueCents, int items, int sign) {
+            this.saleId = saleId;
+            this.createdAt = createdAt;
+            this.cashierId = cashierId;
+            this.revenueCents = revenueCents;
+            this.items = items;
+            this.sign = sign;
+        }
+    }
+
+    /**
+     * Ring of per-interval counters
+     */
+    private static final class Series {
+        private final long[] interval = new long[BUCKETS];
+        private final long[] revenueCents = new long[BUCKETS];
+        private final int[] transactions = new int[BUCKETS];
+        private final int[] items = new int[BUCKETS];
+
+        private Series() {
+            clear();
+        }
+
+        private void clear() {
+            Arrays.fill(interval, Long.MIN_VALUE);
+            Arrays.fill(revenueCents, 0);
+            Arrays.fill(transactions, 0);
+            Arrays.fill(items, 0);
+        }
+
+        private void add(long bucket, long bucketRevenueCents, int bucketTransactions, int bucketItems) {
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (interval[slot] != bucket) {
+                if (interval[slot] > bucket) {
+                    // Slot already holds a newer interval
+                    return;
+                }
+                interval[slot] = bucket;
+                revenueCents[slot] = 0;
+                transactions[slot] = 0;
+                items[slot] = 0;
+            }
+            revenueCents[slot] += bucketRevenueCents;
+            transactions[slot] += bucketTransactions;
+            items[slot] += bucketItems;
+        }
+
+        private boolean hasData(long first, int count) {
+            for (int i = 0; i < count; i++) {
+                long bucket = first + i;
+                int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+                if (interval[slot] == bucket && transactions[slot] != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Map<String, Object> toColumns(long first, int count) {
+            double[] revenue = new double[count];
+            int[] bucketTransactions = new int[count];
+            int[] bucketItems = new int[count];
+            for (int i = 0; i < count; i++) {
+                long bucket = first + i;
+                int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+                if (interval[slot] == bucket) {
+                    revenue[i] = revenueCents[slot] / 100.0;
+                    bucketTransactions[i] = transactions[slot];
+                    bucketItems[i] = items[slot];
+                }
+            }
+            Map<String, Object> columns = new LinkedHashMap<>();
+            columns.put("revenue", revenue);
+            columns.put("transactions", bucketTransactions);
+            columns.put("items", bucketItems);
+            return columns;
+        }
+    }
+}
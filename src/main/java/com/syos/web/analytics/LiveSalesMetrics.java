@@ -0,0 +1,207 @@
+package com.syos.web.analytics;
+
+import com.syos.web.model.Sale;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ============================================
+ * LIVE SALES METRICS
+ * ============================================
+ *
+ * Today's running totals for the live manager dashboard, updated in memory
+ * when a sale commits or is cancelled. Reading a snapshot never touches the
+ * database.
+ *
+ * - Revenue and transaction counters reset when the calendar day changes
+ * - Transactions per minute come from a ring of per-minute counts
+ * - A cashier is active if they committed a sale in the last ACTIVE_WINDOW_MINUTES
+ * - Products whose total stock drops to their reorder level are recorded
+ *   as low-stock crossings
+ *
+ * ============================================
+ */
+public class LiveSalesMetrics {
+
+    public static final int RATE_WINDOW_MINUTES = 15;
+    public static final int ACTIVE_WINDOW_MINUTES = 15;
+    private static final int RECENT_CROSSINGS = 20;
+
+    private LocalDate day = LocalDate.now();
+    private long revenueCents;
+    private int completedTransactions;
+    private int cancelledTransactions;
+    private int lowStockCrossings;
+
+    // Transactions per minute: slot = epoch minute % RATE_WINDOW_MINUTES
+    private final long[] minuteOfSlot = new long[RATE_WINDOW_MINUTES];
+    private final int[] countOfSlot = new int[RATE_WINDOW_MINUTES];
+
+    private final Deque<Map<String, Object>> recentCrossings = new ArrayDeque<>();
+    private final Map<Long, Long> lastSaleByCashier = new ConcurrentHashMap<>();
+
+    // Bumped on every change so broadcasters can skip unchanged snapshots
+    private volatile long version;
+
+    // Singleton instance
+    private static volatile LiveSalesMetrics instance;
+    private static final Object instanceLock = new Object();
+
+    private LiveSalesMetrics() {
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static LiveSalesMetrics getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new LiveSalesMetrics();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Seed today's totals, e.g. from the daily sales report at startup
+     */
+    public synchronized void seed(double revenue, int completed, int cancelled) {
+        rollDay();
+        revenueCents = SalesColumnStore.toCents(revenue);
+        completedTransactions = completed;
+        cancelledTransactions = cancelled;
+        version++;
+    }
+
+    /**
+     * Count a committed sale
+     */
+    public synchronized void recordSale(Sale sale) {
+        rollDay();
+        long now = System.currentTimeMillis();
+        revenueCents += SalesColumnStore.toCents(sale.getTotalAmount());
+        completedTransactions++;
+
+        long minute = TimeUnit.MILLISECONDS.toMinutes(now);
+        int slot = (int) (minute % RATE_WINDOW_MINUTES);
+        if (minuteOfSlot[slot] != minute) {
+            minuteOfSlot[slot] = minute;
+            countOfSlot[slot] = 0;
+        }
+        countOfSlot[slot]++;
+
+        lastSaleByCashier.put(sale.getCashierId(), now);
+        version++;
+    }
+
+    /**
+     * Reverse a cancelled sale of today
+     */
+    public synchronized void recordCancellation(Sale sale) {
+        rollDay();
+        if (sale.getCreatedAt() == null || !day.equals(sale.getCreatedAt().toLocalDateTime().toLocalDate())) {
+            return;
+        }
+        revenueCents -= SalesColumnStore.toCents(sale.getTotalAmount());
+        completedTransactions--;
+        cancelledTransactions++;
+        version++;
+    }
+
+    /**
+     * A product's total stock dropped to or below its reorder level
+     */
+    public synchronized void recordLowStockCrossing(String code, String name, int remaining, int reorderLevel) {
+        rollDay();
+        Map<String, Object> crossing = new HashMap<>();
+        crossing.put("code", code);
+        crossing.put("name", name);
+        crossing.put("remaining", remaining);
+        crossing.put("reorderLevel", reorderLevel);
+        crossing.put("time", System.currentTimeMillis());
+        recentCrossings.addFirst(crossing);
+        if (recentCrossings.size() > RECENT_CROSSINGS) {
+            recentCrossings.removeLast();
+        }
+        lowStockCrossings++;
+        version++;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Current metrics, safe to serialize
+     */
+    public synchronized Map<String, Object> snapshot() {
+        rollDay();
+        long now = System.currentTimeMillis();
+        long minute = TimeUnit.MILLISECONDS.toMinutes(now);
+
+        int lastMinute = 0;
+        int window = 0;
+        for (int slot = 0; slot < RATE_WINDOW_MINUTES; slot++) {
+            long age = minute - minuteOfSlot[slot];
+            if (age >= 0 && age < RATE_WINDOW_MINUTES) {
+                window += countOfSlot[slot];
+                if (age == 0) {
+                    lastMinute = countOfSlot[slot];
+                }
+            }
+        }
+
+        long activeSince = now - TimeUnit.MINUTES.toMillis(ACTIVE_WINDOW_MINUTES);
+        List<Long> activeCashiers = new ArrayList<>();
+        Iterator<Map.Entry<Long, Long>> cashiers = lastSaleByCashier.entrySet().iterator();
+        while (cashiers.hasNext()) {
+            Map.Entry<Long, Long> entry = cashiers.next();
+            if (entry.getValue() < activeSince) {
+                cashiers.remove();
+            } else {
+                activeCashiers.add(entry.getKey());
+            }
+        }
+
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("date", day.toString());
+        snapshot.put("revenue", revenueCents / 100.0);
+        snapshot.put("completedTransactions", completedTransactions);
+        snapshot.put("cancelledTransactions", cancelledTransactions);
+        snapshot.put("averageTransaction", completedTransactions > 0
+                ? Math.round((double) revenueCents / completedTransactions) / 100.0 : 0.0);
+        snapshot.put("transactionsLastMinute", lastMinute);
+        snapshot.put("transactionsPerMinute", Math.round(window * 100.0 / RATE_WINDOW_MINUTES) / 100.0);
+        snapshot.put("activeCashiers", activeCashiers.size());
+        snapshot.put("activeCashierIds", activeCashiers);
+        snapshot.put("lowStockCrossings", lowStockCrossings);
+        snapshot.put("recentLowStock", new ArrayList<>(recentCrossings));
+        snapshot.put("version", version);
+        snapshot.put("timestamp", now);
+        return snapshot;
+    }
+
+    private void rollDay() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(day)) {
+            day = today;
+            revenueCents = 0;
+            completedTransactions = 0;
+            cancelledTransactions = 0;
+            lowStockCrossings = 0;
+            recentCrossings.clear();
+            version++;
+        }
+    }
+}
@@ -0,0 +1,721 @@
+package com.syos.web.analytics;
+
+import com.syos.web.dao.SaleDAO;
+import com.syos.web.model.Sale;
+import com.syos.web.model.SaleItem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * COLUMNAR SALES STORE
+ * ============================================
+ *
+ * In-process, column-oriented copy of sales and sale_items for analytics.
+ * Dashboard aggregations scan primitive arrays instead of running
+ * GROUP BY queries against the OLTP tables.
+ *
+ * LAYOUT:
+ * - Sale columns: id, epoch minute, cashier index, total (cents), status
+ * - Line columns: sale row, epoch minute, item id, quantity, unit price (cents), subtotal (cents)
+ * - Item codes are dictionary-encoded to dense ints (CodeDictionary)
+ * - Timestamps are minutes since 1970-01-01T00:00 in local wall-clock time,
+ *   so a day is exactly 1440 minutes
+ *
+ * LIFECYCLE:
+ * - Loaded from the database at startup, reloaded into fresh columns that
+ *   are swapped in whole
+ * - Appended after each sale commit, status flipped on cancel
+ *
+ * CONCURRENCY:
+ * - Writers hold the write lock, queries hold the read lock
+ * - Large scans are split into fork-join tasks on sale boundaries
+ * - Updates are queued and applied by whichever thread gets the write lock,
+ *   so a sale commit never waits for a load
+ * - A load scans without the lock and only takes the write lock to swap the
+ *   new columns in, replaying the updates applied while it scanned
+ * - If an update cannot be applied the store is marked stale and
+ *   callers fall back to SQL until it is reloaded
+ *
+ * ============================================
+ */
+public class SalesColumnStore {
+
+    private static final Logger logger = Logger.getLogger(SalesColumnStore.class.getName());
+
+    static final byte STATUS_OTHER = 0;
+    static final byte STATUS_COMPLETED = 1;
+    static final byte STATUS_CANCELLED = 2;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MINUTES_PER_DAY = 1440;
+    // Rows scanned by one fork-join leaf task
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private volatile boolean loaded;
+    // Set under the write lock when an update fails; cleared only by a load
+    private boolean stale;
+    private final Queue<Update> pendingUpdates = new ConcurrentLinkedQueue<>();
+
+    // Guarded by lock; replaced as a whole by a load
+    private Columns columns = new Columns();
+    // Updates applied while a load scans, replayed onto its columns; null when not loading
+    private List<Update> updatesDuringLoad;
+    private final Object loadLock = new Object();
+
+    // Singleton instance
+    private static volatile SalesColumnStore instance;
+    private static final Object instanceLock = new Object();
+
+    private SalesColumnStore() {
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static SalesColumnStore getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new SalesColumnStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * (Re)load the whole store from the database
+     * The tables are scanned into new columns without the lock; queries keep
+     * using the current columns meanwhile. Sales committed during the scan are
+     * replayed onto the new columns when they are swapped in; sales the scan
+     * already read are ignored.
+     */
+    public void load(SaleDAO saleDAO) throws SQLException {
+        synchronized (loadLock) {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                updatesDuringLoad = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Columns fresh = new Columns();
+            try {
+                saleDAO.scanSales(rs -> fresh.appendSaleRow(
+                        rs.getLong("id"),
+                        rs.getLong("cashier_id"),
+                        toCents(rs.getBigDecimal("total_amount")),
+                        statusCode(rs.getString("status")),
+                        toMinute(rs.getTimestamp("created_at"))));
+
+                saleDAO.scanSaleItems(rs -> {
+                    Integer saleRow = fresh.saleRowsById.get(rs.getLong("sale_id"));
+                    // Lines of a sale committed after the sales scan arrive with its append
+                    if (saleRow != null) {
+                        fresh.appendLineRow(saleRow,
+                                rs.getString("item_code"),
+                                rs.getString("item_name"),
+                                rs.getInt("quantity"),
+                                toCents(rs.getBigDecimal("unit_price")),
+                                toCents(rs.getBigDecimal("subtotal")));
+                    }
+                });
+            } catch (SQLException | RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    updatesDuringLoad = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                applyPendingUpdates();
+                columns = fresh;
+                stale = false;
+                for (Update update : updatesDuringLoad) {
+                    apply(update);
+                }
+                updatesDuringLoad = null;
+                loaded = !stale;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            drainPendingUpdates();
+            logger.info(String.format("Sales column store loaded: %d sales, %d lines, %d items in %d ms",
+                    fresh.saleCount, fresh.lineCount, fresh.items.size(), System.currentTimeMillis() - start));
+        }
+    }
+
+    /**
+     * Append a committed sale and its lines
+     * Never blocks; if the store is busy the sale is applied by the current lock holder
+     */
+    public void appendSale(Sale sale, List<SaleItem> saleItems) {
+        pendingUpdates.add(target -> {
+            if (target.saleRowsById.containsKey(sale.getId())) {
+                return;
+            }
+            int minute = toMinute(sale.getCreatedAt() != null ? sale.getCreatedAt() : new Date());
+            int saleRow = target.appendSaleRow(sale.getId(), sale.getCashierId(), toCents(sale.getTotalAmount()),
+                    statusCode(sale.getStatus()), minute);
+
+            for (SaleItem item : saleItems) {
+                target.appendLineRow(saleRow, item.getItemCode(), item.getItemName(), item.getQuantity(),
+                        toCents(item.getUnitPrice()), toCents(item.getSubtotal()));
+            }
+        });
+        drainPendingUpdates();
+    }
+
+    /**
+     * Mark a sale as cancelled so it no longer counts in aggregations
+     */
+    public void markCancelled(long saleId) {
+        pendingUpdates.add(target -> {
+            Integer saleRow = target.saleRowsById.get(saleId);
+            if (saleRow != null) {
+                target.saleStatus[saleRow] = STATUS_CANCELLED;
+            }
+        });
+        drainPendingUpdates();
+    }
+
+    /**
+     * @return true when the store reflects every committed sale and can answer queries
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int getSaleCount() {
+        lock.readLock().lock();
+        try {
+            return columns.saleCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getLineCount() {
+        lock.readLock().lock();
+        try {
+            return columns.lineCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Top selling items of completed sales between two instants (minute resolution, inclusive)
+     * Rows have the same keys as SaleDAO.getTopSellingProducts
+     * @return null when the store is not loaded
+     */
+    public List<Map<String, Object>> getTopSellingProducts(Date startDate, Date endDate, int limit) {
+        if (!loaded) {
+            return null;
+        }
+        int from = toMinute(startDate);
+        int to = toMinute(endDate);
+
+        drainPendingUpdates();
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return null;
+            }
+            Columns c = columns;
+            ItemTotals totals = ForkJoinPool.commonPool().invoke(new ItemTotalsTask(
+                    c.lineSaleRows, c.lineMinutes, c.lineItems, c.lineQuantities, c.lineSubtotalCents, c.saleStatus,
+                    c.items.size(), from, to, 0, c.lineCount));
+
+            // Min-heap of the best item ids by quantity
+            PriorityQueue<Integer> top = new PriorityQueue<>(Math.max(1, limit),
+                    (a, b) -> Long.compare(totals.quantity[a], totals.quantity[b]));
+            for (int item = 0; item < totals.quantity.length; item++) {
+                if (totals.sales[item] == 0) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(item);
+                } else if (limit > 0 && totals.quantity[item] > totals.quantity[top.peek()]) {
+                    top.poll();
+                    top.add(item);
+                }
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                int item = top.poll();
+                Map<String, Object> row = new HashMap<>();
+                row.put("itemCode", c.items.code(item));
+                row.put("itemName", c.items.name(item));
+                row.put("totalQuantity", (int) totals.quantity[item]);
+                row.put("totalRevenue", totals.revenueCents[item] / 100.0);
+                row.put("numSales", totals.sales[item]);
+                results.add(row);
+            }
+            // Heap yields ascending quantity
+            Collections.reverse(results);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Revenue, transaction count, sales per cashier and revenue per day of completed
+     * sales between two instants (minute resolution, inclusive)
+     * Keys match ConcurrentSalesService.getSalesStatistics
+     * @return null when the store is not loaded
+     */
+    public Map<String, Object> getSalesStatistics(Date startDate, Date endDate) {
+        if (!loaded) {
+            return null;
+        }
+        int from = toMinute(startDate);
+        int to = toMinute(endDate);
+
+        drainPendingUpdates();
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return null;
+            }
+            Columns c = columns;
+            // Only days that can hold sales get an aggregation slot
+            int firstMinute = Math.max(from, c.minMinute);
+            int lastMinute = Math.min(to, c.maxMinute);
+            int firstDay = Math.floorDiv(firstMinute, MINUTES_PER_DAY);
+            int dayCount = firstMinute > lastMinute ? 0
+                    : Math.floorDiv(lastMinute, MINUTES_PER_DAY) - firstDay + 1;
+
+            SaleTotals totals = dayCount == 0 ? new SaleTotals(c.cashierCount, 0)
+                    : ForkJoinPool.commonPool().invoke(new SaleTotalsTask(
+                            c.saleMinutes, c.saleCashiers, c.saleTotalCents, c.saleStatus,
+                            c.cashierCount, firstDay, dayCount, from, to, 0, c.saleCount));
+
+            double totalRevenue = totals.revenueCents / 100.0;
+
+            Map<Long, Integer> cashierSales = new HashMap<>();
+            for (int i = 0; i < totals.cashierSales.length; i++) {
+                if (totals.cashierSales[i] > 0) {
+                    cashierSales.put(c.cashierIds[i], totals.cashierSales[i]);
+                }
+            }
+
+            Map<String, Double> dailyRevenue = new LinkedHashMap<>();
+            for (int d = 0; d < totals.dayRevenueCents.length; d++) {
+                if (totals.dayTransactions[d] > 0) {
+                    dailyRevenue.put(LocalDate.ofEpochDay(firstDay + d).toString(),
+                            totals.dayRevenueCents[d] / 100.0);
+                }
+            }
+
+            Map<String, Object> statistics = new HashMap<>();
+            statistics.put("totalRevenue", totalRevenue);
+            statistics.put("totalTransactions", totals.transactions);
+            statistics.put("averageTransaction", totals.transactions > 0 ?
+                    totalRevenue / totals.transactions : 0);
+            statistics.put("cashierSales", cashierSales);
+            statistics.put("dailyRevenue", dailyRevenue);
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply queued updates unless another thread holds the lock
+     * A writer drains again after releasing the lock, so an update queued
+     * while it held the lock is not left behind
+     */
+    private void drainPendingUpdates() {
+        while (!pendingUpdates.isEmpty() && lock.writeLock().tryLock()) {
+            try {
+                applyPendingUpdates();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void applyPendingUpdates() {
+        Update update;
+        while ((update = pendingUpdates.poll()) != null) {
+            if (updatesDuringLoad != null) {
+                updatesDuringLoad.add(update);
+            }
+            apply(update);
+        }
+    }
+
+    private void apply(Update update) {
+        try {
+            update.apply(columns);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to update sales column store, store marked stale", e);
+            stale = true;
+            loaded = false;
+        }
+    }
+
+    /**
+     * A change to the columns, applied under the write lock
+     */
+    @FunctionalInterface
+    private interface Update {
+        void apply(Columns target);
+    }
+
+    /**
+     * One complete set of sale and line columns
+     */
+    private static final class Columns {
+        // Sale columns
+        private long[] saleIds = new long[INITIAL_CAPACITY];
+        private int[] saleMinutes = new int[INITIAL_CAPACITY];
+        private int[] saleCashiers = new int[INITIAL_CAPACITY];
+        private long[] saleTotalCents = new long[INITIAL_CAPACITY];
+        private byte[] saleStatus = new byte[INITIAL_CAPACITY];
+        private int saleCount;
+        private final Map<Long, Integer> saleRowsById = new HashMap<>();
+        private int minMinute = Integer.MAX_VALUE;
+        private int maxMinute = Integer.MIN_VALUE;
+
+        // Cashier dictionary
+        private final Map<Long, Integer> cashierIndexes = new HashMap<>();
+        private long[] cashierIds = new long[64];
+        private int cashierCount;
+
+        // Line columns
+        private int[] lineSaleRows = new int[INITIAL_CAPACITY];
+        private int[] lineMinutes = new int[INITIAL_CAPACITY];
+        private int[] lineItems = new int[INITIAL_CAPACITY];
+        private int[] lineQuantities = new int[INITIAL_CAPACITY];
+        private long[] lineUnitPriceCents = new long[INITIAL_CAPACITY];
+        private long[] lineSubtotalCents = new long[INITIAL_CAPACITY];
+        private int lineCount;
+        private final CodeDictionary items = new CodeDictionary();
+
+        private int appendSaleRow(long saleId, long cashierId, long totalCents, byte status, int minute) {
+            if (saleCount == saleIds.length) {
+                int capacity = saleCount * 2;
+                saleIds = Arrays.copyOf(saleIds, capacity);
+                saleMinutes = Arrays.copyOf(saleMinutes, capacity);
+                saleCashiers = Arrays.copyOf(saleCashiers, capacity);
+                saleTotalCents = Arrays.copyOf(saleTotalCents, capacity);
+                saleStatus = Arrays.copyOf(saleStatus, capacity);
+            }
+
+            int row = saleCount++;
+            saleIds[row] = saleId;
+            saleMinutes[row] = minute;
+            saleCashiers[row] = cashierIndex(cashierId);
+            saleTotalCents[row] = totalCents;
+            saleStatus[row] = status;
+            saleRowsById.put(saleId, row);
+
+            minMinute = Math.min(minMinute, minute);
+            maxMinute = Math.max(maxMinute, minute);
+            return row;
+        }
+
+        private void appendLineRow(int saleRow, String itemCode, String itemName, int quantity,
+                                   long unitPriceCents, long subtotalCents) {
+            if (lineCount == lineSaleRows.length) {
+                int capacity = lineCount * 2;
+                lineSaleRows = Arrays.copyOf(lineSaleRows, capacity);
+                lineMinutes = Arrays.copyOf(lineMinutes, capacity);
+                lineItems = Arrays.copyOf(lineItems, capacity);
+                lineQuantities = Arrays.copyOf(lineQuantities, capacity);
+                lineUnitPriceCents = Arrays.copyOf(lineUnitPriceCents, capacity);
+                lineSubtotalCents = Arrays.copyOf(lineSubtotalCents, capacity);
+            }
+
+            int row = lineCount++;
+            lineSaleRows[row] = saleRow;
+            lineMinutes[row] = saleMinutes[saleRow];
+            lineItems[row] = items.encode(itemCode, itemName);
+            lineQuantities[row] = quantity;
+            lineUnitPriceCents[row] = unitPriceCents;
+            lineSubtotalCents[row] = subtotalCents;
+        }
+
+        private int cashierIndex(long cashierId) {
+            Integer index = cashierIndexes.get(cashierId);
+            if (index != null) {
+                return index;
+            }
+            if (cashierCount == cashierIds.length) {
+                cashierIds = Arrays.copyOf(cashierIds, cashierCount * 2);
+            }
+            cashierIds[cashierCount] = cashierId;
+            cashierIndexes.put(cashierId, cashierCount);
+            return cashierCount++;
+        }
+    }
+
+    /**
+     * Minutes since the epoch in local wall-clock time
+     */
+    static int toMinute(Date date) {
+        LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault());
+        return (int) Math.floorDiv(local.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    static long toCents(double amount) {
+        return toCents(BigDecimal.valueOf(amount));
+    }
+
+    private static byte statusCode(String status) {
+        if ("COMPLETED".equals(status)) {
+            return STATUS_COMPLETED;
+        }
+        if ("CANCELLED".equals(status)) {
+            return STATUS_CANCELLED;
+        }
+        return STATUS_OTHER;
+    }
+
+    /**
+     * Per-item totals, indexed by dictionary id
+     */
+    private static final class ItemTotals {
+        private final long[] quantity;
+        private final long[] revenueCents;
+        private final int[] sales;
+
+        private ItemTotals(int itemCount) {
+            this.quantity = new long[itemCount];
+            this.revenueCents = new long[itemCount];
+            this.sales = new int[itemCount];
+        }
+
+        private ItemTotals merge(ItemTotals other) {
+            for (int i = 0; i < quantity.length; i++) {
+                quantity[i] += other.quantity[i];
+                revenueCents[i] += other.revenueCents[i];
+                sales[i] += other.sales[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Aggregates line rows [start, end) into per-item totals
+     * Ranges are only split between sales, so each task sees whole sales
+     * and counts distinct sales per item with a last-seen sale row
+     */
+    private static final class ItemTotalsTask extends RecursiveTask<ItemTotals> {
+        private final int[] saleRows;
+        private final int[] minutes;
+        private final int[] itemIds;
+        private final int[] quantities;
+        private final long[] subtotalCents;
+        private final byte[] status;
+        private final int itemCount;
+        private final int from;
+        private final int to;
+        private final int start;
+        private final int end;
+
+        private ItemTotalsTask(int[] saleRows, int[] minutes, int[] itemIds, int[] quantities,
+                               long[] subtotalCents, byte[] status, int itemCount,
+                               int from, int to, int start, int end) {
+            this.saleRows = saleRows;
+            this.minutes = minutes;
+            this.itemIds = itemIds;
+            this.quantities = quantities;
+            this.subtotalCents = subtotalCents;
+            this.status = status;
+            this.itemCount = itemCount;
+            this.from = from;
+            this.to = to;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected ItemTotals compute() {
+            if (end - start > PARALLEL_THRESHOLD) {
+                int mid = (start + end) >>> 1;
+                while (mid < end && saleRows[mid] == saleRows[mid - 1]) {
+                    mid++;
+                }
+                if (mid < end) {
+                    ItemTotalsTask left = subtask(start, mid);
+                    left.fork();
+                    ItemTotals right = subtask(mid, end).compute();
+                    return left.join().merge(right);
+                }
+            }
+            return scan();
+        }
+
+        private ItemTotalsTask subtask(int subStart, int subEnd) {
+            return new ItemTotalsTask(saleRows, minutes, itemIds, quantities, subtotalCents, status,
+                    itemCount, from, to, subStart, subEnd);
+        }
+
+        private ItemTotals scan() {
+            ItemTotals totals = new ItemTotals(itemCount);
+            int[] lastSaleRow = new int[itemCount];
+            Arrays.fill(lastSaleRow, -1);
+
+            for (int i = start; i < end; i++) {
+                int minute = minutes[i];
+                if (minute < from || minute > to) {
+                    continue;
+                }
+                int saleRow = saleRows[i];
+                if (status[saleRow] != STATUS_COMPLETED) {
+                    continue;
+                }
+                int item = itemIds[i];
+                totals.quantity[item] += quantities[i];
+                totals.revenueCents[item] += subtotalCents[i];
+                if (lastSaleRow[item] != saleRow) {
+                    lastSaleRow[item] = saleRow;
+                    totals.sales[item]++;
+                }
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Sale-level totals, per cashier index and per day offset
+     */
+    private static final class SaleTotals {
+        private long revenueCents;
+        private int transactions;
+        private final int[] cashierSales;
+        private final long[] dayRevenueCents;
+        private final int[] dayTransactions;
+
+        private SaleTotals(int cashierCount, int dayCount) {
+            this.cashierSales = new int[cashierCount];
+            this.dayRevenueCents = new long[dayCount];
+            this.dayTransactions = new int[dayCount];
+        }
+
+        private SaleTotals merge(SaleTotals other) {
+            revenueCents += other.revenueCents;
+            transactions += other.transactions;
+            for (int i = 0; i < cashierSales.length; i++) {
+                cashierSales[i] += other.cashierSales[i];
+            }
+            for (int i = 0; i < dayRevenueCents.length; i++) {
+                dayRevenueCents[i] += other.dayRevenueCents[i];
+                dayTransactions[i] += other.dayTransactions[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Aggregates sale rows [start, end) into sale-level totals
+     */
+    private static final class SaleTotalsTask extends RecursiveTask<SaleTotals> {
+        private final int[] minutes;
+        private final int[] cashiers;
+        private final long[] totalCents;
+        private final byte[] status;
+        private final int cashierCount;
+        private final int firstDay;
+        private final int dayCount;
+        private final int from;
+        private final int to;
+        private final int start;
+        private final int end;
+
+        private SaleTotalsTask(int[] minutes, int[] cashiers, long[] totalCents, byte[] status,
+                               int cashierCount, int firstDay, int dayCount,
+                               int from, int to, int start, int end) {
+            this.minutes = minutes;
+            this.cashiers = cashiers;
+            this.totalCents = totalCents;
+            this.status = status;
+            this.cashierCount = cashierCount;
+            this.firstDay = firstDay;
+            this.dayCount = dayCount;
+            this.from = from;
+            this.to = to;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected SaleTotals compute() {
+            if (end - start > PARALLEL_THRESHOLD) {
+                int mid = (start + end) >>> 1;
+                SaleTotalsTask left = subtask(start, mid);
+                left.fork();
+                SaleTotals right = subtask(mid, end).compute();
+                return left.join().merge(right);
+            }
+            return scan();
+        }
+
+        private SaleTotalsTask subtask(int subStart, int subEnd) {
+            return new SaleTotalsTask(minutes, cashiers, totalCents, status, cashierCount,
+                    firstDay, dayCount, from, to, subStart, subEnd);
+        }
+
+        private SaleTotals scan() {
+            SaleTotals totals = new SaleTotals(cashierCount, dayCount);
+
+            for (int i = start; i < end; i++) {
+                int minute = minutes[i];
+                if (minute < from || minute > to || status[i] != STATUS_COMPLETED) {
+                    continue;
+                }
+                long cents = totalCents[i];
+                int day = Math.floorDiv(minute, MINUTES_PER_DAY) - firstDay;
+
+                totals.revenueCents += cents;
+                totals.transactions++;
+                totals.cashierSales[cashiers[i]]++;
+                totals.dayRevenueCents[day] += cents;
+                totals.dayTransactions[day]++;
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.syos.web.analytics;
+
+import com.syos.web.dao.SaleDAO;
+import com.syos.web.model.SaleItem;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * TOP-SELLING LEADERBOARD
+ * ============================================
+ *
+ * Incrementally maintained top-selling items over the last 1..30 days.
+ *
+ * STRUCTURE:
+ * - One bucket per calendar day in a ring of MAX_WINDOW_DAYS slots
+ * - A bucket holds quantity, revenue (cents) and sale count per item id
+ * - Buckets are mergeable: a window is the element-wise sum of its days
+ * - Slots are reused lazily when a newer day maps onto them
+ *
+ * UPDATES:
+ * - Committed sales add to the bucket of their day
+ * - Cancelled sales subtract from the bucket of their day
+ * - Rebuilt from sale_items at startup; the scan runs without the lock and
+ *   updates arriving meanwhile are replayed afterwards, skipping sales the
+ *   scan already counted
+ *
+ * QUERIES:
+ * - A window covers today and the previous (days - 1) calendar days, from
+ *   midnight (see windowStart); SQL fallbacks must use the same window
+ * - Results are cached per window and version, so repeated page views
+ *   cost a map lookup until the next sale
+ *
+ * ============================================
+ */
+public class TopSellingLeaderboard {
+
+    private static final Logger logger = Logger.getLogger(TopSellingLeaderboard.class.getName());
+
+    public static final int MAX_WINDOW_DAYS = 30;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private CodeDictionary items = new CodeDictionary();
+    private DayBucket[] buckets = newBuckets();
+    private volatile boolean ready;
+
+    // Updates that arrive while a rebuild scans, replayed when it finishes
+    private boolean rebuilding;
+    private final List<SaleEvent> pendingEvents = new ArrayList<>();
+
+    // Bumped on every change, invalidates cached windows
+    private long version;
+    private final Map<String, CachedTop> cache = new ConcurrentHashMap<>();
+
+    // Singleton instance
+    private static volatile TopSellingLeaderboard instance;
+    private static final Object instanceLock = new Object();
+
+    private TopSellingLeaderboard() {
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static TopSellingLeaderboard getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new TopSellingLeaderboard();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start of a window of the last {@code days} calendar days, today included
+     */
+    public static Date windowStart(int days) {
+        LocalDate firstDay = LocalDate.now().minusDays(days - 1L);
+        return Date.from(firstDay.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Rebuild all buckets from the completed sales of the last MAX_WINDOW_DAYS days
+     * The current buckets keep answering queries until the new ones are complete
+     */
+    public void rebuild(SaleDAO saleDAO) throws SQLException {
+        long start = System.currentTimeMillis();
+        LocalDate firstDay = LocalDate.now().minusDays(MAX_WINDOW_DAYS - 1);
+
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                logger.info("Top-selling leaderboard rebuild already running");
+                return;
+            }
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        CodeDictionary rebuiltItems = new CodeDictionary();
+        DayBucket[] rebuiltBuckets = newBuckets();
+        Set<Long> scannedSales = new HashSet<>();
+        boolean scanned = false;
+        try {
+            // Lines arrive grouped by sale; an item listed twice in one sale counts as one sale
+            Set<Integer> itemsOfSale = new HashSet<>();
+            saleDAO.scanCompletedSaleLinesSince(firstDay, rs -> {
+                if (scannedSales.add(rs.getLong("sale_id"))) {
+                    itemsOfSale.clear();
+                }
+                long day = rs.getDate("sale_day").toLocalDate().toEpochDay();
+                int item = rebuiltItems.encode(rs.getString("item_code"), rs.getString("item_name"));
+                bucketFor(rebuiltBuckets, day).add(item, rs.getInt("quantity"),
+                        SalesColumnStore.toCents(rs.getBigDecimal("subtotal")), itemsOfSale.add(item) ? 1 : 0);
+            });
+            scanned = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (scanned) {
+                    items = rebuiltItems;
+                    buckets = rebuiltBuckets;
+                }
+                replayPendingEvents(scanned ? scannedSales : null);
+                rebuilding = false;
+                version++;
+                cache.clear();
+                if (scanned) {
+                    ready = true;
+                    logger.info(String.format("Top-selling leaderboard rebuilt: %d items in %d ms",
+                            items.size(), System.currentTimeMillis() - start));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Count a committed sale
+     */
+    public void recordSale(long saleId, Date saleTime, List<SaleItem> saleItems) {
+        apply(new SaleEvent(saleId, saleTime, saleItems, 1));
+    }
+
+    /**
+     * Remove a cancelled sale from its day
+     */
+    public void recordCancellation(long saleId, Date saleTime, List<SaleItem> saleItems) {
+        apply(new SaleEvent(saleId, saleTime, saleItems, -1));
+    }
+
+    /**
+     * @return true once the leaderboard has been rebuilt and can answer queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Top items by quantity over the last {@code days} calendar days, today included
+     * Rows have the same keys as SaleDAO.getTopSellingProducts
+     * @param days Window length, 1 to MAX_WINDOW_DAYS
+     * @param limit Maximum number of items
+     */
+    public List<Map<String, Object>> getTopSelling(int days, int limit) {
+        if (days < 1 || days > MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Window must be between 1 and " + MAX_WINDOW_DAYS + " days");
+        }
+        long today = LocalDate.now().toEpochDay();
+        String key = today + ":" + days + ":" + limit;
+
+        lock.readLock().lock();
+        try {
+            CachedTop cached = cache.get(key);
+            if (cached != null && cached.version == version) {
+                return cached.rows;
+            }
+
+            List<Map<String, Object>> rows = Collections.unmodifiableList(computeTop(today, days, limit));
+            cache.put(key, new CachedTop(version, rows));
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(SaleEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                pendingEvents.add(event);
+                return;
+            }
+            applyLocked(event);
+            version++;
+            cache.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the updates that arrived during a rebuild
+     * A sale the scan counted is not added again, and a cancellation only
+     * subtracts a sale that the scan or a replayed update counted
+     * @param scannedSales Sales counted by the scan, or null if the scan failed
+     *                     and the previous buckets were kept
+     */
+    private void replayPendingEvents(Set<Long> scannedSales) {
+        Set<Long> replayedSales = new HashSet<>();
+        for (SaleEvent event : pendingEvents) {
+            if (scannedSales != null) {
+                boolean counted = scannedSales.contains(event.saleId) || replayedSales.contains(event.saleId);
+                if (event.sign > 0 ? counted : !counted) {
+                    continue;
+                }
+            }
+            if (event.sign > 0) {
+                replayedSales.add(event.saleId);
+            }
+            applyLocked(event);
+        }
+        pendingEvents.clear();
+    }
+
+    private void applyLocked(SaleEvent event) {
+        long day = LocalDate.ofInstant(Instant.ofEpochMilli(event.saleTime.getTime()), ZoneId.systemDefault())
+                .toEpochDay();
+        long today = LocalDate.now().toEpochDay();
+        if (day > today || day <= today - MAX_WINDOW_DAYS) {
+            return;
+        }
+
+        DayBucket bucket = bucketFor(buckets, day);
+        // An item listed twice in one sale still counts as one sale
+        Set<Integer> seen = new HashSet<>();
+        for (SaleItem saleItem : event.saleItems) {
+            int item = items.encode(saleItem.getItemCode(), saleItem.getItemName());
+            bucket.add(item,
+                    (long) event.sign * saleItem.getQuantity(),
+                    event.sign * SalesColumnStore.toCents(saleItem.getSubtotal()),
+                    seen.add(item) ? event.sign : 0);
+        }
+    }
+
+    private static DayBucket[] newBuckets() {
+        DayBucket[] created = new DayBucket[MAX_WINDOW_DAYS];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new DayBucket();
+        }
+        return created;
+    }
+
+    /**
+     * @return The bucket of a day, recycling its slot if it held an older day
+     */
+    private static DayBucket bucketFor(DayBucket[] buckets, long day) {
+        DayBucket bucket = buckets[(int) Math.floorMod(day, (long) MAX_WINDOW_DAYS)];
+        if (bucket.day != day) {
+            bucket.reset(day);
+        }
+        return bucket;
+    }
+
+    private List<Map<String, Object>> computeTop(long today, int days, int limit) {
+        int itemCount = items.size();
+        long[] quantity = new long[itemCount];
+        long[] revenueCents = new long[itemCount];
+        int[] sales = new int[itemCount];
+
+        // Merge the buckets of the window
+        for (long day = today - days + 1; day <= today; day++) {
+            DayBucket bucket = buckets[(int) Math.floorMod(day, (long) MAX_WINDOW_DAYS)];
+            if (bucket.day != day) {
+                continue;
+            }
+            int n = Math.min(itemCount, bucket.quantity.length);
+            for (int item = 0; item < n; item++) {
+                quantity[item] += bucket.quantity[item];
+                revenueCents[item] += bucket.revenueCents[item];
+                sales[item] += bucket.sales[item];
+            }
+        }
+
+        // Min-heap of the best item ids by quantity
+        PriorityQueue<Integer> top = new PriorityQueue<>(Math.max(1, limit),
+                (a, b) -> Long.compare(quantity[a], quantity[b]));
+        for (int item = 0; item < itemCount && limit > 0; item++) {
+            if (sales[item] <= 0) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(item);
+            } else if (quantity[item] > quantity[top.peek()]) {
+                top.poll();
+                top.add(item);
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            int item = top.poll();
+            Map<String, Object> row = new HashMap<>();
+            row.put("itemCode", items.code(item));
+            row.put("itemName", items.name(item));
+            row.put("totalQuantity", (int) quantity[item]);
+            row.put("totalRevenue", revenueCents[item] / 100.0);
+            row.put("numSales", sales[item]);
+            rows.add(row);
+        }
+        // Heap yields ascending quantity
+        Collections.reverse(rows);
+        return rows;
+    }
+
+    /**
+     * Per-item counters of one calendar day, indexed by dictionary id
+     */
+    private static final class DayBucket {
+        private long day = Long.MIN_VALUE;
+        private long[] quantity = new long[64];
+        private long[] revenueCents = new long[64];
+        private int[] sales = new int[64];
+
+        private void reset(long newDay) {
+            day = newDay;
+            Arrays.fill(quantity, 0);
+            Arrays.fill(revenueCents, 0);
+            Arrays.fill(sales, 0);
+        }
+
+        private void add(int item, long itemQuantity, long itemRevenueCents, int itemSales) {
+            if (item >= quantity.length) {
+                int capacity = Math.max(quantity.length * 2, item + 1);
+                quantity = Arrays.copyOf(quantity, capacity);
+                revenueCents = Arrays.copyOf(revenueCents, capacity);
+                sales = Arrays.copyOf(sales, capacity);
+            }
+            quantity[item] += itemQuantity;
+            revenueCents[item] += itemRevenueCents;
+            sales[item] += itemSales;
+        }
+    }
+
+    /**
+     * A committed sale (+1) or cancellation (-1) of one sale
+     */
+    private static final class SaleEvent {
+        private final long saleId;
+        private final Date saleTime;
+        private final List<SaleItem> saleItems;
+        private final int sign;
+
+        private SaleEvent(long saleId, Date saleTime, List<SaleItem> saleItems, int sign) {
+            this.saleId = saleId;
+            this.saleTime = saleTime;
+            this.saleItems = saleItems;
+            this.sign = sign;
+        }
+    }
+
+    private static final class CachedTop {
+        private final long version;
+        private final List<Map<String, Object>> rows;
+
+        private CachedTop(long version, List<Map<String, Object>> rows) {
+            this.version = version;
+            this.rows = rows;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.syos.web.dao;
 
 import com.syos.web.model.Bill;
+import com.syos.shared.pagination.KeysetCursor;
+import com.syos.shared.pagination.Page;
 import com.syos.web.util.DBConnection;
 
 import java.sql.*;
@@ -41,6 +43,10 @@ public class BillDAO {
         }
     }
 
+    /**
+     * @deprecated Loads the entire bill history into memory, use {@link #getBillsPage(KeysetCursor, int)}
+     */
+    @Deprecated
     public List<Bill> getAllBills() throws SQLException {
         String query = "SELECT * FROM bills ORDER BY created_at DESC";
         List<Bill> bills = new ArrayList<>();
@@ -57,6 +63,39 @@ public class BillDAO {
         return bills;
     }
 
+    /**
+     * Get one page of bills, most recent first, using keyset pagination on (created_at, id)
+     * @param after Cursor of the last bill of the previous page, or null for the first page
+     * @param pageSize Number of bills per page, clamped to Page.MAX_PAGE_SIZE
+     */
+    public Page<Bill> getBillsPage(KeysetCursor after, int pageSize) throws SQLException {
+        int limit = Page.clampPageSize(pageSize);
+        String query = "SELECT * FROM bills " +
+                (after != null ? "WHERE created_at < ? OR (created_at = ? AND id < ?) " : "") +
+                "ORDER BY created_at DESC, id DESC LIMIT ?";
+        List<Bill> bills = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            int index = 1;
+            if (after != null) {
+                stmt.setTimestamp(index++, after.getSqlTimestamp());
+                stmt.setTimestamp(index++, after.getSqlTimestamp());
+                stmt.setLong(index++, after.getId());
+            }
+            // Fetch one extra row to know whether another page exists
+            stmt.setInt(index, limit + 1);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                bills.add(mapResultSetToBill(rs));
+            }
+        }
+
+        return Page.fromOverfetch(bills, limit, bill -> KeysetCursor.of(bill.getCreatedAt(), bill.getId()));
+    }
+
     public List<Bill> getBillsByUser(long userId) throws SQLException {
         String query = "SELECT * FROM bills WHERE user_id = ? ORDER BY created_at DESC";
         List<Bill> bills = new ArrayList<>();
@@ -1,14 +1,27 @@
 package com.syos.web.dao;
 
 import com.syos.web.model.Product;
+import com.syos.web.model.StockMovement;
 import com.syos.web.util.DBConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class ProductDAO {
 
+    /**
+     * Columns a bulk upsert may write
+     */
+    public static final Set<String> UPSERT_COLUMNS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "code", "name", "category", "price", "quantity_in_store", "quantity_on_shelf",
+            "reorder_level", "state", "purchase_date", "expiry_date")));
+
     public Product getProductByCode(String code) throws SQLException {
         String query = "SELECT * FROM items WHERE code = ?";
 
@@ -76,6 +89,25 @@ public class ProductDAO {
         return products;
     }
 
+    /**
+     * Every item code, for the unknown-code filter
+     */
+    public List<String> getAllCodes() throws SQLException {
+        String query = "SELECT code FROM items";
+        List<String> codes = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            while (rs.next()) {
+                codes.add(rs.getString(1));
+            }
+        }
+
+        return codes;
+    }
+
     public List<Product> getProductsByCategory(String category) throws SQLException {
         String query = "SELECT * FROM items WHERE category = ? ORDER BY code";
         List<Product> products = new ArrayList<>();
@@ -261,6 +293,151 @@ public class ProductDAO {
         return products;
     }
 
+    /**
+     * Insert or update products as one JDBC batch on the caller's connection
+     *
+     * Only the given columns are written: for a new product the others take their
+     * column default, for an existing one they keep their value. Updated rows get
+     * a new version.
+     *
+     * @param columns Columns to write, including code; each row holds values in this order
+     * @throws IllegalArgumentException if a column is not in UPSERT_COLUMNS or code is missing
+     */
+    public void upsertProducts(Connection conn, List<String> columns, List<Object[]> rows) throws SQLException {
+        if (!columns.contains("code")) {
+            throw new IllegalArgumentException("Upsert needs the code column");
+        }
+        StringBuilder insert = new StringBuilder("INSERT INTO items (");
+        StringBuilder values = new StringBuilder(") VALUES (");
+        StringBuilder update = new StringBuilder(" ON DUPLICATE KEY UPDATE ");
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            if (!UPSERT_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Column cannot be imported: " + column);
+            }
+            insert.append(i > 0 ? ", " : "").append(column);
+            values.append(i > 0 ? ", ?" : "?");
+            if (!column.equals("code")) {
+                update.append(column).append(" = VALUES(").append(column).append("), ");
+            }
+        }
+        update.append("version = version + 1");
+        String query = insert.toString() + values + ")" + update;
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    stmt.setObject(i + 1, row[i]);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * @return The products with these codes, using the caller's connection
+     */
+    public List<Product> getProductsByCodes(Connection conn, Collection<String> codes) throws SQLException {
+        List<Product> products = new ArrayList<>();
+        if (codes.isEmpty()) {
+            return products;
+        }
+        String query = "SELECT * FROM items WHERE code IN ("
+                + String.join(", ", Collections.nCopies(codes.size(), "?")) + ")";
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            int index = 1;
+            for (String code : codes) {
+                stmt.setString(index++, code);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapResultSetToProduct(rs));
+                }
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Lock the rows of these products, in code order, on the caller's transaction
+     * @param codes Sorted codes; locking in one order everywhere avoids deadlocks
+     */
+    public List<Product> getProductsForUpdate(Connection conn, Collection<String> codes) throws SQLException {
+        List<Product> products = new ArrayList<>();
+        if (codes.isEmpty()) {
+            return products;
+        }
+        String query = "SELECT * FROM items WHERE code IN ("
+                + String.join(", ", Collections.nCopies(codes.size(), "?")) + ") ORDER BY code FOR UPDATE";
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            int index = 1;
+            for (String code : codes) {
+                stmt.setString(index++, code);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapResultSetToProduct(rs));
+                }
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Write new stock levels as one batch of guarded UPDATEs
+     * Each row changes only if its version still matches and both quantities are non-negative.
+     * @return true if every row was updated
+     */
+    public boolean updateStockLevels(Connection conn, List<Product> products) throws SQLException {
+        String query = "UPDATE items SET quantity_in_store=?, quantity_on_shelf=?, version=version+1 " +
+                "WHERE code=? AND version=? AND ? >= 0 AND ? >= 0";
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (Product product : products) {
+                stmt.setInt(1, product.getQuantityInStore());
+                stmt.setInt(2, product.getQuantityOnShelf());
+                stmt.setString(3, product.getCode());
+                stmt.setInt(4, product.getVersion());
+                stmt.setInt(5, product.getQuantityInStore());
+                stmt.setInt(6, product.getQuantityOnShelf());
+                stmt.addBatch();
+            }
+            for (int count : stmt.executeBatch()) {
+                if (count == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Insert stock_movements rows as one batch
+     */
+    public void insertStockMovements(Connection conn, List<StockMovement> movements) throws SQLException {
+        String query = "INSERT INTO stock_movements (item_code, movement_type, quantity, from_state, to_state, " +
+                "user_id, reference_id, reference_type, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (StockMovement movement : movements) {
+                stmt.setString(1, movement.getItemCode());
+                stmt.setString(2, movement.getMovementType());
+                stmt.setInt(3, movement.getQuantity());
+                stmt.setString(4, movement.getFromState());
+                stmt.setString(5, movement.getToState());
+                stmt.setObject(6, movement.getUserId(), Types.BIGINT);
+                stmt.setString(7, movement.getReferenceId());
+                stmt.setString(8, movement.getReferenceType());
+                stmt.setString(9, movement.getNotes());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
     public Connection getConnection() throws SQLException {
         return DBConnection.getConnection();
     }
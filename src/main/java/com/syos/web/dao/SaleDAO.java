@@ -2,9 +2,12 @@ package com.syos.web.dao;
 
 import com.syos.web.model.Sale;
 import com.syos.web.model.SaleItem;
+import com.syos.shared.pagination.KeysetCursor;
+import com.syos.shared.pagination.Page;
 import com.syos.web.util.DBConnection;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -137,6 +140,11 @@ public class SaleDAO {
         return items;
     }
 
+    /**
+     * @deprecated Loads the entire sales history into memory, use
+     * {@link #getSalesPage(Long, Date, Date, KeysetCursor, int)}
+     */
+    @Deprecated
     public List<Sale> getAllSales() throws SQLException {
         String query = "SELECT * FROM sales ORDER BY created_at DESC";
         List<Sale> sales = new ArrayList<>();
@@ -153,6 +161,65 @@ public class SaleDAO {
         return sales;
     }
 
+    /**
+     * Get one page of sales, most recent first, using keyset pagination on (created_at, id)
+     * @param cashierId Only sales of this cashier, or null for all cashiers
+     * @param startDate Inclusive lower bound on created_at, or null
+     * @param endDate Exclusive upper bound on created_at, or null
+     * @param after Cursor of the last sale of the previous page, or null for the first page
+     * @param pageSize Number of sales per page, clamped to Page.MAX_PAGE_SIZE
+     */
+    public Page<Sale> getSalesPage(Long cashierId, Date startDate, Date endDate,
+                                   KeysetCursor after, int pageSize) throws SQLException {
+        int limit = Page.clampPageSize(pageSize);
+
+        StringBuilder query = new StringBuilder("SELECT * FROM sales WHERE 1=1");
+        if (cashierId != null) {
+            query.append(" AND cashier_id = ?");
+        }
+        if (startDate != null) {
+            query.append(" AND created_at >= ?");
+        }
+        if (endDate != null) {
+            query.append(" AND created_at < ?");
+        }
+        if (after != null) {
+            query.append(" AND (created_at < ? OR (created_at = ? AND id < ?))");
+        }
+        query.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+
+        List<Sale> sales = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+
+            int index = 1;
+            if (cashierId != null) {
+                stmt.setLong(index++, cashierId);
+            }
+            if (startDate != null) {
+                stmt.setTimestamp(index++, new Timestamp(startDate.getTime()));
+            }
+            if (endDate != null) {
+                stmt.setTimestamp(index++, new Timestamp(endDate.getTime()));
+            }
+            if (after != null) {
+                stmt.setTimestamp(index++, after.getSqlTimestamp());
+                stmt.setTimestamp(index++, after.getSqlTimestamp());
+                stmt.setLong(index++, after.getId());
+            }
+            // Fetch one extra row to know whether another page exists
+            stmt.setInt(index, limit + 1);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                sales.add(mapResultSetToSale(rs));
+            }
+        }
+
+        return Page.fromOverfetch(sales, limit, sale -> KeysetCursor.of(sale.getCreatedAt(), sale.getId()));
+    }
+
     public List<Sale> getSalesByCashier(long cashierId, Date startDate, Date endDate)
             throws SQLException {
         String query = "SELECT * FROM sales WHERE cashier_id = ? AND created_at BETWEEN ? AND ? " +
@@ -274,6 +341,129 @@ public class SaleDAO {
         return results;
     }
 
+    /**
+     * Callback for streaming scans, invoked once per row
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Stream the columns of every sale needed by in-memory analytics, in id order
+     * Rows are streamed from the server rather than buffered in the driver
+     */
+    public void scanSales(RowHandler handler) throws SQLException {
+        String query = "SELECT id, cashier_id, total_amount, status, created_at FROM sales ORDER BY id";
+        scan(query, handler);
+    }
+
+    /**
+     * Stream every sale line, grouped by sale in sale id order
+     */
+    public void scanSaleItems(RowHandler handler) throws SQLException {
+        String query = "SELECT sale_id, item_code, item_name, quantity, unit_price, subtotal " +
+                "FROM sale_items ORDER BY sale_id, id";
+        scan(query, handler);
+    }
+
+    /**
+     * Stream the lines of completed sales created from a day onwards, grouped by sale
+     * Columns: sale_id, sale_day, item_code, item_name, quantity, subtotal
+     */
+    public void scanCompletedSaleLinesSince(LocalDate firstDay, RowHandler handler) throws SQLException {
+        String query = "SELECT si.sale_id, DATE(s.created_at) AS sale_day, si.item_code, si.item_name, " +
+                "si.quantity, si.subtotal " +
+                "FROM sale_items si " +
+                "JOIN sales s ON si.sale_id = s.id " +
+                "WHERE s.status = 'COMPLETED' AND s.created_at >= ? " +
+                "ORDER BY si.sale_id";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(firstDay.atStartOfDay()));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream completed sales created at or after a time, with their item counts
+     * Columns: id, cashier_id, created_at, total_amount, item_count
+     */
+    public void scanCompletedSalesSince(Timestamp since, RowHandler handler) throws SQLException {
+        String query = "SELECT s.id, s.cashier_id, s.created_at, s.total_amount, " +
+                "COALESCE(SUM(si.quantity), 0) AS item_count " +
+                "FROM sales s " +
+                "LEFT JOIN sale_items si ON si.sale_id = s.id " +
+                "WHERE s.status = 'COMPLETED' AND s.created_at >= ? " +
+                "GROUP BY s.id, s.cashier_id, s.created_at, s.total_amount";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setTimestamp(1, since);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream completed sale totals per cashier and interval of the day, from a time onwards
+     * Intervals are numbered from midnight of the created_at day
+     * Columns: cashier_id, day_interval, revenue, transactions, items
+     */
+    public void scanIntervalTotalsSince(Timestamp since, int intervalMinutes, RowHandler handler)
+            throws SQLException {
+        String query = "SELECT cashier_id, day_interval, SUM(total_amount) AS revenue, " +
+                "COUNT(*) AS transactions, SUM(item_count) AS items " +
+                "FROM (SELECT s.cashier_id, " +
+                "FLOOR((HOUR(s.created_at) * 60 + MINUTE(s.created_at)) / ?) AS day_interval, " +
+                "s.total_amount, COALESCE(SUM(si.quantity), 0) AS item_count " +
+                "FROM sales s " +
+                "LEFT JOIN sale_items si ON si.sale_id = s.id " +
+                "WHERE s.status = 'COMPLETED' AND s.created_at >= ? " +
+                "GROUP BY s.id, s.cashier_id, s.created_at, s.total_amount) sale_totals " +
+                "GROUP BY cashier_id, day_interval";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, intervalMinutes);
+            stmt.setTimestamp(2, since);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+
+    private void scan(String query, RowHandler handler) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // MySQL Connector/J streams row by row with this fetch size
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+
     public Connection getConnection() throws SQLException {
         return DBConnection.getConnection();
     }
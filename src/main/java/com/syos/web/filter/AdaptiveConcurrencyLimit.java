@@ -0,0 +1,150 @@
+package com.syos.web.filter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ============================================
+ * ADAPTIVE CONCURRENCY LIMIT
+ * ============================================
+ *
+ * Limits how many requests run at once, and finds the limit from latency
+ * instead of a fixed number:
+ *
+ * - A short and a long moving average of request latency are kept. While the
+ *   short one stays near the long one (the baseline) the limit creeps up by
+ *   about sqrt(limit); when it rises above, the limit shrinks by the ratio
+ * - A failed or timed-out request cuts the limit by BACKOFF at once
+ *   (multiplicative decrease)
+ * - The limit only grows while at least half of it is in use, so a quiet
+ *   period does not leave a limit nobody has tested
+ *
+ * Each priority class may fill only its share of the limit, so when the
+ * system saturates the lowest class is refused first.
+ *
+ * ============================================
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_WEIGHT = 0.1;
+    private static final double LONG_WEIGHT = 0.01;
+    private static final double TOLERANCE = 1.5;
+    private static final double BACKOFF = 0.9;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    // Guarded by this
+    private double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    private volatile int currentLimit;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.currentLimit = (int) limit;
+    }
+
+    /**
+     * Take a slot if fewer than share * limit requests are running
+     * @param share Fraction of the limit the caller's class may use (0..1]
+     * @return true if admitted; the caller must then call release
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (currentLimit * share));
+        while (true) {
+            int running = inFlight.get();
+            if (running >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give the slot back without feeding the outcome into the limit, for requests
+     * whose latency and errors say nothing about the shared backend
+     */
+    public void releaseUnsampled() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Give the slot back and feed the outcome into the limit
+     * @param rttNanos How long the request held the slot
+     * @param failed true for a server error or timeout
+     */
+    public void release(long rttNanos, boolean failed) {
+        int running = inFlight.getAndDecrement();
+        if (failed) {
+            dropped.increment();
+        }
+        update(rttNanos, running, failed);
+    }
+
+    private synchronized void update(long rttNanos, int running, boolean failed) {
+        if (failed) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            currentLimit = (int) limit;
+            return;
+        }
+
+        if (shortRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) * SHORT_WEIGHT;
+            longRttNanos += (rttNanos - longRttNanos) * LONG_WEIGHT;
+        }
+        // After a slow spell the baseline comes back down quickly
+        if (longRttNanos > shortRttNanos * 2) {
+            longRttNanos = shortRttNanos * 2;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        if (target > limit && running < limit / 2) {
+            // Not using the limit we have; no evidence for a bigger one
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+        currentLimit = (int) limit;
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Limit, in-flight count, failures and latency averages in milliseconds
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", currentLimit);
+        stats.put("inFlight", inFlight.get());
+        stats.put("minLimit", minLimit);
+        stats.put("maxLimit", maxLimit);
+        stats.put("failed", dropped.sum());
+        stats.put("shortLatencyMillis", shortRttNanos / 1_000_000.0);
+        stats.put("baselineLatencyMillis", longRttNanos / 1_000_000.0);
+        return stats;
+    }
+}
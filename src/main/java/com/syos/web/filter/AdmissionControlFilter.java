@@ -0,0 +1,252 @@
+package com.syos.web.filter;
+
+import com.syos.web.model.User;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Admission control and load shedding
+ *
+ * Requests are classed by priority: checkout (sale creation, the billing page),
+ * then lookups, then reports and admin pages. All classes share one adaptive
+ * concurrency limit (see AdaptiveConcurrencyLimit), but a lower class may only
+ * fill part of it, so under overload reports are refused first and checkout
+ * last. Refused requests get 503 with Retry-After instead of waiting for a
+ * database connection.
+ *
+ * Only checkout and lookup requests feed latency and failures into the limit.
+ * Reports, exports and imports run for seconds and have their own bounded pools
+ * (AsyncWorkload), so their latency would drag the baseline and their pool
+ * fallbacks would cut the limit checkout depends on. A 503 carrying
+ * Retry-After is the application's own fallback, not a dropped request, and
+ * does not count as a failure.
+ *
+ * Optionally each cashier has a token bucket (cashierRatePerSecond, cashierBurst),
+ * so one misbehaving terminal gets 429 instead of starving the others.
+ *
+ * Mapped after AuthenticationFilter, so the user is known.
+ */
+public class AdmissionControlFilter implements Filter {
+
+    private static final Logger logger = Logger.getLogger(AdmissionControlFilter.class.getName());
+
+    /**
+     * Servlet context attribute holding this filter, for its statistics
+     */
+    public static final String ATTRIBUTE = AdmissionControlFilter.class.getName();
+
+    /**
+     * Request classes, highest priority first, with the share of the limit each may fill
+     */
+    public enum Priority {
+        CHECKOUT(1.0, 1),
+        LOOKUP(0.8, 2),
+        REPORT(0.5, 5);
+
+        private final double share;
+        private final int retryAfterSeconds;
+
+        Priority(double share, int retryAfterSeconds) {
+            this.share = share;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    private AdaptiveConcurrencyLimit limit;
+    private double cashierRatePerSecond;
+    private int cashierBurst;
+
+    private final Map<Long, TokenBucket> cashierBuckets = new ConcurrentHashMap<>();
+    private final Map<Priority, LongAdder> admitted = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> shed = new EnumMap<>(Priority.class);
+    private final LongAdder rateLimited = new LongAdder();
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        int initialLimit = intParam(filterConfig, "initialLimit", 20);
+        int minLimit = intParam(filterConfig, "minLimit", 4);
+        int maxLimit = intParam(filterConfig, "maxLimit", 200);
+        try {
+            limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        } catch (IllegalArgumentException e) {
+            throw new ServletException("Invalid admission limits: " + e.getMessage(), e);
+        }
+
+        String rate = filterConfig.getInitParameter("cashierRatePerSecond");
+        cashierRatePerSecond = (rate != null) ? Double.parseDouble(rate.trim()) : 0;
+        cashierBurst = intParam(filterConfig, "cashierBurst", 20);
+
+        for (Priority priority : Priority.values()) {
+            admitted.put(priority, new LongAdder());
+            shed.put(priority, new LongAdder());
+        }
+        filterConfig.getServletContext().setAttribute(ATTRIBUTE, this);
+        logger.info("Admission control: limit " + initialLimit + " (" + minLimit + ".." + maxLimit + ")"
+                + (cashierRatePerSecond > 0 ? ", cashiers " + cashierRatePerSecond + "/s burst " + cashierBurst : ""));
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        if (cashierRatePerSecond > 0) {
+            TokenBucket bucket = cashierBucket(httpRequest);
+            if (bucket != null && !bucket.tryTake()) {
+                rateLimited.increment();
+                httpResponse.setHeader("Retry-After", Long.toString(bucket.secondsUntilNext()));
+                httpResponse.sendError(429, "Too many requests from this terminal");
+                return;
+            }
+        }
+
+        Priority priority = classify(httpRequest);
+        if (!limit.tryAcquire(priority.share)) {
+            shed.get(priority).increment();
+            httpResponse.setHeader("Retry-After", Integer.toString(priority.retryAfterSeconds));
+            httpResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is busy, please retry shortly");
+            return;
+        }
+        admitted.get(priority).increment();
+
+        Slot slot = new Slot(httpResponse, priority != Priority.REPORT);
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            slot.release(true);
+            throw e;
+        }
+
+        if (request.isAsyncStarted()) {
+            // Hold the slot until the async work finishes
+            request.getAsyncContext().addListener(slot);
+        } else {
+            slot.release(false);
+        }
+    }
+
+    /**
+     * Checkout: POST /sales and the billing page. Reports: /reports and /admin. Everything else is a lookup.
+     */
+    static Priority classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/billing")
+                || (path.equals("/sales") && "POST".equals(request.getMethod()))) {
+            return Priority.CHECKOUT;
+        }
+        if (path.startsWith("/reports") || path.startsWith("/admin")) {
+            return Priority.REPORT;
+        }
+        return Priority.LOOKUP;
+    }
+
+    /**
+     * @return Limit state plus admitted and shed counts per class
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>(limit.getStatistics());
+        for (Priority priority : Priority.values()) {
+            String name = priority.name().toLowerCase();
+            stats.put(name + "Admitted", admitted.get(priority).sum());
+            stats.put(name + "Shed", shed.get(priority).sum());
+        }
+        stats.put("cashierRateLimited", rateLimited.sum());
+        return stats;
+    }
+
+    public AdaptiveConcurrencyLimit getLimit() {
+        return limit;
+    }
+
+    private TokenBucket cashierBucket(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        User user = (session != null) ? (User) session.getAttribute("user") : null;
+        if (user == null || !user.isCashier()) {
+            return null;
+        }
+        return cashierBuckets.computeIfAbsent(user.getId(), id -> new TokenBucket(cashierRatePerSecond, cashierBurst));
+    }
+
+    private static int intParam(FilterConfig config, String name, int defaultValue) throws ServletException {
+        String value = config.getInitParameter(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ServletException("Invalid " + name + ": " + value, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * One admitted request; released once, when it finishes
+     */
+    private final class Slot implements AsyncListener {
+        private final HttpServletResponse response;
+        private final boolean sampled;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(HttpServletResponse response, boolean sampled) {
+            this.response = response;
+            this.sampled = sampled;
+        }
+
+        private void release(boolean failed) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (sampled) {
+                limit.release(System.nanoTime() - start, failed || isServerError());
+            } else {
+                limit.releaseUnsampled();
+            }
+        }
+
+        private boolean isServerError() {
+            int status = response.getStatus();
+            if (status == HttpServletResponse.SC_SERVICE_UNAVAILABLE && response.getHeader("Retry-After") != null) {
+                // The application's own fallback, e.g. a full worker pool
+                return false;
+            }
+            return status >= 500;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // The fallback response or the container's error dispatch completes the request
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
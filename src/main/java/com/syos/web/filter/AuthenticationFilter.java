@@ -1,137 +1,123 @@
 package com.syos.web.filter;
 
 import com.syos.web.model.User;
-import com.syos.pos.model.Role;
+import com.syos.web.service.TokenAuthService;
+import com.syos.web.util.AuthCookies;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
-
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Authorizes every request against the route table in WEB-INF/routes.properties
+ *
+ * The table is compiled once at init into a prefix trie (see RouteTable). Public
+ * routes, including static assets, pass before any session lookup. The compiled
+ * table is published as a context attribute so its counters can be reported.
+ *
+ * In token mode (auth.mode = token) the user comes from the signed token instead
+ * of the container session, and downstream code sees it through a session that
+ * lives only for the request.
+ */
 public class AuthenticationFilter implements Filter {
 
-    private static final List<String> PUBLIC_URLS = Arrays.asList(
-            "/login.jsp",
-            "/login",
-            "/logout",
-            "/css/",
-            "/js/",
-            "/images/"
-    );
-
-    private static final List<String> ADMIN_ONLY_URLS = Arrays.asList(
-            "/admin/",
-            "/users/create",
-            "/users/delete",
-            "/users/manage"
-    );
-
-    private static final List<String> ADMIN_MANAGER_URLS = Arrays.asList(
-            "/products/add",
-            "/products/edit",
-            "/products/delete",
-            "/reports/"
-    );
-
-    private static final List<String> STAFF_ONLY_URLS = Arrays.asList(
-            "/sales/create",
-            "/bills/create"
-    );
+    private static final Logger logger = Logger.getLogger(AuthenticationFilter.class.getName());
+
+    private static final String DEFAULT_ROUTES = "/WEB-INF/routes.properties";
+
+    /**
+     * Servlet context attribute holding the compiled RouteTable
+     */
+    public static final String ROUTE_TABLE_ATTRIBUTE = RouteTable.class.getName();
+
+    private RouteTable routeTable;
+    private TokenAuthService tokenAuth;
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
+        String location = filterConfig.getInitParameter("routes");
+        if (location == null) {
+            location = DEFAULT_ROUTES;
+        }
+
+        Properties rules = new Properties();
+        try (InputStream in = filterConfig.getServletContext().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new ServletException("Route table not found: " + location);
+            }
+            rules.load(in);
+        } catch (IOException e) {
+            throw new ServletException("Could not read route table " + location, e);
+        }
+
+        try {
+            routeTable = RouteTable.compile(rules);
+        } catch (IllegalArgumentException e) {
+            throw new ServletException("Invalid route table " + location + ": " + e.getMessage(), e);
+        }
+        filterConfig.getServletContext().setAttribute(ROUTE_TABLE_ATTRIBUTE, routeTable);
+        tokenAuth = TokenAuthService.getInstance();
+        logger.info("Route table compiled: " + routeTable.getRoutes().size() + " rules from " + location);
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
+        long start = System.nanoTime();
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
         String requestURI = httpRequest.getRequestURI();
         String contextPath = httpRequest.getContextPath();
-        String path = requestURI.substring(contextPath.length());
 
-        if (isPublicResource(path)) {
+        RouteTable.Route route = routeTable.match(requestURI, contextPath.length());
+
+        if (route.isPublic()) {
+            route.recordAllowed();
+            routeTable.recordLatency(System.nanoTime() - start);
             chain.doFilter(request, response);
             return;
         }
 
-        HttpSession session = httpRequest.getSession(false);
-        User user = (session != null) ? (User) session.getAttribute("user") : null;
+        User user;
+        if (tokenAuth.isEnabled()) {
+            // Signature check only: no session, no database
+            user = tokenAuth.verify(AuthCookies.readToken(httpRequest));
+        } else {
+            HttpSession session = httpRequest.getSession(false);
+            user = (session != null) ? (User) session.getAttribute("user") : null;
+        }
 
         if (user == null) {
+            route.recordUnauthenticated();
+            routeTable.recordLatency(System.nanoTime() - start);
             httpResponse.sendRedirect(contextPath + "/login.jsp");
             return;
         }
 
-        if (!hasAccess(user, path)) {
+        if (user.getRole() == null || !route.admits(user.getRole())) {
+            route.recordDenied();
+            routeTable.recordLatency(System.nanoTime() - start);
             httpResponse.sendError(HttpServletResponse.SC_FORBIDDEN, "Access Denied");
             return;
         }
 
-        chain.doFilter(request, response);
+        route.recordAllowed();
+        routeTable.recordLatency(System.nanoTime() - start);
+        if (tokenAuth.isEnabled()) {
+            chain.doFilter(new TokenSessionRequest(httpRequest, user), response);
+        } else {
+            chain.doFilter(request, response);
+        }
     }
 
     @Override
     public void destroy() {
     }
-
-    private boolean isPublicResource(String path) {
-        for (String publicUrl : PUBLIC_URLS) {
-            if (path.startsWith(publicUrl)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean hasAccess(User user, String path) {
-        Role role = user.getRole();
-
-        if (role == Role.ADMIN) {
-            return true;
-        }
-
-        for (String adminUrl : ADMIN_ONLY_URLS) {
-            if (path.startsWith(adminUrl)) {
-                return false;
-            }
-        }
-
-        if (role == Role.MANAGER) {
-            for (String managerUrl : ADMIN_MANAGER_URLS) {
-                if (path.startsWith(managerUrl)) {
-                    return true;
-                }
-            }
-            for (String staffUrl : STAFF_ONLY_URLS) {
-                if (path.startsWith(staffUrl)) {
-                    return true;
-                }
-            }
-            return !path.startsWith("/customer/");
-        }
-
-        if (role == Role.CASHIER) {
-            for (String staffUrl : STAFF_ONLY_URLS) {
-                if (path.startsWith(staffUrl)) {
-                    return true;
-                }
-            }
-            return path.startsWith("/products/view") || path.startsWith("/dashboard");
-        }
-
-        if (role == Role.CUSTOMER) {
-            return path.startsWith("/products/view") ||
-                    path.startsWith("/customer/") ||
-                    path.equals("/dashboard");
-        }
-
-        return false;
-    }
-}
\ No newline at end of file
+}
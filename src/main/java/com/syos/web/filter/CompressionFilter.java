@@ -0,0 +1,176 @@
+package com.syos.web.filter;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * RESPONSE COMPRESSION FILTER
+ * ============================================
+ *
+ * Compresses response bodies with gzip or deflate, whichever the client prefers.
+ *
+ * ELIGIBILITY:
+ * - The client accepts gzip or deflate
+ * - The content type is on the allow-list (init-param contentTypes)
+ * - The body reaches the size threshold (init-param threshold, bytes)
+ * - The servlet did not set its own Content-Encoding (e.g. the pre-gzipped catalog)
+ * - The request is not a Range request
+ *
+ * STREAMING:
+ * - The first {@code threshold} bytes are held back to decide; after that the body
+ *   is compressed as it is written, never buffered whole
+ * - A flush before the threshold is reached sends the response uncompressed
+ *
+ * ASYNC REQUESTS:
+ * - The compressed body is never finished from an AsyncListener; the spec does
+ *   not promise the response is still writable in onComplete
+ * - An async dispatch passes through this filter again (mapped for ASYNC) and
+ *   the body is finished when the dispatched resource returns
+ * - Code that calls AsyncContext.complete() itself must call
+ *   {@link #finishResponse} first
+ *
+ * ============================================
+ */
+public class CompressionFilter implements Filter {
+
+    private static final Logger logger = Logger.getLogger(CompressionFilter.class.getName());
+
+    private static final String WRAPPER_ATTRIBUTE = CompressionFilter.class.getName() + ".response";
+
+    private static final int DEFAULT_THRESHOLD = 1024;
+    private static final String DEFAULT_CONTENT_TYPES =
+            "text/html,text/plain,text/css,text/csv,text/xml,application/json,"
+                    + "application/javascript,application/x-ndjson,application/xml,image/svg+xml";
+
+    private int threshold = DEFAULT_THRESHOLD;
+    private Set<String> contentTypes;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        String thresholdParam = filterConfig.getInitParameter("threshold");
+        if (thresholdParam != null) {
+            try {
+                threshold = Integer.parseInt(thresholdParam.trim());
+            } catch (NumberFormatException e) {
+                throw new ServletException("Invalid compression threshold: " + thresholdParam, e);
+            }
+        }
+
+        String typesParam = filterConfig.getInitParameter("contentTypes");
+        Set<String> types = new HashSet<>();
+        for (String type : (typesParam != null ? typesParam : DEFAULT_CONTENT_TYPES).split(",")) {
+            if (!type.trim().isEmpty()) {
+                types.add(type.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        contentTypes = Collections.unmodifiableSet(types);
+        logger.info("Compression enabled above " + threshold + " bytes for " + contentTypes);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // The response is already wrapped from the original request
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                if (!request.isAsyncStarted()) {
+                    finishResponse(request);
+                }
+            }
+            return;
+        }
+
+        String encoding = chooseEncoding(httpRequest.getHeader("Accept-Encoding"));
+        if (encoding == null || httpRequest.getHeader("Range") != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Caches must keep compressed and plain copies apart
+        httpResponse.addHeader("Vary", "Accept-Encoding");
+
+        CompressionResponseWrapper wrapper =
+                new CompressionResponseWrapper(httpResponse, encoding, threshold, contentTypes);
+        request.setAttribute(WRAPPER_ATTRIBUTE, wrapper);
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                finishResponse(request);
+            }
+        }
+    }
+
+    /**
+     * Write out the held-back bytes and the compression trailer, if this
+     * request's response is being compressed. Async code must call this
+     * before AsyncContext.complete().
+     */
+    public static void finishResponse(ServletRequest request) throws IOException {
+        Object wrapper = request.getAttribute(WRAPPER_ATTRIBUTE);
+        if (wrapper instanceof CompressionResponseWrapper) {
+            ((CompressionResponseWrapper) wrapper).finish();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Shared with servlets that send pre-compressed bodies, so both agree on the encoding
+     * @return "gzip", "deflate" or null, by the client's q-values; gzip wins ties
+     */
+    public static String chooseEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = 0;
+        double deflate = 0;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = Math.max(gzip, q);
+            } else if (name.equals("deflate")) {
+                deflate = Math.max(deflate, q);
+            }
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return "gzip";
+        }
+        return deflate > 0 ? "deflate" : null;
+    }
+}
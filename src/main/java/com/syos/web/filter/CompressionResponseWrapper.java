@@ -0,0 +1,333 @@
+package com.syos.web.filter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response wrapper for CompressionFilter
+ *
+ * Holds back the first {@code threshold} bytes. Once the body reaches the threshold
+ * the response is committed either compressed (eligible content type, no encoding
+ * set by the servlet) or plain, and everything after streams straight through.
+ * Content-Length set by the servlet is held back too and only passed on for plain
+ * responses.
+ */
+class CompressionResponseWrapper extends HttpServletResponseWrapper {
+
+    private enum Mode { UNDECIDED, PLAIN, COMPRESSED }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String encoding;
+    private final int threshold;
+    private final Set<String> contentTypes;
+
+    private Mode mode = Mode.UNDECIDED;
+    private byte[] pending;
+    private int pendingLength;
+    private long contentLength = -1;
+
+    private OutputStream target;
+    private Deflater deflater;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+    private boolean finished;
+
+    CompressionResponseWrapper(HttpServletResponse response, String encoding,
+                               int threshold, Set<String> contentTypes) {
+        super(response);
+        this.encoding = encoding;
+        this.threshold = threshold;
+        this.contentTypes = contentTypes;
+        this.pending = new byte[Math.max(1, threshold)];
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if (stream == null) {
+            stream = new CompressingStream();
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (stream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            stream = new CompressingStream();
+            writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int length) {
+        setContentLengthLong(length);
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+        if (mode == Mode.PLAIN) {
+            super.setContentLengthLong(length);
+        } else {
+            contentLength = length;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(value != null ? Long.parseLong(value.trim()) : -1);
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value.trim()));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        discardPending();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        discardPending();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        discardPending();
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        flushBody();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (mode != Mode.UNDECIDED) {
+            throw new IllegalStateException("Response body is already streaming");
+        }
+        pendingLength = 0;
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        if (mode != Mode.UNDECIDED) {
+            throw new IllegalStateException("Response body is already streaming");
+        }
+        pendingLength = 0;
+        contentLength = -1;
+        super.reset();
+        super.addHeader("Vary", "Accept-Encoding");
+    }
+
+    /**
+     * Write out whatever is held back and end the compressed stream
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (writer != null) {
+            writer.flush();
+        }
+        finished = true;
+        if (mode == Mode.UNDECIDED) {
+            if (pendingLength == 0) {
+                return;
+            }
+            startPlain();
+        }
+        if (mode == Mode.COMPRESSED) {
+            try {
+                ((DeflaterOutputStream) target).finish();
+                target.flush();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+        }
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        if (finished) {
+            throw new IOException("Response already finished");
+        }
+        if (mode == Mode.UNDECIDED) {
+            if (pendingLength + length < threshold) {
+                System.arraycopy(bytes, offset, pending, pendingLength, length);
+                pendingLength += length;
+                return;
+            }
+            if (isCompressible()) {
+                startCompressed();
+            } else {
+                startPlain();
+            }
+        }
+        target.write(bytes, offset, length);
+    }
+
+    private void flushBody() throws IOException {
+        if (mode == Mode.UNDECIDED) {
+            if (pendingLength == 0) {
+                return;
+            }
+            // Too early to know the size: send the rest plain
+            startPlain();
+        }
+        target.flush();
+    }
+
+    private boolean isCompressible() {
+        if (getHeader("Content-Encoding") != null) {
+            return false;
+        }
+        int status = getStatus();
+        if (status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || status == SC_PARTIAL_CONTENT) {
+            return false;
+        }
+        String contentType = getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        int separator = contentType.indexOf(';');
+        String baseType = (separator >= 0 ? contentType.substring(0, separator) : contentType)
+                .trim().toLowerCase(Locale.ROOT);
+        return contentTypes.contains(baseType);
+    }
+
+    private void startCompressed() throws IOException {
+        mode = Mode.COMPRESSED;
+        super.setHeader("Content-Encoding", encoding);
+        OutputStream out = getResponse().getOutputStream();
+        if (encoding.equals("gzip")) {
+            target = new GZIPOutputStream(out, BUFFER_SIZE, true);
+        } else {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            target = new DeflaterOutputStream(out, deflater, BUFFER_SIZE, true);
+        }
+        writePending();
+    }
+
+    private void startPlain() throws IOException {
+        mode = Mode.PLAIN;
+        if (contentLength >= 0) {
+            super.setContentLengthLong(contentLength);
+        }
+        target = getResponse().getOutputStream();
+        writePending();
+    }
+
+    private void writePending() throws IOException {
+        if (pendingLength > 0) {
+            target.write(pending, 0, pendingLength);
+        }
+        pendingLength = 0;
+        pending = null;
+    }
+
+    private void discardPending() {
+        if (mode == Mode.UNDECIDED) {
+            pendingLength = 0;
+            mode = Mode.PLAIN;
+            pending = null;
+            try {
+                target = getResponse().getOutputStream();
+            } catch (IOException | IllegalStateException e) {
+                target = OutputStream.nullOutputStream();
+            }
+        }
+    }
+
+    /**
+     * Blocking output stream; non-blocking writes are not supported through compression
+     */
+    private final class CompressingStream extends ServletOutputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            CompressionResponseWrapper.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            CompressionResponseWrapper.this.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBody();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new IllegalStateException("Non-blocking writes are not supported on compressed responses");
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.syos.web.filter;
+
+import com.syos.web.metrics.RequestMetrics;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletMapping;
+import javax.servlet.http.MappingMatch;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the latency of every request by servlet mapping, method and status class
+ *
+ * Mapped first, so the time includes the other filters. Async requests are
+ * recorded when the async cycle completes. The histograms of every mapping in
+ * the servlet registrations are created at init, plus one per JSP page in the
+ * war, so /billing.jsp is not lumped in with every other *.jsp request.
+ */
+public class MetricsFilter implements Filter {
+
+    private RequestMetrics metrics;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        metrics = RequestMetrics.getInstance();
+        for (ServletRegistration registration : filterConfig.getServletContext().getServletRegistrations().values()) {
+            metrics.registerMappings(registration.getMappings());
+        }
+        List<String> pages = new ArrayList<>();
+        collectPages(filterConfig.getServletContext(), "/", pages);
+        metrics.registerMappings(pages);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        long start = System.nanoTime();
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        metrics.requestStarted();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            String mapping = mapping(httpRequest);
+            String method = httpRequest.getMethod();
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Completion(mapping, method, httpResponse, start));
+            } else {
+                int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : httpResponse.getStatus();
+                metrics.requestFinished(mapping, method, status, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @return The url-pattern of the servlet mapping serving the request, or null
+     */
+    private String mapping(HttpServletRequest request) {
+        HttpServletMapping mapping = request.getHttpServletMapping();
+        if (mapping == null || mapping.getMappingMatch() == null) {
+            return null;
+        }
+        if (mapping.getMappingMatch() == MappingMatch.EXTENSION && metrics.isRegistered(request.getServletPath())) {
+            // A page of the war; unknown pages stay under the pattern
+            return request.getServletPath();
+        }
+        return mapping.getPattern();
+    }
+
+    /**
+     * JSP pages clients can request, i.e. not under WEB-INF
+     */
+    private static void collectPages(ServletContext context, String directory, List<String> pages) {
+        Set<String> paths = context.getResourcePaths(directory);
+        if (paths == null) {
+            return;
+        }
+        for (String path : paths) {
+            if (path.endsWith("/")) {
+                if (!path.startsWith("/WEB-INF/") && !path.startsWith("/META-INF/")) {
+                    collectPages(context, path, pages);
+                }
+            } else if (path.endsWith(".jsp")) {
+                pages.add(path);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Records an async request once its cycle ends
+     */
+    private final class Completion implements AsyncListener {
+        private final String mapping;
+        private final String method;
+        private final HttpServletResponse response;
+        private final long start;
+        private boolean recorded;
+
+        private Completion(String mapping, String method, HttpServletResponse response, long start) {
+            this.mapping = mapping;
+            this.method = method;
+            this.response = response;
+            this.start = start;
+        }
+
+        private synchronized void record(int status) {
+            if (!recorded) {
+                recorded = true;
+                metrics.requestFinished(mapping, method, status, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(response.getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            record(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            record(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
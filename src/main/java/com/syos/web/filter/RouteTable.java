@@ -0,0 +1,275 @@
+package com.syos.web.filter;
+
+import com.syos.pos.model.Role;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ============================================
+ * COMPILED ROUTE AUTHORIZATION TABLE
+ * ============================================
+ *
+ * Path rules compiled once into a character trie. A lookup walks the path a
+ * single time and returns the longest matching rule, so the cost depends on the
+ * path length and not on the number of rules.
+ *
+ * RULES (see WEB-INF/routes.properties):
+ * - "/reports/"   prefix rule
+ * - "/dashboard$" exact rule, wins over a prefix rule ending at the same node
+ * - "*"           fallback for paths no rule covers
+ *
+ * Each rule is either public or carries a bitmask of the roles it admits, and
+ * counts its own decisions. The table also keeps the time spent deciding.
+ *
+ * ============================================
+ */
+public class RouteTable {
+
+    public static final String PUBLIC = "PUBLIC";
+    public static final String FALLBACK = "*";
+
+    private final Node root;
+    private final Route fallback;
+    private final List<Route> routes;
+
+    private final LongAdder decisions = new LongAdder();
+    private final LongAdder decisionNanos = new LongAdder();
+    private final AtomicLong maxDecisionNanos = new AtomicLong();
+
+    private RouteTable(Node root, Route fallback, List<Route> routes) {
+        this.root = root;
+        this.fallback = fallback;
+        this.routes = Collections.unmodifiableList(routes);
+    }
+
+    /**
+     * Compile rules of the form path = PUBLIC | role[, role...]
+     * @throws IllegalArgumentException on an unknown role or a missing fallback rule
+     */
+    public static RouteTable compile(Properties rules) {
+        Node root = new Node();
+        Route fallback = null;
+        List<Route> routes = new ArrayList<>();
+
+        for (String key : rules.stringPropertyNames()) {
+            String path = key.trim();
+            Route route = parseRoute(path, rules.getProperty(key));
+            routes.add(route);
+
+            if (path.equals(FALLBACK)) {
+                fallback = route;
+                continue;
+            }
+            boolean exact = path.endsWith("$");
+            String pattern = exact ? path.substring(0, path.length() - 1) : path;
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Route must start with /: " + path);
+            }
+            Node node = root;
+            for (int i = 0; i < pattern.length(); i++) {
+                node = node.childOrCreate(pattern.charAt(i));
+            }
+            if (exact) {
+                node.exactRoute = route;
+            } else {
+                node.prefixRoute = route;
+            }
+        }
+
+        if (fallback == null) {
+            throw new IllegalArgumentException("Route table needs a fallback rule: " + FALLBACK + " = roles");
+        }
+        routes.sort((a, b) -> a.pattern.compareTo(b.pattern));
+        return new RouteTable(root, fallback, routes);
+    }
+
+    /**
+     * @return The longest rule matching the path, or the fallback rule
+     */
+    public Route match(String path) {
+        return match(path, 0);
+    }
+
+    /**
+     * Match the part of path from offset on, e.g. a request URI after the context path,
+     * without creating a substring
+     */
+    public Route match(String path, int offset) {
+        Route best = root.prefixRoute;
+        Node node = root;
+        for (int i = offset; i < path.length() && node != null; i++) {
+            node = node.child(path.charAt(i));
+            if (node != null && node.prefixRoute != null) {
+                best = node.prefixRoute;
+            }
+        }
+        if (node != null && node.exactRoute != null) {
+            return node.exactRoute;
+        }
+        return best != null ? best : fallback;
+    }
+
+    /**
+     * @return All rules, sorted by pattern
+     */
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Add the time one authorization decision took
+     */
+    void recordLatency(long nanos) {
+        decisions.increment();
+        decisionNanos.add(nanos);
+        maxDecisionNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return Decision count, mean and max latency in microseconds, and per-route counters
+     */
+    public Map<String, Object> getStatistics() {
+        long count = decisions.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("decisions", count);
+        stats.put("meanMicros", count > 0 ? decisionNanos.sum() / 1000.0 / count : 0.0);
+        stats.put("maxMicros", maxDecisionNanos.get() / 1000.0);
+        List<Map<String, Object>> routeStats = new ArrayList<>();
+        for (Route route : routes) {
+            routeStats.add(route.getStatistics());
+        }
+        stats.put("routes", routeStats);
+        return stats;
+    }
+
+    static int roleBit(Role role) {
+        return 1 << role.ordinal();
+    }
+
+    private static Route parseRoute(String pattern, String value) {
+        String roles = value.trim();
+        if (roles.equalsIgnoreCase(PUBLIC)) {
+            return new Route(pattern, true, 0);
+        }
+        int mask = 0;
+        for (String name : roles.split(",")) {
+            if (name.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                mask |= roleBit(Role.valueOf(name.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown role '" + name.trim() + "' for route " + pattern, e);
+            }
+        }
+        return new Route(pattern, false, mask);
+    }
+
+    /**
+     * One rule with its decision counters
+     */
+    public static final class Route {
+        private final String pattern;
+        private final boolean publicAccess;
+        private final int roleMask;
+
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder denied = new LongAdder();
+        private final LongAdder unauthenticated = new LongAdder();
+
+        private Route(String pattern, boolean publicAccess, int roleMask) {
+            this.pattern = pattern;
+            this.publicAccess = publicAccess;
+            this.roleMask = roleMask;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public boolean isPublic() {
+            return publicAccess;
+        }
+
+        public boolean admits(Role role) {
+            return publicAccess || (roleMask & roleBit(role)) != 0;
+        }
+
+        void recordAllowed() {
+            allowed.increment();
+        }
+
+        void recordDenied() {
+            denied.increment();
+        }
+
+        void recordUnauthenticated() {
+            unauthenticated.increment();
+        }
+
+        /**
+         * @return Pattern, access and decision counts
+         */
+        public Map<String, Object> getStatistics() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("pattern", pattern);
+            if (publicAccess) {
+                stats.put("access", PUBLIC);
+            } else {
+                List<String> roles = new ArrayList<>();
+                for (Role role : Role.values()) {
+                    if ((roleMask & roleBit(role)) != 0) {
+                        roles.add(role.name());
+                    }
+                }
+                stats.put("access", String.join(",", roles));
+            }
+            stats.put("allowed", allowed.sum());
+            stats.put("denied", denied.sum());
+            stats.put("unauthenticated", unauthenticated.sum());
+            return stats;
+        }
+    }
+
+    /**
+     * Trie node; children are kept in small parallel arrays sorted by character
+     */
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Route prefixRoute;
+        private Route exactRoute;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newLabels[insert] = c;
+            newChildren[insert] = new Node();
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insert];
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.syos.web.filter;
+
+import com.syos.web.util.AssetFingerprints;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Cache headers for static assets (/css/, /js/, /images/)
+ *
+ * - Fingerprinted URLs (see AssetFingerprints) whose hash matches the current file
+ *   are cached for a year as immutable, then forwarded to the real file
+ * - Everything else must be revalidated, which the default servlet answers with
+ *   304 from its ETag and Last-Modified
+ *
+ * A fingerprint that no longer matches the file is served uncached, so an old
+ * page never pins new content under an old name.
+ */
+public class StaticResourceCacheFilter implements Filter {
+
+    private static final long DEFAULT_MAX_AGE_SECONDS = 365L * 24 * 60 * 60;
+
+    private long maxAgeSeconds = DEFAULT_MAX_AGE_SECONDS;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        String maxAgeParam = filterConfig.getInitParameter("maxAgeSeconds");
+        if (maxAgeParam != null) {
+            try {
+                maxAgeSeconds = Long.parseLong(maxAgeParam.trim());
+            } catch (NumberFormatException e) {
+                throw new ServletException("Invalid maxAgeSeconds: " + maxAgeParam, e);
+            }
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+        String[] fingerprinted = AssetFingerprints.parse(path);
+
+        if (fingerprinted == null) {
+            httpResponse.setHeader("Cache-Control", "no-cache");
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String assetPath = fingerprinted[0];
+        String current = AssetFingerprints.hash(request.getServletContext(), assetPath);
+        if (current == null) {
+            httpResponse.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (current.equals(fingerprinted[1])) {
+            httpResponse.setHeader("Cache-Control", "public, max-age=" + maxAgeSeconds + ", immutable");
+        } else {
+            httpResponse.setHeader("Cache-Control", "no-store");
+        }
+        request.getRequestDispatcher(assetPath).forward(request, response);
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,49 @@
+package com.syos.web.filter;
+
+/**
+ * Request rate limit for one client: up to burst requests at once, refilled
+ * at ratePerSecond
+ */
+class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+
+    // Guarded by this
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double ratePerSecond, int burst) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * @return true if a token was taken
+     */
+    synchronized boolean tryTake() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Whole seconds until the next token, at least 1
+     */
+    synchronized long secondsUntilNext() {
+        refill();
+        double missing = Math.max(0, 1 - tokens);
+        return Math.max(1, (long) Math.ceil(missing / ratePerNano / 1_000_000_000.0));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,153 @@
+package com.syos.web.filter;
+
+import com.syos.web.model.User;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpSession;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Request wrapper used in token mode
+ *
+ * Servlets and JSPs read the logged-in user from the session ("user", "userId",
+ * "username", "role"). In token mode there is no container session, so this wrapper
+ * hands out a session that lives only for the current request, filled from the
+ * verified token. Nothing is stored on the server between requests.
+ */
+class TokenSessionRequest extends HttpServletRequestWrapper {
+
+    private final RequestScopedSession session;
+
+    TokenSessionRequest(HttpServletRequest request, User user) {
+        super(request);
+        this.session = new RequestScopedSession(request.getServletContext());
+        session.setAttribute("user", user);
+        session.setAttribute("userId", user.getId());
+        session.setAttribute("username", user.getUsername());
+        session.setAttribute("role", user.getRole());
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return session;
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        return session;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return (String) session.getAttribute("username");
+    }
+
+    /**
+     * Attributes for one request; invalidate only clears them
+     */
+    @SuppressWarnings("deprecation")
+    private static final class RequestScopedSession implements HttpSession {
+        private final ServletContext servletContext;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final long creationTime = System.currentTimeMillis();
+        private final String id = UUID.randomUUID().toString();
+
+        private RequestScopedSession(ServletContext servletContext) {
+            this.servletContext = servletContext;
+        }
+
+        @Override
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public long getLastAccessedTime() {
+            return creationTime;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public void setMaxInactiveInterval(int interval) {
+        }
+
+        @Override
+        public int getMaxInactiveInterval() {
+            return 0;
+        }
+
+        @Override
+        public javax.servlet.http.HttpSessionContext getSessionContext() {
+            return null;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Object getValue(String name) {
+            return getAttribute(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        public String[] getValueNames() {
+            return attributes.keySet().toArray(new String[0]);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void putValue(String name, Object value) {
+            setAttribute(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public void removeValue(String name) {
+            removeAttribute(name);
+        }
+
+        @Override
+        public void invalidate() {
+            attributes.clear();
+        }
+
+        @Override
+        public boolean isNew() {
+            return false;
+        }
+    }
+}
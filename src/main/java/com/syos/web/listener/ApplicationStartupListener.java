@@ -0,0 +1,83 @@
+package com.syos.web.listener;
+
+import com.syos.web.service.ConcurrentSalesService;
+import com.syos.web.service.EndOfDayReportScheduler;
+import com.syos.web.service.ReportArchive;
+import com.syos.web.service.TokenAuthService;
+import com.syos.web.servlet.AsyncWorkload;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.logging.Logger;
+
+/**
+ * Warms up in-memory structures and starts background jobs when the web application starts
+ */
+public class ApplicationStartupListener implements ServletContextListener {
+
+    private static final Logger logger = Logger.getLogger(ApplicationStartupListener.class.getName());
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        logger.info("Initializing SYOS web application");
+
+        configureAuthentication(sce.getServletContext());
+
+        ConcurrentSalesService.getInstance().loadAnalytics();
+
+        startReportScheduler(sce.getServletContext());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        EndOfDayReportScheduler.getInstance().stop();
+        ConcurrentSalesService.getInstance().shutdown();
+        AsyncWorkload.shutdownAll();
+        logger.info("SYOS web application stopped");
+    }
+
+    private void configureAuthentication(ServletContext context) {
+        String mode = context.getInitParameter("auth.mode");
+        if (mode == null || !mode.trim().equalsIgnoreCase("token")) {
+            return;
+        }
+
+        long ttlMinutes = 480;
+        String ttlParam = context.getInitParameter("auth.tokenTtlMinutes");
+        if (ttlParam != null && !ttlParam.isBlank()) {
+            try {
+                ttlMinutes = Long.parseLong(ttlParam.trim());
+            } catch (NumberFormatException e) {
+                logger.warning("Invalid auth.tokenTtlMinutes '" + ttlParam + "', using " + ttlMinutes);
+            }
+        }
+
+        // Prefer the environment so the secret stays out of the war
+        String secret = System.getenv("SYOS_AUTH_SECRET");
+        if (secret == null || secret.isBlank()) {
+            secret = context.getInitParameter("auth.tokenSecret");
+        }
+        TokenAuthService.getInstance().enable(secret, ttlMinutes * 60);
+    }
+
+    private void startReportScheduler(ServletContext context) {
+        String directory = context.getInitParameter("reports.directory");
+        String closeTimeParam = context.getInitParameter("reports.closeTime");
+
+        LocalTime closeTime = EndOfDayReportScheduler.DEFAULT_CLOSE_TIME;
+        if (closeTimeParam != null && !closeTimeParam.isBlank()) {
+            try {
+                closeTime = LocalTime.parse(closeTimeParam.trim());
+            } catch (DateTimeParseException e) {
+                logger.warning("Invalid reports.closeTime '" + closeTimeParam + "', using " + closeTime);
+            }
+        }
+
+        ReportArchive archive = new ReportArchive(Paths.get(directory != null ? directory : "reports"));
+        EndOfDayReportScheduler.getInstance().start(archive, closeTime);
+    }
+}
@@ -0,0 +1,64 @@
+package com.syos.web.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed, logarithmically spaced buckets
+ *
+ * Buckets step 1 - 2.5 - 5 per decade from 100 microseconds to 30 seconds, plus
+ * an overflow bucket. Recording is a binary search over the bounds and two
+ * atomic adds: no locks and no allocation.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BOUNDS_NANOS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L,
+            10_000_000_000L, 30_000_000_000L
+    };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_NANOS.length + 1);
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        int index = Arrays.binarySearch(BOUNDS_NANOS, nanos);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        counts.incrementAndGet(index);
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * @return Upper bound of each bucket in seconds, without the overflow bucket
+     */
+    public static double[] getBoundsSeconds() {
+        double[] seconds = new double[BOUNDS_NANOS.length];
+        for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+            seconds[i] = BOUNDS_NANOS[i] / 1_000_000_000.0;
+        }
+        return seconds;
+    }
+
+    /**
+     * @return Cumulative counts per bucket (count at or below each bound); the last entry is the total
+     */
+    public long[] getCumulativeCounts() {
+        long[] cumulative = new long[counts.length()];
+        long running = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            running += counts.get(i);
+            cumulative[i] = running;
+        }
+        return cumulative;
+    }
+
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.syos.web.metrics;
+
+import java.io.PrintWriter;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4)
+ */
+public class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final PrintWriter out;
+
+    public PrometheusWriter(PrintWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Start a metric family
+     * @param type counter, gauge or histogram
+     */
+    public void family(String name, String type, String help) {
+        out.print("# HELP ");
+        out.print(name);
+        out.print(' ');
+        out.print(help.replace("\\", "\\\\").replace("\n", "\\n"));
+        out.print('\n');
+        out.print("# TYPE ");
+        out.print(name);
+        out.print(' ');
+        out.print(type);
+        out.print('\n');
+    }
+
+    /**
+     * @param labels Alternating label names and values
+     */
+    public void sample(String name, double value, String... labels) {
+        out.print(name);
+        if (labels.length > 0) {
+            out.print('{');
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) {
+                    out.print(',');
+                }
+                out.print(labels[i]);
+                out.print("=\"");
+                out.print(escape(labels[i + 1]));
+                out.print('"');
+            }
+            out.print('}');
+        }
+        out.print(' ');
+        out.print(format(value));
+        out.print('\n');
+    }
+
+    /**
+     * Family and one unlabelled sample
+     */
+    public void single(String name, String type, String help, double value) {
+        family(name, type, help);
+        sample(name, value);
+    }
+
+    public static String format(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,178 @@
+package com.syos.web.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ============================================
+ * REQUEST LATENCY METRICS
+ * ============================================
+ *
+ * One LatencyHistogram per servlet mapping, method (GET, POST, OTHER) and
+ * status class (1xx..5xx). Routes are the url-patterns servlets are mapped
+ * to, or the path of a JSP page shipped in the war, not raw URLs, so the
+ * number of series stays fixed whatever clients
+ * request, and each endpoint gets its own series: POST /sales (checkout) is
+ * apart from GET /sales and from /reports.
+ *
+ * The histograms of every mapping are created when the mappings are
+ * registered, and the lookup is a map read keyed by the container's pattern
+ * string, so recording a request allocates nothing.
+ *
+ * ============================================
+ */
+public class RequestMetrics {
+
+    public static final String UNMATCHED = "unmatched";
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final String[] METHODS = {"GET", "POST", "OTHER"};
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final RouteLatency[] unmatched = series(UNMATCHED);
+
+    // Servlet mapping pattern -> histograms by method index
+    private final Map<String, RouteLatency[]> byMapping = new ConcurrentHashMap<>();
+
+    // Singleton instance
+    private static volatile RequestMetrics instance;
+    private static final Object instanceLock = new Object();
+
+    private RequestMetrics() {
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static RequestMetrics getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new RequestMetrics();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Create the histograms for these servlet mapping patterns
+     */
+    public void registerMappings(Collection<String> patterns) {
+        for (String pattern : patterns) {
+            byMapping.computeIfAbsent(pattern, RequestMetrics::series);
+        }
+    }
+
+    /**
+     * @return true if histograms exist for this mapping pattern or page
+     */
+    public boolean isRegistered(String mapping) {
+        return mapping != null && byMapping.containsKey(mapping);
+    }
+
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Record a finished request
+     * @param mapping Pattern of the servlet mapping that served it, or null if none matched
+     * @param method HTTP method
+     */
+    public void requestFinished(String mapping, String method, int status, long nanos) {
+        inFlight.decrementAndGet();
+        RouteLatency[] series = unmatched;
+        if (mapping != null) {
+            series = byMapping.get(mapping);
+            if (series == null) {
+                // A container mapping not in the registrations, e.g. the default servlet
+                series = byMapping.computeIfAbsent(mapping, RequestMetrics::series);
+            }
+        }
+        series[methodIndex(method)].histogram(status).record(nanos);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Every route's histograms by mapping and method, the unmatched bucket last
+     */
+    public List<RouteLatency> getRoutes() {
+        List<RouteLatency> all = new ArrayList<>();
+        for (RouteLatency[] series : new TreeMap<>(byMapping).values()) {
+            Collections.addAll(all, series);
+        }
+        Collections.addAll(all, unmatched);
+        return all;
+    }
+
+    private static RouteLatency[] series(String route) {
+        RouteLatency[] series = new RouteLatency[METHODS.length];
+        for (int i = 0; i < METHODS.length; i++) {
+            series[i] = new RouteLatency(route, METHODS[i]);
+        }
+        return series;
+    }
+
+    private static int methodIndex(String method) {
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return 0;
+        }
+        return "POST".equals(method) ? 1 : 2;
+    }
+
+    /**
+     * Histograms of one route and method, by status class
+     */
+    public static final class RouteLatency {
+        private final String route;
+        private final String method;
+        private final LatencyHistogram[] byStatusClass = new LatencyHistogram[STATUS_CLASSES.length];
+
+        private RouteLatency(String route, String method) {
+            this.route = route;
+            this.method = method;
+            for (int i = 0; i < byStatusClass.length; i++) {
+                byStatusClass[i] = new LatencyHistogram();
+            }
+        }
+
+        private LatencyHistogram histogram(int status) {
+            int index = status / 100 - 1;
+            if (index < 0 || index >= byStatusClass.length) {
+                index = STATUS_CLASSES.length - 1;
+            }
+            return byStatusClass[index];
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        /**
+         * @return GET (including HEAD), POST or OTHER
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        public static String[] getStatusClasses() {
+            return STATUS_CLASSES.clone();
+        }
+
+        /**
+         * @param statusClassIndex 0 for 1xx up to 4 for 5xx
+         */
+        public LatencyHistogram getHistogram(int statusClassIndex) {
+            return byStatusClass[statusClassIndex];
+        }
+    }
+}
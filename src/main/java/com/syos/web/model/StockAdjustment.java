@@ -0,0 +1,43 @@
+package com.syos.web.model;
+
+/**
+ * One entry of a bulk stock adjustment
+ * changeType: ADD_STORE, REMOVE_STORE, ADD_SHELF, REMOVE_SHELF, MOVE_TO_SHELF or SALE
+ */
+public class StockAdjustment {
+    private String code;
+    private int quantity;
+    private String changeType;
+
+    public StockAdjustment() {}
+
+    public StockAdjustment(String code, int quantity, String changeType) {
+        this.code = code;
+        this.quantity = quantity;
+        this.changeType = changeType;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(String changeType) {
+        this.changeType = changeType;
+    }
+}
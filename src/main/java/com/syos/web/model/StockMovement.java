@@ -0,0 +1,98 @@
+package com.syos.web.model;
+
+/**
+ * A row of the stock_movements audit table
+ */
+public class StockMovement {
+    private String itemCode;
+    private String movementType;
+    private int quantity;
+    private String fromState;
+    private String toState;
+    private Long userId;
+    private String referenceId;
+    private String referenceType;
+    private String notes;
+
+    public StockMovement() {}
+
+    public StockMovement(String itemCode, String movementType, int quantity, String fromState, String toState) {
+        this.itemCode = itemCode;
+        this.movementType = movementType;
+        this.quantity = quantity;
+        this.fromState = fromState;
+        this.toState = toState;
+    }
+
+    public String getItemCode() {
+        return itemCode;
+    }
+
+    public void setItemCode(String itemCode) {
+        this.itemCode = itemCode;
+    }
+
+    public String getMovementType() {
+        return movementType;
+    }
+
+    public void setMovementType(String movementType) {
+        this.movementType = movementType;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getFromState() {
+        return fromState;
+    }
+
+    public void setFromState(String fromState) {
+        this.fromState = fromState;
+    }
+
+    public String getToState() {
+        return toState;
+    }
+
+    public void setToState(String toState) {
+        this.toState = toState;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+
+    public void setReferenceId(String referenceId) {
+        this.referenceId = referenceId;
+    }
+
+    public String getReferenceType() {
+        return referenceType;
+    }
+
+    public void setReferenceType(String referenceType) {
+        this.referenceType = referenceType;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+}
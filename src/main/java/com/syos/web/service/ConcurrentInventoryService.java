@@ -2,15 +2,20 @@ package com.syos.web.service;
 
 import com.syos.web.dao.ProductDAO;
 import com.syos.web.model.Product;
+import com.syos.web.model.StockAdjustment;
+import com.syos.web.model.StockMovement;
 import com.syos.web.exception.ConcurrencyException;
 import com.syos.web.exception.InsufficientStockException;
+import com.syos.shared.lookup.UnknownCodeFilter;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -61,7 +66,7 @@ public class ConcurrentInventoryService {
     // CONCURRENCY PATTERN 1: ReadWriteLock
     // ========================================
     // Allows multiple concurrent reads but exclusive writes
-    private final ReadWriteLock cacheLock = new ReentrantReadWriteLock(true); // fair lock
+    private final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock(true); // fair lock
 
     // ========================================
     // CONCURRENCY PATTERN 4: ConcurrentHashMap
@@ -76,6 +81,26 @@ public class ConcurrentInventoryService {
 
     private final ProductDAO productDAO;
 
+    // Rejects mis-scanned and unknown codes before they reach the database
+    private final UnknownCodeFilter unknownCodes =
+            new UnknownCodeFilter(NEGATIVE_TTL_MILLIS, CODE_FILTER_MAX_AGE_MILLIS, MAX_NEGATIVE_ENTRIES);
+    private final ExecutorService codeFilterRebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-code-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Bumped under the write lock whenever cached products change
+    private volatile long catalogVersion;
+
+    // Change log for catalog delta sync: code -> version of its last change,
+    // and the same entries ordered by version. Deleted codes stay as tombstones.
+    private final Map<String, Long> changeVersionByCode = new HashMap<>();
+    private final TreeMap<Long, Set<String>> changesByVersion = new TreeMap<>();
+    private final LinkedHashMap<String, Long> tombstones = new LinkedHashMap<>();
+    private long oldestDeltaVersion;
+    private static final int MAX_TOMBSTONES = 1000;
+
     // Singleton instance (thread-safe double-checked locking)
     private static volatile ConcurrentInventoryService instance;
     private static final Object instanceLock = new Object();
@@ -83,6 +108,9 @@ public class ConcurrentInventoryService {
     // Configuration
     private static final long LOCK_TIMEOUT_SECONDS = 10;
     private static final int MAX_CACHE_SIZE = 1000;
+    private static final long NEGATIVE_TTL_MILLIS = 30_000;
+    private static final long CODE_FILTER_MAX_AGE_MILLIS = 60_000;
+    private static final int MAX_NEGATIVE_ENTRIES = 10_000;
 
     /**
      * Private constructor for singleton pattern
@@ -124,10 +152,21 @@ public class ConcurrentInventoryService {
             logger.info("Loading product cache...");
             List<Product> products = productDAO.getAllProducts();
 
+            // Diff against the previous cache so the change log lists only what moved
+            Map<String, Product> previous = new HashMap<>(productCache);
+            List<String> changed = new ArrayList<>();
             productCache.clear();
             for (Product product : products) {
                 productCache.put(product.getCode(), cloneProduct(product));
+                if (!sameCatalogEntry(previous.remove(product.getCode()), product)) {
+                    changed.add(product.getCode());
+                }
+            }
+            changed.addAll(previous.keySet());
+            if (!changed.isEmpty()) {
+                recordChanges(changed);
             }
+            unknownCodes.rebuild(productCache.keySet());
 
             logger.info("Cache loaded with " + products.size() + " products");
         } finally {
@@ -204,10 +243,18 @@ public class ConcurrentInventoryService {
                     cacheLock.readLock().unlock();
                 }
 
+                // Codes that certainly do not exist never reach the database
+                unknownCodes.refreshAsync(codeFilterRebuilder, this::loadAllCodes);
+                if (unknownCodes.isKnownMissing(code)) {
+                    logger.fine("Unknown product code rejected: " + code);
+                    return null;
+                }
+
                 // Load from DB (outside read lock to avoid blocking others)
                 Product product = productDAO.getProductByCode(code);
 
                 if (product != null) {
+                    unknownCodes.recordAdded(code);
                     // Update cache with write lock
                     if (cacheLock.writeLock().tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
                         try {
@@ -217,6 +264,8 @@ public class ConcurrentInventoryService {
                             cacheLock.writeLock().unlock();
                         }
                     }
+                } else {
+                    unknownCodes.recordMissing(code);
                 }
 
                 return product;
@@ -261,6 +310,7 @@ public class ConcurrentInventoryService {
                     if (success) {
                         // Update cache
                         productCache.put(product.getCode(), cloneProduct(product));
+                        recordChanges(Collections.singletonList(product.getCode()));
                         logger.info("Product added successfully: " + product.getCode());
                     }
 
@@ -332,6 +382,7 @@ public class ConcurrentInventoryService {
 
                     // Update cache
                     productCache.put(product.getCode(), cloneProduct(product));
+                    recordChanges(Collections.singletonList(product.getCode()));
                     logger.info("Product updated successfully: " + product.getCode() +
                             " (new version: " + newVersion + ")");
 
@@ -436,6 +487,7 @@ public class ConcurrentInventoryService {
                     if (success) {
                         // Update cache
                         productCache.put(productCode, cloneProduct(product));
+                        recordChanges(Collections.singletonList(productCode));
                         logger.info("Stock updated successfully for " + productCode +
                                 ": Store=" + newQuantityInStore + ", Shelf=" + newQuantityOnShelf);
                     }
@@ -473,6 +525,7 @@ public class ConcurrentInventoryService {
                     if (success) {
                         // Remove from cache
                         productCache.remove(productCode);
+                        recordChanges(Collections.singletonList(productCode));
                         logger.info("Product deleted successfully: " + productCode);
                     }
 
@@ -490,6 +543,224 @@ public class ConcurrentInventoryService {
         }
     }
 
+    /**
+     * ========================================
+     * PATTERN 1: Bulk Import (one chunk)
+     * ========================================
+     * Upserts the rows in one transaction without holding the cache lock,
+     * then takes the write lock once to put the committed rows in the cache;
+     * a cache entry already newer than the imported row is kept
+     *
+     * @param columns Columns to write (see ProductDAO.upsertProducts)
+     * @param rows Values in column order; column 0 must be code
+     * @return Number of rows that were new products
+     * @throws SQLException if any row fails; nothing from the chunk is applied
+     */
+    public int importProducts(List<String> columns, List<Object[]> rows) throws SQLException {
+        logger.fine("Thread " + Thread.currentThread().getName() + " importing " + rows.size() + " products");
+
+        List<String> codes = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            codes.add((String) row[0]);
+        }
+
+        recordOperation("IMPORT_PRODUCTS", "WRITE");
+
+        // Row locks in the database order concurrent writers; the cache lock is not needed yet
+        List<Product> stored;
+        try (Connection conn = productDAO.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                productDAO.upsertProducts(conn, columns, rows);
+                stored = productDAO.getProductsByCodes(conn, codes);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        // The rows are committed, so wait for the lock rather than leave the cache behind
+        cacheLock.writeLock().lock();
+        try {
+            int inserted = 0;
+            for (Product product : stored) {
+                Product cached = productCache.get(product.getCode());
+                if (cached == null) {
+                    inserted++;
+                }
+                // Another writer may have committed a newer version since
+                if (cached == null || cached.getVersion() <= product.getVersion()) {
+                    productCache.put(product.getCode(), cloneProduct(product));
+                }
+            }
+            recordChanges(codes);
+            return inserted;
+        } finally {
+            cacheLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ========================================
+     * PATTERN 3: Bulk Stock Adjustment (one transaction)
+     * ========================================
+     * Locks every affected row with one SELECT FOR UPDATE in code order,
+     * applies the adjustments in request order, then writes guarded UPDATEs
+     * and stock_movements rows as two batches. All or nothing: the cache is
+     * updated only after commit, under the same write lock.
+     *
+     * @param userId User recorded on the movements, or null
+     * @param referenceId Shared reference for the movements (e.g. a delivery note)
+     * @return The updated products
+     * @throws IllegalArgumentException for an unknown product or change type, or a quantity below 1
+     * @throws InsufficientStockException if an adjustment would take stock below zero
+     */
+    public List<Product> adjustStock(List<StockAdjustment> adjustments, Long userId,
+                                     String referenceId, String notes) throws SQLException {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new IllegalArgumentException("No stock adjustments given");
+        }
+        Set<String> codes = new TreeSet<>();
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment.getCode() == null || adjustment.getCode().isEmpty()) {
+                throw new IllegalArgumentException("Adjustment without a product code");
+            }
+            if (adjustment.getQuantity() < 1) {
+                throw new IllegalArgumentException("Quantity must be at least 1 for " + adjustment.getCode());
+            }
+            movementFor(adjustment);
+            codes.add(adjustment.getCode());
+        }
+        logger.info("Thread " + Thread.currentThread().getName() + " adjusting stock: "
+                + adjustments.size() + " entries for " + codes.size() + " products");
+
+        try {
+            if (cacheLock.writeLock().tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                try {
+                    recordOperation("ADJUST_STOCK", "WRITE");
+
+                    Map<String, Product> products = new LinkedHashMap<>();
+                    try (Connection conn = productDAO.getConnection()) {
+                        conn.setAutoCommit(false);
+                        try {
+                            for (Product product : productDAO.getProductsForUpdate(conn, codes)) {
+                                products.put(product.getCode(), product);
+                            }
+
+                            List<StockMovement> movements = new ArrayList<>(adjustments.size());
+                            for (StockAdjustment adjustment : adjustments) {
+                                Product product = products.get(adjustment.getCode());
+                                if (product == null) {
+                                    throw new IllegalArgumentException("Product not found: " + adjustment.getCode());
+                                }
+                                applyAdjustment(product, adjustment);
+
+                                StockMovement movement = movementFor(adjustment);
+                                movement.setUserId(userId);
+                                movement.setReferenceId(referenceId);
+                                movement.setReferenceType("BULK_ADJUSTMENT");
+                                movement.setNotes(notes);
+                                movements.add(movement);
+                            }
+
+                            List<Product> changed = new ArrayList<>(products.values());
+                            if (!productDAO.updateStockLevels(conn, changed)) {
+                                throw new ConcurrencyException("Stock changed during bulk adjustment");
+                            }
+                            productDAO.insertStockMovements(conn, movements);
+                            conn.commit();
+                        } catch (SQLException | RuntimeException e) {
+                            conn.rollback();
+                            throw e;
+                        }
+                    }
+
+                    List<Product> updated = new ArrayList<>(products.size());
+                    for (Product product : products.values()) {
+                        product.setVersion(product.getVersion() + 1);
+                        productCache.put(product.getCode(), cloneProduct(product));
+                        updated.add(cloneProduct(product));
+                    }
+                    recordChanges(new ArrayList<>(codes));
+                    logger.info("Bulk stock adjustment committed for " + updated.size() + " products");
+                    return updated;
+
+                } finally {
+                    cacheLock.writeLock().unlock();
+                }
+            } else {
+                throw new ConcurrencyException("Failed to acquire lock for bulk stock adjustment");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyException("Thread interrupted during bulk stock adjustment", e);
+        }
+    }
+
+    /**
+     * Apply one change to the locked product, as updateStock does
+     */
+    private void applyAdjustment(Product product, StockAdjustment adjustment) {
+        int quantity = adjustment.getQuantity();
+        switch (adjustment.getChangeType().toUpperCase()) {
+            case "ADD_STORE":
+                product.setQuantityInStore(product.getQuantityInStore() + quantity);
+                break;
+            case "REMOVE_STORE":
+                requireStock(product, quantity, product.getQuantityInStore(), "STORE");
+                product.setQuantityInStore(product.getQuantityInStore() - quantity);
+                break;
+            case "ADD_SHELF":
+                product.setQuantityOnShelf(product.getQuantityOnShelf() + quantity);
+                break;
+            case "REMOVE_SHELF":
+            case "SALE":
+                requireStock(product, quantity, product.getQuantityOnShelf(), "SHELF");
+                product.setQuantityOnShelf(product.getQuantityOnShelf() - quantity);
+                break;
+            case "MOVE_TO_SHELF":
+                requireStock(product, quantity, product.getQuantityInStore(), "STORE");
+                product.setQuantityInStore(product.getQuantityInStore() - quantity);
+                product.setQuantityOnShelf(product.getQuantityOnShelf() + quantity);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid change type: " + adjustment.getChangeType());
+        }
+    }
+
+    private void requireStock(Product product, int requested, int available, String stockType) {
+        if (available < requested) {
+            throw new InsufficientStockException(product.getCode(), product.getName(), requested, available, stockType);
+        }
+    }
+
+    /**
+     * @return The stock_movements row for a change type
+     * @throws IllegalArgumentException for an unknown change type
+     */
+    private StockMovement movementFor(StockAdjustment adjustment) {
+        String code = adjustment.getCode();
+        int quantity = adjustment.getQuantity();
+        String changeType = adjustment.getChangeType() != null ? adjustment.getChangeType().toUpperCase() : "";
+        switch (changeType) {
+            case "ADD_STORE":
+                return new StockMovement(code, "PURCHASE", quantity, null, "IN_STORE");
+            case "REMOVE_STORE":
+                return new StockMovement(code, "ADJUSTMENT", quantity, "IN_STORE", null);
+            case "ADD_SHELF":
+                return new StockMovement(code, "ADJUSTMENT", quantity, null, "ON_SHELF");
+            case "REMOVE_SHELF":
+                return new StockMovement(code, "ADJUSTMENT", quantity, "ON_SHELF", null);
+            case "MOVE_TO_SHELF":
+                return new StockMovement(code, "SHELF", quantity, "IN_STORE", "ON_SHELF");
+            case "SALE":
+                return new StockMovement(code, "SALE", quantity, "ON_SHELF", null);
+            default:
+                throw new IllegalArgumentException("Invalid change type: " + adjustment.getChangeType());
+        }
+    }
+
     /**
      * Get products with low stock (for reorder report)
      */
@@ -567,6 +838,57 @@ public class ConcurrentInventoryService {
         loadCache();
     }
 
+    /**
+     * @return Number of changes applied to the cached products since startup
+     */
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Products changed or deleted after a catalog version, for terminals keeping a local copy
+     * @param sinceVersion Catalog version the client has
+     * @return The changes, or a full catalog if the log no longer reaches back that far
+     */
+    public CatalogDelta getCatalogChanges(long sinceVersion) {
+        try {
+            if (cacheLock.readLock().tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                try {
+                    recordOperation("GET_CATALOG_CHANGES", "READ");
+
+                    List<Product> changed = new ArrayList<>();
+                    List<String> deleted = new ArrayList<>();
+                    if (sinceVersion < oldestDeltaVersion || sinceVersion > catalogVersion) {
+                        for (Product product : productCache.values()) {
+                            changed.add(cloneProduct(product));
+                        }
+                        return new CatalogDelta(catalogVersion, true, changed, deleted);
+                    }
+
+                    for (Set<String> codes : changesByVersion.tailMap(sinceVersion, false).values()) {
+                        for (String code : codes) {
+                            Product product = productCache.get(code);
+                            if (product != null) {
+                                changed.add(cloneProduct(product));
+                            } else {
+                                deleted.add(code);
+                            }
+                        }
+                    }
+                    return new CatalogDelta(catalogVersion, false, changed, deleted);
+
+                } finally {
+                    cacheLock.readLock().unlock();
+                }
+            } else {
+                throw new ConcurrencyException("Failed to acquire read lock within timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyException("Thread interrupted while waiting for lock", e);
+        }
+    }
+
     /**
      * Get cache statistics
      */
@@ -599,10 +921,97 @@ public class ConcurrentInventoryService {
         return Collections.emptyMap();
     }
 
+    /**
+     * @return Unknown-code filter outcomes, including its observed and expected false positive rates
+     */
+    public Map<String, Object> getCodeFilterStatistics() {
+        return unknownCodes.getStatistics();
+    }
+
+    /**
+     * @return Current state of the cache lock: read holds, whether it is write-locked, waiting threads
+     */
+    public Map<String, Object> getLockStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("readHolds", cacheLock.getReadLockCount());
+        stats.put("writeLocked", cacheLock.isWriteLocked());
+        stats.put("queuedThreads", cacheLock.getQueueLength());
+        return stats;
+    }
+
     // ========================================
     // HELPER METHODS
     // ========================================
 
+    /**
+     * Codes for a background rebuild of the unknown-code filter; the CLI adds items too
+     * @return Every product code, or null if they could not be read
+     */
+    private List<String> loadAllCodes() {
+        try {
+            return productDAO.getAllCodes();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to rebuild product code filter", e);
+            return null;
+        }
+    }
+
+    /**
+     * Bump the catalog version and log the codes against it
+     * Caller holds the write lock
+     */
+    private void recordChanges(List<String> codes) {
+        long version = ++catalogVersion;
+        Set<String> entry = new HashSet<>();
+        for (String code : codes) {
+            Long previousVersion = changeVersionByCode.put(code, version);
+            if (previousVersion != null) {
+                Set<String> previous = changesByVersion.get(previousVersion);
+                previous.remove(code);
+                if (previous.isEmpty()) {
+                    changesByVersion.remove(previousVersion);
+                }
+            }
+            entry.add(code);
+
+            tombstones.remove(code);
+            if (!productCache.containsKey(code)) {
+                tombstones.put(code, version);
+            } else {
+                unknownCodes.recordAdded(code);
+            }
+        }
+        changesByVersion.put(version, entry);
+
+        // Forget the oldest deletions; clients older than them get a full catalog
+        while (tombstones.size() > MAX_TOMBSTONES) {
+            Map.Entry<String, Long> oldest = tombstones.entrySet().iterator().next();
+            tombstones.remove(oldest.getKey());
+            changeVersionByCode.remove(oldest.getKey());
+            Set<String> codesAtVersion = changesByVersion.get(oldest.getValue());
+            codesAtVersion.remove(oldest.getKey());
+            if (codesAtVersion.isEmpty()) {
+                changesByVersion.remove(oldest.getValue());
+            }
+            oldestDeltaVersion = Math.max(oldestDeltaVersion, oldest.getValue());
+        }
+    }
+
+    /**
+     * @return true if the fields shown to billing terminals are unchanged
+     */
+    private boolean sameCatalogEntry(Product a, Product b) {
+        return a != null
+                && a.getVersion() == b.getVersion()
+                && a.getPrice() == b.getPrice()
+                && a.getQuantityInStore() == b.getQuantityInStore()
+                && a.getQuantityOnShelf() == b.getQuantityOnShelf()
+                && a.getReorderLevel() == b.getReorderLevel()
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getCategory(), b.getCategory())
+                && Objects.equals(a.getState(), b.getState());
+    }
+
     private void recordOperation(String operation, String type) {
         operationMetrics.computeIfAbsent(operation, k -> new OperationMetrics())
                 .increment(type);
@@ -640,6 +1049,35 @@ public class ConcurrentInventoryService {
         return clone;
     }
 
+    /**
+     * Catalog changes after a version
+     */
+    public static class CatalogDelta {
+        private final long version;
+        private final boolean full;
+        private final List<Product> changed;
+        private final List<String> deleted;
+
+        public CatalogDelta(long version, boolean full, List<Product> changed, List<String> deleted) {
+            this.version = version;
+            this.full = full;
+            this.changed = changed;
+            this.deleted = deleted;
+        }
+
+        /**
+         * @return The catalog version the delta brings the client to
+         */
+        public long getVersion() { return version; }
+
+        /**
+         * @return true if changed holds the whole catalog and the client should replace its copy
+         */
+        public boolean isFull() { return full; }
+        public List<Product> getChanged() { return changed; }
+        public List<String> getDeleted() { return deleted; }
+    }
+
     /**
      * Operation metrics for monitoring
      */
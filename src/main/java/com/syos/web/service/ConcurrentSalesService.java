@@ -1,5 +1,11 @@
 package com.syos.web.service;
 
+import com.syos.shared.pagination.KeysetCursor;
+import com.syos.web.analytics.IntradaySalesSeries;
+import com.syos.web.analytics.LiveSalesMetrics;
+import com.syos.web.analytics.SalesColumnStore;
+import com.syos.web.analytics.TopSellingLeaderboard;
+import com.syos.shared.pagination.Page;
 import com.syos.web.dao.SaleDAO;
 import com.syos.web.dao.ProductDAO;
 import com.syos.web.model.Sale;
@@ -17,6 +23,9 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
@@ -61,10 +70,19 @@ public class ConcurrentSalesService {
     private final SaleDAO saleDAO;
     private final ProductDAO productDAO;
     private final ConcurrentInventoryService inventoryService;
+    private final SalesColumnStore salesColumnStore;
+    private final TopSellingLeaderboard leaderboard;
+    private final LiveSalesMetrics liveMetrics;
+    private final IntradaySalesSeries intradaySeries;
 
     // Lock for sale number generation (prevents duplicates)
     private final ReentrantLock saleNumberLock = new ReentrantLock(true); // fair lock
 
+    // Reloads stale analytics off the request threads
+    private final ExecutorService analyticsReloader;
+    private final AtomicBoolean columnStoreReloading = new AtomicBoolean();
+    private final AtomicBoolean intradaySeriesReloading = new AtomicBoolean();
+
     // Configuration
     private static final long LOCK_TIMEOUT_SECONDS = 15;
     private static final String SALE_NUMBER_PREFIX = "SALE";
@@ -80,6 +98,15 @@ public class ConcurrentSalesService {
         this.saleDAO = new SaleDAO();
         this.productDAO = new ProductDAO();
         this.inventoryService = ConcurrentInventoryService.getInstance();
+        this.salesColumnStore = SalesColumnStore.getInstance();
+        this.leaderboard = TopSellingLeaderboard.getInstance();
+        this.liveMetrics = LiveSalesMetrics.getInstance();
+        this.intradaySeries = IntradaySalesSeries.getInstance();
+        this.analyticsReloader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-analytics-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
         logger.info("ConcurrentSalesService initialized");
     }
 
@@ -122,6 +149,7 @@ public class ConcurrentSalesService {
                 threadName, cashierId, items.size()));
 
         Connection conn = null;
+        List<Product> crossedReorderLevel = new ArrayList<>();
 
         try {
             // Generate unique sale number (thread-safe)
@@ -188,22 +216,20 @@ public class ConcurrentSalesService {
                     );
                 }
 
+                boolean wasAboveReorderLevel = !product.needsReorder();
+                product.setQuantityOnShelf(newQuantity);
+                if (wasAboveReorderLevel && product.needsReorder()) {
+                    crossedReorderLevel.add(product);
+                }
+
                 logger.fine(String.format("Stock reduced for %s: from %d to %d",
-                        item.getItemCode(), product.getQuantityOnShelf(), newQuantity));
+                        item.getItemCode(), newQuantity + item.getQuantity(), newQuantity));
             }
 
             // STEP 4: COMMIT TRANSACTION
             conn.commit();
             logger.info("Transaction COMMITTED for sale: " + saleNumber);
 
-            // STEP 5: Refresh inventory cache
-            inventoryService.refreshCache();
-
-            logger.info(String.format("Sale created successfully: %s (Total: %.2f)",
-                    saleNumber, sale.getTotalAmount()));
-
-            return sale;
-
         } catch (InsufficientStockException e) {
             // Rollback transaction on insufficient stock
             if (conn != null) {
@@ -239,6 +265,25 @@ public class ConcurrentSalesService {
                 }
             }
         }
+
+        // STEP 5: Refresh inventory cache and analytics
+        // The sale is committed, so a failure here must not surface as a failed sale
+        afterCommit("refresh inventory cache", inventoryService::refreshCache);
+        afterCommit("append sale to column store", () -> salesColumnStore.appendSale(sale, items));
+        afterCommit("record sale in leaderboard", () -> leaderboard.recordSale(
+                sale.getId(), sale.getCreatedAt(), items));
+        afterCommit("record sale in live metrics", () -> liveMetrics.recordSale(sale));
+        afterCommit("record sale in intraday series", () -> intradaySeries.recordSale(
+                sale.getId(), sale.getCreatedAt(), cashierId, sale.getTotalAmount(), items));
+        for (Product product : crossedReorderLevel) {
+            afterCommit("record low stock crossing", () -> liveMetrics.recordLowStockCrossing(
+                    product.getCode(), product.getName(), product.getTotalStock(), product.getReorderLevel()));
+        }
+
+        logger.info(String.format("Sale created successfully: %s (Total: %.2f)",
+                sale.getSaleNumber(), sale.getTotalAmount()));
+
+        return sale;
     }
 
     /**
@@ -250,13 +295,15 @@ public class ConcurrentSalesService {
         logger.info(String.format("Thread %s canceling sale ID: %d", threadName, saleId));
 
         Connection conn = null;
+        Sale sale;
+        List<SaleItem> items;
 
         try {
             conn = saleDAO.getConnection();
             conn.setAutoCommit(false);  // START TRANSACTION
 
             // Get sale details
-            Sale sale = saleDAO.getSaleById(saleId, conn);
+            sale = saleDAO.getSaleById(saleId, conn);
             if (sale == null) {
                 logger.warning("Sale not found: " + saleId);
                 return false;
@@ -268,7 +315,7 @@ public class ConcurrentSalesService {
             }
 
             // Get sale items
-            List<SaleItem> items = saleDAO.getSaleItems(saleId, conn);
+            items = saleDAO.getSaleItems(saleId, conn);
 
             // Restore stock for all items
             for (SaleItem item : items) {
@@ -299,11 +346,6 @@ public class ConcurrentSalesService {
             conn.commit();
             logger.info("Sale cancelled successfully: " + saleId);
 
-            // Refresh inventory cache
-            inventoryService.refreshCache();
-
-            return true;
-
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -325,6 +367,33 @@ public class ConcurrentSalesService {
                 }
             }
         }
+
+        // Refresh inventory cache and analytics
+        afterCommit("refresh inventory cache", inventoryService::refreshCache);
+        afterCommit("mark sale cancelled in column store", () -> salesColumnStore.markCancelled(saleId));
+        afterCommit("record cancellation in leaderboard", () -> leaderboard.recordCancellation(
+                saleId, sale.getCreatedAt(), items));
+        afterCommit("record cancellation in live metrics", () -> liveMetrics.recordCancellation(sale));
+        afterCommit("record cancellation in intraday series", () -> intradaySeries.recordCancellation(
+                saleId, sale.getCreatedAt(), sale.getCashierId(), sale.getTotalAmount(), items));
+
+        return true;
+    }
+
+    /**
+     * Run a post-commit step; failures are logged and never undo the committed transaction
+     */
+    private void afterCommit(String step, AnalyticsStep action) {
+        try {
+            action.run();
+        } catch (SQLException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to " + step + " after commit", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface AnalyticsStep {
+        void run() throws SQLException;
     }
 
     /**
@@ -374,6 +443,17 @@ public class ConcurrentSalesService {
         return saleDAO.getSalesByDate(date);
     }
 
+    /**
+     * Get one page of sales, most recent first
+     * Filters are optional; the cursor comes from the previous page
+     */
+    public Page<Sale> getSalesPage(Long cashierId, Date startDate, Date endDate,
+                                   KeysetCursor after, int pageSize) throws SQLException {
+        logger.fine(String.format("Getting sales page for cashier %s from %s to %s after %s",
+                cashierId, startDate, endDate, after));
+        return saleDAO.getSalesPage(cashierId, startDate, endDate, after, pageSize);
+    }
+
     /**
      * Get daily sales report
      */
@@ -425,6 +505,36 @@ public class ConcurrentSalesService {
         return report;
     }
 
+    /**
+     * Load the in-memory analytics store, top-selling leaderboard, intraday series
+     * and live dashboard metrics
+     * Until they are loaded, analytics queries run against the database
+     */
+    public void loadAnalytics() {
+        try {
+            salesColumnStore.load(saleDAO);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Failed to load sales analytics, falling back to SQL queries", e);
+        }
+        try {
+            leaderboard.rebuild(saleDAO);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Failed to rebuild top-selling leaderboard, falling back to SQL queries", e);
+        }
+        try {
+            intradaySeries.rebuild(saleDAO);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Failed to rebuild intraday sales series", e);
+        }
+        try {
+            Map<String, Object> today = getDailySalesReport(new Date());
+            liveMetrics.seed((Double) today.get("totalRevenue"),
+                    (Integer) today.get("completedTransactions"), (Integer) today.get("cancelledTransactions"));
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Failed to seed live dashboard metrics", e);
+        }
+    }
+
     /**
      * Get sales statistics for date range
      */
@@ -433,6 +543,14 @@ public class ConcurrentSalesService {
         logger.info(String.format("Generating sales statistics from %s to %s",
                 startDate, endDate));
 
+        if (salesColumnStore.isLoaded()) {
+            Map<String, Object> statistics = salesColumnStore.getSalesStatistics(startDate, endDate);
+            if (statistics != null) {
+                return statistics;
+            }
+        }
+        reloadInBackground(columnStoreReloading, "sales column store", () -> salesColumnStore.load(saleDAO));
+
         List<Sale> sales = saleDAO.getSalesByDateRange(startDate, endDate);
 
         double totalRevenue = 0;
@@ -515,6 +633,80 @@ public class ConcurrentSalesService {
     public List<Map<String, Object>> getTopSellingProducts(Date startDate, Date endDate, int limit)
             throws SQLException {
         logger.info("Getting top selling products");
+
+        if (salesColumnStore.isLoaded()) {
+            List<Map<String, Object>> products = salesColumnStore.getTopSellingProducts(startDate, endDate, limit);
+            if (products != null) {
+                return products;
+            }
+        }
+        reloadInBackground(columnStoreReloading, "sales column store", () -> salesColumnStore.load(saleDAO));
         return saleDAO.getTopSellingProducts(startDate, endDate, limit);
     }
-}
\ No newline at end of file
+
+    /**
+     * Reload a stale or unloaded analytics structure on the reloader thread,
+     * unless a reload of it is already queued or running
+     * Callers keep using SQL until the reload publishes the structure
+     */
+    private void reloadInBackground(AtomicBoolean reloading, String name, AnalyticsStep reload) {
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            analyticsReloader.execute(() -> {
+                try {
+                    reload.run();
+                } catch (SQLException | RuntimeException e) {
+                    logger.log(Level.WARNING, "Failed to reload " + name, e);
+                } finally {
+                    reloading.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            reloading.set(false);
+            logger.log(Level.WARNING, "Could not schedule " + name + " reload", e);
+        }
+    }
+
+    /**
+     * Stop the analytics reloader thread
+     */
+    public void shutdown() {
+        analyticsReloader.shutdownNow();
+    }
+
+    /**
+     * Get top selling products of the last N calendar days, today included
+     * Served from the in-memory leaderboard for windows of up to 30 days,
+     * otherwise queried over the same window
+     */
+    public List<Map<String, Object>> getTopSellingProducts(int days, int limit) throws SQLException {
+        if (leaderboard.isReady() && days >= 1 && days <= TopSellingLeaderboard.MAX_WINDOW_DAYS) {
+            return leaderboard.getTopSelling(days, limit);
+        }
+        return getTopSellingProducts(getWindowStart(days), new Date(), limit);
+    }
+
+    /**
+     * Start of the window of the last N calendar days, today included: midnight N - 1 days ago
+     * Reports that show top sellers next to other figures use it for those figures too
+     */
+    public Date getWindowStart(int days) {
+        return TopSellingLeaderboard.windowStart(days);
+    }
+
+    /**
+     * Today's sales per 15-minute interval, in total and per cashier
+     * If the series could not be loaded at startup it is rebuilt in the background
+     * and the intervals come from an aggregate query meanwhile
+     * @param cashierId Only this cashier, or null for all
+     */
+    public Map<String, Object> getIntradaySales(Long cashierId) throws SQLException {
+        if (intradaySeries.isReady()) {
+            return intradaySeries.getToday(cashierId);
+        }
+        reloadInBackground(intradaySeriesReloading, "intraday sales series", () -> intradaySeries.rebuild(saleDAO));
+        return IntradaySalesSeries.queryToday(saleDAO, cashierId);
+    }
+}
@@ -0,0 +1,191 @@
+package com.syos.web.service;
+
+import com.syos.shared.export.ReportTable;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * END-OF-DAY REPORT SCHEDULER
+ * ============================================
+ *
+ * Generates the daily sales, stock, reorder and reshelve reports once a day
+ * right after closing time and stores them in a ReportArchive.
+ *
+ * - Runs on one daemon thread, so report queries never run on request threads
+ * - The next run is recomputed after every run, which keeps the wall-clock
+ *   time stable across daylight saving changes
+ * - Each report is aggregated once and written in every export format
+ * - Managers can trigger an extra run; it gets a new version number
+ *
+ * ============================================
+ */
+public class EndOfDayReportScheduler {
+
+    private static final Logger logger = Logger.getLogger(EndOfDayReportScheduler.class.getName());
+
+    public static final LocalTime DEFAULT_CLOSE_TIME = LocalTime.of(22, 0);
+    private static final int RESHELVE_DAYS = 7;
+
+    private final ConcurrentSalesService salesService;
+    private final ConcurrentInventoryService inventoryService;
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> nextRun;
+    private volatile ReportArchive archive;
+    private LocalTime closeTime = DEFAULT_CLOSE_TIME;
+    private volatile LocalDateTime lastRunAt;
+
+    // Singleton instance
+    private static volatile EndOfDayReportScheduler instance;
+    private static final Object instanceLock = new Object();
+
+    private EndOfDayReportScheduler() {
+        this.salesService = ConcurrentSalesService.getInstance();
+        this.inventoryService = ConcurrentInventoryService.getInstance();
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static EndOfDayReportScheduler getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new EndOfDayReportScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start daily generation
+     * @param archive Where reports are stored
+     * @param closeTime Local time of day at which reports are generated
+     */
+    public synchronized void start(ReportArchive archive, LocalTime closeTime) {
+        if (executor != null) {
+            return;
+        }
+        this.archive = archive;
+        this.closeTime = closeTime;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "eod-report-scheduler");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduleNext();
+        logger.info("End-of-day reports scheduled daily at " + closeTime + " into " + archive.getDirectory());
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            nextRun = null;
+        }
+    }
+
+    /**
+     * Generate today's reports now, on the scheduler thread
+     * @return Completes when the reports are stored
+     * @throws IllegalStateException if the scheduler is not running
+     */
+    public synchronized Future<?> generateNow() {
+        if (executor == null) {
+            throw new IllegalStateException("Report scheduler is not running");
+        }
+        return executor.submit(() -> generateSafely(LocalDate.now()));
+    }
+
+    /**
+     * @return The archive reports are stored in, or null before start
+     */
+    public ReportArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * @return When reports were last generated, or null if not yet in this run of the application
+     */
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    /**
+     * @return When the next scheduled generation starts, or null if stopped
+     */
+    public synchronized LocalDateTime getNextRunAt() {
+        if (nextRun == null) {
+            return null;
+        }
+        return LocalDateTime.now().plus(Duration.ofMillis(nextRun.getDelay(TimeUnit.MILLISECONDS)));
+    }
+
+    /**
+     * Aggregate and store all end-of-day reports for a business day
+     */
+    public void generate(LocalDate businessDate) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        Date day = Date.from(businessDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        var products = inventoryService.getAllProducts();
+
+        store("daily_sales", businessDate, ReportTables.dailySales(salesService.getDailySalesReport(day)));
+        store("stock", businessDate, ReportTables.stock(products));
+        store("reorder", businessDate, ReportTables.reorder(inventoryService.getLowStockProducts()));
+        store("reshelve", businessDate, ReportTables.reshelve(products, RESHELVE_DAYS));
+
+        lastRunAt = LocalDateTime.now();
+        logger.info(String.format("End-of-day reports for %s generated in %d ms",
+                businessDate, System.currentTimeMillis() - start));
+    }
+
+    private void store(String reportName, LocalDate businessDate, ReportTable table) throws IOException {
+        archive.store(reportName, businessDate, table);
+    }
+
+    private void runScheduled() {
+        try {
+            generateSafely(LocalDate.now());
+        } finally {
+            scheduleNext();
+        }
+    }
+
+    private void generateSafely(LocalDate businessDate) {
+        try {
+            generate(businessDate);
+        } catch (SQLException | IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, "End-of-day report generation failed for " + businessDate, e);
+        }
+    }
+
+    private synchronized void scheduleNext() {
+        if (executor == null || executor.isShutdown()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(closeTime);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        long delay = Duration.between(now, next).toMillis();
+        nextRun = executor.schedule(this::runScheduled, delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,228 @@
+package com.syos.web.service;
+
+import com.google.gson.stream.JsonWriter;
+import com.syos.web.model.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ============================================
+ * PRE-SERIALIZED PRODUCT CATALOG
+ * ============================================
+ *
+ * The billing terminals load the whole catalog as JSON. Instead of cloning and
+ * serializing every product per request, the JSON is encoded once per catalog
+ * version, kept as plain and gzip-compressed byte arrays, and written out as is.
+ *
+ * VERSIONING:
+ * - ConcurrentInventoryService bumps its catalog version on every product change
+ * - A snapshot is rebuilt lazily by the first request that sees a newer version
+ * - The ETag combines the start-up time and the version, so a restarted server
+ *   never confirms a copy cached before the restart
+ *
+ * DELTA SYNC:
+ * - Terminals holding a copy ask for the changes since their version
+ * - The answer lists changed products and deleted codes from the change log
+ *   of ConcurrentInventoryService
+ * - A version from another start-up, or older than the log, gets the full catalog
+ *
+ * ============================================
+ */
+public class ProductCatalog {
+
+    private static final Logger logger = Logger.getLogger(ProductCatalog.class.getName());
+
+    private final ConcurrentInventoryService inventoryService;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private volatile Snapshot snapshot;
+
+    // Singleton instance
+    private static volatile ProductCatalog instance;
+    private static final Object instanceLock = new Object();
+
+    private ProductCatalog() {
+        this.inventoryService = ConcurrentInventoryService.getInstance();
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static ProductCatalog getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new ProductCatalog();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return The encoded catalog for the current version, rebuilt if products changed
+     */
+    public Snapshot getSnapshot() throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null && current.version == inventoryService.getCatalogVersion()) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            long version = inventoryService.getCatalogVersion();
+            if (current == null || current.version != version) {
+                // Version is read before the products, so a concurrent change
+                // only causes one extra rebuild, never a stale snapshot
+                current = build(version, inventoryService.getAllProducts());
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot build(long version, List<Product> products) {
+        long start = System.nanoTime();
+        products.sort(Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream(products.size() * 160 + 64);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            writer.name("epoch").value(epoch);
+            writer.name("version").value(version);
+            writer.name("full").value(true);
+            writer.name("products").beginArray();
+            for (Product product : products) {
+                writeProduct(writer, product);
+            }
+            writer.endArray();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] plain = json.toByteArray();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(plain.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(plain);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Snapshot built = new Snapshot(version, "\"catalog-" + epoch + "-" + version + "\"",
+                plain, compressed.toByteArray());
+        logger.fine(String.format("Catalog version %d encoded: %d products, %d bytes, %d gzipped, %d us",
+                version, products.size(), plain.length, built.gzipped.length,
+                (System.nanoTime() - start) / 1000));
+        return built;
+    }
+
+    /**
+     * @return Identifies this start-up; versions are only comparable within one epoch
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Changes since a version the client holds, as JSON
+     * @param clientEpoch Epoch of the client's copy
+     * @param sinceVersion Version of the client's copy
+     * @return Changed products and deleted codes, or the full catalog if the client's
+     *         copy is from another epoch or older than the change log
+     */
+    public byte[] getChangesSince(String clientEpoch, long sinceVersion) throws SQLException {
+        if (!epoch.equals(clientEpoch)) {
+            return getSnapshot().getPlain();
+        }
+        ConcurrentInventoryService.CatalogDelta delta = inventoryService.getCatalogChanges(sinceVersion);
+        if (delta.isFull()) {
+            return getSnapshot().getPlain();
+        }
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream(delta.getChanged().size() * 160 + 64);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            writer.name("epoch").value(epoch);
+            writer.name("version").value(delta.getVersion());
+            writer.name("full").value(false);
+            writer.name("products").beginArray();
+            for (Product product : delta.getChanged()) {
+                writeProduct(writer, product);
+            }
+            writer.endArray();
+            writer.name("deleted").beginArray();
+            for (String code : delta.getDeleted()) {
+                writer.value(code);
+            }
+            writer.endArray();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toByteArray();
+    }
+
+    /**
+     * Fields used by the billing page, named as it expects them
+     */
+    private static void writeProduct(JsonWriter writer, Product product) throws IOException {
+        writer.beginObject();
+        writer.name("itemCode").value(product.getCode());
+        writer.name("name").value(product.getName());
+        writer.name("category").value(product.getCategory());
+        writer.name("price").value(product.getPrice());
+        writer.name("quantityOnShelf").value(product.getQuantityOnShelf());
+        writer.name("version").value(product.getVersion());
+        writer.endObject();
+    }
+
+    /**
+     * One encoded catalog version
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final String etag;
+        private final byte[] plain;
+        private final byte[] gzipped;
+
+        private Snapshot(long version, String etag, byte[] plain, byte[] gzipped) {
+            this.version = version;
+            this.etag = etag;
+            this.plain = plain;
+            this.gzipped = gzipped;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return Strong ETag, quoted
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return UTF-8 JSON; callers must not modify the array
+         */
+        public byte[] getPlain() {
+            return plain;
+        }
+
+        /**
+         * @return gzip-compressed JSON; callers must not modify the array
+         */
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package com.syos.web.service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.syos.web.util.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * BULK PRODUCT IMPORT
+ * ============================================
+ *
+ * Streams a product file (CSV with a header row, or JSON Lines) and upserts it
+ * in chunks of CHUNK_SIZE rows. Only one chunk is held in memory.
+ *
+ * - Field names match the items columns, in snake_case or camelCase
+ *   (quantity_on_shelf, quantityOnShelf); code, name and price are required
+ * - Fields a row leaves out keep their current value on existing products
+ * - Each chunk is one JDBC batch and one transaction, and the inventory cache
+ *   is updated once per chunk
+ * - Invalid rows are skipped and reported by line; if a chunk fails in the
+ *   database its rows are retried one by one to find the bad ones
+ * - A code repeated within a chunk is reported; across chunks the later row
+ *   simply updates the product again, so memory stays bounded by the chunk
+ *
+ * ============================================
+ */
+public class ProductImporter {
+
+    private static final Logger logger = Logger.getLogger(ProductImporter.class.getName());
+
+    public static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+    private static final Set<String> STATES = new LinkedHashSet<>(
+            Arrays.asList("IN_STORE", "ON_SHELF", "EXPIRED", "SOLD_OUT"));
+
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * @throws IllegalArgumentException for an unknown name
+         */
+        public static Format fromName(String name) {
+            switch (name.trim().toLowerCase()) {
+                case "csv":
+                    return CSV;
+                case "jsonl":
+                case "ndjson":
+                    return JSONL;
+                default:
+                    throw new IllegalArgumentException("Unknown import format: " + name);
+            }
+        }
+    }
+
+    /**
+     * Importable fields in column order; code must stay first
+     */
+    private enum Field {
+        CODE("code", 20),
+        NAME("name", 100),
+        CATEGORY("category", 50),
+        PRICE("price", 0),
+        QUANTITY_IN_STORE("quantity_in_store", 0),
+        QUANTITY_ON_SHELF("quantity_on_shelf", 0),
+        REORDER_LEVEL("reorder_level", 0),
+        STATE("state", 0),
+        PURCHASE_DATE("purchase_date", 0),
+        EXPIRY_DATE("expiry_date", 0);
+
+        private final String column;
+        private final int maxLength;
+
+        Field(String column, int maxLength) {
+            this.column = column;
+            this.maxLength = maxLength;
+        }
+
+        private static final Map<String, Field> BY_KEY = new HashMap<>();
+
+        static {
+            for (Field field : values()) {
+                BY_KEY.put(key(field.column), field);
+            }
+        }
+
+        private static Field forName(String name) {
+            return BY_KEY.get(key(name));
+        }
+
+        // quantity_on_shelf, quantityOnShelf and "Quantity On Shelf" share a key
+        private static String key(String name) {
+            StringBuilder key = new StringBuilder(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    key.append(Character.toLowerCase(c));
+                }
+            }
+            return key.toString();
+        }
+    }
+
+    private final ConcurrentInventoryService inventoryService;
+
+    public ProductImporter(ConcurrentInventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    /**
+     * Import every row of the input
+     * @return Counts and per-row errors
+     * @throws IllegalArgumentException if the CSV header is missing or lacks code, name or price
+     * @throws IOException on a read error or malformed CSV quoting
+     * @throws SQLException if the database connection fails
+     */
+    public Report importProducts(Reader input, Format format) throws IOException, SQLException {
+        Run run = new Run();
+        if (format == Format.CSV) {
+            readCsv(input, run);
+        } else {
+            readJsonLines(input, run);
+        }
+        run.flush();
+        run.report.elapsedMillis = (System.nanoTime() - run.startNanos) / 1_000_000;
+        logger.info("Product import: " + run.report.rows + " rows, " + run.report.inserted + " inserted, "
+                + run.report.updated + " updated, " + run.report.failed + " failed in "
+                + run.report.elapsedMillis + " ms");
+        return run.report;
+    }
+
+    private void readCsv(Reader input, Run run) throws IOException, SQLException {
+        CsvReader csv = new CsvReader(input);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IllegalArgumentException("Empty import: a header row is required");
+        }
+
+        Field[] fields = new Field[header.size()];
+        Set<Field> present = EnumSet.noneOf(Field.class);
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i);
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            fields[i] = Field.forName(name);
+            if (fields[i] == null) {
+                run.report.ignoredFields.add(name.trim());
+            } else if (!present.add(fields[i])) {
+                throw new IllegalArgumentException("Duplicate column in header: " + name);
+            }
+        }
+        if (!present.containsAll(EnumSet.of(Field.CODE, Field.NAME, Field.PRICE))) {
+            throw new IllegalArgumentException("Header needs code, name and price columns");
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            int line = csv.getRecordLine();
+            run.report.rows++;
+            if (record.size() != fields.length) {
+                run.fail(line, null, "Expected " + fields.length + " fields, found " + record.size());
+                continue;
+            }
+            Map<Field, String> values = new EnumMap<>(Field.class);
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] != null) {
+                    values.put(fields[i], record.get(i));
+                }
+            }
+            run.accept(line, values);
+        }
+    }
+
+    private void readJsonLines(Reader input, Run run) throws IOException, SQLException {
+        BufferedReader reader = new BufferedReader(input);
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            run.report.rows++;
+
+            JsonObject object;
+            try {
+                JsonElement element = JsonParser.parseString(text);
+                if (!element.isJsonObject()) {
+                    run.fail(line, null, "Expected a JSON object");
+                    continue;
+                }
+                object = element.getAsJsonObject();
+            } catch (JsonParseException e) {
+                run.fail(line, null, "Invalid JSON: " + e.getMessage());
+                continue;
+            }
+
+            Map<Field, String> values = new EnumMap<>(Field.class);
+            String error = null;
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                Field field = Field.forName(entry.getKey());
+                if (field == null) {
+                    run.report.ignoredFields.add(entry.getKey());
+                } else if (entry.getValue().isJsonPrimitive()) {
+                    values.put(field, entry.getValue().getAsString());
+                } else if (!entry.getValue().isJsonNull()) {
+                    error = entry.getKey() + ": expected a string or number";
+                    break;
+                }
+            }
+            if (error != null) {
+                run.fail(line, null, error);
+                continue;
+            }
+            run.accept(line, values);
+        }
+    }
+
+    /**
+     * Validate and convert one row
+     * @return Values in Field order for the fields present, or null after reporting the error
+     */
+    private static Object[] validate(Map<Field, String> values, Set<Field> present, StringBuilder error) {
+        List<Object> converted = new ArrayList<>();
+        for (Map.Entry<Field, String> entry : values.entrySet()) {
+            Field field = entry.getKey();
+            String text = entry.getValue().trim();
+            if (text.isEmpty()) {
+                // Empty CSV cells and "" leave the field out
+                continue;
+            }
+            Object value;
+            try {
+                value = convert(field, text);
+            } catch (IllegalArgumentException e) {
+                error.append(field.column).append(": ").append(e.getMessage());
+                return null;
+            }
+            present.add(field);
+            converted.add(value);
+        }
+
+        for (Field required : EnumSet.of(Field.CODE, Field.NAME, Field.PRICE)) {
+            if (!present.contains(required)) {
+                error.append(required.column).append(": required");
+                return null;
+            }
+        }
+        return converted.toArray();
+    }
+
+    private static Object convert(Field field, String text) {
+        switch (field) {
+            case CODE:
+            case NAME:
+            case CATEGORY:
+                if (text.length() > field.maxLength) {
+                    throw new IllegalArgumentException("longer than " + field.maxLength + " characters");
+                }
+                return text;
+            case PRICE:
+                BigDecimal price;
+                try {
+                    price = new BigDecimal(text);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("not a number '" + text + "'");
+                }
+                if (price.signum() < 0 || price.compareTo(MAX_PRICE) > 0) {
+                    throw new IllegalArgumentException("out of range " + text);
+                }
+                return price.setScale(2, RoundingMode.HALF_UP);
+            case QUANTITY_IN_STORE:
+            case QUANTITY_ON_SHELF:
+            case REORDER_LEVEL:
+                int number;
+                try {
+                    number = Integer.parseInt(text);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("not a whole number '" + text + "'");
+                }
+                if (number < 0) {
+                    throw new IllegalArgumentException("must not be negative");
+                }
+                return number;
+            case STATE:
+                String state = text.toUpperCase();
+                if (!STATES.contains(state)) {
+                    throw new IllegalArgumentException("must be one of " + STATES);
+                }
+                return state;
+            case PURCHASE_DATE:
+            case EXPIRY_DATE:
+                try {
+                    return Date.valueOf(text);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("expected yyyy-mm-dd, got '" + text + "'");
+                }
+            default:
+                throw new IllegalStateException("Unhandled field " + field);
+        }
+    }
+
+    /**
+     * State of one import: the open chunk and the report
+     */
+    private final class Run {
+        private final long startNanos = System.nanoTime();
+        private final Report report = new Report();
+        // Codes of the open chunk only; one upsert batch must not carry a code twice
+        private final Map<String, Integer> chunkLineByCode = new HashMap<>();
+
+        private Set<Field> chunkFields;
+        private final List<Object[]> chunkRows = new ArrayList<>(CHUNK_SIZE);
+        private final List<Integer> chunkLines = new ArrayList<>(CHUNK_SIZE);
+
+        private void accept(int line, Map<Field, String> values) throws SQLException {
+            Set<Field> present = EnumSet.noneOf(Field.class);
+            StringBuilder error = new StringBuilder();
+            Object[] row = validate(values, present, error);
+            String code = values.containsKey(Field.CODE) ? values.get(Field.CODE).trim() : null;
+            if (row == null) {
+                fail(line, code, error.toString());
+                return;
+            }
+
+            Date purchase = (Date) valueOf(row, present, Field.PURCHASE_DATE);
+            Date expiry = (Date) valueOf(row, present, Field.EXPIRY_DATE);
+            if (purchase != null && expiry != null && expiry.before(purchase)) {
+                fail(line, code, "expiry_date: before purchase_date");
+                return;
+            }
+
+            // A chunk is one statement shape, so a row with other fields starts a new chunk
+            if (chunkFields != null && !chunkFields.equals(present)) {
+                flush();
+            }
+            Integer firstLine = chunkLineByCode.putIfAbsent(code, line);
+            if (firstLine != null) {
+                fail(line, code, "Duplicate code, first seen on line " + firstLine);
+                return;
+            }
+            chunkFields = present;
+            chunkRows.add(row);
+            chunkLines.add(line);
+            if (chunkRows.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (chunkRows.isEmpty()) {
+                return;
+            }
+            List<String> columns = new ArrayList<>(chunkFields.size());
+            for (Field field : chunkFields) {
+                columns.add(field.column);
+            }
+
+            report.chunks++;
+            try {
+                int inserted = inventoryService.importProducts(columns, chunkRows);
+                report.inserted += inserted;
+                report.updated += chunkRows.size() - inserted;
+            } catch (SQLException e) {
+                logger.warning("Import chunk of " + chunkRows.size() + " rows failed, retrying row by row: "
+                        + e.getMessage());
+                retryRows(columns);
+            }
+            chunkRows.clear();
+            chunkLines.clear();
+            chunkLineByCode.clear();
+        }
+
+        private void retryRows(List<String> columns) throws SQLException {
+            for (int i = 0; i < chunkRows.size(); i++) {
+                Object[] row = chunkRows.get(i);
+                try {
+                    int inserted = inventoryService.importProducts(columns, List.<Object[]>of(row));
+                    report.inserted += inserted;
+                    report.updated += 1 - inserted;
+                } catch (SQLException e) {
+                    if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+                        // Connection failure, not a bad row
+                        throw e;
+                    }
+                    fail(chunkLines.get(i), (String) row[0], "Database: " + e.getMessage());
+                }
+            }
+        }
+
+        private void fail(int line, String code, String message) {
+            report.failed++;
+            if (report.errors.size() < MAX_REPORTED_ERRORS) {
+                report.errors.add(new RowError(line, code, message));
+            }
+        }
+    }
+
+    private static Object valueOf(Object[] row, Set<Field> present, Field wanted) {
+        int index = 0;
+        for (Field field : present) {
+            if (field == wanted) {
+                return row[index];
+            }
+            index++;
+        }
+        return null;
+    }
+
+    /**
+     * Outcome of one import
+     */
+    public static final class Report {
+        private int rows;
+        private int inserted;
+        private int updated;
+        private int failed;
+        private int chunks;
+        private long elapsedMillis;
+        private final Set<String> ignoredFields = new LinkedHashSet<>();
+        private final List<RowError> errors = new ArrayList<>();
+
+        public int getRows() { return rows; }
+        public int getInserted() { return inserted; }
+        public int getUpdated() { return updated; }
+        public int getFailed() { return failed; }
+        public List<RowError> getErrors() { return errors; }
+
+        /**
+         * @return Counts, throughput, ignored fields and the first MAX_REPORTED_ERRORS row errors
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("rows", rows);
+            map.put("inserted", inserted);
+            map.put("updated", updated);
+            map.put("failed", failed);
+            map.put("chunks", chunks);
+            map.put("elapsedMillis", elapsedMillis);
+            map.put("rowsPerSecond", elapsedMillis > 0 ? rows * 1000L / elapsedMillis : rows);
+            map.put("ignoredFields", ignoredFields);
+            List<Map<String, Object>> errorList = new ArrayList<>();
+            for (RowError error : errors) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("line", error.line);
+                entry.put("code", error.code);
+                entry.put("message", error.message);
+                errorList.add(entry);
+            }
+            map.put("errors", errorList);
+            map.put("errorsTruncated", failed > errors.size());
+            return map;
+        }
+    }
+
+    /**
+     * One rejected row
+     */
+    public static final class RowError {
+        private final int line;
+        private final String code;
+        private final String message;
+
+        public RowError(int line, String code, String message) {
+            this.line = line;
+            this.code = code;
+            this.message = message;
+        }
+
+        public int getLine() { return line; }
+        public String getCode() { return code; }
+        public String getMessage() { return message; }
+    }
+}
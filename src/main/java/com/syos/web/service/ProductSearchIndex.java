@@ -0,0 +1,537 @@
+package com.syos.web.service;
+
+import com.syos.web.model.Product;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * IN-MEMORY PRODUCT SEARCH
+ * ============================================
+ *
+ * Answers the billing page's search box without touching the database.
+ *
+ * INDEXES:
+ * - Codes, in a sorted map: a prefix is a sub-map range
+ * - Name words, in a sorted map of word to products: every query word must
+ *   be the start of some word of the name ("choc mil" finds "Milk Chocolate")
+ * - Name trigrams, in an inverted index: names sharing enough trigrams with
+ *   the query match even with typos ("chocolte" finds "Chocolate")
+ *
+ * RANKING:
+ * exact code, then code prefix, then names matching every query word (names
+ * starting with the query first), then trigram matches by Dice similarity.
+ * Only the best N are kept, in a bounded heap.
+ *
+ * UPDATES:
+ * Like ProductCatalog, the index follows the catalog version of
+ * ConcurrentInventoryService. The first search after a change applies the
+ * changed and deleted codes from the change log, so only changed products
+ * are re-indexed. The whole index is rebuilt only when the log no longer
+ * reaches back far enough.
+ *
+ * ============================================
+ */
+public class ProductSearchIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductSearchIndex.class.getName());
+
+    public static final int MAX_RESULTS = 50;
+
+    private static final int CODE_EXACT = 1000;
+    private static final int CODE_PREFIX = 900;
+    private static final int NAME_PREFIX = 600;
+    private static final int NAME_WORDS = 500;
+    private static final int FUZZY_MAX = 400;
+    private static final double MIN_SIMILARITY = 0.35;
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final String RANGE_END = "\uffff";
+
+    private final ConcurrentInventoryService inventoryService;
+
+    // Guarded by lock
+    private final List<Entry> entries = new ArrayList<>();
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private final Map<String, Integer> idsByCode = new HashMap<>();
+    private final TreeMap<String, Integer> codes = new TreeMap<>();
+    private final TreeMap<String, IntList> words = new TreeMap<>();
+    private final TreeMap<String, IntList> names = new TreeMap<>();
+    private final Map<String, IntList> trigrams = new HashMap<>();
+    // By id, so ranking reads arrays instead of entries
+    private int[] nameLengths = new int[0];
+    private int[] trigramCounts = new int[0];
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile long version = -1;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+
+    // Singleton instance
+    private static volatile ProductSearchIndex instance;
+    private static final Object instanceLock = new Object();
+
+    private ProductSearchIndex() {
+        this(ConcurrentInventoryService.getInstance());
+    }
+
+    /**
+     * Index that follows the given inventory service; the application uses getInstance()
+     */
+    public ProductSearchIndex(ConcurrentInventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static ProductSearchIndex getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new ProductSearchIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Find products by code or name
+     * @param query Code or name, or part of either
+     * @param limit Most results to return, capped at MAX_RESULTS
+     * @return Best matches first; empty for a blank query
+     */
+    public List<Result> search(String query, int limit) {
+        long start = System.nanoTime();
+        sync();
+
+        String normalized = normalize(query);
+        List<Result> results = new ArrayList<>();
+        if (normalized.isEmpty() || limit < 1) {
+            return results;
+        }
+        limit = Math.min(limit, MAX_RESULTS);
+
+        lock.readLock().lock();
+        try {
+            Scratch s = scratch.get();
+            s.reset(entries.size());
+            String code = query.trim().toLowerCase(Locale.ROOT);
+            String[] queryWords = normalized.split(" ");
+
+            // Code prefixes
+            for (Map.Entry<String, Integer> match : codes.subMap(code, true, code + RANGE_END, false).entrySet()) {
+                int id = match.getValue();
+                s.touch(id);
+                s.codeScore[id] = match.getKey().equals(code) ? CODE_EXACT : CODE_PREFIX;
+            }
+
+            // Every query word starts some word of the name
+            int nameMatches = 0;
+            for (int w = 0; w < queryWords.length; w++) {
+                for (IntList ids : words.subMap(queryWords[w], true, queryWords[w] + RANGE_END, false).values()) {
+                    for (int i = 0; i < ids.size; i++) {
+                        int id = ids.values[i];
+                        s.touch(id);
+                        if (s.lastWord[id] != w + 1) {
+                            s.lastWord[id] = w + 1;
+                            if (++s.wordHits[id] == queryWords.length) {
+                                nameMatches++;
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Names starting with the whole query rank first among name hits
+            if (nameMatches > 0) {
+                for (IntList ids : names.subMap(normalized, true, normalized + RANGE_END, false).values()) {
+                    for (int i = 0; i < ids.size; i++) {
+                        s.touch(ids.values[i]);
+                        s.nameStart[ids.values[i]] = true;
+                    }
+                }
+            }
+
+            // Shared trigrams, for typos; fuzzy hits rank below name hits, so
+            // they are only needed when there are too few of those
+            int queryGrams = 0;
+            if (normalized.length() >= MIN_FUZZY_LENGTH && nameMatches < limit) {
+                Set<String> grams = trigramsOf(queryWords);
+                queryGrams = grams.size();
+                for (String gram : grams) {
+                    IntList ids = trigrams.get(gram);
+                    if (ids == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < ids.size; i++) {
+                        int id = ids.values[i];
+                        s.touch(id);
+                        s.gramHits[id]++;
+                    }
+                }
+            }
+
+            PriorityQueue<Result> best = new PriorityQueue<>(limit + 1, Result.WORST_FIRST);
+            for (int i = 0; i < s.touched.size; i++) {
+                int id = s.touched.values[i];
+                int score = s.codeScore[id];
+                String match = "code";
+                if (score == 0 && s.wordHits[id] == queryWords.length) {
+                    score = s.nameStart[id] ? NAME_PREFIX : NAME_WORDS;
+                    match = "name";
+                }
+                if (score == 0 && queryGrams > 0) {
+                    double similarity = 2.0 * s.gramHits[id] / (queryGrams + trigramCounts[id]);
+                    if (similarity >= MIN_SIMILARITY) {
+                        score = (int) (FUZZY_MAX * similarity);
+                        match = "fuzzy";
+                    }
+                }
+                if (score == 0) {
+                    continue;
+                }
+                if (best.size() < limit || ranksAbove(score, id, best.peek())) {
+                    best.add(new Result(entries.get(id), score, match));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+
+            while (!best.isEmpty()) {
+                results.add(best.poll());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Collections.reverse(results);
+        searches.increment();
+        searchNanos.add(System.nanoTime() - start);
+        return results;
+    }
+
+    /**
+     * Bring the index up to the inventory's catalog version
+     */
+    private void sync() {
+        if (version == inventoryService.getCatalogVersion()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (version == inventoryService.getCatalogVersion()) {
+                return;
+            }
+            long start = System.nanoTime();
+            ConcurrentInventoryService.CatalogDelta delta = inventoryService.getCatalogChanges(Math.max(version, 0));
+            if (version < 0 || delta.isFull()) {
+                clear();
+                for (Product product : delta.getChanged()) {
+                    add(product);
+                }
+                logger.info(String.format("Search index built: %d products, %d words, %d trigrams, %d ms",
+                        idsByCode.size(), words.size(), trigrams.size(), (System.nanoTime() - start) / 1_000_000));
+            } else {
+                for (String code : delta.getDeleted()) {
+                    remove(code);
+                }
+                for (Product product : delta.getChanged()) {
+                    remove(product.getCode());
+                    add(product);
+                }
+            }
+            version = delta.getVersion();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        entries.clear();
+        freeIds.clear();
+        idsByCode.clear();
+        codes.clear();
+        words.clear();
+        names.clear();
+        trigrams.clear();
+    }
+
+    private void add(Product product) {
+        Entry entry = new Entry(product);
+        int id;
+        if (freeIds.isEmpty()) {
+            id = entries.size();
+            entries.add(entry);
+        } else {
+            id = freeIds.pop();
+            entries.set(id, entry);
+        }
+        if (id >= nameLengths.length) {
+            int capacity = Math.max(16, id * 2);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+            trigramCounts = Arrays.copyOf(trigramCounts, capacity);
+        }
+        nameLengths[id] = entry.name.length();
+        trigramCounts[id] = entry.trigrams.length;
+        idsByCode.put(product.getCode(), id);
+        codes.put(entry.lowerCode, id);
+        names.computeIfAbsent(entry.normalizedName, k -> new IntList()).add(id);
+        for (String word : entry.words) {
+            words.computeIfAbsent(word, k -> new IntList()).add(id);
+        }
+        for (String gram : entry.trigrams) {
+            trigrams.computeIfAbsent(gram, k -> new IntList()).add(id);
+        }
+    }
+
+    private void remove(String code) {
+        Integer id = idsByCode.remove(code);
+        if (id == null) {
+            return;
+        }
+        Entry entry = entries.get(id);
+        codes.remove(entry.lowerCode);
+        removePosting(names, entry.normalizedName, id);
+        for (String word : entry.words) {
+            removePosting(words, word, id);
+        }
+        for (String gram : entry.trigrams) {
+            removePosting(trigrams, gram, id);
+        }
+        entries.set(id, null);
+        freeIds.push(id);
+    }
+
+    /**
+     * Higher score, then shorter name, then lower code
+     */
+    private boolean ranksAbove(int score, int id, Result other) {
+        if (score != other.score) {
+            return score > other.score;
+        }
+        if (nameLengths[id] != other.name.length()) {
+            return nameLengths[id] < other.name.length();
+        }
+        return entries.get(id).code.compareTo(other.itemCode) < 0;
+    }
+
+    private static void removePosting(Map<String, IntList> index, String key, int id) {
+        IntList ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.size == 0) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Lower case, letters and digits only, single spaces
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                out.append(' ');
+                space = true;
+            }
+        }
+        int length = out.length();
+        if (length > 0 && out.charAt(length - 1) == ' ') {
+            out.setLength(length - 1);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Trigrams of each word padded with a space on both sides, so word starts and ends count
+     */
+    static Set<String> trigramsOf(String[] words) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : words) {
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * @return Indexed products, index sizes, version, search count and mean latency
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("products", idsByCode.size());
+            stats.put("words", words.size());
+            stats.put("trigrams", trigrams.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long count = searches.sum();
+        stats.put("version", version);
+        stats.put("searches", count);
+        stats.put("meanMicros", count > 0 ? searchNanos.sum() / 1000.0 / count : 0.0);
+        return stats;
+    }
+
+    /**
+     * Indexed copy of the fields the billing page shows
+     */
+    private static final class Entry {
+        private final String code;
+        private final String lowerCode;
+        private final String name;
+        private final String normalizedName;
+        private final String category;
+        private final double price;
+        private final int quantityOnShelf;
+        private final String[] words;
+        private final String[] trigrams;
+
+        private Entry(Product product) {
+            this.code = product.getCode();
+            this.lowerCode = code.toLowerCase(Locale.ROOT);
+            this.name = product.getName();
+            this.normalizedName = normalize(name);
+            this.category = product.getCategory();
+            this.price = product.getPrice();
+            this.quantityOnShelf = product.getQuantityOnShelf();
+            this.words = normalizedName.isEmpty()
+                    ? new String[0]
+                    : new LinkedHashSet<>(Arrays.asList(normalizedName.split(" "))).toArray(new String[0]);
+            this.trigrams = trigramsOf(words).toArray(new String[0]);
+        }
+    }
+
+    /**
+     * One search hit, serialized as is for the billing page
+     */
+    public static final class Result {
+        private static final Comparator<Result> WORST_FIRST = Comparator
+                .comparingInt((Result r) -> r.score)
+                .thenComparing((Result r) -> r.name.length(), Comparator.reverseOrder())
+                .thenComparing((Result r) -> r.itemCode, Comparator.reverseOrder());
+
+        private final String itemCode;
+        private final String name;
+        private final String category;
+        private final double price;
+        private final int quantityOnShelf;
+        private final String match;
+        private final transient int score;
+
+        private Result(Entry entry, int score, String match) {
+            this.itemCode = entry.code;
+            this.name = entry.name;
+            this.category = entry.category;
+            this.price = entry.price;
+            this.quantityOnShelf = entry.quantityOnShelf;
+            this.match = match;
+            this.score = score;
+        }
+
+        public String getItemCode() { return itemCode; }
+        public String getName() { return name; }
+        public String getMatch() { return match; }
+        public int getScore() { return score; }
+    }
+
+    /**
+     * Growable list of product ids
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-thread counters indexed by product id, reused between searches.
+     * Only the ids touched by the previous search are cleared.
+     */
+    private static final class Scratch {
+        private int[] codeScore = new int[0];
+        private int[] wordHits = new int[0];
+        private int[] lastWord = new int[0];
+        private int[] gramHits = new int[0];
+        private boolean[] nameStart = new boolean[0];
+        private boolean[] seen = new boolean[0];
+        private final IntList touched = new IntList();
+
+        private void reset(int capacity) {
+            if (codeScore.length < capacity) {
+                codeScore = new int[capacity];
+                wordHits = new int[capacity];
+                lastWord = new int[capacity];
+                gramHits = new int[capacity];
+                nameStart = new boolean[capacity];
+                seen = new boolean[capacity];
+                touched.size = 0;
+                return;
+            }
+            for (int i = 0; i < touched.size; i++) {
+                int id = touched.values[i];
+                codeScore[id] = 0;
+                wordHits[id] = 0;
+                lastWord[id] = 0;
+                gramHits[id] = 0;
+                nameStart[id] = false;
+                seen[id] = false;
+            }
+            touched.size = 0;
+        }
+
+        private void touch(int id) {
+            if (!seen[id]) {
+                seen[id] = true;
+                touched.add(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.syos.web.service;
+
+import com.syos.shared.export.ExportFormat;
+import com.syos.shared.export.ReportExporter;
+import com.syos.shared.export.ReportTable;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Directory of pre-generated report files
+ *
+ * Files are named {@code <report>_<yyyy-MM-dd>_v<version>.<ext>}. Every generation
+ * run of a report for a day gets the next version, shared by all its formats, so a
+ * stored file never changes once written and can be cached by clients.
+ * Files are written under a temporary name and moved into place, so downloads
+ * never see a partially written report.
+ */
+public class ReportArchive {
+
+    private static final Pattern FILE_NAME = Pattern.compile(
+            "([a-z][a-z_]*)_(\\d{4}-\\d{2}-\\d{2})_v(\\d+)\\.([a-z]+)");
+    private static final String TEMP_SUFFIX = ".part";
+
+    private final Path directory;
+
+    public ReportArchive(Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Write one report in every export format under the next version for its day
+     * @param reportName Lower-case report name, e.g. "daily_sales"
+     * @return The stored files
+     */
+    public synchronized List<Path> store(String reportName, LocalDate date, ReportTable table) throws IOException {
+        Files.createDirectories(directory);
+        int version = latestVersion(reportName, date) + 1;
+
+        List<Path> stored = new ArrayList<>();
+        for (ExportFormat format : ExportFormat.values()) {
+            String fileName = reportName + "_" + date + "_v" + version + "." + format.getExtension();
+            Path temp = directory.resolve(fileName + TEMP_SUFFIX);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ReportExporter.export(table, format, false, channel);
+                channel.force(false);
+            }
+            stored.add(Files.move(temp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE));
+        }
+        return stored;
+    }
+
+    /**
+     * @return All stored reports, newest day and version first
+     */
+    public List<ArchivedReport> list() throws IOException {
+        List<ArchivedReport> reports = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return reports;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                ArchivedReport report = ArchivedReport.parse(file);
+                if (report != null) {
+                    reports.add(report);
+                }
+            }
+        }
+        reports.sort(Comparator.comparing((ArchivedReport r) -> r.date).reversed()
+                .thenComparing(r -> r.reportName)
+                .thenComparing(Comparator.comparingInt((ArchivedReport r) -> r.version).reversed())
+                .thenComparing(r -> r.fileName));
+        return reports;
+    }
+
+    /**
+     * Resolve a file name from a request to a stored report
+     * @return The file, or null if the name is not an archived report or does not exist
+     */
+    public Path resolve(String fileName) {
+        if (fileName == null || !FILE_NAME.matcher(fileName).matches()) {
+            return null;
+        }
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.getParent().equals(directory) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * @return The newest version of a report for a day in the given format, or null
+     */
+    public Path latest(String reportName, LocalDate date, ExportFormat format) throws IOException {
+        int version = latestVersion(reportName, date);
+        if (version == 0) {
+            return null;
+        }
+        return resolve(reportName + "_" + date + "_v" + version + "." + format.getExtension());
+    }
+
+    private int latestVersion(String reportName, LocalDate date) throws IOException {
+        int latest = 0;
+        if (!Files.isDirectory(directory)) {
+            return latest;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, reportName + "_" + date + "_v*")) {
+            for (Path file : files) {
+                ArchivedReport report = ArchivedReport.parse(file);
+                if (report != null && report.reportName.equals(reportName)) {
+                    latest = Math.max(latest, report.version);
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * One stored report file
+     */
+    public static final class ArchivedReport {
+        private final String fileName;
+        private final String reportName;
+        private final LocalDate date;
+        private final int version;
+        private final String format;
+        private final long size;
+        private final long lastModified;
+
+        private ArchivedReport(String fileName, String reportName, LocalDate date, int version,
+                               String format, long size, long lastModified) {
+            this.fileName = fileName;
+            this.reportName = reportName;
+            this.date = date;
+            this.version = version;
+            this.format = format;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        private static ArchivedReport parse(Path file) throws IOException {
+            String fileName = file.getFileName().toString();
+            Matcher matcher = FILE_NAME.matcher(fileName);
+            if (!matcher.matches() || !Files.isRegularFile(file)) {
+                return null;
+            }
+            return new ArchivedReport(fileName, matcher.group(1), LocalDate.parse(matcher.group(2)),
+                    Integer.parseInt(matcher.group(3)), matcher.group(4),
+                    Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getReportName() {
+            return reportName;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
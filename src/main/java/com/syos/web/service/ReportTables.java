@@ -0,0 +1,220 @@
+package com.syos.web.service;
+
+import com.syos.shared.export.ReportColumn;
+import com.syos.shared.export.ReportTable;
+import com.syos.web.model.Product;
+import com.syos.web.model.Sale;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds exportable ReportTables from the data the web reports already load
+ * Each table is computed once and can be written in any ExportFormat.
+ */
+public final class ReportTables {
+
+    private ReportTables() {
+    }
+
+    /**
+     * @param report Result of ConcurrentSalesService.getDailySalesReport
+     */
+    @SuppressWarnings("unchecked")
+    public static ReportTable dailySales(Map<String, Object> report) {
+        Date date = (Date) report.get("date");
+        ReportTable.Builder table = new ReportTable.Builder(
+                "Daily Sales Report - " + new SimpleDateFormat("yyyy-MM-dd").format(date), "DAILY_SALES")
+                .column(ReportColumn.text("saleNumber", "Sale Number", 20))
+                .column(ReportColumn.text("time", "Time", 8))
+                .column(ReportColumn.number("cashierId", "Cashier", 8))
+                .column(ReportColumn.text("paymentMethod", "Payment", 10))
+                .column(ReportColumn.text("status", "Status", 10))
+                .column(ReportColumn.number("discount", "Discount", 10))
+                .column(ReportColumn.number("tax", "Tax", 10))
+                .column(ReportColumn.number("total", "Total", 12));
+
+        SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss");
+        for (Sale sale : (List<Sale>) report.get("sales")) {
+            table.row(sale.getSaleNumber(),
+                    sale.getCreatedAt() != null ? time.format(sale.getCreatedAt()) : null,
+                    sale.getCashierId(),
+                    sale.getPaymentMethod(),
+                    sale.getStatus(),
+                    money(sale.getDiscount()),
+                    money(sale.getTaxAmount()),
+                    money(sale.getTotalAmount()));
+        }
+
+        return table.summary("Total Transactions", report.get("totalTransactions"))
+                .summary("Completed Transactions", report.get("completedTransactions"))
+                .summary("Cancelled Transactions", report.get("cancelledTransactions"))
+                .summary("Total Revenue", money(report.get("totalRevenue")))
+                .summary("Total Discount", money(report.get("totalDiscount")))
+                .summary("Total Tax", money(report.get("totalTax")))
+                .summary("Net Revenue", money(report.get("netRevenue")))
+                .summary("Average Transaction", money(report.get("averageTransaction")))
+                .build();
+    }
+
+    public static ReportTable stock(List<Product> products) {
+        ReportTable.Builder table = productColumns(new ReportTable.Builder("Current Stock Report", "STOCK_REPORT"));
+
+        // Statistics come from the same product list, in the same pass
+        int totalStockInStore = 0;
+        int totalStockOnShelf = 0;
+        int lowStockCount = 0;
+        long totalValueCents = 0;
+        for (Product product : products) {
+            addProductRow(table, product);
+            totalStockInStore += product.getQuantityInStore();
+            totalStockOnShelf += product.getQuantityOnShelf();
+            if (product.needsReorder()) {
+                lowStockCount++;
+            }
+            totalValueCents += Math.round(product.getPrice() * 100) * product.getTotalStock();
+        }
+
+        return table.summary("Total Products", products.size())
+                .summary("Total Stock In Store", totalStockInStore)
+                .summary("Total Stock On Shelf", totalStockOnShelf)
+                .summary("Total Value", BigDecimal.valueOf(totalValueCents, 2))
+                .summary("Low Stock Products", lowStockCount)
+                .build();
+    }
+
+    public static ReportTable reorder(List<Product> lowStockProducts) {
+        ReportTable.Builder table = productColumns(new ReportTable.Builder("Reorder Level Report", "REORDER_REPORT"))
+                .column(ReportColumn.number("suggestedOrder", "Suggested", 10));
+        for (Product product : lowStockProducts) {
+            table.row(product.getCode(), product.getName(), product.getCategory(), product.getState(),
+                    product.getQuantityInStore(), product.getQuantityOnShelf(), product.getReorderLevel(),
+                    money(product.getPrice()),
+                    Math.max(0, product.getReorderLevel() * 2 - product.getTotalStock()));
+        }
+        return table.summary("Products requiring reorder", lowStockProducts.size()).build();
+    }
+
+    /**
+     * Products expiring within {@code days} days, soonest first, with the same
+     * urgency rules as the console reshelve report
+     */
+    public static ReportTable reshelve(List<Product> products, int days) {
+        LocalDate today = LocalDate.now();
+        List<Product> expiring = new ArrayList<>();
+        for (Product product : products) {
+            if (product.getExpiryDate() == null || product.getQuantityOnShelf() <= 0) {
+                continue;
+            }
+            long daysLeft = ChronoUnit.DAYS.between(today, toLocalDate(product.getExpiryDate()));
+            if (daysLeft >= 0 && daysLeft <= days) {
+                expiring.add(product);
+            }
+        }
+        expiring.sort(Comparator.comparing(Product::getExpiryDate));
+
+        ReportTable.Builder table = new ReportTable.Builder("Items to Reshelve Report", "RESHELVE_REPORT")
+                .column(ReportColumn.text("code", "Code", 12))
+                .column(ReportColumn.text("name", "Name", 28))
+                .column(ReportColumn.number("quantityOnShelf", "On Shelf", 9))
+                .column(ReportColumn.text("expiryDate", "Expiry Date", 12))
+                .column(ReportColumn.number("daysLeft", "Days Left", 10))
+                .column(ReportColumn.text("action", "Action", 12));
+
+        int critical = 0;
+        int high = 0;
+        for (Product product : expiring) {
+            LocalDate expiryDate = toLocalDate(product.getExpiryDate());
+            long daysLeft = ChronoUnit.DAYS.between(today, expiryDate);
+            String action;
+            if (daysLeft <= 1) {
+                action = "REMOVE";
+                critical++;
+            } else if (daysLeft <= 3) {
+                action = "MOVE FRONT";
+                high++;
+            } else {
+                action = "ROTATE";
+            }
+            table.row(product.getCode(), product.getName(), product.getQuantityOnShelf(), expiryDate, daysLeft, action);
+        }
+
+        return table.summary("Total items requiring attention", expiring.size())
+                .summary("Critical (Remove)", critical)
+                .summary("High Priority (Front)", high)
+                .summary("Medium Priority (Rotate)", expiring.size() - critical - high)
+                .summary("Days threshold", days)
+                .build();
+    }
+
+    /**
+     * @param topProducts Rows from ConcurrentSalesService.getTopSellingProducts
+     * @param statistics Result of ConcurrentSalesService.getSalesStatistics for the same window
+     */
+    public static ReportTable topSelling(int days, List<Map<String, Object>> topProducts,
+                                         Map<String, Object> statistics) {
+        ReportTable.Builder table = new ReportTable.Builder("Top Selling Products - Last " + days + " Days", "TOP_SELLING")
+                .column(ReportColumn.number("rank", "Rank", 4))
+                .column(ReportColumn.text("itemCode", "Item Code", 15))
+                .column(ReportColumn.text("itemName", "Item Name", 30))
+                .column(ReportColumn.number("totalQuantity", "Quantity", 10))
+                .column(ReportColumn.number("numSales", "Sales", 8))
+                .column(ReportColumn.number("totalRevenue", "Revenue", 12));
+
+        int rank = 1;
+        for (Map<String, Object> row : topProducts) {
+            table.row(rank++, row.get("itemCode"), row.get("itemName"), row.get("totalQuantity"),
+                    row.get("numSales"), money(row.get("totalRevenue")));
+        }
+
+        return table.summary("Days", days)
+                .summary("Total Revenue", money(statistics.get("totalRevenue")))
+                .summary("Total Transactions", statistics.get("totalTransactions"))
+                .summary("Average Transaction", money(statistics.get("averageTransaction")))
+                .build();
+    }
+
+    private static ReportTable.Builder productColumns(ReportTable.Builder table) {
+        return table.column(ReportColumn.text("code", "Code", 12))
+                .column(ReportColumn.text("name", "Name", 28))
+                .column(ReportColumn.text("category", "Category", 12))
+                .column(ReportColumn.text("state", "State", 10))
+                .column(ReportColumn.number("quantityInStore", "In Store", 9))
+                .column(ReportColumn.number("quantityOnShelf", "On Shelf", 9))
+                .column(ReportColumn.number("reorderLevel", "Reorder", 8))
+                .column(ReportColumn.number("price", "Price", 10));
+    }
+
+    private static void addProductRow(ReportTable.Builder table, Product product) {
+        table.row(product.getCode(), product.getName(), product.getCategory(), product.getState(),
+                product.getQuantityInStore(), product.getQuantityOnShelf(), product.getReorderLevel(),
+                money(product.getPrice()));
+    }
+
+    /**
+     * Works for java.sql.Date too, whose toInstant() is unsupported
+     */
+    private static LocalDate toLocalDate(Date date) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * Web amounts are doubles; exports show them as exact two-decimal values
+     */
+    private static BigDecimal money(Object amount) {
+        if (amount == null) {
+            return null;
+        }
+        return BigDecimal.valueOf(((Number) amount).doubleValue()).setScale(2, RoundingMode.HALF_UP);
+    }
+}
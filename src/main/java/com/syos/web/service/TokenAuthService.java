@@ -0,0 +1,264 @@
+package com.syos.web.service;
+
+import com.syos.pos.model.Role;
+import com.syos.web.model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * STATELESS TOKEN AUTHENTICATION
+ * ============================================
+ *
+ * Optional replacement for the container session. After login the user gets a
+ * compact token, HMAC-SHA256 signed with a secret shared by all nodes:
+ *
+ *   base64url(v2|id|role|issuedAtMillis|expiresAt|tokenId|username|fullName) . base64url(hmac)
+ *
+ * Any node verifies it with no session and no database access, so requests can
+ * be balanced round-robin.
+ *
+ * REVOCATION:
+ * - Logout puts the token id on an in-memory denylist until the token expires
+ * - revokeUser rejects every token of a user issued before the call; issue
+ *   times are kept in milliseconds so a token issued right after a role change
+ *   in the same second still passes
+ * - The denylist is per node; keep token lifetimes short when running several
+ *
+ * Disabled unless configured (auth.mode = token in web.xml).
+ *
+ * ============================================
+ */
+public class TokenAuthService {
+
+    private static final Logger logger = Logger.getLogger(TokenAuthService.class.getName());
+
+    public static final String COOKIE_NAME = "SYOS_AUTH";
+    private static final String VERSION = "v2";
+    private static final String HMAC = "HmacSHA256";
+
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final Base64.Decoder decoder = Base64.getUrlDecoder();
+
+    // Revoked token id -> its expiry (epoch seconds)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // User id -> tokens issued at or before this time (epoch milliseconds) are rejected
+    private final Map<Long, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private volatile SecretKeySpec key;
+    private volatile long ttlSeconds;
+
+    // Singleton instance
+    private static volatile TokenAuthService instance;
+    private static final Object instanceLock = new Object();
+
+    private TokenAuthService() {
+    }
+
+    /**
+     * Get singleton instance (thread-safe)
+     */
+    public static TokenAuthService getInstance() {
+        if (instance == null) {
+            synchronized (instanceLock) {
+                if (instance == null) {
+                    instance = new TokenAuthService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Turn on token authentication
+     * @param secret Signing secret shared by all nodes, or null for a random one (single node only)
+     * @param ttlSeconds Token lifetime
+     */
+    public void enable(String secret, long ttlSeconds) {
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            secretBytes = new byte[32];
+            random.nextBytes(secretBytes);
+            logger.warning("No auth.tokenSecret configured; tokens are only valid on this node until restart");
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.ttlSeconds = ttlSeconds;
+        this.key = new SecretKeySpec(secretBytes, HMAC);
+        logger.info("Stateless token authentication enabled, tokens valid for " + ttlSeconds + " s");
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * @return A signed token for the user
+     */
+    public String issue(User user) {
+        long nowMillis = System.currentTimeMillis();
+        long now = nowMillis / 1000;
+        byte[] tokenId = new byte[9];
+        random.nextBytes(tokenId);
+
+        String payload = String.join("|",
+                VERSION,
+                Long.toString(user.getId()),
+                user.getRole().name(),
+                Long.toString(nowMillis),
+                Long.toString(now + ttlSeconds),
+                encoder.encodeToString(tokenId),
+                encode(user.getUsername()),
+                encode(user.getFullName()));
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Check signature, expiry and revocation
+     * @return A User carrying id, username, full name and role, or null if the token is not valid
+     */
+    public User verify(String token) {
+        SecretKeySpec currentKey = key;
+        if (currentKey == null || token == null) {
+            return null;
+        }
+        Claims claims = parse(token);
+        if (claims == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis() / 1000;
+        if (claims.expiresAt <= now || revokedTokens.containsKey(claims.tokenId)) {
+            return null;
+        }
+        Long revokedBefore = revokedUsers.get(claims.userId);
+        if (revokedBefore != null && claims.issuedAtMillis <= revokedBefore) {
+            return null;
+        }
+
+        User user = new User();
+        user.setId(claims.userId);
+        user.setUsername(claims.username);
+        user.setFullName(claims.fullName);
+        user.setRole(claims.role);
+        user.setActive(true);
+        return user;
+    }
+
+    /**
+     * Reject this token from now on
+     */
+    public void revoke(String token) {
+        Claims claims = parse(token);
+        if (claims != null) {
+            revokedTokens.put(claims.tokenId, claims.expiresAt);
+            pruneRevoked();
+        }
+    }
+
+    /**
+     * Reject every token issued to the user so far, e.g. after deactivation or a role change
+     */
+    public void revokeUser(long userId) {
+        revokedUsers.put(userId, System.currentTimeMillis());
+    }
+
+    /**
+     * @return Number of tokens on the denylist
+     */
+    public int getRevokedCount() {
+        return revokedTokens.size();
+    }
+
+    private Claims parse(String token) {
+        SecretKeySpec currentKey = key;
+        int dot = token.indexOf('.');
+        if (currentKey == null || dot <= 0) {
+            return null;
+        }
+        try {
+            byte[] payloadBytes = decoder.decode(token.substring(0, dot));
+            byte[] signature = decoder.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return null;
+            }
+
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", -1);
+            if (fields.length != 8 || !VERSION.equals(fields[0])) {
+                return null;
+            }
+            Claims claims = new Claims();
+            claims.userId = Long.parseLong(fields[1]);
+            claims.role = Role.valueOf(fields[2]);
+            claims.issuedAtMillis = Long.parseLong(fields[3]);
+            claims.expiresAt = Long.parseLong(fields[4]);
+            claims.tokenId = fields[5];
+            claims.username = decode(fields[6]);
+            claims.fullName = decode(fields[7]);
+            return claims;
+        } catch (IllegalArgumentException e) {
+            // Bad base64, number or role
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Drop denylist entries whose tokens have expired anyway
+     */
+    private void pruneRevoked() {
+        long now = System.currentTimeMillis() / 1000;
+        for (Iterator<Long> it = revokedTokens.values().iterator(); it.hasNext(); ) {
+            if (it.next() <= now) {
+                it.remove();
+            }
+        }
+        long oldestValid = (now - ttlSeconds) * 1000;
+        revokedUsers.values().removeIf(revokedAt -> revokedAt < oldestValid);
+    }
+
+    private static String encode(String value) {
+        return value == null ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Claims {
+        private long userId;
+        private Role role;
+        private long issuedAtMillis;
+        private long expiresAt;
+        private String tokenId;
+        private String username;
+        private String fullName;
+    }
+}
@@ -1,8 +1,13 @@
 package com.syos.web.servlet;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.syos.web.model.Product;
+import com.syos.web.model.StockAdjustment;
+import com.syos.web.model.User;
 import com.syos.web.service.ConcurrentInventoryService;
 import com.syos.web.exception.ConcurrencyException;
+import com.syos.web.exception.InsufficientStockException;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -11,14 +16,23 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.sql.Date;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class AdminProductServlet extends HttpServlet {
 
+    private static final long LIST_TIMEOUT_MILLIS = 10_000;
+    private static final int MAX_BULK_ADJUSTMENTS = 5000;
+
     private ConcurrentInventoryService inventoryService;
+    private Gson gson;
 
     @Override
     public void init() throws ServletException {
         inventoryService = ConcurrentInventoryService.getInstance();
+        gson = new Gson();
     }
 
     @Override
@@ -64,6 +78,8 @@ public class AdminProductServlet extends HttpServlet {
                 updateProduct(request, response);
             } else if ("updateStock".equals(action)) {
                 updateStock(request, response);
+            } else if ("bulkUpdateStock".equals(action)) {
+                bulkUpdateStock(request, response);
             }
         } catch (SQLException | ConcurrencyException e) {
             request.setAttribute("error", e.getMessage());
@@ -71,12 +87,17 @@ public class AdminProductServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Runs on the LISTINGS workload pool, off the request thread
+     */
     private void listProducts(HttpServletRequest request, HttpServletResponse response)
-            throws ServletException, IOException, SQLException {
+            throws ServletException, IOException {
 
-        var products = inventoryService.getAllProducts();
-        request.setAttribute("products", products);
-        request.getRequestDispatcher("/admin/products-list.jsp").forward(request, response);
+        AsyncWorkload.LISTINGS.submit(request, response, LIST_TIMEOUT_MILLIS, job -> {
+            var products = inventoryService.getAllProducts();
+            request.setAttribute("products", products);
+            return "/admin/products-list.jsp";
+        });
     }
 
     private void showAddForm(HttpServletRequest request, HttpServletResponse response)
@@ -193,6 +214,84 @@ public class AdminProductServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Many stock changes in one transaction, e.g. a whole delivery
+     * POST /admin/products?action=bulkUpdateStock with a JSON body:
+     * {"reference": "...", "notes": "...", "adjustments": [{"code", "quantity", "changeType"}, ...]}
+     * Answers JSON: the updated products, or an error (400 invalid, 409 stock or conflict)
+     */
+    private void bulkUpdateStock(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, SQLException {
+
+        BulkStockRequest body;
+        try {
+            body = gson.fromJson(request.getReader(), BulkStockRequest.class);
+        } catch (JsonParseException e) {
+            sendJsonError(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid JSON body", null);
+            return;
+        }
+        if (body == null || body.adjustments == null || body.adjustments.isEmpty()) {
+            sendJsonError(response, HttpServletResponse.SC_BAD_REQUEST, "No adjustments given", null);
+            return;
+        }
+        if (body.adjustments.size() > MAX_BULK_ADJUSTMENTS) {
+            sendJsonError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "At most " + MAX_BULK_ADJUSTMENTS + " adjustments per request", null);
+            return;
+        }
+        String reference = (body.reference != null && !body.reference.isBlank())
+                ? body.reference.trim() : "BULK-" + System.currentTimeMillis();
+        if (reference.length() > 100) {
+            sendJsonError(response, HttpServletResponse.SC_BAD_REQUEST, "Reference longer than 100 characters", null);
+            return;
+        }
+
+        User user = (User) request.getSession().getAttribute("user");
+        List<Product> updated;
+        try {
+            updated = inventoryService.adjustStock(body.adjustments, user != null ? user.getId() : null,
+                    reference, body.notes);
+        } catch (IllegalArgumentException e) {
+            sendJsonError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), null);
+            return;
+        } catch (InsufficientStockException e) {
+            sendJsonError(response, HttpServletResponse.SC_CONFLICT, e.getMessage(), e.getProductCode());
+            return;
+        } catch (ConcurrencyException e) {
+            sendJsonError(response, HttpServletResponse.SC_CONFLICT, e.getMessage(), null);
+            return;
+        }
+
+        List<Map<String, Object>> products = new ArrayList<>(updated.size());
+        for (Product product : updated) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("code", product.getCode());
+            entry.put("quantityInStore", product.getQuantityInStore());
+            entry.put("quantityOnShelf", product.getQuantityOnShelf());
+            entry.put("version", product.getVersion());
+            products.add(entry);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reference", reference);
+        result.put("adjustments", body.adjustments.size());
+        result.put("products", products);
+
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write(gson.toJson(result));
+    }
+
+    private void sendJsonError(HttpServletResponse response, int status, String message, String code)
+            throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", message);
+        if (code != null) {
+            error.put("code", code);
+        }
+        response.setStatus(status);
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write(gson.toJson(error));
+    }
+
     private void deleteProduct(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException, SQLException {
 
@@ -205,4 +304,13 @@ public class AdminProductServlet extends HttpServlet {
             response.sendRedirect(request.getContextPath() + "/admin/products?error=Failed to delete product");
         }
     }
+
+    /**
+     * JSON body of bulkUpdateStock
+     */
+    private static class BulkStockRequest {
+        private String reference;
+        private String notes;
+        private List<StockAdjustment> adjustments;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,267 @@
+package com.syos.web.servlet;
+
+import com.syos.web.filter.CompressionFilter;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * ASYNC REQUEST WORKLOADS
+ * ============================================
+ *
+ * Database-heavy GET requests are handed to a small bounded pool per workload
+ * class, and the container thread goes back to serving requests straight away.
+ * Reports and listings each have their own pool, so a burst of slow reports can
+ * never take threads from listings, and neither touches the container threads
+ * checkout runs on.
+ *
+ * FALLBACKS (503 with Retry-After):
+ * - Pool and queue full: the request is refused at once instead of queueing
+ * - Timeout: the client gets the fallback; the late result is discarded
+ *
+ * The task returns the JSP to dispatch to, or null when it wrote the response
+ * itself. A task that streams must call Job.claimResponse() before writing.
+ * A compressed body is finished before the async context completes.
+ *
+ * ============================================
+ */
+public enum AsyncWorkload {
+
+    REPORTS("report-worker", 2, 8),
+    LISTINGS("listing-worker", 4, 32);
+
+    private static final Logger logger = Logger.getLogger(AsyncWorkload.class.getName());
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final String threadName;
+    private final int threads;
+    private final int queueCapacity;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private ThreadPoolExecutor executor;
+
+    AsyncWorkload(String threadName, int threads, int queueCapacity) {
+        this.threadName = threadName;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Work done off the container thread
+     */
+    @FunctionalInterface
+    interface Task {
+        /**
+         * @return JSP to dispatch to, or null if the response was written
+         */
+        String run(Job job) throws Exception;
+    }
+
+    /**
+     * Run the task on this workload's pool and release the container thread
+     *
+     * Falls back to running inline when a filter in the chain is not async-capable.
+     */
+    void submit(HttpServletRequest request, HttpServletResponse response, long timeoutMillis, Task task)
+            throws ServletException, IOException {
+
+        if (!request.isAsyncSupported()) {
+            Job job = new Job(request, response, null);
+            try {
+                job.finish(task.run(job));
+            } catch (ServletException | IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ServletException(e);
+            }
+            return;
+        }
+
+        AsyncContext context = request.startAsync(request, response);
+        context.setTimeout(timeoutMillis);
+        Job job = new Job(request, response, context);
+        context.addListener(job);
+
+        try {
+            executor().execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warning(name() + " pool saturated, refusing " + request.getRequestURI());
+            job.fallback("Server is busy, please retry shortly");
+        }
+    }
+
+    /**
+     * @return Pool size, queue depth and outcome counters
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        ThreadPoolExecutor current;
+        synchronized (this) {
+            current = executor;
+        }
+        stats.put("threads", threads);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("active", current != null ? current.getActiveCount() : 0);
+        stats.put("queued", current != null ? current.getQueue().size() : 0);
+        stats.put("completed", completed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    /**
+     * Stop every workload pool; running tasks are interrupted
+     */
+    public static void shutdownAll() {
+        for (AsyncWorkload workload : values()) {
+            workload.shutdown();
+        }
+    }
+
+    private synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, threadName + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private void run(Job job, Task task) {
+        try {
+            job.finish(task.run(job));
+            completed.increment();
+        } catch (Exception e) {
+            failed.increment();
+            logger.log(Level.SEVERE, name() + " request failed: " + job.request.getRequestURI(), e);
+            job.fail();
+        }
+    }
+
+    /**
+     * One async request; whichever of the worker and the timeout claims the
+     * response first is the only one to write it
+     */
+    final class Job implements AsyncListener {
+        private static final int PENDING = 0;
+        private static final int WORKER = 1;
+        private static final int FALLBACK = 2;
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final AsyncContext context;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Job(HttpServletRequest request, HttpServletResponse response, AsyncContext context) {
+            this.request = request;
+            this.response = response;
+            this.context = context;
+        }
+
+        /**
+         * @return true if the worker owns the response, false if the fallback was already sent
+         */
+        boolean claimResponse() {
+            return state.compareAndSet(PENDING, WORKER) || state.get() == WORKER;
+        }
+
+        private void finish(String view) throws ServletException, IOException {
+            if (!claimResponse()) {
+                return;
+            }
+            if (context == null) {
+                if (view != null) {
+                    request.getRequestDispatcher(view).forward(request, response);
+                }
+            } else if (view != null) {
+                context.dispatch(view);
+            } else {
+                CompressionFilter.finishResponse(request);
+                context.complete();
+            }
+        }
+
+        private void fail() {
+            if (!claimResponse()) {
+                return;
+            }
+            try {
+                if (!response.isCommitted()) {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Request failed");
+                }
+                CompressionFilter.finishResponse(request);
+            } catch (IOException | IllegalStateException e) {
+                logger.fine("Could not send error response: " + e.getMessage());
+            }
+            context.complete();
+        }
+
+        private void fallback(String message) throws IOException {
+            if (!state.compareAndSet(PENDING, FALLBACK)) {
+                return;
+            }
+            if (!response.isCommitted()) {
+                response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+            }
+            CompressionFilter.finishResponse(request);
+            context.complete();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            timedOut.increment();
+            logger.warning(name() + " request timed out: " + request.getRequestURI());
+            fallback("The request took too long, please retry shortly");
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Connection gone; stop the worker from writing
+            state.compareAndSet(PENDING, FALLBACK);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.syos.web.servlet;
+
+import com.syos.web.filter.CompressionFilter;
+import com.syos.web.service.ProductCatalog;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Product catalog for the billing terminals
+ *
+ * GET /catalog                          - {"epoch", "version", "full": true, "products": [...]}
+ * GET /catalog?since=VERSION&epoch=EPOCH - {"epoch", "version", "full": false, "products": [...], "deleted": [...]}
+ *
+ * The full catalog is copied from the pre-encoded ProductCatalog snapshot, gzipped
+ * when the client accepts it. Each version has a strong ETag, so a terminal whose
+ * copy is current gets 304 Not Modified with no body.
+ *
+ * With since, only products changed after that version and deleted codes are sent,
+ * so terminals can poll every few seconds. If the version cannot be served as a
+ * delta the answer is the full catalog, marked "full": true.
+ */
+public class CatalogServlet extends HttpServlet {
+
+    private ProductCatalog catalog;
+
+    @Override
+    public void init() throws ServletException {
+        catalog = ProductCatalog.getInstance();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        String since = request.getParameter("since");
+        if (since != null && !since.isEmpty()) {
+            sendChanges(request.getParameter("epoch"), since, response);
+            return;
+        }
+
+        ProductCatalog.Snapshot snapshot;
+        try {
+            snapshot = catalog.getSnapshot();
+        } catch (SQLException e) {
+            throw new ServletException("Database error", e);
+        }
+
+        // Same choice as CompressionFilter, which skips this response once Content-Encoding is set
+        boolean gzip = "gzip".equals(CompressionFilter.chooseEncoding(request.getHeader("Accept-Encoding")));
+        // Strong ETags must differ between the plain and the compressed body
+        String etag = gzip ? snapshot.getEtag().replaceFirst("\"$", "-gz\"") : snapshot.getEtag();
+
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("Vary", "Accept-Encoding");
+
+        if (matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = gzip ? snapshot.getGzipped() : snapshot.getPlain();
+        response.setContentType("application/json;charset=UTF-8");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void sendChanges(String epoch, String since, HttpServletResponse response)
+            throws ServletException, IOException {
+        long sinceVersion;
+        try {
+            sinceVersion = Long.parseLong(since);
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid catalog version");
+            return;
+        }
+
+        byte[] body;
+        try {
+            body = catalog.getChangesSince(epoch, sinceVersion);
+        } catch (SQLException e) {
+            throw new ServletException("Database error", e);
+        }
+
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * @param header If-None-Match value, a list of ETags or *
+     */
+    private boolean matches(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+package com.syos.web.servlet;
+
+import com.google.gson.Gson;
+import com.syos.web.service.ConcurrentSalesService;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Today's sales per 15-minute interval for intraday charts
+ *
+ * GET /reports/intraday             - total and per-cashier series
+ * GET /reports/intraday?cashier=ID  - one cashier
+ *
+ * Served from the in-memory IntradaySalesSeries; cost depends on the number
+ * of intervals, not the number of sales.
+ */
+public class IntradaySalesServlet extends HttpServlet {
+
+    private ConcurrentSalesService salesService;
+    private Gson gson = new Gson();
+
+    @Override
+    public void init() throws ServletException {
+        salesService = ConcurrentSalesService.getInstance();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        Long cashierId = null;
+        String cashierParam = request.getParameter("cashier");
+        if (cashierParam != null && !cashierParam.isEmpty()) {
+            try {
+                cashierId = Long.parseLong(cashierParam);
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cashier id");
+                return;
+            }
+        }
+
+        Map<String, Object> series;
+        try {
+            series = salesService.getIntradaySales(cashierId);
+        } catch (SQLException e) {
+            throw new ServletException("Database error", e);
+        }
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.getWriter().write(gson.toJson(series));
+    }
+}
@@ -0,0 +1,216 @@
+package com.syos.web.servlet;
+
+import com.google.gson.Gson;
+import com.syos.web.analytics.LiveSalesMetrics;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ============================================
+ * LIVE DASHBOARD BROADCASTER
+ * ============================================
+ *
+ * Pushes LiveSalesMetrics to every connected dashboard as Server-Sent Events.
+ *
+ * - One thread checks the metrics version every TICK_MILLIS; when it changed,
+ *   the snapshot is serialized once and the same bytes go to every client
+ * - Clients are written with non-blocking servlet I/O. A client that cannot
+ *   keep up only keeps the newest frame, so a slow connection never delays
+ *   the others and never builds a backlog
+ * - Idle connections get a comment line every HEARTBEAT_MILLIS so proxies
+ *   keep them open
+ *
+ * ============================================
+ */
+class LiveDashboardBroadcaster {
+
+    private static final Logger logger = Logger.getLogger(LiveDashboardBroadcaster.class.getName());
+
+    private static final long TICK_MILLIS = 1000;
+    private static final long HEARTBEAT_MILLIS = 15000;
+    private static final byte[] HEARTBEAT = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final LiveSalesMetrics metrics;
+    private final Gson gson = new Gson();
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executor;
+
+    private volatile byte[] currentFrame;
+    private volatile long broadcastVersion = -1;
+    private long lastSentAt;
+
+    LiveDashboardBroadcaster(LiveSalesMetrics metrics) {
+        this.metrics = metrics;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-dashboard-broadcaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Register an async request as a client and send it the current metrics
+     */
+    void register(AsyncContext context) throws IOException {
+        Client client = new Client(context);
+        context.addListener(client);
+        clients.add(client);
+        client.out.setWriteListener(client);
+
+        client.offer(currentFrame());
+        logger.fine("Live dashboard client connected, clients: " + clients.size());
+    }
+
+    int getClientCount() {
+        return clients.size();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        for (Client client : clients) {
+            client.close();
+        }
+        clients.clear();
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            if (metrics.getVersion() != broadcastVersion) {
+                byte[] frame = frame();
+                for (Client client : clients) {
+                    client.offer(frame);
+                }
+                lastSentAt = now;
+            } else if (now - lastSentAt >= HEARTBEAT_MILLIS) {
+                for (Client client : clients) {
+                    client.heartbeat();
+                }
+                lastSentAt = now;
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Live dashboard broadcast failed", e);
+        }
+    }
+
+    private byte[] currentFrame() {
+        byte[] frame = currentFrame;
+        return frame != null ? frame : frame();
+    }
+
+    /**
+     * Serialize the metrics as one SSE "metrics" event
+     */
+    private synchronized byte[] frame() {
+        long version = metrics.getVersion();
+        String json = gson.toJson(metrics.snapshot());
+        byte[] frame = ("retry: 3000\nevent: metrics\nid: " + version + "\ndata: " + json + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+        currentFrame = frame;
+        broadcastVersion = version;
+        return frame;
+    }
+
+    /**
+     * One connected dashboard
+     */
+    private final class Client implements WriteListener, AsyncListener {
+        private final AsyncContext context;
+        private final ServletOutputStream out;
+        // Newest frame not yet handed to the container; older ones are dropped
+        private byte[] pending;
+        private boolean closed;
+
+        private Client(AsyncContext context) throws IOException {
+            this.context = context;
+            this.out = context.getResponse().getOutputStream();
+        }
+
+        private synchronized void offer(byte[] frame) {
+            pending = frame;
+            drain();
+        }
+
+        private synchronized void heartbeat() {
+            if (pending == null) {
+                pending = HEARTBEAT;
+                drain();
+            }
+        }
+
+        private synchronized void drain() {
+            if (closed) {
+                return;
+            }
+            try {
+                while (pending != null && out.isReady()) {
+                    byte[] frame = pending;
+                    pending = null;
+                    out.write(frame);
+                    if (out.isReady()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            clients.remove(this);
+            try {
+                context.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the container
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            clients.remove(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // EventSource reconnects on its own
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.syos.web.servlet;
+
+import com.syos.web.analytics.LiveSalesMetrics;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Server-Sent Events feed of today's sales for the manager and admin dashboards
+ *
+ * GET /reports/live - text/event-stream of "metrics" events
+ *
+ * Metrics come from in-memory counters updated on sale commit, and a single
+ * broadcast serves every open dashboard, so connected clients add no database load.
+ */
+public class LiveDashboardServlet extends HttpServlet {
+
+    // Connections are recycled periodically; EventSource reconnects automatically
+    private static final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    private LiveDashboardBroadcaster broadcaster;
+
+    @Override
+    public void init() throws ServletException {
+        broadcaster = new LiveDashboardBroadcaster(LiveSalesMetrics.getInstance());
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        if (!request.isAsyncSupported()) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Async processing is not enabled");
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext context = request.startAsync();
+        context.setTimeout(STREAM_TIMEOUT_MILLIS);
+        broadcaster.register(context);
+    }
+
+    @Override
+    public void destroy() {
+        broadcaster.shutdown();
+    }
+}
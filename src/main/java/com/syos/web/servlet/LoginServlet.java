@@ -3,6 +3,8 @@ package com.syos.web.servlet;
 import com.syos.web.dao.UserDAO;
 import com.syos.web.model.User;
 import com.syos.pos.model.Role;
+import com.syos.web.service.TokenAuthService;
+import com.syos.web.util.AuthCookies;
 import com.syos.web.util.PasswordUtil;
 
 import javax.servlet.ServletException;
@@ -58,11 +60,17 @@ public class LoginServlet extends HttpServlet {
 
             userDAO.updateLastLogin(user.getId());
 
-            HttpSession session = request.getSession();
-            session.setAttribute("user", user);
-            session.setAttribute("userId", user.getId());
-            session.setAttribute("username", user.getUsername());
-            session.setAttribute("role", user.getRole());
+            TokenAuthService tokenAuth = TokenAuthService.getInstance();
+            if (tokenAuth.isEnabled()) {
+                // Stateless mode: the signed cookie replaces the session
+                AuthCookies.writeToken(request, response, tokenAuth.issue(user), tokenAuth.getTtlSeconds());
+            } else {
+                HttpSession session = request.getSession();
+                session.setAttribute("user", user);
+                session.setAttribute("userId", user.getId());
+                session.setAttribute("username", user.getUsername());
+                session.setAttribute("role", user.getRole());
+            }
 
             String redirectUrl = getRedirectUrlForRole(user.getRole());
             response.sendRedirect(request.getContextPath() + redirectUrl);
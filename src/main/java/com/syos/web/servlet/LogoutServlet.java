@@ -1,5 +1,8 @@
 package com.syos.web.servlet;
 
+import com.syos.web.service.TokenAuthService;
+import com.syos.web.util.AuthCookies;
+
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -13,6 +16,15 @@ public class LogoutServlet extends HttpServlet {
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
+        TokenAuthService tokenAuth = TokenAuthService.getInstance();
+        if (tokenAuth.isEnabled()) {
+            String token = AuthCookies.readToken(request);
+            if (token != null) {
+                tokenAuth.revoke(token);
+            }
+            AuthCookies.clearToken(request, response);
+        }
+
         HttpSession session = request.getSession(false);
         if (session != null) {
             session.invalidate();
@@ -0,0 +1,275 @@
+package com.syos.web.servlet;
+
+import com.syos.web.filter.AdmissionControlFilter;
+import com.syos.web.filter.AuthenticationFilter;
+import com.syos.web.filter.RouteTable;
+import com.syos.web.metrics.LatencyHistogram;
+import com.syos.web.metrics.PrometheusWriter;
+import com.syos.web.metrics.RequestMetrics;
+import com.syos.web.service.ConcurrentInventoryService;
+import com.syos.web.service.TokenAuthService;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Metrics in Prometheus text format
+ *
+ * GET /metrics - request latency histograms by servlet mapping, method and
+ *                status class, plus worker pools, admission control, product
+ *                cache, inventory lock and token revocation gauges
+ *
+ * The route is public to the authentication filter so a scraper needs no
+ * session. Instead every scrape must send "Authorization: Bearer <token>"
+ * with the token from SYOS_METRICS_TOKEN or the scrapeToken init-param; with
+ * no token configured the endpoint answers 404. The allowedAddresses
+ * init-param (loopback by default, "*" for any) narrows it further, but is not
+ * enough on its own: behind a reverse proxy on the same host every request
+ * arrives from loopback.
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private static final Logger logger = Logger.getLogger(MetricsServlet.class.getName());
+    private static final String DEFAULT_ALLOWED = "127.0.0.1,0:0:0:0:0:0:0:1,::1";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final Set<String> allowedAddresses = new HashSet<>();
+    private byte[] scrapeToken;
+    private RequestMetrics requestMetrics;
+    private ConcurrentInventoryService inventoryService;
+
+    @Override
+    public void init() throws ServletException {
+        String allowed = getInitParameter("allowedAddresses");
+        for (String address : (allowed != null ? allowed : DEFAULT_ALLOWED).split(",")) {
+            if (!address.trim().isEmpty()) {
+                allowedAddresses.add(address.trim());
+            }
+        }
+
+        // Prefer the environment so the token stays out of the war
+        String token = System.getenv("SYOS_METRICS_TOKEN");
+        if (token == null || token.isBlank()) {
+            token = getInitParameter("scrapeToken");
+        }
+        if (token == null || token.isBlank()) {
+            logger.warning("No metrics scrape token configured; /metrics is disabled");
+        } else {
+            scrapeToken = token.trim().getBytes(StandardCharsets.UTF_8);
+        }
+        requestMetrics = RequestMetrics.getInstance();
+        inventoryService = ConcurrentInventoryService.getInstance();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        if (scrapeToken == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!allowedAddresses.contains("*") && !allowedAddresses.contains(request.getRemoteAddr())) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        if (!hasScrapeToken(request)) {
+            response.setHeader("WWW-Authenticate", "Bearer realm=\"metrics\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        StringWriter body = new StringWriter(16384);
+        PrometheusWriter out = new PrometheusWriter(new PrintWriter(body));
+        writeRequests(out);
+        writeRoutes(out);
+        writeWorkloads(out);
+        writeAdmission(out);
+        writeInventory(out);
+        out.single("syos_auth_revoked_tokens", "gauge", "Signed tokens currently on the revocation list",
+                TokenAuthService.getInstance().getRevokedCount());
+
+        response.setContentType(PrometheusWriter.CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-cache");
+        response.getWriter().write(body.toString());
+    }
+
+    private boolean hasScrapeToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return false;
+        }
+        byte[] presented = header.substring(BEARER_PREFIX.length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(presented, scrapeToken);
+    }
+
+    private void writeRequests(PrometheusWriter out) {
+        String name = "syos_http_request_duration_seconds";
+        out.family(name, "histogram", "Request latency by servlet mapping, method and status class");
+        double[] bounds = LatencyHistogram.getBoundsSeconds();
+        String[] statusClasses = RequestMetrics.RouteLatency.getStatusClasses();
+        for (RequestMetrics.RouteLatency route : requestMetrics.getRoutes()) {
+            for (int i = 0; i < statusClasses.length; i++) {
+                LatencyHistogram histogram = route.getHistogram(i);
+                long[] counts = histogram.getCumulativeCounts();
+                long total = counts[counts.length - 1];
+                if (total == 0) {
+                    continue;
+                }
+                for (int b = 0; b < bounds.length; b++) {
+                    out.sample(name + "_bucket", counts[b],
+                            "route", route.getRoute(), "method", route.getMethod(), "status", statusClasses[i],
+                            "le", PrometheusWriter.format(bounds[b]));
+                }
+                out.sample(name + "_bucket", total,
+                        "route", route.getRoute(), "method", route.getMethod(), "status", statusClasses[i], "le", "+Inf");
+                out.sample(name + "_sum", histogram.getSumSeconds(),
+                        "route", route.getRoute(), "method", route.getMethod(), "status", statusClasses[i]);
+                out.sample(name + "_count", total,
+                        "route", route.getRoute(), "method", route.getMethod(), "status", statusClasses[i]);
+            }
+        }
+        out.single("syos_http_requests_in_flight", "gauge", "Requests currently being processed",
+                requestMetrics.getInFlight());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeRoutes(PrometheusWriter out) {
+        RouteTable table = (RouteTable) getServletContext().getAttribute(AuthenticationFilter.ROUTE_TABLE_ATTRIBUTE);
+        if (table == null) {
+            return;
+        }
+        Map<String, Object> stats = table.getStatistics();
+        List<Map<String, Object>> routes = (List<Map<String, Object>>) stats.get("routes");
+        String name = "syos_auth_decisions_total";
+        out.family(name, "counter", "Authorization decisions by route rule and outcome");
+        for (Map<String, Object> route : routes) {
+            String pattern = (String) route.get("pattern");
+            for (String outcome : new String[]{"allowed", "denied", "unauthenticated"}) {
+                out.sample(name, number(route.get(outcome)), "route", pattern, "outcome", outcome);
+            }
+        }
+        out.single("syos_auth_decision_mean_seconds", "gauge", "Mean time to match a route and decide",
+                number(stats.get("meanMicros")) / 1_000_000);
+        out.single("syos_auth_decision_max_seconds", "gauge", "Longest time to match a route and decide",
+                number(stats.get("maxMicros")) / 1_000_000);
+    }
+
+    private void writeWorkloads(PrometheusWriter out) {
+        String[][] series = {
+                {"threads", "gauge", "Worker threads per async pool"},
+                {"queueCapacity", "gauge", "Queue capacity per async pool"},
+                {"active", "gauge", "Tasks running per async pool"},
+                {"queued", "gauge", "Tasks waiting per async pool"},
+                {"completed", "counter", "Tasks completed per async pool"},
+                {"rejected", "counter", "Tasks refused because the pool was full"},
+                {"timedOut", "counter", "Tasks that passed their deadline"},
+                {"failed", "counter", "Tasks that threw"},
+        };
+        Map<AsyncWorkload, Map<String, Object>> stats = new EnumMap<>(AsyncWorkload.class);
+        for (AsyncWorkload workload : AsyncWorkload.values()) {
+            stats.put(workload, workload.getStatistics());
+        }
+        for (String[] s : series) {
+            String name = "syos_pool_" + snakeCase(s[0]) + ("counter".equals(s[1]) ? "_total" : "");
+            out.family(name, s[1], s[2]);
+            for (AsyncWorkload workload : AsyncWorkload.values()) {
+                out.sample(name, number(stats.get(workload).get(s[0])), "pool", workload.name().toLowerCase());
+            }
+        }
+    }
+
+    private void writeAdmission(PrometheusWriter out) {
+        AdmissionControlFilter filter = (AdmissionControlFilter) getServletContext().getAttribute(AdmissionControlFilter.ATTRIBUTE);
+        if (filter == null) {
+            return;
+        }
+        Map<String, Object> stats = filter.getStatistics();
+        out.single("syos_admission_limit", "gauge", "Current adaptive concurrency limit", number(stats.get("limit")));
+        out.single("syos_admission_in_flight", "gauge", "Requests holding an admission slot", number(stats.get("inFlight")));
+        out.single("syos_admission_failed_total", "counter", "Admitted requests that failed or timed out",
+                number(stats.get("failed")));
+        out.single("syos_admission_latency_short_seconds", "gauge", "Short moving average of admitted request latency",
+                number(stats.get("shortLatencyMillis")) / 1000);
+        out.single("syos_admission_latency_baseline_seconds", "gauge", "Long moving average of admitted request latency",
+                number(stats.get("baselineLatencyMillis")) / 1000);
+
+        out.family("syos_admission_requests_total", "counter", "Requests admitted or shed by priority class");
+        for (AdmissionControlFilter.Priority priority : AdmissionControlFilter.Priority.values()) {
+            String key = priority.name().toLowerCase();
+            out.sample("syos_admission_requests_total", number(stats.get(key + "Admitted")),
+                    "priority", key, "outcome", "admitted");
+            out.sample("syos_admission_requests_total", number(stats.get(key + "Shed")),
+                    "priority", key, "outcome", "shed");
+        }
+        out.single("syos_admission_rate_limited_total", "counter", "Requests refused by a cashier rate limit",
+                number(stats.get("cashierRateLimited")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeInventory(PrometheusWriter out) {
+        Map<String, Object> cache = inventoryService.getCacheStatistics();
+        if (!cache.isEmpty()) {
+            out.single("syos_product_cache_size", "gauge", "Products in the inventory cache", number(cache.get("cacheSize")));
+            out.single("syos_product_cache_hits_total", "counter", "Product cache hits", number(cache.get("totalHits")));
+            out.single("syos_product_cache_misses_total", "counter", "Product cache misses", number(cache.get("totalMisses")));
+
+            String name = "syos_inventory_operations_total";
+            out.family(name, "counter", "Inventory operations by kind");
+            Map<String, ConcurrentInventoryService.OperationMetrics> operations =
+                    (Map<String, ConcurrentInventoryService.OperationMetrics>) cache.get("operations");
+            for (Map.Entry<String, ConcurrentInventoryService.OperationMetrics> entry : operations.entrySet()) {
+                ConcurrentInventoryService.OperationMetrics metrics = entry.getValue();
+                out.sample(name, metrics.getReadCount(), "operation", entry.getKey(), "type", "read");
+                out.sample(name, metrics.getWriteCount(), "operation", entry.getKey(), "type", "write");
+                out.sample(name, metrics.getConflictCount(), "operation", entry.getKey(), "type", "conflict");
+            }
+        }
+        out.single("syos_catalog_version", "gauge", "Catalog change counter", inventoryService.getCatalogVersion());
+
+        Map<String, Object> codes = inventoryService.getCodeFilterStatistics();
+        String lookups = "syos_product_lookups_total";
+        out.family(lookups, "counter", "Product lookups by how unknown codes were answered");
+        out.sample(lookups, number(codes.get("filterRejected")), "outcome", "bloom_rejected");
+        out.sample(lookups, number(codes.get("negativeCacheHits")), "outcome", "negative_cache");
+        out.sample(lookups, number(codes.get("falsePositives")), "outcome", "false_positive");
+        out.sample(lookups, number(codes.get("lookups")), "outcome", "all");
+        out.single("syos_product_code_filter_false_positive_ratio", "gauge",
+                "Share of unknown codes the Bloom filter let through to the database",
+                number(codes.get("falsePositiveRate")));
+        out.single("syos_product_code_filter_expected_false_positive_ratio", "gauge",
+                "False positive probability expected from the Bloom filter's size and entries",
+                number(codes.get("expectedFalsePositiveRate")));
+        out.single("syos_product_negative_cache_size", "gauge", "Codes cached as recently missing",
+                number(codes.get("negativeCacheSize")));
+
+        Map<String, Object> lock = inventoryService.getLockStatistics();
+        out.single("syos_inventory_lock_read_holds", "gauge", "Read holds on the inventory cache lock",
+                number(lock.get("readHolds")));
+        out.single("syos_inventory_lock_write_locked", "gauge", "1 while the inventory cache lock is write-locked",
+                Boolean.TRUE.equals(lock.get("writeLocked")) ? 1 : 0);
+        out.single("syos_inventory_lock_queued_threads", "gauge", "Threads waiting for the inventory cache lock",
+                number(lock.get("queuedThreads")));
+    }
+
+    private static double number(Object value) {
+        return (value instanceof Number) ? ((Number) value).doubleValue() : 0;
+    }
+
+    private static String snakeCase(String name) {
+        return name.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+    }
+}
@@ -0,0 +1,83 @@
+package com.syos.web.servlet;
+
+import com.google.gson.Gson;
+import com.syos.web.service.ConcurrentInventoryService;
+import com.syos.web.service.ProductImporter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Bulk product import
+ *
+ * POST /admin/products/import?format=csv|jsonl   body: the file
+ *
+ * The format defaults from Content-Type (text/csv, application/x-ndjson). The body
+ * is parsed as it arrives and written in batches, so a supplier catalog of any
+ * size is one request. The answer is a JSON report with counts and the line and
+ * reason of every rejected row.
+ */
+public class ProductImportServlet extends HttpServlet {
+
+    private ProductImporter importer;
+    private Gson gson;
+
+    @Override
+    public void init() throws ServletException {
+        importer = new ProductImporter(ConcurrentInventoryService.getInstance());
+        gson = new Gson();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        ProductImporter.Format format;
+        try {
+            format = detectFormat(request);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+
+        ProductImporter.Report report;
+        try {
+            report = importer.importProducts(request.getReader(), format);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        } catch (SQLException e) {
+            throw new ServletException("Database error", e);
+        }
+
+        Map<String, Object> body = report.toMap();
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write(gson.toJson(body));
+    }
+
+    // Only the query string is read: getParameter could consume a form-encoded body
+    private ProductImporter.Format detectFormat(HttpServletRequest request) {
+        String query = request.getQueryString();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("format=")) {
+                    return ProductImporter.Format.fromName(pair.substring("format=".length()));
+                }
+            }
+        }
+        String contentType = request.getContentType();
+        if (contentType != null && (contentType.contains("ndjson") || contentType.contains("jsonl")
+                || contentType.contains("json"))) {
+            return ProductImporter.Format.JSONL;
+        }
+        return ProductImporter.Format.CSV;
+    }
+}
@@ -0,0 +1,68 @@
+package com.syos.web.servlet;
+
+import com.google.gson.Gson;
+import com.syos.web.service.ProductSearchIndex;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product search for the billing page
+ *
+ * GET /products/search?q=TEXT            - best 10 matches by code or name
+ * GET /products/search?q=TEXT&limit=N    - best N, at most 50
+ *
+ * Answered from the in-memory ProductSearchIndex:
+ * {"query", "results": [{"itemCode", "name", "category", "price", "quantityOnShelf", "match"}]}
+ * where match is code, name or fuzzy.
+ */
+public class ProductSearchServlet extends HttpServlet {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private ProductSearchIndex searchIndex;
+    private Gson gson = new Gson();
+
+    @Override
+    public void init() throws ServletException {
+        searchIndex = ProductSearchIndex.getInstance();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        String query = request.getParameter("q");
+        if (query == null) {
+            query = "";
+        }
+
+        int limit = DEFAULT_LIMIT;
+        String limitParam = request.getParameter("limit");
+        if (limitParam != null && !limitParam.isEmpty()) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid limit");
+                return;
+            }
+        }
+
+        List<ProductSearchIndex.Result> results = searchIndex.search(query, limit);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("query", query);
+        body.put("results", results);
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.getWriter().write(gson.toJson(body));
+    }
+}
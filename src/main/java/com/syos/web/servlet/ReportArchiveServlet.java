@@ -0,0 +1,261 @@
+package com.syos.web.servlet;
+
+import com.google.gson.Gson;
+import com.syos.shared.export.ExportFormat;
+import com.syos.web.service.EndOfDayReportScheduler;
+import com.syos.web.service.ReportArchive;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Downloads of pre-generated end-of-day reports
+ *
+ * GET  /reports/archive                              - JSON list of stored reports
+ * GET  /reports/archive?file=stock_2024-01-31_v1.csv - download a stored file
+ * GET  /reports/archive?report=stock&format=csv[&date=yyyy-MM-dd]
+ *                                                    - download the latest version
+ * POST /reports/archive                              - generate today's reports now
+ *
+ * Files support single byte ranges. Where the container offers sendfile
+ * (Tomcat's org.apache.tomcat.sendfile.* request attributes) the kernel copies
+ * the file to the socket; otherwise it is streamed with FileChannel.transferTo
+ * through the response stream's buffer.
+ *
+ * A stored file never changes, so ?file= downloads are cached for a year. The
+ * latest version of a report changes on every rerun, so ?report= downloads
+ * are sent with no-cache and the versioned ETag, and the client revalidates.
+ */
+public class ReportArchiveServlet extends HttpServlet {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Below this the container's own buffered write is as fast (Tomcat's default sendfileSize)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private EndOfDayReportScheduler scheduler;
+    private Gson gson = new Gson();
+
+    @Override
+    public void init() throws ServletException {
+        scheduler = EndOfDayReportScheduler.getInstance();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        ReportArchive archive = scheduler.getArchive();
+        if (archive == null) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Report archive is not configured");
+            return;
+        }
+
+        String fileName = request.getParameter("file");
+        String reportName = request.getParameter("report");
+
+        if (fileName != null) {
+            sendFile(archive.resolve(fileName), true, request, response);
+        } else if (reportName != null) {
+            sendLatest(archive, reportName, request, response);
+        } else {
+            listReports(archive, response);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            scheduler.generateNow();
+        } catch (IllegalStateException e) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"success\":true,\"message\":\"Report generation started\"}");
+    }
+
+    private void listReports(ReportArchive archive, HttpServletResponse response) throws IOException {
+        List<Map<String, Object>> files = new ArrayList<>();
+        for (ReportArchive.ArchivedReport report : archive.list()) {
+            Map<String, Object> file = new HashMap<>();
+            file.put("file", report.getFileName());
+            file.put("report", report.getReportName());
+            file.put("date", report.getDate().toString());
+            file.put("version", report.getVersion());
+            file.put("format", report.getFormat());
+            file.put("size", report.getSize());
+            file.put("lastModified", report.getLastModified());
+            files.add(file);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("reports", files);
+        result.put("lastRun", scheduler.getLastRunAt() != null ? scheduler.getLastRunAt().toString() : null);
+        result.put("nextRun", scheduler.getNextRunAt() != null ? scheduler.getNextRunAt().toString() : null);
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        response.getWriter().write(gson.toJson(result));
+    }
+
+    private void sendLatest(ReportArchive archive, String reportName, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        ExportFormat format;
+        LocalDate date;
+        try {
+            String formatParam = request.getParameter("format");
+            format = ExportFormat.fromName(formatParam != null ? formatParam : "csv");
+            String dateParam = request.getParameter("date");
+            date = dateParam != null ? LocalDate.parse(dateParam) : LocalDate.now();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        sendFile(archive.latest(reportName, date, format), false, request, response);
+    }
+
+    /**
+     * @param immutable true for a stored version, false for "the latest version" of a report
+     */
+    private void sendFile(Path file, boolean immutable, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Report not found");
+            return;
+        }
+
+        String fileName = file.getFileName().toString();
+        // File names carry the version, so the ETag changes with every rerun
+        String etag = "\"" + fileName + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", immutable ? "private, max-age=31536000, immutable" : "private, no-cache");
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+
+            // A stale If-Range means the client gets the whole file
+            String range = request.getHeader("Range");
+            String ifRange = request.getHeader("If-Range");
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                long[] bounds = parseRange(range, length);
+                if (bounds == null) {
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                if (bounds.length == 2) {
+                    start = bounds[0];
+                    end = bounds[1];
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+
+            response.setContentType(contentType(fileName));
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+            response.setHeader("Accept-Ranges", "bytes");
+            response.setDateHeader("Last-Modified", Files.getLastModifiedTime(file).toMillis());
+            response.setContentLengthLong(end - start + 1);
+
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+
+            if (end - start + 1 >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // The container writes the file once this request returns
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Parse a single "bytes=" range
+     * @return {start, end} inclusive, an empty array to send the whole file
+     *         (unsupported or multiple ranges), or null if unsatisfiable
+     */
+    private long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private String contentType(String fileName) {
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+        try {
+            return ExportFormat.fromName(extension).getContentType() + ";charset=UTF-8";
+        } catch (IllegalArgumentException e) {
+            return "application/octet-stream";
+        }
+    }
+}
@@ -1,21 +1,36 @@
 package com.syos.web.servlet;
 
+import com.syos.shared.export.ExportFormat;
+import com.syos.shared.export.ReportExporter;
+import com.syos.shared.export.ReportTable;
 import com.syos.web.service.ConcurrentSalesService;
 import com.syos.web.service.ConcurrentInventoryService;
+import com.syos.web.service.ReportTables;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
 
+/**
+ * Report pages and exports
+ *
+ * Reports run on the REPORTS workload pool, so report queries never hold a
+ * container thread.
+ */
 public class ReportServlet extends HttpServlet {
 
+    private static final long REPORT_TIMEOUT_MILLIS = 30_000;
+    // Exports stream the whole table, so they get longer before the fallback
+    private static final long EXPORT_TIMEOUT_MILLIS = 120_000;
+
     private ConcurrentSalesService salesService;
     private ConcurrentInventoryService inventoryService;
 
@@ -36,27 +51,24 @@ public class ReportServlet extends HttpServlet {
             return;
         }
 
-        try {
+        long timeout = "export".equals(reportType) ? EXPORT_TIMEOUT_MILLIS : REPORT_TIMEOUT_MILLIS;
+        AsyncWorkload.REPORTS.submit(request, response, timeout, job -> {
             switch (reportType) {
                 case "daily-sales":
-                    generateDailySalesReport(request, response);
-                    break;
+                    return generateDailySalesReport(request);
                 case "stock":
-                    generateStockReport(request, response);
-                    break;
+                    return generateStockReport(request);
                 case "reorder":
-                    generateReorderReport(request, response);
-                    break;
+                    return generateReorderReport(request);
                 case "top-selling":
-                    generateTopSellingReport(request, response);
-                    break;
+                    return generateTopSellingReport(request);
+                case "export":
+                    exportReport(request, response, job);
+                    return null;
                 default:
-                    showReportsMenu(request, response);
-                    break;
+                    return "/reports.jsp";
             }
-        } catch (SQLException e) {
-            throw new ServletException("Database error", e);
-        }
+        });
     }
 
     private void showReportsMenu(HttpServletRequest request, HttpServletResponse response)
@@ -64,32 +76,18 @@ public class ReportServlet extends HttpServlet {
         request.getRequestDispatcher("/reports.jsp").forward(request, response);
     }
 
-    private void generateDailySalesReport(HttpServletRequest request, HttpServletResponse response)
-            throws ServletException, IOException, SQLException {
+    private String generateDailySalesReport(HttpServletRequest request) throws SQLException {
 
-        String dateParam = request.getParameter("date");
-        Date date;
-
-        if (dateParam != null && !dateParam.isEmpty()) {
-            try {
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-                date = sdf.parse(dateParam);
-            } catch (Exception e) {
-                date = new Date();
-            }
-        } else {
-            date = new Date();
-        }
+        Date date = parseDate(request.getParameter("date"));
 
         Map<String, Object> report = salesService.getDailySalesReport(date);
 
         request.setAttribute("report", report);
         request.setAttribute("reportDate", date);
-        request.getRequestDispatcher("/reports/daily-sales.jsp").forward(request, response);
+        return "/reports/daily-sales.jsp";
     }
 
-    private void generateStockReport(HttpServletRequest request, HttpServletResponse response)
-            throws ServletException, IOException, SQLException {
+    private String generateStockReport(HttpServletRequest request) throws SQLException {
 
         var products = inventoryService.getAllProducts();
 
@@ -107,31 +105,27 @@ public class ReportServlet extends HttpServlet {
         request.setAttribute("totalStockOnShelf", totalStockOnShelf);
         request.setAttribute("lowStockCount", lowStockCount);
 
-        request.getRequestDispatcher("/reports/stock-report.jsp").forward(request, response);
+        return "/reports/stock-report.jsp";
     }
 
-    private void generateReorderReport(HttpServletRequest request, HttpServletResponse response)
-            throws ServletException, IOException, SQLException {
+    private String generateReorderReport(HttpServletRequest request) throws SQLException {
 
         var lowStockProducts = inventoryService.getLowStockProducts();
 
         request.setAttribute("products", lowStockProducts);
         request.setAttribute("reportDate", new Date());
-        request.getRequestDispatcher("/reports/reorder-report.jsp").forward(request, response);
+        return "/reports/reorder-report.jsp";
     }
 
-    private void generateTopSellingReport(HttpServletRequest request, HttpServletResponse response)
-            throws ServletException, IOException, SQLException {
+    private String generateTopSellingReport(HttpServletRequest request) throws SQLException {
 
-        String daysParam = request.getParameter("days");
-        int days = (daysParam != null) ? Integer.parseInt(daysParam) : 7;
+        int days = parseDays(request.getParameter("days"));
 
-        Calendar cal = Calendar.getInstance();
-        Date endDate = cal.getTime();
-        cal.add(Calendar.DAY_OF_MONTH, -days);
-        Date startDate = cal.getTime();
+        // Same calendar-day window as the top-selling list
+        Date endDate = new Date();
+        Date startDate = salesService.getWindowStart(days);
 
-        var topProducts = salesService.getTopSellingProducts(startDate, endDate, 10);
+        var topProducts = salesService.getTopSellingProducts(days, 10);
         var statistics = salesService.getSalesStatistics(startDate, endDate);
 
         request.setAttribute("topProducts", topProducts);
@@ -140,6 +134,81 @@ public class ReportServlet extends HttpServlet {
         request.setAttribute("startDate", startDate);
         request.setAttribute("endDate", endDate);
 
-        request.getRequestDispatcher("/reports/top-selling.jsp").forward(request, response);
+        return "/reports/top-selling.jsp";
+    }
+
+    /**
+     * Download a report as a file
+     * Parameters: report (daily-sales, stock, reorder, top-selling), format (text, csv, jsonl),
+     * gzip (true/false), plus date or days for the sales reports
+     */
+    private void exportReport(HttpServletRequest request, HttpServletResponse response, AsyncWorkload.Job job)
+            throws IOException, SQLException {
+
+        ExportFormat format;
+        try {
+            format = ExportFormat.fromName(request.getParameter("format") != null
+                    ? request.getParameter("format") : "csv");
+        } catch (IllegalArgumentException e) {
+            if (job.claimResponse()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            }
+            return;
+        }
+        boolean gzip = Boolean.parseBoolean(request.getParameter("gzip"));
+
+        String report = request.getParameter("report");
+        ReportTable table;
+        String baseName;
+        if ("daily-sales".equals(report)) {
+            Date date = parseDate(request.getParameter("date"));
+            table = ReportTables.dailySales(salesService.getDailySalesReport(date));
+            baseName = "daily_sales_" + new SimpleDateFormat("yyyy-MM-dd").format(date);
+        } else if ("stock".equals(report)) {
+            table = ReportTables.stock(inventoryService.getAllProducts());
+            baseName = "stock_report";
+        } else if ("reorder".equals(report)) {
+            table = ReportTables.reorder(inventoryService.getLowStockProducts());
+            baseName = "reorder_report";
+        } else if ("top-selling".equals(report)) {
+            int days = parseDays(request.getParameter("days"));
+            table = ReportTables.topSelling(days, salesService.getTopSellingProducts(days, 10),
+                    salesService.getSalesStatistics(salesService.getWindowStart(days), new Date()));
+            baseName = "top_selling_" + days + "_days";
+        } else {
+            if (job.claimResponse()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown report: " + report);
+            }
+            return;
+        }
+
+        // From here the response streams; a late timeout can no longer replace it
+        if (!job.claimResponse()) {
+            return;
+        }
+
+        String filename = ReportExporter.fileName(baseName, format, gzip);
+        response.setContentType(gzip ? "application/gzip" : format.getContentType() + ";charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+
+        // Rows are encoded straight into the response buffer
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        ReportExporter.export(table, format, gzip, channel);
+    }
+
+    private Date parseDate(String dateParam) {
+        if (dateParam != null && !dateParam.isEmpty()) {
+            try {
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+                return sdf.parse(dateParam);
+            } catch (Exception e) {
+                return new Date();
+            }
+        }
+        return new Date();
+    }
+
+    private int parseDays(String daysParam) {
+        return (daysParam != null) ? Integer.parseInt(daysParam) : 7;
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.syos.web.servlet;
 
+import com.syos.shared.pagination.KeysetCursor;
+import com.syos.shared.pagination.Page;
 import com.syos.web.model.Sale;
 import com.syos.web.model.SaleItem;
 import com.syos.web.model.User;
@@ -16,12 +18,15 @@ import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 public class SalesServlet extends HttpServlet {
 
+    private static final long LIST_TIMEOUT_MILLIS = 10_000;
+
     private ConcurrentSalesService salesService;
     private ConcurrentInventoryService inventoryService;
     private Gson gson;
@@ -82,25 +87,47 @@ public class SalesServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Runs on the LISTINGS workload pool; the cursor is checked before leaving the request thread
+     */
     private void listSales(HttpServletRequest request, HttpServletResponse response)
-            throws ServletException, IOException, SQLException {
+            throws ServletException, IOException {
 
         HttpSession session = request.getSession();
         User user = (User) session.getAttribute("user");
 
-        List<Sale> sales;
-
-        if (user.isCashier()) {
-            Date today = new Date();
-            Date tomorrow = new Date(today.getTime() + 24 * 60 * 60 * 1000);
-            sales = salesService.getSalesByCashier(user.getId(), today, tomorrow);
-        } else {
-            Date today = new Date();
-            sales = salesService.getSalesByDate(today);
+        KeysetCursor after;
+        try {
+            after = KeysetCursor.decode(request.getParameter("cursor"));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
         }
+        int pageSize = Page.parsePageSize(request.getParameter("size"));
+
+        AsyncWorkload.LISTINGS.submit(request, response, LIST_TIMEOUT_MILLIS, job -> {
+            Page<Sale> page;
+
+            if (user.isCashier()) {
+                Date today = new Date();
+                Date tomorrow = new Date(today.getTime() + 24 * 60 * 60 * 1000);
+                page = salesService.getSalesPage(user.getId(), today, tomorrow, after, pageSize);
+            } else {
+                Calendar cal = Calendar.getInstance();
+                cal.set(Calendar.HOUR_OF_DAY, 0);
+                cal.set(Calendar.MINUTE, 0);
+                cal.set(Calendar.SECOND, 0);
+                cal.set(Calendar.MILLISECOND, 0);
+                Date startOfDay = cal.getTime();
+                cal.add(Calendar.DAY_OF_MONTH, 1);
+                page = salesService.getSalesPage(null, startOfDay, cal.getTime(), after, pageSize);
+            }
 
-        request.setAttribute("sales", sales);
-        request.getRequestDispatcher("/sales-list.jsp").forward(request, response);
+            request.setAttribute("sales", page.getItems());
+            request.setAttribute("pageSize", pageSize);
+            request.setAttribute("nextCursor", page.hasNext() ? page.getNextCursor().encode() : null);
+            return "/sales-list.jsp";
+        });
     }
 
     private void viewSale(HttpServletRequest request, HttpServletResponse response)
@@ -3,6 +3,7 @@ package com.syos.web.servlet;
 import com.syos.web.dao.UserDAO;
 import com.syos.web.model.User;
 import com.syos.pos.model.Role;
+import com.syos.web.service.TokenAuthService;
 import com.syos.web.util.PasswordUtil;
 
 import javax.servlet.ServletException;
@@ -181,6 +182,8 @@ public class UserManagementServlet extends HttpServlet {
         boolean success = userDAO.updateUser(user);
 
         if (success) {
+            // Tokens carry the role, so make the user log in again
+            TokenAuthService.getInstance().revokeUser(userId);
             response.sendRedirect(request.getContextPath() + "/admin/users?message=User updated successfully");
         } else {
             request.setAttribute("error", "Failed to update user");
@@ -212,6 +215,7 @@ public class UserManagementServlet extends HttpServlet {
         boolean success = userDAO.deleteUser(userId);
 
         if (success) {
+            TokenAuthService.getInstance().revokeUser(userId);
             response.sendRedirect(request.getContextPath() + "/admin/users?message=User deleted successfully");
         } else {
             response.sendRedirect(request.getContextPath() + "/admin/users?error=Failed to delete user");
@@ -0,0 +1,85 @@
+package com.syos.web.util;
+
+import javax.servlet.ServletContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content fingerprints for static assets under /css/, /js/ and /images/
+ *
+ * A fingerprinted URL carries a hash of the file between its name and extension,
+ * e.g. /css/pos.3fa9c2d1e0.css for /css/pos.css. The URL changes whenever the file
+ * does, so responses to it can be cached forever. Hashes are computed once per file
+ * and kept for the life of the application.
+ *
+ * In a JSP: {@code <link href="${pageContext.request.contextPath}<%= AssetFingerprints.url(application, "/css/pos.css") %>">}
+ */
+public final class AssetFingerprints {
+
+    private static final Pattern FINGERPRINTED = Pattern.compile("^(.*)\\.([0-9a-f]{10})(\\.[A-Za-z0-9]+)$");
+    private static final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    private AssetFingerprints() {
+    }
+
+    /**
+     * @param path Context-relative asset path, e.g. /css/pos.css
+     * @return The fingerprinted path, or the path unchanged if the asset does not exist
+     */
+    public static String url(ServletContext context, String path) {
+        String hash = hash(context, path);
+        int dot = path.lastIndexOf('.');
+        if (hash == null || dot <= path.lastIndexOf('/')) {
+            return path;
+        }
+        return path.substring(0, dot) + "." + hash + path.substring(dot);
+    }
+
+    /**
+     * Split a fingerprinted path into the real asset path and its fingerprint
+     * @return {assetPath, fingerprint}, or null if the path carries no fingerprint
+     */
+    public static String[] parse(String path) {
+        Matcher matcher = FINGERPRINTED.matcher(path);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new String[] { matcher.group(1) + matcher.group(3), matcher.group(2) };
+    }
+
+    /**
+     * @return The current fingerprint of an asset, or null if it does not exist
+     */
+    public static String hash(ServletContext context, String path) {
+        String cached = hashes.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        try (InputStream in = context.getResourceAsStream(path)) {
+            if (in == null) {
+                return null;
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            String hash = hex.substring(0, 10);
+            hashes.put(path, hash);
+            return hash;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
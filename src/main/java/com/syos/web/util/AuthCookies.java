@@ -0,0 +1,57 @@
+package com.syos.web.util;
+
+import com.syos.web.service.TokenAuthService;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Carries the signed auth token in a cookie or an Authorization: Bearer header
+ */
+public final class AuthCookies {
+
+    private AuthCookies() {
+    }
+
+    /**
+     * @return The token from the Authorization header or the auth cookie, or null
+     */
+    public static String readToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return header.substring(7).trim();
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (TokenAuthService.COOKIE_NAME.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Set the auth cookie: HttpOnly, SameSite=Strict, Secure on HTTPS
+     */
+    public static void writeToken(HttpServletRequest request, HttpServletResponse response,
+                                  String token, long maxAgeSeconds) {
+        response.addHeader("Set-Cookie", cookie(request, token, maxAgeSeconds));
+    }
+
+    public static void clearToken(HttpServletRequest request, HttpServletResponse response) {
+        response.addHeader("Set-Cookie", cookie(request, "", 0));
+    }
+
+    // Cookie has no SameSite attribute in Servlet 4, so the header is built by hand
+    private static String cookie(HttpServletRequest request, String value, long maxAgeSeconds) {
+        String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+        return TokenAuthService.COOKIE_NAME + "=" + value
+                + "; Path=" + path
+                + "; Max-Age=" + maxAgeSeconds
+                + "; HttpOnly; SameSite=Strict"
+                + (request.isSecure() ? "; Secure" : "");
+    }
+}
@@ -5,7 +5,8 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DBConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/syos_db";
+    // rewriteBatchedStatements sends a JDBC batch of inserts as multi-row statements
+    private static final String URL = "jdbc:mysql://localhost:3306/syos_db?rewriteBatchedStatements=true";
     private static final String USER = "root";
     private static final String PASSWORD = "SportS28"; // CHANGE THIS
 
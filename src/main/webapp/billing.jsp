@@ -52,6 +52,14 @@
             margin-bottom: 20px;
             color: #333;
         }
+        .product-search {
+            width: 100%;
+            padding: 12px;
+            font-size: 16px;
+            border: 1px solid #ddd;
+            border-radius: 5px;
+            margin-bottom: 15px;
+        }
         .products-grid {
             display: grid;
             grid-template-columns: repeat(auto-fill, minmax(200px, 1fr));
@@ -184,6 +192,7 @@
 <div class="container">
     <div class="products-section">
         <h2>Available Products</h2>
+        <input type="search" class="product-search" id="productSearch" placeholder="Search by code or name" autocomplete="off">
         <div class="products-grid" id="productsGrid">
             <p>Loading products...</p>
         </div>
@@ -220,19 +229,79 @@
 <script>
     let products = [];
     let cart = [];
+    let catalogEpoch = null;
+    let catalogVersion = 0;
 
     function loadProducts() {
-        fetch('products')
+        // The browser revalidates with the catalog ETag; unchanged catalogs come back as 304
+        fetch('catalog')
+            .then(res => res.json())
+            .then(applyCatalog);
+    }
+
+    // Poll for products changed since our copy instead of reloading the whole catalog
+    function syncProducts() {
+        if (catalogEpoch === null) return;
+        fetch('catalog?since=' + catalogVersion + '&epoch=' + encodeURIComponent(catalogEpoch))
+            .then(res => res.json())
+            .then(applyCatalog)
+            .catch(() => {});
+    }
+
+    function applyCatalog(data) {
+        if (data.full) {
+            products = data.products;
+        } else {
+            if (data.products.length === 0 && data.deleted.length === 0) {
+                catalogVersion = data.version;
+                return;
+            }
+            const changed = new Map(data.products.map(p => [p.itemCode, p]));
+            const deleted = new Set(data.deleted);
+            products = products
+                .filter(p => !deleted.has(p.itemCode) && !changed.has(p.itemCode))
+                .concat(data.products)
+                .sort((a, b) => a.name.localeCompare(b.name));
+        }
+        catalogEpoch = data.epoch;
+        catalogVersion = data.version;
+        if (searchQuery() === '') renderProducts(products);
+    }
+
+    // Search runs on the server index: prefix on codes and words, typo-tolerant on names
+    let searchTimer = null;
+    let searchSeq = 0;
+
+    function searchQuery() {
+        return document.getElementById('productSearch').value.trim();
+    }
+
+    document.getElementById('productSearch').addEventListener('input', () => {
+        clearTimeout(searchTimer);
+        searchTimer = setTimeout(searchProducts, 150);
+    });
+
+    function searchProducts() {
+        const query = searchQuery();
+        const seq = ++searchSeq;
+        if (query === '') {
+            renderProducts(products);
+            return;
+        }
+        fetch('products/search?limit=24&q=' + encodeURIComponent(query))
             .then(res => res.json())
             .then(data => {
-                products = data;
-                renderProducts();
-            });
+                // Ignore answers to queries the cashier has already typed past
+                if (seq === searchSeq) renderProducts(data.results);
+            })
+            .catch(() => {});
     }
 
-    function renderProducts() {
+    setInterval(syncProducts, 5000);
+
+    function renderProducts(list) {
         const grid = document.getElementById('productsGrid');
-        grid.innerHTML = products.map(p => `
+        grid.innerHTML = list.map(p => `
                 <div class="product-card" onclick="addToCart('${p.itemCode}')">
                     <h3>${p.name}</h3>
                     <div class="price">$${p.price.toFixed(2)}</div>
@@ -126,6 +126,36 @@
         .purple { background: #f3e5f5; color: #7b1fa2; }
         .red { background: #ffebee; color: #c62828; }
         .teal { background: #e0f2f1; color: #00796b; }
+
+        .live-panel {
+            background: white;
+            padding: 25px;
+            border-radius: 10px;
+            margin-bottom: 30px;
+            box-shadow: 0 2px 10px rgba(0,0,0,0.1);
+        }
+
+        .live-panel h3 {
+            color: #333;
+            margin-bottom: 15px;
+            display: flex;
+            justify-content: space-between;
+            align-items: center;
+        }
+
+        .live-status { font-size: 12px; font-weight: normal; color: #999; }
+        .live-status.connected { color: #388e3c; }
+
+        .live-metrics {
+            display: grid;
+            grid-template-columns: repeat(auto-fit, minmax(160px, 1fr));
+            gap: 15px;
+        }
+
+        .live-metric .value { font-size: 24px; font-weight: 600; color: #333; }
+        .live-metric .label { font-size: 13px; color: #666; }
+
+        .live-alerts { margin-top: 15px; font-size: 13px; color: #c62828; list-style: none; }
     </style>
 </head>
 <body>
@@ -145,6 +175,18 @@
         <p>Manage products, process sales, generate reports, and oversee operations.</p>
     </div>
 
+    <div class="live-panel">
+        <h3>Today So Far <span id="liveStatus" class="live-status">connecting...</span></h3>
+        <div class="live-metrics">
+            <div class="live-metric"><div class="value" id="liveRevenue">-</div><div class="label">Revenue</div></div>
+            <div class="live-metric"><div class="value" id="liveTransactions">-</div><div class="label">Transactions</div></div>
+            <div class="live-metric"><div class="value" id="liveRate">-</div><div class="label">Transactions / min (15 min)</div></div>
+            <div class="live-metric"><div class="value" id="liveCashiers">-</div><div class="label">Active cashiers</div></div>
+            <div class="live-metric"><div class="value" id="liveLowStock">-</div><div class="label">Low-stock crossings</div></div>
+        </div>
+        <ul class="live-alerts" id="liveAlerts"></ul>
+    </div>
+
     <div class="dashboard-grid">
         <a href="<%= request.getContextPath() %>/admin/products?action=list" class="dashboard-card">
             <div class="card-icon blue">📦</div>
@@ -189,5 +231,41 @@
         </a>
     </div>
 </div>
+<script>
+    (function () {
+        if (!window.EventSource) {
+            document.getElementById('liveStatus').textContent = 'not supported by this browser';
+            return;
+        }
+        var status = document.getElementById('liveStatus');
+        var source = new EventSource('<%= request.getContextPath() %>/reports/live');
+
+        source.onopen = function () {
+            status.textContent = 'live';
+            status.className = 'live-status connected';
+        };
+        source.onerror = function () {
+            status.textContent = 'reconnecting...';
+            status.className = 'live-status';
+        };
+        source.addEventListener('metrics', function (event) {
+            var m = JSON.parse(event.data);
+            document.getElementById('liveRevenue').textContent = '$' + m.revenue.toFixed(2);
+            document.getElementById('liveTransactions').textContent = m.completedTransactions;
+            document.getElementById('liveRate').textContent = m.transactionsPerMinute.toFixed(2);
+            document.getElementById('liveCashiers').textContent = m.activeCashiers;
+            document.getElementById('liveLowStock').textContent = m.lowStockCrossings;
+
+            var alerts = document.getElementById('liveAlerts');
+            alerts.innerHTML = '';
+            m.recentLowStock.slice(0, 5).forEach(function (c) {
+                var item = document.createElement('li');
+                item.textContent = '⚠️ ' + c.name + ' (' + c.code + ') down to ' + c.remaining +
+                    ' (reorder level ' + c.reorderLevel + ')';
+                alerts.appendChild(item);
+            });
+        });
+    })();
+</script>
 </body>
 </html>
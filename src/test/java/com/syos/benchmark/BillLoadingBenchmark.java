@@ -0,0 +1,99 @@
+package com.syos.benchmark;
+
+import com.syos.domain.entities.Bill;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.loading.BillLoadingStrategy;
+import com.syos.infrastructure.persistence.loading.BillQuery;
+import com.syos.infrastructure.persistence.loading.JoinedBillLoadingStrategy;
+import com.syos.infrastructure.persistence.loading.TwoPhaseBillLoadingStrategy;
+import com.syos.infrastructure.persistence.mappers.BillMapper;
+import com.syos.infrastructure.persistence.mappers.ItemMapper;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Compares the joined and two-phase bill loading strategies against the configured database
+ * Reports wall time and bytes allocated by the loading thread per run, for the
+ * bills of the last N days with the basket sizes actually stored.
+ *
+ * Usage: BillLoadingBenchmark [days=30] [iterations=20] [warmup=5]
+ */
+public class BillLoadingBenchmark {
+
+    public static void main(String[] args) {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        LocalDate end = LocalDate.now().plusDays(1);
+        LocalDate start = end.minusDays(days + 1L);
+        BillQuery query = BillQuery.where("bill_date >= ? AND bill_date < ?", (stmt, index) -> {
+            stmt.setTimestamp(index++, Timestamp.valueOf(start.atStartOfDay()));
+            stmt.setTimestamp(index++, Timestamp.valueOf(end.atStartOfDay()));
+            return index;
+        }).orderedBy(BillQuery.Order.NEWEST_FIRST);
+
+        BillMapper billMapper = new BillMapper();
+        ItemMapper itemMapper = new ItemMapper();
+        BillLoadingStrategy[] strategies = {
+                new JoinedBillLoadingStrategy(billMapper, itemMapper),
+                new TwoPhaseBillLoadingStrategy(billMapper, itemMapper)
+        };
+
+        ConnectionManager connectionManager = new ConnectionManager();
+        try {
+            List<Bill> sample = connectionManager.executeWithConnection(c -> strategies[1].load(c, query));
+            long lines = sample.stream().mapToLong(b -> b.getItems().size()).sum();
+            System.out.printf("Bills: %d, lines: %d, average basket: %.2f lines%n",
+                    sample.size(), lines, sample.isEmpty() ? 0.0 : (double) lines / sample.size());
+            System.out.printf("%-10s %12s %12s %14s%n", "Strategy", "avg ms", "min ms", "avg KB alloc");
+
+            for (BillLoadingStrategy strategy : strategies) {
+                run(connectionManager, strategy, query, warmup);
+                Result result = run(connectionManager, strategy, query, iterations);
+                System.out.printf("%-10s %12.2f %12.2f %14.1f%n", strategy.getName(),
+                        result.totalNanos / 1e6 / iterations, result.minNanos / 1e6,
+                        result.totalBytes / 1024.0 / iterations);
+            }
+        } finally {
+            DatabaseConnectionPool.getInstance().shutdown();
+        }
+    }
+
+    private static Result run(ConnectionManager connectionManager, BillLoadingStrategy strategy,
+                              BillQuery query, int iterations) {
+        Result result = new Result();
+        for (int i = 0; i < iterations; i++) {
+            long bytesBefore = allocatedBytes();
+            long startNanos = System.nanoTime();
+
+            connectionManager.executeWithConnection(c -> strategy.load(c, query));
+
+            long elapsed = System.nanoTime() - startNanos;
+            result.totalNanos += elapsed;
+            result.minNanos = Math.min(result.minNanos, elapsed);
+            result.totalBytes += allocatedBytes() - bytesBefore;
+        }
+        return result;
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or 0 when the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static final class Result {
+        private long totalNanos;
+        private long minNanos = Long.MAX_VALUE;
+        private long totalBytes;
+    }
+}
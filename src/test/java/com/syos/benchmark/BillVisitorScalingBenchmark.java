@@ -0,0 +1,113 @@
+package com.syos.benchmark;
+
+import com.syos.application.visitors.BillStatisticsVisitor;
+import com.syos.application.visitors.BillVisitors;
+import com.syos.domain.entities.Bill;
+import com.syos.domain.entities.InStoreState;
+import com.syos.domain.entities.Item;
+import com.syos.domain.valueobjects.TransactionType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how BillStatisticsVisitor scales with the number of threads when a
+ * month of synthetic bills is visited through BillVisitors.visitInParallel,
+ * against a plain sequential visit. Checks every run gives the sequential result.
+ *
+ * Usage: BillVisitorScalingBenchmark [bills=300000] [iterations=10] [warmup=5]
+ */
+public class BillVisitorScalingBenchmark {
+
+    public static void main(String[] args) {
+        int billCount = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        List<Bill> bills = generateBills(billCount, new Random(42));
+        BillStatisticsVisitor expected = BillVisitors.visitAll(bills, BillStatisticsVisitor::new);
+
+        System.out.printf("%-12s %12s %10s%n", "Threads", "ms/visit", "speedup");
+        double baseline = measure(iterations, warmup, () -> {
+            BillStatisticsVisitor result = BillVisitors.visitAll(bills, BillStatisticsVisitor::new);
+            check(expected, result);
+        });
+        System.out.printf("%-12s %12.2f %10.2f%n", "sequential", baseline, 1.0);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < processors; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(processors);
+
+        for (int threads : threadCounts) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                double millis = measure(iterations, warmup, () -> {
+                    BillStatisticsVisitor result = BillVisitors.visitInParallel(
+                            bills, BillStatisticsVisitor::new, pool, 4096);
+                    check(expected, result);
+                });
+                System.out.printf("%-12d %12.2f %10.2f%n", threads, millis, baseline / millis);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static double measure(int iterations, int warmup, Runnable run) {
+        for (int i = 0; i < warmup; i++) {
+            run.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+
+    private static void check(BillStatisticsVisitor expected, BillStatisticsVisitor actual) {
+        if (expected.getBillCount() != actual.getBillCount()
+                || !expected.getTotalRevenue().equals(actual.getTotalRevenue())
+                || !expected.getItemFrequency().equals(actual.getItemFrequency())) {
+            throw new IllegalStateException("Parallel visit differs from sequential visit");
+        }
+    }
+
+    private static List<Bill> generateBills(int billCount, Random random) {
+        List<Item> catalog = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            catalog.add(new Item.Builder()
+                    .withCode(String.format("ITEM%03d", i))
+                    .withName("Item " + i)
+                    .withPrice(BigDecimal.valueOf(50 + random.nextInt(50_000), 2))
+                    .withQuantity(1000)
+                    .withState(new InStoreState())
+                    .withPurchaseDate(LocalDate.now())
+                    .build());
+        }
+
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        List<Bill> bills = new ArrayList<>(billCount);
+        for (int i = 0; i < billCount; i++) {
+            Bill.Builder builder = new Bill.Builder()
+                    .withBillNumber(i + 1)
+                    .withDate(start.plusSeconds(i * (30L * 24 * 3600) / billCount))
+                    .withDiscount(BigDecimal.ZERO)
+                    .withCashTendered(BigDecimal.valueOf(100_000))
+                    .withTransactionType(TransactionType.IN_STORE);
+
+            int lines = 1 + random.nextInt(8);
+            for (int line = 0; line < lines; line++) {
+                builder.addItem(catalog.get(random.nextInt(catalog.size())), 1 + random.nextInt(5));
+            }
+            bills.add(builder.build());
+        }
+        return bills;
+    }
+}
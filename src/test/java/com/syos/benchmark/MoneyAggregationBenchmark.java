@@ -0,0 +1,132 @@
+package com.syos.benchmark;
+
+import com.syos.domain.valueobjects.Money;
+import com.syos.domain.valueobjects.MoneyAccumulator;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Compares summing report amounts by chaining Money.add / Money.multiply with
+ * MoneyAccumulator, both over precomputed line totals (as Bill totals are computed)
+ * and over price * quantity (as report aggregations do).
+ * Reports ns per line and bytes allocated per line, and checks all totals are equal.
+ *
+ * Usage: MoneyAggregationBenchmark [lines=1000000] [iterations=10] [warmup=5]
+ */
+public class MoneyAggregationBenchmark {
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Random random = new Random(42);
+        BigDecimal[] prices = new BigDecimal[lines];
+        int[] quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            prices[i] = BigDecimal.valueOf(1 + random.nextInt(500_000), 2);
+            quantities[i] = 1 + random.nextInt(10);
+        }
+        Money[] moneyPrices = new Money[lines];
+        for (int i = 0; i < lines; i++) {
+            moneyPrices[i] = new Money(prices[i]);
+        }
+
+        Money[] lineTotals = new Money[lines];
+        for (int i = 0; i < lines; i++) {
+            lineTotals[i] = moneyPrices[i].multiply(quantities[i]);
+        }
+
+        Case[] cases = {
+                new Case("Money.add (totals)") {
+                    @Override
+                    String run() {
+                        Money total = Money.ZERO;
+                        for (int i = 0; i < lines; i++) {
+                            total = total.add(lineTotals[i]);
+                        }
+                        return total.getValue().toPlainString();
+                    }
+                },
+                new Case("Accumulator.add") {
+                    @Override
+                    String run() {
+                        MoneyAccumulator total = new MoneyAccumulator();
+                        for (int i = 0; i < lines; i++) {
+                            total.add(lineTotals[i]);
+                        }
+                        return total.toMoney().getValue().toPlainString();
+                    }
+                },
+                new Case("Money.multiply+add") {
+                    @Override
+                    String run() {
+                        Money total = Money.ZERO;
+                        for (int i = 0; i < lines; i++) {
+                            total = total.add(moneyPrices[i].multiply(quantities[i]));
+                        }
+                        return total.getValue().toPlainString();
+                    }
+                },
+                new Case("Accumulator.addProduct") {
+                    @Override
+                    String run() {
+                        MoneyAccumulator total = new MoneyAccumulator();
+                        for (int i = 0; i < lines; i++) {
+                            total.addProduct(moneyPrices[i], quantities[i]);
+                        }
+                        return total.toMoney().getValue().toPlainString();
+                    }
+                }
+        };
+
+        System.out.printf("%-24s %12s %14s %s%n", "Case", "ns/line", "bytes/line", "total");
+        String expected = null;
+        for (Case benchmarkCase : cases) {
+            for (int i = 0; i < warmup; i++) {
+                benchmarkCase.run();
+            }
+
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            String result = null;
+            for (int i = 0; i < iterations; i++) {
+                result = benchmarkCase.run();
+            }
+            long elapsed = System.nanoTime() - start;
+            long bytes = allocatedBytes() - bytesBefore;
+
+            double perLine = (double) lines * iterations;
+            System.out.printf("%-24s %12.2f %14.2f %s%n", benchmarkCase.name,
+                    elapsed / perLine, bytes / perLine, result);
+
+            if (expected == null) {
+                expected = result;
+            } else if (!expected.equals(result)) {
+                throw new IllegalStateException(benchmarkCase.name + " total " + result + " differs from " + expected);
+            }
+        }
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or 0 when the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private abstract static class Case {
+        private final String name;
+
+        private Case(String name) {
+            this.name = name;
+        }
+
+        abstract String run();
+    }
+}
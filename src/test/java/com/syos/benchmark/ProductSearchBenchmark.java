@@ -0,0 +1,117 @@
+package com.syos.benchmark;
+
+import com.syos.web.model.Product;
+import com.syos.web.service.ConcurrentInventoryService;
+import com.syos.web.service.ProductSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures ProductSearchIndex.search over a generated catalog, against the
+ * target of well under a millisecond per search at 50k SKUs. Each query kind
+ * (code, code prefix, word prefixes, typo) is timed on its own, then the cost
+ * of applying a small change-log delta is timed.
+ * Reports mean and p99 microseconds per search, and flags a p99 of 1 ms or more.
+ * Names come from a small vocabulary, so each word and trigram matches thousands
+ * of products; real catalogs give shorter posting lists.
+ *
+ * Usage: ProductSearchBenchmark [products=50000] [searches=20000] [warmup=20000]
+ */
+public class ProductSearchBenchmark {
+
+    private static final String[] BRANDS = {"Anchor", "Maliban", "Munchee", "Elephant", "Kotmale", "Prima",
+            "Harischandra", "Raigam", "Lipton", "Nestle", "Highland", "Keells"};
+    private static final String[] ITEMS = {"Milk", "Chocolate", "Biscuit", "Cream Cracker", "Tea", "Noodles",
+            "Salt", "Butter", "Yoghurt", "Cheese", "Coffee", "Soda", "Bread", "Jam", "Soap", "Rice"};
+    private static final String[] VARIANTS = {"Original", "Vanilla", "Strawberry", "Lite", "Family Pack",
+            "Spicy", "Ginger", "Marie", "Full Cream", "Dark", "Classic", "Mini"};
+
+    public static void main(String[] args) {
+        int products = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int searches = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        Random random = new Random(42);
+        List<Product> catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            catalog.add(product(i, random));
+        }
+
+        ConcurrentInventoryService inventoryService = mock(ConcurrentInventoryService.class);
+        AtomicLong version = new AtomicLong(1);
+        when(inventoryService.getCatalogVersion()).thenAnswer(invocation -> version.get());
+        when(inventoryService.getCatalogChanges(anyLong())).thenReturn(
+                new ConcurrentInventoryService.CatalogDelta(1, true, catalog, Collections.emptyList()));
+        ProductSearchIndex index = new ProductSearchIndex(inventoryService);
+
+        long buildStart = System.nanoTime();
+        index.search("warm", 1);
+        System.out.printf("Built %d products in %d ms%n", products, (System.nanoTime() - buildStart) / 1_000_000);
+
+        String[][] queries = {
+                {"code exact", "P012345", "P000042", "P049999", "P031337"},
+                {"code prefix", "P0123", "P00", "P04", "P0313"},
+                {"word prefix", "milk", "choc", "anchor van", "cream crack"},
+                {"typo", "chocolte", "bisciut", "strawbery jam", "yogurt"},
+        };
+
+        System.out.printf("%-14s %10s %10s %10s%n", "Query", "mean us", "p99 us", "results");
+        boolean slow = false;
+        for (String[] kind : queries) {
+            String[] terms = Arrays.copyOfRange(kind, 1, kind.length);
+            for (int i = 0; i < warmup; i++) {
+                index.search(terms[i % terms.length], ProductSearchIndex.MAX_RESULTS);
+            }
+
+            long[] nanos = new long[searches];
+            int results = 0;
+            for (int i = 0; i < searches; i++) {
+                long start = System.nanoTime();
+                results += index.search(terms[i % terms.length], ProductSearchIndex.MAX_RESULTS).size();
+                nanos[i] = System.nanoTime() - start;
+            }
+
+            Arrays.sort(nanos);
+            double mean = Arrays.stream(nanos).average().orElse(0) / 1000.0;
+            double p99 = nanos[(int) (searches * 0.99)] / 1000.0;
+            slow |= p99 >= 1000;
+            System.out.printf("%-14s %10.1f %10.1f %10.1f%n", kind[0], mean, p99, (double) results / searches);
+        }
+
+        // A typical catalog edit: a few renames and price changes, one delete
+        List<Product> changed = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            changed.add(product(random.nextInt(products), random));
+        }
+        when(inventoryService.getCatalogChanges(anyLong())).thenReturn(new ConcurrentInventoryService.CatalogDelta(
+                2, false, changed, Collections.singletonList(code(products - 1))));
+        version.set(2);
+        long deltaStart = System.nanoTime();
+        index.search("milk", ProductSearchIndex.MAX_RESULTS);
+        System.out.printf("Applied %d changes on search in %.1f us%n", changed.size() + 1,
+                (System.nanoTime() - deltaStart) / 1000.0);
+
+        if (slow) {
+            System.out.println("p99 search latency reached 1 ms");
+        }
+    }
+
+    private static Product product(int i, Random random) {
+        String name = BRANDS[random.nextInt(BRANDS.length)] + " " + ITEMS[random.nextInt(ITEMS.length)]
+                + " " + VARIANTS[random.nextInt(VARIANTS.length)] + " " + (50 + random.nextInt(950)) + "g";
+        return new Product(code(i), name, "Grocery", 1 + random.nextInt(5000) / 100.0, 100, 20, 10);
+    }
+
+    private static String code(int i) {
+        return String.format("P%06d", i);
+    }
+}
@@ -0,0 +1,107 @@
+package com.syos.domain.valueobjects;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyAccumulatorTest {
+
+    @Test
+    void addAndSubtractMatchMoneyArithmetic() {
+        Money a = new Money(new BigDecimal("12.34"));
+        Money b = new Money(new BigDecimal("0.66"));
+        Money c = new Money(new BigDecimal("5.005"));
+
+        Money total = new MoneyAccumulator().add(a).add(b).subtract(c).toMoney();
+
+        assertThat(total).isEqualTo(a.add(b).subtract(c));
+        assertThat(total.getValue()).isEqualByComparingTo("7.99");
+    }
+
+    @Test
+    void addProductMatchesMoneyMultiply() {
+        Money price = new Money(new BigDecimal("19.99"));
+
+        Money total = new MoneyAccumulator().addProduct(price, 7).toMoney();
+
+        assertThat(total).isEqualTo(price.multiply(7));
+    }
+
+    @Test
+    void negativeAmountsKeepTheirSign() {
+        Money refund = new Money(new BigDecimal("-3.25"));
+
+        assertThat(new MoneyAccumulator().add(refund).toMoney().getValue()).isEqualByComparingTo("-3.25");
+        assertThat(refund.toCents()).isEqualTo(-325);
+    }
+
+    @Test
+    void emptyAccumulatorIsZero() {
+        assertThat(new MoneyAccumulator().toMoney()).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void resetClearsTotalAndOverflow() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .addCents(Long.MAX_VALUE)
+                .addCents(1);
+
+        accumulator.reset();
+
+        assertThat(accumulator.add(Money.ofCents(5)).toMoney()).isEqualTo(Money.ofCents(5));
+    }
+
+    @Test
+    void overflowSwitchesToBigDecimal() {
+        Money total = new MoneyAccumulator()
+                .addCents(Long.MAX_VALUE)
+                .addCents(Long.MAX_VALUE)
+                .toMoney();
+
+        BigDecimal max = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+        assertThat(total.getValue()).isEqualByComparingTo(max.add(max));
+    }
+
+    @Test
+    void productOverflowSwitchesToBigDecimal() {
+        Money price = Money.ofCents(Long.MAX_VALUE / 2);
+
+        Money total = new MoneyAccumulator().addProduct(price, 3).toMoney();
+
+        assertThat(total.getValue()).isEqualByComparingTo(price.getValue().multiply(BigDecimal.valueOf(3)));
+    }
+
+    @Test
+    void amountBeyondLongIsAddedExactly() {
+        Money huge = new Money(new BigDecimal("123456789012345678901234.56"));
+
+        Money total = new MoneyAccumulator().add(Money.ofCents(44)).add(huge).subtract(Money.ofCents(100)).toMoney();
+
+        assertThat(total.getValue()).isEqualByComparingTo("123456789012345678901234.00");
+    }
+
+    @Test
+    void amountsAroundEighteenDigitsAreExact() {
+        Money eighteen = new Money(new BigDecimal("9999999999999999.99"));
+        Money nineteen = new Money(new BigDecimal("90000000000000000.01"));
+
+        Money total = new MoneyAccumulator().add(eighteen).add(nineteen).subtract(Money.ofCents(1)).toMoney();
+
+        assertThat(total).isEqualTo(eighteen.add(nineteen).subtract(Money.ofCents(1)));
+        assertThat(new MoneyAccumulator().addProduct(eighteen, 2).toMoney()).isEqualTo(eighteen.multiply(2));
+    }
+
+    @Test
+    void mergeAddsOtherTotal() {
+        MoneyAccumulator first = new MoneyAccumulator().add(Money.ofCents(150));
+        MoneyAccumulator second = new MoneyAccumulator().add(Money.ofCents(275));
+
+        assertThat(first.merge(second).toMoney()).isEqualTo(Money.ofCents(425));
+
+        MoneyAccumulator overflowed = new MoneyAccumulator().addCents(Long.MAX_VALUE).addCents(Long.MAX_VALUE);
+        BigDecimal expected = overflowed.toMoney().getValue().add(new BigDecimal("4.25"));
+        assertThat(first.merge(overflowed).toMoney().getValue()).isEqualByComparingTo(expected);
+    }
+}
@@ -0,0 +1,140 @@
+package com.syos.shared.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnknownCodeFilterTest {
+
+    private static final long MINUTE = 60_000;
+
+    private final UnknownCodeFilter filter = new UnknownCodeFilter(MINUTE, 10 * MINUTE, 100);
+
+    @Test
+    void withoutFilterEveryCodeGoesToTheDatabase() {
+        assertThat(filter.needsRebuild()).isTrue();
+        assertThat(filter.isKnownMissing("ITEM-1")).isFalse();
+    }
+
+    @Test
+    void rebuiltFilterRejectsUnknownCodes() {
+        filter.rebuild(Arrays.asList("ITEM-1", "ITEM-2"));
+
+        assertThat(filter.needsRebuild()).isFalse();
+        assertThat(filter.isKnownMissing("ITEM-1")).isFalse();
+        assertThat(filter.isKnownMissing("ITEM-2")).isFalse();
+        assertThat(filter.isKnownMissing("ITEM-3")).isTrue();
+        assertThat(filter.getStatistics().get("filterRejected")).isEqualTo(1L);
+    }
+
+    @Test
+    void addedCodeIsNoLongerRejected() {
+        filter.rebuild(Arrays.asList("ITEM-1"));
+
+        filter.recordAdded("ITEM-9");
+
+        assertThat(filter.isKnownMissing("ITEM-9")).isFalse();
+        assertThat(filter.getStatistics().get("filterEntries")).isEqualTo(2L);
+    }
+
+    @Test
+    void missingCodeIsCachedUntilAdded() {
+        // No filter yet: only the negative cache answers
+        UnknownCodeFilter unbuilt = new UnknownCodeFilter(MINUTE, 10 * MINUTE, 100);
+
+        unbuilt.recordMissing("ITEM-5");
+        assertThat(unbuilt.isKnownMissing("ITEM-5")).isTrue();
+        assertThat(unbuilt.getStatistics().get("negativeCacheHits")).isEqualTo(1L);
+        // No trusted filter answered, so this is not a false positive
+        assertThat(unbuilt.getStatistics().get("falsePositives")).isEqualTo(0L);
+
+        unbuilt.recordAdded("ITEM-5");
+        assertThat(unbuilt.isKnownMissing("ITEM-5")).isFalse();
+    }
+
+    @Test
+    void negativeCacheIsBounded() {
+        UnknownCodeFilter small = new UnknownCodeFilter(MINUTE, 10 * MINUTE, 2);
+
+        small.recordMissing("ITEM-1");
+        small.recordMissing("ITEM-2");
+        small.recordMissing("ITEM-3");
+
+        assertThat(small.getStatistics().get("negativeCacheSize")).isEqualTo(2);
+        assertThat(small.isKnownMissing("ITEM-3")).isFalse();
+    }
+
+    @Test
+    void negativeEntriesExpire() throws InterruptedException {
+        UnknownCodeFilter shortLived = new UnknownCodeFilter(1, 10 * MINUTE, 100);
+
+        shortLived.recordMissing("ITEM-1");
+        Thread.sleep(5);
+
+        assertThat(shortLived.isKnownMissing("ITEM-1")).isFalse();
+    }
+
+    @Test
+    void refreshAsyncRunsOneRebuildAtATime() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+
+        filter.refreshAsync(executor, () -> Arrays.asList("ITEM-1"));
+        filter.refreshAsync(executor, () -> Arrays.asList("ITEM-1"));
+        assertThat(tasks).hasSize(1);
+
+        tasks.get(0).run();
+        assertThat(filter.needsRefresh()).isFalse();
+
+        // Fresh filter: nothing more to do
+        filter.refreshAsync(executor, () -> Arrays.asList("ITEM-1"));
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    void codeAddedDuringRebuildSurvivesIt() {
+        List<Runnable> tasks = new ArrayList<>();
+
+        // The scan started before ITEM-2 was inserted and does not see it
+        filter.refreshAsync(tasks::add, () -> Arrays.asList("ITEM-1"));
+        filter.recordAdded("ITEM-2");
+        tasks.get(0).run();
+
+        assertThat(filter.isKnownMissing("ITEM-1")).isFalse();
+        assertThat(filter.isKnownMissing("ITEM-2")).isFalse();
+    }
+
+    @Test
+    void failedLoadKeepsTheCurrentFilterAndAllowsRetry() {
+        List<Runnable> tasks = new ArrayList<>();
+
+        filter.refreshAsync(tasks::add, () -> null);
+        tasks.get(0).run();
+        assertThat(filter.needsRebuild()).isTrue();
+
+        filter.refreshAsync(tasks::add, () -> Arrays.asList("ITEM-1"));
+        assertThat(tasks).hasSize(2);
+        tasks.get(1).run();
+        assertThat(filter.needsRebuild()).isFalse();
+    }
+
+    @Test
+    void falsePositiveCountedOnlyForCodesTheFilterLetThrough() {
+        filter.rebuild(Arrays.asList("ITEM-1"));
+
+        // Rejected by the filter, so never reported missing by the database
+        assertThat(filter.isKnownMissing("ITEM-2")).isTrue();
+        // Deleted since the rebuild: the filter let it through
+        assertThat(filter.isKnownMissing("ITEM-1")).isFalse();
+        filter.recordMissing("ITEM-1");
+
+        assertThat(filter.getStatistics().get("falsePositives")).isEqualTo(1L);
+        assertThat((double) filter.getStatistics().get("falsePositiveRate")).isEqualTo(0.5);
+        assertThat(filter.isKnownMissing("ITEM-1")).isTrue();
+    }
+}
@@ -0,0 +1,100 @@
+package com.syos.web.analytics;
+
+import com.syos.web.dao.SaleDAO;
+import com.syos.web.model.Sale;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SalesColumnStoreTest {
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final SalesColumnStore store = SalesColumnStore.getInstance();
+    private final Timestamp now = new Timestamp(System.currentTimeMillis());
+
+    @Test
+    void reloadScansWithoutBlockingQueriesOrAppends() throws Exception {
+        SaleDAO first = mock(SaleDAO.class);
+        doAnswer(invocation -> {
+            feed(invocation.getArgument(0), 1);
+            return null;
+        }).when(first).scanSales(any());
+        store.load(first);
+        assertThat(transactions()).isEqualTo(1);
+
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch finishScan = new CountDownLatch(1);
+        SaleDAO second = mock(SaleDAO.class);
+        doAnswer(invocation -> {
+            feed(invocation.getArgument(0), 1);
+            feed(invocation.getArgument(0), 2);
+            scanning.countDown();
+            finishScan.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(second).scanSales(any());
+        CompletableFuture<Void> reload = CompletableFuture.runAsync(() -> {
+            try {
+                store.load(second);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(scanning.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // The old columns answer while the scan runs
+        Integer during = CompletableFuture.supplyAsync(this::transactions).get(2, TimeUnit.SECONDS);
+        assertThat(during).isEqualTo(1);
+        CompletableFuture.runAsync(() -> {
+            store.appendSale(sale(3), Collections.emptyList());
+            store.markCancelled(1);
+        }).get(2, TimeUnit.SECONDS);
+
+        finishScan.countDown();
+        reload.get(10, TimeUnit.SECONDS);
+
+        // Sale 2 from the scan, sale 3 replayed, sale 1 cancelled during the scan
+        assertThat(store.isLoaded()).isTrue();
+        assertThat(store.getSaleCount()).isEqualTo(3);
+        assertThat(transactions()).isEqualTo(2);
+    }
+
+    private Integer transactions() {
+        Map<String, Object> statistics = store.getSalesStatistics(
+                new Date(now.getTime() - DAY_MILLIS), new Date(now.getTime() + DAY_MILLIS));
+        return statistics != null ? (Integer) statistics.get("totalTransactions") : null;
+    }
+
+    private void feed(SaleDAO.RowHandler handler, long saleId) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(saleId);
+        when(rs.getLong("cashier_id")).thenReturn(7L);
+        when(rs.getBigDecimal("total_amount")).thenReturn(new BigDecimal("10.00"));
+        when(rs.getString("status")).thenReturn("COMPLETED");
+        when(rs.getTimestamp("created_at")).thenReturn(now);
+        handler.handle(rs);
+    }
+
+    private Sale sale(long saleId) {
+        Sale sale = new Sale("S-" + saleId, 7, 10.00);
+        sale.setId(saleId);
+        sale.setStatus("COMPLETED");
+        sale.setCreatedAt(now);
+        return sale;
+    }
+}
@@ -0,0 +1,82 @@
+package com.syos.web.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlFilterTest {
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FilterConfig config = mock(FilterConfig.class);
+        when(config.getServletContext()).thenReturn(mock(ServletContext.class));
+        filter = new AdmissionControlFilter();
+        filter.init(config);
+    }
+
+    @Test
+    void serverErrorOnCheckoutCutsTheLimit() throws Exception {
+        run("POST", "/sales", 500, null);
+
+        assertThat(filter.getLimit().getLimit()).isEqualTo(18);
+        assertThat(filter.getStatistics().get("failed")).isEqualTo(1L);
+    }
+
+    @Test
+    void fallbackWithRetryAfterIsNotAFailure() throws Exception {
+        run("GET", "/products", 503, "5");
+
+        assertThat(filter.getLimit().getLimit()).isEqualTo(20);
+        assertThat(filter.getStatistics().get("failed")).isEqualTo(0L);
+    }
+
+    @Test
+    void reportRequestsDoNotMoveTheLimit() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            run("GET", "/reports", 503, null);
+            run("POST", "/admin/products/import", 500, null);
+        }
+
+        assertThat(filter.getLimit().getLimit()).isEqualTo(20);
+        assertThat(filter.getLimit().getInFlight()).isZero();
+        assertThat(filter.getStatistics().get("shortLatencyMillis")).isEqualTo(0.0);
+        assertThat(filter.getStatistics().get("reportAdmitted")).isEqualTo(20L);
+    }
+
+    @Test
+    void classifiesByPathAndMethod() {
+        assertThat(AdmissionControlFilter.classify(request("POST", "/sales"))).isEqualTo(AdmissionControlFilter.Priority.CHECKOUT);
+        assertThat(AdmissionControlFilter.classify(request("GET", "/billing.jsp"))).isEqualTo(AdmissionControlFilter.Priority.CHECKOUT);
+        assertThat(AdmissionControlFilter.classify(request("GET", "/sales"))).isEqualTo(AdmissionControlFilter.Priority.LOOKUP);
+        assertThat(AdmissionControlFilter.classify(request("GET", "/reports"))).isEqualTo(AdmissionControlFilter.Priority.REPORT);
+        assertThat(AdmissionControlFilter.classify(request("POST", "/admin/products/import"))).isEqualTo(AdmissionControlFilter.Priority.REPORT);
+    }
+
+    private void run(String method, String path, int status, String retryAfter) throws Exception {
+        HttpServletRequest request = request(method, path);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getHeader("Retry-After")).thenReturn(retryAfter);
+
+        filter.doFilter(request, response, mock(FilterChain.class));
+    }
+
+    private static HttpServletRequest request(String method, String path) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getContextPath()).thenReturn("/syos");
+        when(request.getRequestURI()).thenReturn("/syos" + path);
+        return request;
+    }
+}
@@ -0,0 +1,24 @@
+package com.syos.web.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionFilterTest {
+
+    @Test
+    void choosesEncodingByQValue() {
+        assertThat(CompressionFilter.chooseEncoding("gzip, deflate, br")).isEqualTo("gzip");
+        assertThat(CompressionFilter.chooseEncoding("gzip;q=0.5, deflate")).isEqualTo("deflate");
+        assertThat(CompressionFilter.chooseEncoding("deflate;q=0.8, gzip;q=0.8")).isEqualTo("gzip");
+        assertThat(CompressionFilter.chooseEncoding("x-gzip")).isEqualTo("gzip");
+    }
+
+    @Test
+    void refusedOrMissingEncodingsAreNotChosen() {
+        assertThat(CompressionFilter.chooseEncoding(null)).isNull();
+        assertThat(CompressionFilter.chooseEncoding("identity")).isNull();
+        assertThat(CompressionFilter.chooseEncoding("gzip;q=0, deflate;q=0.0")).isNull();
+        assertThat(CompressionFilter.chooseEncoding("gzip;q=abc")).isNull();
+    }
+}
@@ -0,0 +1,95 @@
+package com.syos.web.filter;
+
+import com.syos.pos.model.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteTableTest {
+
+    private RouteTable table;
+
+    @BeforeEach
+    void setUp() {
+        Properties rules = new Properties();
+        rules.setProperty("/login", "PUBLIC");
+        rules.setProperty("/reports/", "ADMIN, MANAGER");
+        rules.setProperty("/reports/live", "ADMIN, MANAGER, CASHIER");
+        rules.setProperty("/dashboard", "ADMIN, MANAGER, CASHIER");
+        rules.setProperty("/dashboard$", "ADMIN");
+        rules.setProperty("*", "ADMIN");
+        table = RouteTable.compile(rules);
+    }
+
+    @Test
+    void longestPrefixWins() {
+        assertThat(table.match("/reports/sales").getPattern()).isEqualTo("/reports/");
+        assertThat(table.match("/reports/live").getPattern()).isEqualTo("/reports/live");
+        assertThat(table.match("/reports/live/stream").getPattern()).isEqualTo("/reports/live");
+    }
+
+    @Test
+    void exactRuleWinsOverPrefixOfSamePath() {
+        assertThat(table.match("/dashboard").getPattern()).isEqualTo("/dashboard$");
+        assertThat(table.match("/dashboard/today").getPattern()).isEqualTo("/dashboard");
+    }
+
+    @Test
+    void unmatchedPathFallsBack() {
+        assertThat(table.match("/unknown").getPattern()).isEqualTo(RouteTable.FALLBACK);
+        assertThat(table.match("/report").getPattern()).isEqualTo(RouteTable.FALLBACK);
+        assertThat(table.match("").getPattern()).isEqualTo(RouteTable.FALLBACK);
+    }
+
+    @Test
+    void offsetSkipsContextPath() {
+        String uri = "/syos/reports/sales";
+        assertThat(table.match(uri, "/syos".length()).getPattern()).isEqualTo("/reports/");
+        assertThat(table.match("/syos/dashboard", "/syos".length()).getPattern()).isEqualTo("/dashboard$");
+    }
+
+    @Test
+    void rulesAdmitTheirRoles() {
+        RouteTable.Route reports = table.match("/reports/sales");
+        assertThat(reports.admits(Role.MANAGER)).isTrue();
+        assertThat(reports.admits(Role.CASHIER)).isFalse();
+
+        RouteTable.Route login = table.match("/login");
+        assertThat(login.isPublic()).isTrue();
+        assertThat(login.admits(Role.CUSTOMER)).isTrue();
+    }
+
+    @Test
+    void compileRejectsUnknownRole() {
+        Properties rules = new Properties();
+        rules.setProperty("/admin/", "ROOT");
+        rules.setProperty("*", "ADMIN");
+
+        assertThatThrownBy(() -> RouteTable.compile(rules))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ROOT");
+    }
+
+    @Test
+    void compileRequiresFallback() {
+        Properties rules = new Properties();
+        rules.setProperty("/login", "PUBLIC");
+
+        assertThatThrownBy(() -> RouteTable.compile(rules))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void compileRejectsRelativePath() {
+        Properties rules = new Properties();
+        rules.setProperty("reports/", "ADMIN");
+        rules.setProperty("*", "ADMIN");
+
+        assertThatThrownBy(() -> RouteTable.compile(rules))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
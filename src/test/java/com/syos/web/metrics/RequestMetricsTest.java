@@ -0,0 +1,55 @@
+package com.syos.web.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestMetricsTest {
+
+    private final RequestMetrics metrics = RequestMetrics.getInstance();
+
+    @Test
+    void checkoutAndReportsGetTheirOwnSeries() {
+        metrics.registerMappings(Arrays.asList("/sales", "/reports"));
+
+        record("/sales", "POST", 201);
+        record("/sales", "GET", 200);
+        record("/sales", "HEAD", 200);
+        record("/reports", "GET", 200);
+        record("/reports", "GET", 503);
+
+        assertThat(count("/sales", "POST", 1)).isEqualTo(1);
+        assertThat(count("/sales", "GET", 1)).isEqualTo(2);
+        assertThat(count("/reports", "GET", 1)).isEqualTo(1);
+        assertThat(count("/reports", "GET", 4)).isEqualTo(1);
+        assertThat(count("/reports", "POST", 1)).isZero();
+    }
+
+    @Test
+    void unregisteredAndMissingMappingsAreKeptApart() {
+        record("/", "GET", 404);
+        record(null, "DELETE", 404);
+
+        assertThat(count("/", "GET", 3)).isEqualTo(1);
+        assertThat(count(RequestMetrics.UNMATCHED, "OTHER", 3)).isGreaterThanOrEqualTo(1);
+        assertThat(metrics.getRoutes().get(metrics.getRoutes().size() - 1).getRoute())
+                .isEqualTo(RequestMetrics.UNMATCHED);
+    }
+
+    private void record(String mapping, String method, int status) {
+        metrics.requestStarted();
+        metrics.requestFinished(mapping, method, status, 1_000_000);
+    }
+
+    private long count(String route, String method, int statusClassIndex) {
+        for (RequestMetrics.RouteLatency latency : metrics.getRoutes()) {
+            if (latency.getRoute().equals(route) && latency.getMethod().equals(method)) {
+                long[] counts = latency.getHistogram(statusClassIndex).getCumulativeCounts();
+                return counts[counts.length - 1];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,209 @@
+package com.syos.web.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductImporterTest {
+
+    private ConcurrentInventoryService inventoryService;
+    private ProductImporter importer;
+
+    // Each importProducts call: its columns and a copy of its rows
+    private final List<List<String>> chunkColumns = new ArrayList<>();
+    private final List<List<Object[]>> chunkRows = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws SQLException {
+        inventoryService = mock(ConcurrentInventoryService.class);
+        when(inventoryService.importProducts(anyList(), anyList())).thenAnswer(invocation -> {
+            List<String> columns = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            chunkColumns.add(new ArrayList<>(columns));
+            chunkRows.add(new ArrayList<>(rows));
+            // Codes starting with NEW are inserts, the rest update existing products
+            int inserted = 0;
+            for (Object[] row : rows) {
+                if (((String) row[0]).startsWith("NEW")) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        });
+        importer = new ProductImporter(inventoryService);
+    }
+
+    @Test
+    void importsCsvRows() throws Exception {
+        String csv = "code,name,price,quantity_on_shelf,expiry_date\n"
+                + "NEW1,Milk,1.499,10,2026-12-31\n"
+                + "OLD1,\"Bread, brown\",2.50,5,\n";
+
+        ProductImporter.Report report = importer.importProducts(new StringReader(csv), ProductImporter.Format.CSV);
+
+        assertThat(report.getRows()).isEqualTo(2);
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getFailed()).isZero();
+
+        // The empty expiry cell leaves the field out, so the second row starts a new chunk
+        assertThat(chunkColumns).containsExactly(
+                List.of("code", "name", "price", "quantity_on_shelf", "expiry_date"),
+                List.of("code", "name", "price", "quantity_on_shelf"));
+        Object[] milk = chunkRows.get(0).get(0);
+        assertThat(milk).containsExactly("NEW1", "Milk", new BigDecimal("1.50"), 10, Date.valueOf("2026-12-31"));
+        assertThat(chunkRows.get(1).get(0)[1]).isEqualTo("Bread, brown");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acceptsCamelCaseHeadersAndReportsUnknownColumns() throws Exception {
+        String csv = "\uFEFFCode,Name,Price,quantityOnShelf,colour\n"
+                + "NEW1,Milk,1.50,3,white\n";
+
+        ProductImporter.Report report = importer.importProducts(new StringReader(csv), ProductImporter.Format.CSV);
+
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(chunkColumns.get(0)).containsExactly("code", "name", "price", "quantity_on_shelf");
+        assertThat((Set<String>) report.toMap().get("ignoredFields")).containsExactly("colour");
+    }
+
+    @Test
+    void rejectsCsvWithoutRequiredColumns() {
+        assertThatThrownBy(() -> importer.importProducts(
+                new StringReader("code,name\nA1,Milk\n"), ProductImporter.Format.CSV))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> importer.importProducts(
+                new StringReader(""), ProductImporter.Format.CSV))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reportsInvalidRowsByLine() throws Exception {
+        String csv = "code,name,price,quantity_on_shelf,state,purchase_date,expiry_date\n"
+                + "NEW1,Milk,abc,1,ON_SHELF,,\n"
+                + "NEW2,Milk,1.00,-1,ON_SHELF,,\n"
+                + "NEW3,Milk,1.00,1,LOST,,\n"
+                + "NEW4,Milk,1.00,1,ON_SHELF,2026-05-01,2026-04-01\n"
+                + "NEW5,,1.00,1,ON_SHELF,,\n"
+                + "NEW6,Milk,1.00\n"
+                + "NEW7,Milk,1.00,1,on_shelf,,\n";
+
+        ProductImporter.Report report = importer.importProducts(new StringReader(csv), ProductImporter.Format.CSV);
+
+        assertThat(report.getRows()).isEqualTo(7);
+        assertThat(report.getFailed()).isEqualTo(6);
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(ProductImporter.RowError::getLine)
+                .containsExactly(2, 3, 4, 5, 6, 7);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("price");
+        assertThat(report.getErrors().get(3).getMessage()).startsWith("expiry_date");
+        assertThat(report.getErrors().get(4).getMessage()).isEqualTo("name: required");
+        assertThat(chunkRows.get(0).get(0)[3]).isEqualTo(1);
+        assertThat(chunkRows.get(0).get(0)[4]).isEqualTo("ON_SHELF");
+    }
+
+    @Test
+    void duplicateCodeWithinChunkIsReported() throws Exception {
+        String csv = "code,name,price\n"
+                + "NEW1,Milk,1.00\n"
+                + "NEW1,Milk again,1.10\n";
+
+        ProductImporter.Report report = importer.importProducts(new StringReader(csv), ProductImporter.Format.CSV);
+
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getErrors().get(0).getMessage()).isEqualTo("Duplicate code, first seen on line 2");
+    }
+
+    @Test
+    void sameCodeInLaterChunkUpdatesAgain() throws Exception {
+        StringBuilder csv = new StringBuilder("code,name,price\n");
+        for (int i = 0; i < ProductImporter.CHUNK_SIZE; i++) {
+            csv.append("OLD").append(i).append(",Item,1.00\n");
+        }
+        csv.append("OLD0,Item renamed,1.00\n");
+
+        ProductImporter.Report report = importer.importProducts(new StringReader(csv.toString()), ProductImporter.Format.CSV);
+
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getUpdated()).isEqualTo(ProductImporter.CHUNK_SIZE + 1);
+        assertThat(chunkRows).hasSize(2);
+        assertThat(chunkRows.get(0)).hasSize(ProductImporter.CHUNK_SIZE);
+    }
+
+    @Test
+    void importsJsonLines() throws Exception {
+        String jsonl = "{\"code\":\"NEW1\",\"name\":\"Milk\",\"price\":1.5,\"quantityInStore\":20}\n"
+                + "\n"
+                + "[1,2]\n"
+                + "{\"code\":\"NEW2\",\"name\":\"Tea\",\"price\":{\"amount\":2}}\n"
+                + "{not json\n"
+                + "{\"code\":\"OLD1\",\"name\":\"Salt\",\"price\":\"0.75\",\"quantity_in_store\":4,\"note\":null}\n";
+
+        ProductImporter.Report report = importer.importProducts(new StringReader(jsonl), ProductImporter.Format.JSONL);
+
+        assertThat(report.getRows()).isEqualTo(5);
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(ProductImporter.RowError::getLine).containsExactly(3, 4, 5);
+        assertThat(chunkColumns.get(0)).containsExactly("code", "name", "price", "quantity_in_store");
+        assertThat(chunkRows.get(0).get(1)[2]).isEqualTo(new BigDecimal("0.75"));
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRow() throws Exception {
+        when(inventoryService.importProducts(anyList(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                if (row[0].equals("BAD1")) {
+                    throw new SQLException("Data too long", "22001");
+                }
+            }
+            return rows.size();
+        });
+        String csv = "code,name,price\n"
+                + "NEW1,Milk,1.00\n"
+                + "BAD1,Bread,2.00\n"
+                + "NEW2,Tea,3.00\n";
+
+        ProductImporter.Report report = importer.importProducts(new StringReader(csv), ProductImporter.Format.CSV);
+
+        assertThat(report.getInserted()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getErrors().get(0).getLine()).isEqualTo(3);
+        assertThat(report.getErrors().get(0).getCode()).isEqualTo("BAD1");
+    }
+
+    @Test
+    void connectionFailureDuringRetryAbortsImport() throws Exception {
+        when(inventoryService.importProducts(anyList(), anyList()))
+                .thenThrow(new SQLException("Communications link failure", "08S01"));
+
+        assertThatThrownBy(() -> importer.importProducts(
+                new StringReader("code,name,price\nNEW1,Milk,1.00\n"), ProductImporter.Format.CSV))
+                .isInstanceOf(SQLException.class);
+    }
+
+    @Test
+    void formatFromName() {
+        assertThat(ProductImporter.Format.fromName("CSV")).isEqualTo(ProductImporter.Format.CSV);
+        assertThat(ProductImporter.Format.fromName(" ndjson ")).isEqualTo(ProductImporter.Format.JSONL);
+        assertThatThrownBy(() -> ProductImporter.Format.fromName("xml"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
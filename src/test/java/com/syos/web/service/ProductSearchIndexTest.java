@@ -0,0 +1,147 @@
+package com.syos.web.service;
+
+import com.syos.web.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private ConcurrentInventoryService inventoryService;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = mock(ConcurrentInventoryService.class);
+        index = new ProductSearchIndex(inventoryService);
+        publish(full(1, product("MLK001", "Chocolate Milk"), product("BRD001", "Brown Bread"),
+                product("TEA001", "Green Tea")));
+    }
+
+    @Test
+    void ranksCodeThenNameThenFuzzyMatches() {
+        assertThat(codes("mlk001")).containsExactly("MLK001");
+        assertThat(index.search("MLK", 10).get(0).getMatch()).isEqualTo("code");
+        assertThat(codes("milk choc")).containsExactly("MLK001");
+        assertThat(index.search("chocolte", 10)).extracting(ProductSearchIndex.Result::getMatch)
+                .containsExactly("fuzzy");
+        assertThat(codes("  ")).isEmpty();
+    }
+
+    @Test
+    void changeLogUpdatesOnlyChangedProducts() {
+        codes("milk");
+
+        publish(delta(2, List.of(product("BRD001", "Sourdough Loaf"), product("JAM001", "Strawberry Jam")),
+                List.of("TEA001")));
+
+        // Renamed: found by its new name only, including fuzzy and name-prefix lookups
+        assertThat(codes("sourdough")).containsExactly("BRD001");
+        assertThat(codes("brown")).isEmpty();
+        assertThat(codes("bread")).isEmpty();
+        assertThat(codes("brwn bred")).isEmpty();
+        // Deleted: gone by code, word and trigram
+        assertThat(codes("TEA001")).isEmpty();
+        assertThat(codes("green")).isEmpty();
+        assertThat(codes("gren tea")).isEmpty();
+        // Added
+        assertThat(codes("jam")).containsExactly("JAM001");
+        assertThat(codes("milk")).containsExactly("MLK001");
+        verify(inventoryService).getCatalogChanges(1);
+    }
+
+    @Test
+    void reusedIdDoesNotKeepOldPostings() {
+        codes("milk");
+
+        // The delete frees MLK001's id and the insert takes it over
+        publish(delta(2, List.of(product("SLT001", "Table Salt")), List.of("MLK001")));
+
+        assertThat(codes("salt")).containsExactly("SLT001");
+        assertThat(codes("chocolate")).isEmpty();
+        assertThat(codes("milk")).isEmpty();
+        assertThat(codes("chocolte milk")).isEmpty();
+        assertThat(codes("mlk")).isEmpty();
+        assertThat(codes("slt")).containsExactly("SLT001");
+    }
+
+    @Test
+    void removedPostingsLeaveSameIndexAsFreshBuild() {
+        codes("milk");
+        publish(delta(2, List.of(product("BRD001", "Rye Bread"), product("SLT001", "Table Salt")),
+                List.of("MLK001")));
+        codes("salt");
+
+        ConcurrentInventoryService freshService = mock(ConcurrentInventoryService.class);
+        ProductSearchIndex fresh = new ProductSearchIndex(freshService);
+        when(freshService.getCatalogVersion()).thenReturn(2L);
+        when(freshService.getCatalogChanges(anyLong())).thenReturn(full(2,
+                product("BRD001", "Rye Bread"), product("TEA001", "Green Tea"), product("SLT001", "Table Salt")));
+        fresh.search("salt", 10);
+
+        Map<String, Object> updated = index.getStatistics();
+        Map<String, Object> rebuilt = fresh.getStatistics();
+        assertThat(updated.get("products")).isEqualTo(3);
+        assertThat(updated.get("words")).isEqualTo(rebuilt.get("words"));
+        assertThat(updated.get("trigrams")).isEqualTo(rebuilt.get("trigrams"));
+    }
+
+    @Test
+    void fullDeltaRebuildsTheIndex() {
+        codes("milk");
+
+        // The change log no longer reaches version 1, so the whole catalog comes back
+        publish(full(5, product("MLK002", "Oat Milk")));
+
+        assertThat(codes("milk")).containsExactly("MLK002");
+        assertThat(codes("bread")).isEmpty();
+        assertThat(codes("MLK001")).isEmpty();
+        assertThat(index.getStatistics().get("products")).isEqualTo(1);
+        assertThat(index.getStatistics().get("version")).isEqualTo(5L);
+    }
+
+    @Test
+    void unchangedVersionSkipsTheChangeLog() {
+        codes("milk");
+        codes("tea");
+
+        verify(inventoryService).getCatalogChanges(0);
+        assertThat(index.getStatistics().get("searches")).isEqualTo(2L);
+    }
+
+    private void publish(ConcurrentInventoryService.CatalogDelta delta) {
+        when(inventoryService.getCatalogVersion()).thenReturn(delta.getVersion());
+        when(inventoryService.getCatalogChanges(anyLong())).thenReturn(delta);
+    }
+
+    private List<String> codes(String query) {
+        return index.search(query, 10).stream()
+                .map(ProductSearchIndex.Result::getItemCode)
+                .collect(Collectors.toList());
+    }
+
+    private static ConcurrentInventoryService.CatalogDelta full(long version, Product... products) {
+        return new ConcurrentInventoryService.CatalogDelta(version, true, Arrays.asList(products),
+                Collections.emptyList());
+    }
+
+    private static ConcurrentInventoryService.CatalogDelta delta(long version, List<Product> changed,
+                                                                 List<String> deleted) {
+        return new ConcurrentInventoryService.CatalogDelta(version, false, changed, deleted);
+    }
+
+    private static Product product(String code, String name) {
+        return new Product(code, name, "Grocery", 1.50, 10, 5, 2);
+    }
+}
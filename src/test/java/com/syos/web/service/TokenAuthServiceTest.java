@@ -0,0 +1,98 @@
+package com.syos.web.service;
+
+import com.syos.pos.model.Role;
+import com.syos.web.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenAuthServiceTest {
+
+    private static final String SECRET = "test-secret-shared-by-all-nodes";
+
+    private final TokenAuthService service = TokenAuthService.getInstance();
+
+    @BeforeEach
+    void setUp() {
+        service.enable(SECRET, 3600);
+    }
+
+    @Test
+    void verifyReturnsIssuedClaims() {
+        User user = user(101, Role.CASHIER);
+
+        User verified = service.verify(service.issue(user));
+
+        assertThat(verified).isNotNull();
+        assertThat(verified.getId()).isEqualTo(101);
+        assertThat(verified.getUsername()).isEqualTo("user101");
+        assertThat(verified.getFullName()).isEqualTo("Test User | 101");
+        assertThat(verified.getRole()).isEqualTo(Role.CASHIER);
+    }
+
+    @Test
+    void verifyRejectsTamperedToken() {
+        String token = service.issue(user(102, Role.CASHIER));
+        String forged = service.issue(user(102, Role.ADMIN));
+        String mixed = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertThat(service.verify(mixed)).isNull();
+        assertThat(service.verify("not-a-token")).isNull();
+        assertThat(service.verify("abc.def")).isNull();
+        assertThat(service.verify(null)).isNull();
+    }
+
+    @Test
+    void verifyRejectsTokenSignedWithAnotherSecret() {
+        String token = service.issue(user(103, Role.MANAGER));
+
+        service.enable("another-secret", 3600);
+
+        assertThat(service.verify(token)).isNull();
+    }
+
+    @Test
+    void verifyRejectsExpiredToken() {
+        service.enable(SECRET, 0);
+
+        assertThat(service.verify(service.issue(user(104, Role.MANAGER)))).isNull();
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        User user = user(105, Role.CASHIER);
+        String revoked = service.issue(user);
+        String other = service.issue(user);
+
+        service.revoke(revoked);
+
+        assertThat(service.verify(revoked)).isNull();
+        assertThat(service.verify(other)).isNotNull();
+    }
+
+    @Test
+    void revokeUserRejectsEarlierTokensOnly() throws InterruptedException {
+        User user = user(106, Role.MANAGER);
+        String before = service.issue(user);
+        Thread.sleep(2);
+
+        service.revokeUser(user.getId());
+        Thread.sleep(2);
+        String after = service.issue(user);
+
+        assertThat(service.verify(before)).isNull();
+        // Issued within the same second as the revocation, but later
+        assertThat(service.verify(after)).isNotNull();
+        assertThat(service.verify(service.issue(user(107, Role.MANAGER)))).isNotNull();
+    }
+
+    private static User user(long id, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setFullName("Test User | " + id);
+        user.setRole(role);
+        return user;
+    }
+}